@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller;
+
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.address.model.CertSpec;
+import io.enmasse.address.model.Endpoint;
+import io.enmasse.address.model.Schema;
+import io.enmasse.api.common.SchemaProvider;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+
+import java.util.*;
+
+/**
+ * Remembers the resource list created for each address space, and only creates it again when the spec of the
+ * address space or the schema has changed. The lists returned are shared and must not be modified.
+ */
+public class CachingInfraResourceFactory implements InfraResourceFactory {
+    private static final int maxEntries = 1000;
+    private final InfraResourceFactory delegate;
+    private final SchemaProvider schemaProvider;
+
+    // guarded by this
+    private final Map<String, CachedResources> cache = new LinkedHashMap<String, CachedResources>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CachedResources> eldest) {
+            return size() > maxEntries;
+        }
+    };
+    private Schema cachedSchema;
+
+    private static class CachedResources {
+        final List<Object> spec;
+        final List<HasMetadata> resources;
+
+        CachedResources(List<Object> spec, List<HasMetadata> resources) {
+            this.spec = spec;
+            this.resources = resources;
+        }
+    }
+
+    public CachingInfraResourceFactory(InfraResourceFactory delegate, SchemaProvider schemaProvider) {
+        this.delegate = delegate;
+        this.schemaProvider = schemaProvider;
+    }
+
+    @Override
+    public List<HasMetadata> createResourceList(AddressSpace addressSpace) {
+        Schema schema = schemaProvider.getSchema();
+        String key = addressSpace.getNamespace() + "/" + addressSpace.getName();
+        // Computed before creating the list, as endpoint cert specs are filled in while creating it
+        List<Object> spec = getSpec(addressSpace);
+
+        synchronized (this) {
+            if (schema != cachedSchema) {
+                cache.clear();
+                cachedSchema = schema;
+            }
+            CachedResources cached = cache.get(key);
+            if (cached != null && cached.spec.equals(spec)) {
+                return cached.resources;
+            }
+        }
+
+        List<HasMetadata> resources = Collections.unmodifiableList(delegate.createResourceList(addressSpace));
+        synchronized (this) {
+            if (schema == cachedSchema) {
+                cache.put(key, new CachedResources(spec, resources));
+            }
+        }
+        return resources;
+    }
+
+    private static List<Object> getSpec(AddressSpace addressSpace) {
+        List<Object> endpoints = null;
+        if (addressSpace.getEndpoints() != null) {
+            endpoints = new ArrayList<>();
+            for (Endpoint endpoint : addressSpace.getEndpoints()) {
+                endpoints.add(Arrays.asList(
+                        endpoint.getName(),
+                        endpoint.getService(),
+                        endpoint.getHost().orElse(null),
+                        endpoint.getPort(),
+                        endpoint.getServicePorts(),
+                        endpoint.getCertSpec().map(CertSpec::getProvider).orElse(null),
+                        endpoint.getCertSpec().map(CertSpec::getSecretName).orElse(null)));
+            }
+        }
+        return Arrays.asList(
+                addressSpace.getType(),
+                addressSpace.getPlan(),
+                addressSpace.getAuthenticationService().getType(),
+                new HashMap<>(addressSpace.getAuthenticationService().getDetails()),
+                endpoints);
+    }
+
+    /**
+     * Number of address spaces with a cached resource list.
+     */
+    synchronized int size() {
+        return cache.size();
+    }
+}
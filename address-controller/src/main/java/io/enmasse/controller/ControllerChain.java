@@ -4,7 +4,10 @@
  */
 package io.enmasse.controller;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.enmasse.address.model.AddressSpace;
+import io.enmasse.address.model.v1.CodecV1;
 import io.enmasse.api.common.SchemaProvider;
 import io.enmasse.controller.common.ControllerKind;
 import io.enmasse.controller.common.Kubernetes;
@@ -33,6 +36,7 @@ import static io.enmasse.k8s.api.EventLogger.Type.Warning;
  */
 public class ControllerChain extends AbstractVerticle implements Watcher<AddressSpace> {
     private static final Logger log = LoggerFactory.getLogger(ControllerChain.class.getName());
+    private static final ObjectMapper mapper = CodecV1.getMapper();
 
     private final Kubernetes kubernetes;
     private final AddressSpaceApi addressSpaceApi;
@@ -112,21 +116,40 @@ public class ControllerChain extends AbstractVerticle implements Watcher<Address
             return;
         }
 
+        int numReplaced = 0;
         for (AddressSpace addressSpace : resources) {
             try {
+                // Serialized before handling, as controllers may modify the address space
+                String original = serialize(addressSpace);
                 for (Controller controller : chain) {
                     addressSpace = controller.handle(addressSpace);
                 }
 
-                addressSpaceApi.replaceAddressSpace(addressSpace);
+                if (original == null || !original.equals(serialize(addressSpace))) {
+                    addressSpaceApi.replaceAddressSpace(addressSpace);
+                    numReplaced++;
+                }
             } catch (KubernetesClientException e) {
                 log.warn("Error syncing address space {}", addressSpace.getName(), e);
                 eventLogger.log(AddressSpaceSyncFailed, "Error syncing address space: " + e.getMessage(), Warning, ControllerKind.AddressSpace, addressSpace.getName());
             }
         }
+        log.debug("Replaced {} of {} address spaces", numReplaced, resources.size());
         retainAddressSpaces(resources);
     }
 
+    /**
+     * @return the address space as JSON, or null if it could not be serialized
+     */
+    private static String serialize(AddressSpace addressSpace) {
+        try {
+            return mapper.writeValueAsString(addressSpace);
+        } catch (JsonProcessingException e) {
+            log.debug("Unable to serialize address space {}", addressSpace.getName(), e);
+            return null;
+        }
+    }
+
     private void retainAddressSpaces(Set<AddressSpace> desiredAddressSpaces) {
         if (desiredAddressSpaces.size() == 1 && desiredAddressSpaces.iterator().next().getNamespace().equals(kubernetes.getNamespace())) {
             return;
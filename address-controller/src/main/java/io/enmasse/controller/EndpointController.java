@@ -25,9 +25,11 @@ import java.util.stream.Collectors;
 public class EndpointController implements Controller {
     private static final Logger log = LoggerFactory.getLogger(EndpointController.class.getName());
     private final KubernetesClient client;
+    private final InfraResourceTracker infraResourceTracker;
 
-    public EndpointController(KubernetesClient client) {
+    public EndpointController(KubernetesClient client, InfraResourceTracker infraResourceTracker) {
         this.client = client;
+        this.infraResourceTracker = infraResourceTracker;
     }
 
     @Override
@@ -45,13 +47,12 @@ public class EndpointController implements Controller {
         List<Endpoint> endpoints;
         /* Watch for routes and lb services */
         if (client.isAdaptable(OpenShiftClient.class)) {
-            OpenShiftClient openShiftClient = client.adapt(OpenShiftClient.class);
-            endpoints = openShiftClient.routes().inNamespace(builder.getNamespace()).list().getItems().stream()
+            endpoints = listRoutes(builder.getNamespace()).stream()
                     .filter(route -> isPartOfAddressSpace(builder.getName(), route))
                     .map(this::routeToEndpoint)
                     .collect(Collectors.toList());
         } else {
-            endpoints = client.services().inNamespace(builder.getNamespace()).withLabel(LabelKeys.TYPE, "loadbalancer").list().getItems().stream()
+            endpoints = listLoadBalancerServices(builder.getNamespace()).stream()
                     .filter(service -> isPartOfAddressSpace(builder.getName(), service))
                     .map(this::serviceToEndpoint)
                     .collect(Collectors.toList());
@@ -61,6 +62,20 @@ public class EndpointController implements Controller {
         builder.setEndpointList(endpoints);
     }
 
+    private List<Route> listRoutes(String namespace) {
+        if (infraResourceTracker.hasSynced(namespace)) {
+            return infraResourceTracker.getRoutes(namespace);
+        }
+        return client.adapt(OpenShiftClient.class).routes().inNamespace(namespace).list().getItems();
+    }
+
+    private List<Service> listLoadBalancerServices(String namespace) {
+        if (infraResourceTracker.hasSynced(namespace)) {
+            return infraResourceTracker.getLoadBalancerServices(namespace);
+        }
+        return client.services().inNamespace(namespace).withLabel(LabelKeys.TYPE, "loadbalancer").list().getItems();
+    }
+
     private static boolean isPartOfAddressSpace(String id, HasMetadata resource) {
         return resource.getMetadata().getAnnotations() != null && id.equals(resource.getMetadata().getAnnotations().get(AnnotationKeys.ADDRESS_SPACE));
     }
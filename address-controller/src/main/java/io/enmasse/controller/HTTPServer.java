@@ -10,6 +10,7 @@ import io.enmasse.api.auth.AuthApi;
 import io.enmasse.api.common.JacksonConfig;
 import io.enmasse.api.auth.AuthInterceptor;
 import io.enmasse.api.common.SchemaProvider;
+import io.enmasse.controller.api.v1.AddressCache;
 import io.enmasse.controller.api.v1.http.SwaggerSpecEndpoint;
 import io.enmasse.controller.api.v1.http.HttpAddressService;
 import io.enmasse.controller.api.v1.http.HttpAddressSpaceService;
@@ -47,6 +48,7 @@ public class HTTPServer extends AbstractVerticle {
 
     private HttpServer httpServer;
     private HttpServer httpsServer;
+    private AddressCache addressCache;
 
     public HTTPServer(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, String certDir,
                       AuthApi authApi, boolean enableRbac) {
@@ -74,7 +76,8 @@ public class HTTPServer extends AbstractVerticle {
         }
 
         deployment.getRegistry().addSingletonResource(new SwaggerSpecEndpoint());
-        deployment.getRegistry().addSingletonResource(new HttpAddressService(addressSpaceApi, schemaProvider));
+        addressCache = new AddressCache(addressSpaceApi);
+        deployment.getRegistry().addSingletonResource(new HttpAddressService(addressSpaceApi, schemaProvider, addressCache));
         deployment.getRegistry().addSingletonResource(new HttpSchemaService(schemaProvider));
         deployment.getRegistry().addSingletonResource(new HttpAddressSpaceService(addressSpaceApi, schemaProvider, authApi.getNamespace()));
         deployment.getRegistry().addSingletonResource(new HttpHealthService());
@@ -107,6 +110,9 @@ public class HTTPServer extends AbstractVerticle {
         if (httpsServer != null) {
             httpsServer.close();
         }
+        if (addressCache != null) {
+            addressCache.close();
+        }
     }
 
     private void createSecureServer(VertxRequestHandler requestHandler, Future<Void> startPromise) {
@@ -0,0 +1,209 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller;
+
+import io.enmasse.config.LabelKeys;
+import io.enmasse.controller.common.KubernetesHelper;
+import io.enmasse.k8s.api.cache.ResourceCache;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.Service;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentList;
+import io.fabric8.openshift.api.model.Route;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.fabric8.openshift.client.OpenShiftClient;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tracks the infrastructure of address spaces with watches in their namespaces, indexing ready deployments and
+ * endpoint routes or load balancer services. The watches of a namespace are started when it is first read, which
+ * only needs the admin role the controller has in address space namespaces, and closed by a timer when it has not
+ * been read for a while. Until the watches of a namespace are populated, hasSynced() returns false for it and the
+ * controllers read from the API server instead.
+ */
+public class InfraResourceTracker implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(InfraResourceTracker.class.getName());
+
+    private final NamespacedOpenShiftClient client;
+    private final Clock clock;
+    private final Duration resyncInterval;
+    private final Duration idleTimeout;
+    private final boolean isOpenShift;
+    private final ScheduledExecutorService idleTimer;
+
+    // guarded by this
+    private final Map<String, NamespaceInfra> tracked = new HashMap<>();
+
+    private class NamespaceInfra {
+        private final ResourceCache<Deployment, DeploymentList> deployments;
+        private final ResourceCache<? extends HasMetadata, ?> endpoints;
+        private volatile long lastAccess;
+
+        private volatile Set<String> readyDeployments = null;
+        private volatile List<Route> routes = Collections.emptyList();
+        private volatile List<Service> loadBalancers = Collections.emptyList();
+
+        NamespaceInfra(String namespace) {
+            Runnable updateIndex = this::updateIndex;
+            this.deployments = new ResourceCache<>(client, Deployment.class, ResourceCache::nameOf, c -> c.extensions().deployments().inNamespace(namespace), resyncInterval, updateIndex);
+            if (isOpenShift) {
+                // Routes are only annotated with the address space, so all routes in the namespace are watched
+                this.endpoints = new ResourceCache<>(client, Route.class, ResourceCache::nameOf, c -> c.routes().inNamespace(namespace), resyncInterval, updateIndex);
+            } else {
+                this.endpoints = new ResourceCache<>(client, Service.class, ResourceCache::nameOf, c -> c.services().inNamespace(namespace).withLabel(LabelKeys.TYPE, "loadbalancer"), resyncInterval, updateIndex);
+            }
+        }
+
+        void start() {
+            deployments.start();
+            endpoints.start();
+        }
+
+        void stop() {
+            try {
+                deployments.stop();
+                endpoints.stop();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        /**
+         * Rebuild the index, once both caches are populated.
+         */
+        @SuppressWarnings("unchecked")
+        private synchronized void updateIndex() {
+            if (!deployments.hasSynced() || !endpoints.hasSynced()) {
+                return;
+            }
+
+            Set<String> ready = new HashSet<>();
+            for (Deployment deployment : deployments.list()) {
+                if (deployment.getStatus() != null && KubernetesHelper.isReady(deployment)) {
+                    ready.add(deployment.getMetadata().getName());
+                }
+            }
+
+            if (isOpenShift) {
+                routes = (List<Route>) endpoints.list();
+            } else {
+                loadBalancers = (List<Service>) endpoints.list();
+            }
+            readyDeployments = ready;
+        }
+    }
+
+    public InfraResourceTracker(NamespacedOpenShiftClient client, Clock clock, Duration resyncInterval, Duration idleTimeout) {
+        this.client = client;
+        this.clock = clock;
+        this.resyncInterval = resyncInterval;
+        this.idleTimeout = idleTimeout;
+        this.isOpenShift = client.isAdaptable(OpenShiftClient.class);
+        this.idleTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "infra-tracker-idle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        idleTimer.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Every address space is handled at least once per resync interval, so its namespace is idle after two of them.
+     */
+    public InfraResourceTracker(NamespacedOpenShiftClient client, Duration resyncInterval) {
+        this(client, Clock.systemUTC(), resyncInterval, resyncInterval.multipliedBy(2));
+    }
+
+    private NamespaceInfra getInfra(String namespace) {
+        NamespaceInfra infra;
+        synchronized (this) {
+            infra = tracked.get(namespace);
+            if (infra == null) {
+                // Only starts the watch threads, so that it cannot be closed before being started
+                infra = new NamespaceInfra(namespace);
+                infra.start();
+                tracked.put(namespace, infra);
+                log.debug("Started tracking infrastructure in {}", namespace);
+            }
+            infra.lastAccess = clock.millis();
+        }
+        return infra;
+    }
+
+    /**
+     * Start tracking a namespace, if not tracked yet.
+     *
+     * @return true if the infrastructure of the namespace is indexed
+     */
+    public boolean hasSynced(String namespace) {
+        return getInfra(namespace).readyDeployments != null;
+    }
+
+    /**
+     * @return names of the ready deployments in a namespace
+     */
+    public Set<String> getReadyDeployments(String namespace) {
+        Set<String> readyDeployments = getInfra(namespace).readyDeployments;
+        if (readyDeployments == null) {
+            return Collections.emptySet();
+        }
+        return Collections.unmodifiableSet(readyDeployments);
+    }
+
+    public List<Route> getRoutes(String namespace) {
+        return getInfra(namespace).routes;
+    }
+
+    public List<Service> getLoadBalancerServices(String namespace) {
+        return getInfra(namespace).loadBalancers;
+    }
+
+    /**
+     * Stop tracking the namespaces that have not been read within the idle timeout.
+     */
+    void closeIdle() {
+        long now = clock.millis();
+        List<NamespaceInfra> idle = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, NamespaceInfra>> it = tracked.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, NamespaceInfra> entry = it.next();
+                if (now - entry.getValue().lastAccess > idleTimeout.toMillis()) {
+                    log.debug("Stopped tracking idle infrastructure in {}", entry.getKey());
+                    it.remove();
+                    idle.add(entry.getValue());
+                }
+            }
+        }
+        idle.forEach(NamespaceInfra::stop);
+    }
+
+    /**
+     * Number of namespaces being tracked.
+     */
+    synchronized int size() {
+        return tracked.size();
+    }
+
+    @Override
+    public void close() {
+        idleTimer.shutdownNow();
+        List<NamespaceInfra> infras;
+        synchronized (this) {
+            infras = new ArrayList<>(tracked.values());
+            tracked.clear();
+        }
+        infras.forEach(NamespaceInfra::stop);
+    }
+}
@@ -10,6 +10,7 @@ import java.util.*;
 
 import io.enmasse.address.model.*;
 import io.enmasse.api.auth.AuthApi;
+import io.enmasse.api.auth.CachingAuthApi;
 import io.enmasse.api.auth.KubeAuthApi;
 import io.enmasse.api.common.CachingSchemaProvider;
 import io.enmasse.controller.auth.*;
@@ -48,7 +49,7 @@ public class Main extends AbstractVerticle {
         CachingSchemaProvider schemaProvider = new CachingSchemaProvider(schemaApi);
         schemaApi.watchSchema(schemaProvider, options.getResyncInterval());
         Kubernetes kubernetes = new KubernetesHelper(options.getNamespace(), controllerClient, options.getToken(), options.getEnvironment(), options.getTemplateDir(), options.getAddressControllerSa(), options.getAddressSpaceAdminSa(), options.isEnableRbac(), options.getImpersonateUser());
-        AuthApi authApi = new KubeAuthApi(controllerClient, options.getImpersonateUser(), options.getToken());
+        AuthApi authApi = new CachingAuthApi(new KubeAuthApi(controllerClient, options.getImpersonateUser(), options.getToken()));
 
         AddressSpaceApi addressSpaceApi = new ConfigMapAddressSpaceApi(controllerClient);
         EventLogger eventLogger = options.isEnableEventLogger() ? new KubeEventLogger(controllerClient, controllerClient.getNamespace(), Clock.systemUTC(), "enmasse-controller")
@@ -61,10 +62,12 @@ public class Main extends AbstractVerticle {
 
         InfraResourceFactory infraResourceFactory = new TemplateInfraResourceFactory(kubernetes, schemaProvider, resolverFactory, authController.getDefaultCertProvider());
 
+        InfraResourceTracker infraResourceTracker = new InfraResourceTracker(controllerClient, options.getResyncInterval());
+
         ControllerChain controllerChain = new ControllerChain(kubernetes, addressSpaceApi, schemaProvider, eventLogger, options.getRecheckInterval(), options.getResyncInterval());
         controllerChain.addController(new CreateController(kubernetes, schemaProvider, infraResourceFactory, kubernetes.getNamespace(), eventLogger));
-        controllerChain.addController(new StatusController(kubernetes, infraResourceFactory));
-        controllerChain.addController(new EndpointController(controllerClient));
+        controllerChain.addController(new StatusController(kubernetes, new CachingInfraResourceFactory(infraResourceFactory, schemaProvider), infraResourceTracker));
+        controllerChain.addController(new EndpointController(controllerClient, infraResourceTracker));
         controllerChain.addController(authController);
 
         deployVerticles(startPromise,
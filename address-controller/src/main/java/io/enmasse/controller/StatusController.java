@@ -14,10 +14,12 @@ import java.util.stream.Collectors;
 public class StatusController implements Controller {
     private final Kubernetes kubernetes;
     private final InfraResourceFactory infraResourceFactory;
+    private final InfraResourceTracker infraResourceTracker;
 
-    public StatusController(Kubernetes kubernetes, InfraResourceFactory infraResourceFactory) {
+    public StatusController(Kubernetes kubernetes, InfraResourceFactory infraResourceFactory, InfraResourceTracker infraResourceTracker) {
         this.kubernetes = kubernetes;
         this.infraResourceFactory = infraResourceFactory;
+        this.infraResourceTracker = infraResourceTracker;
     }
 
     @Override
@@ -30,9 +32,7 @@ public class StatusController implements Controller {
     }
 
     private boolean isReady(AddressSpace addressSpace) {
-        Set<String> readyDeployments = kubernetes.withNamespace(addressSpace.getNamespace()).getReadyDeployments().stream()
-                .map(deployment -> deployment.getMetadata().getName())
-                .collect(Collectors.toSet());
+        Set<String> readyDeployments = getReadyDeployments(addressSpace.getNamespace());
 
         Set<String> requiredDeployments = infraResourceFactory.createResourceList(addressSpace).stream()
                 .filter(KubernetesHelper::isDeployment)
@@ -42,6 +42,15 @@ public class StatusController implements Controller {
         return readyDeployments.containsAll(requiredDeployments);
     }
 
+    private Set<String> getReadyDeployments(String namespace) {
+        if (infraResourceTracker.hasSynced(namespace)) {
+            return infraResourceTracker.getReadyDeployments(namespace);
+        }
+        return kubernetes.withNamespace(namespace).getReadyDeployments().stream()
+                .map(deployment -> deployment.getMetadata().getName())
+                .collect(Collectors.toSet());
+    }
+
     @Override
     public String toString() {
         return "EndpointController";
@@ -4,10 +4,7 @@
  */
 package io.enmasse.controller.api.v1;
 
-import java.io.IOException;
-import java.util.HashSet;
-import java.util.Optional;
-import java.util.Set;
+import java.util.*;
 
 import javax.ws.rs.BadRequestException;
 import javax.ws.rs.NotFoundException;
@@ -31,10 +28,12 @@ public class AddressApiHelper {
     private static final Logger log = LoggerFactory.getLogger(AddressApiHelper.class.getName());
     private final AddressSpaceApi addressSpaceApi;
     private final SchemaProvider schemaProvider;
+    private final AddressCache addressCache;
 
-    public AddressApiHelper(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider) {
+    public AddressApiHelper(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, AddressCache addressCache) {
         this.addressSpaceApi = addressSpaceApi;
         this.schemaProvider = schemaProvider;
+        this.addressCache = addressCache;
     }
 
     private void verifyAuthorized(SecurityContext securityContext, AddressSpace addressSpace, ResourceVerb verb) {
@@ -43,50 +42,82 @@ public class AddressApiHelper {
         }
     }
 
-    public AddressList getAddresses(SecurityContext securityContext, String addressSpaceId) throws IOException {
+    public AddressList getAddresses(SecurityContext securityContext, String addressSpaceId) throws Exception {
+        return getAddressIndex(securityContext, addressSpaceId).toList();
+    }
+
+    public AddressIndex getAddressIndex(SecurityContext securityContext, String addressSpaceId) throws Exception {
         Optional<AddressSpace> addressSpace = addressSpaceApi.getAddressSpaceWithName(addressSpaceId);
         if (!addressSpace.isPresent()) {
             throw new NotFoundException("Address space with id " + addressSpaceId + " not found");
         }
         verifyAuthorized(securityContext, addressSpace.get(), ResourceVerb.list);
-        return new AddressList(addressSpaceApi.withAddressSpace(addressSpace.get()).listAddresses());
+        return addressCache.getIndex(addressSpace.get());
     }
 
     public AddressList putAddresses(SecurityContext securityContext, String addressSpaceId, AddressList addressList) throws Exception {
         AddressSpace addressSpace = getAddressSpace(addressSpaceId);
         verifyAuthorized(securityContext, addressSpace, ResourceVerb.create);
-        validateAddresses(addressSpace, addressList);
         AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
-
-        Set<Address> toRemove = new HashSet<>(addressApi.listAddresses());
-        toRemove.removeAll(addressList);
-        toRemove.forEach(addressApi::deleteAddress);
-        addressList.forEach(addressApi::createAddress);
-        return new AddressList(addressApi.listAddresses());
+        Set<Address> existingAddresses = addressApi.listAddresses();
+        validateAddresses(addressSpace, addressList, existingAddresses);
+
+        Set<Address> toRemove = new HashSet<>(existingAddresses);
+        toRemove.removeAll(new HashSet<>(addressList));
+        try {
+            toRemove.forEach(addressApi::deleteAddress);
+            addressApi.createAddresses(addressList);
+        } finally {
+            addressCache.invalidate(addressSpace);
+        }
+        Set<Address> remaining = new LinkedHashSet<>(existingAddresses);
+        remaining.removeAll(toRemove);
+        return mergeAddresses(remaining, addressList);
     }
 
-    private void validateAddresses(AddressSpace addressSpace, AddressList addressList) {
+    /**
+     * Validate addresses to be created, checking that no address is already used by another resource, either
+     * in the address space or in the request.
+     */
+    private void validateAddresses(AddressSpace addressSpace, AddressList addressList, Set<Address> existingAddresses) {
         Schema schema = schemaProvider.getSchema();
         AddressSpaceType type = schema.findAddressSpaceType(addressSpace.getType()).orElseThrow(() -> new UnresolvedAddressSpaceException("Unable to resolve address space type " + addressSpace.getType()));
 
         AddressResolver addressResolver = new AddressResolver(schema, type);
-        Set<Address> existingAddresses = addressSpaceApi.withAddressSpace(addressSpace).listAddresses();
+        Map<String, Address> existingByAddress = new HashMap<>();
+        for (Address existing : existingAddresses) {
+            existingByAddress.put(existing.getAddress(), existing);
+        }
+
+        Map<String, Address> requestedByAddress = new HashMap<>();
         for (Address address : addressList) {
             addressResolver.validate(address);
-            for (Address existing : existingAddresses) {
-                if (address.getAddress().equals(existing.getAddress()) && !address.getName().equals(existing.getName())) {
-                    throw new BadRequestException("Address '" + address.getAddress() + "' already exists with resource name '" + existing.getName() + "'");
-                }
+            Address existing = existingByAddress.get(address.getAddress());
+            if (existing != null && !address.getName().equals(existing.getName())) {
+                throw new BadRequestException("Address '" + address.getAddress() + "' already exists with resource name '" + existing.getName() + "'");
             }
 
-            for (Address b : addressList) {
-                if (address.getAddress().equals(b.getAddress()) && !address.getName().equals(b.getName())) {
-                    throw new BadRequestException("Address '" + address.getAddress() + "' defined in resource names '" + address.getName() + "' and '" + b.getName() + "'");
-                }
+            Address previous = requestedByAddress.putIfAbsent(address.getAddress(), address);
+            if (previous != null && !address.getName().equals(previous.getName())) {
+                throw new BadRequestException("Address '" + address.getAddress() + "' defined in resource names '" + previous.getName() + "' and '" + address.getName() + "'");
             }
         }
     }
 
+    /**
+     * The addresses of a space after creating addresses, without listing them again.
+     */
+    private static AddressList mergeAddresses(Set<Address> existingAddresses, AddressList created) {
+        Map<String, Address> byName = new LinkedHashMap<>();
+        for (Address address : existingAddresses) {
+            byName.put(address.getName(), address);
+        }
+        for (Address address : created) {
+            byName.put(address.getName(), address);
+        }
+        return new AddressList(new LinkedHashSet<>(byName.values()));
+    }
+
     private AddressSpace getAddressSpace(String addressSpaceId) throws Exception {
         // TODO: Make our own exception for this API
         return addressSpaceApi.getAddressSpaceWithName(addressSpaceId)
@@ -96,26 +127,33 @@ public class AddressApiHelper {
     public Optional<Address> getAddress(SecurityContext securityContext, String addressSpaceId, String address) throws Exception {
         AddressSpace addressSpace = getAddressSpace(addressSpaceId);
         verifyAuthorized(securityContext, addressSpace, ResourceVerb.get);
-        return addressSpaceApi.withAddressSpace(addressSpace).getAddressWithName(address);
+        return addressCache.getIndex(addressSpace).getByName(address);
     }
 
     public AddressList deleteAddress(SecurityContext securityContext, String addressSpaceId, String name) throws Exception {
         AddressSpace addressSpace = getAddressSpace(addressSpaceId);
         verifyAuthorized(securityContext, addressSpace, ResourceVerb.delete);
         AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
-        addressApi.getAddressWithName(name).ifPresent(addressApi::deleteAddress);
+        try {
+            addressApi.getAddressWithName(name).ifPresent(addressApi::deleteAddress);
+        } finally {
+            addressCache.invalidate(addressSpace);
+        }
         return new AddressList(addressApi.listAddresses());
     }
 
     public AddressList appendAddresses(SecurityContext securityContext, String addressSpaceId, AddressList addressList) throws Exception {
         AddressSpace addressSpace = getAddressSpace(addressSpaceId);
         verifyAuthorized(securityContext, addressSpace, ResourceVerb.create);
-        validateAddresses(addressSpace, addressList);
         AddressApi addressApi = addressSpaceApi.withAddressSpace(addressSpace);
-        for (Address address : addressList) {
-            addressApi.createAddress(address);
+        Set<Address> existingAddresses = addressApi.listAddresses();
+        validateAddresses(addressSpace, addressList, existingAddresses);
+        try {
+            addressApi.createAddresses(addressList);
+        } finally {
+            addressCache.invalidate(addressSpace);
         }
-        return new AddressList(addressApi.listAddresses());
+        return mergeAddresses(existingAddresses, addressList);
     }
 
 }
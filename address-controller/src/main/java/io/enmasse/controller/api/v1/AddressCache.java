@@ -0,0 +1,194 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.api.v1;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.k8s.api.AddressSpaceApi;
+import io.enmasse.k8s.api.Watch;
+import io.enmasse.k8s.api.Watcher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serves address reads of the REST API from a watch per address space. A watch is started when an address space
+ * is first read, and closed by a timer when it has not been read for a while. Until the watch has delivered the
+ * addresses, and for a short while after addresses are modified through the API, reads go to the API server instead
+ * so that clients always see their own writes.
+ */
+public class AddressCache implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AddressCache.class.getName());
+
+    private final AddressSpaceApi addressSpaceApi;
+    private final Clock clock;
+    private final Duration resyncInterval;
+    private final Duration idleTimeout;
+    private final Duration writeGracePeriod;
+    private final ScheduledExecutorService idleTimer;
+
+    // guarded by this
+    private final Map<String, CachedAddressSpace> cached = new HashMap<>();
+
+    private static class CachedAddressSpace implements Watcher<Address> {
+        private volatile AddressIndex index;
+        private volatile long lastAccess;
+        private volatile long bypassUntil;
+        // guarded by the cache, null while the watch is being started
+        private Watch watch;
+
+        @Override
+        public void onUpdate(Set<Address> items) {
+            index = new AddressIndex(items);
+        }
+    }
+
+    public AddressCache(AddressSpaceApi addressSpaceApi, Clock clock, Duration resyncInterval, Duration idleTimeout, Duration writeGracePeriod) {
+        this.addressSpaceApi = addressSpaceApi;
+        this.clock = clock;
+        this.resyncInterval = resyncInterval;
+        this.idleTimeout = idleTimeout;
+        this.writeGracePeriod = writeGracePeriod;
+        this.idleTimer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "address-cache-idle");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = Math.max(1, idleTimeout.toMillis() / 2);
+        idleTimer.scheduleWithFixedDelay(this::closeIdle, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    public AddressCache(AddressSpaceApi addressSpaceApi) {
+        this(addressSpaceApi, Clock.systemUTC(), Duration.ofMinutes(5), Duration.ofMinutes(10), Duration.ofSeconds(5));
+    }
+
+    public AddressIndex getIndex(AddressSpace addressSpace) throws Exception {
+        long now = clock.millis();
+        String key = getKey(addressSpace);
+        CachedAddressSpace entry;
+        boolean startWatch = false;
+        synchronized (this) {
+            entry = cached.get(key);
+            if (entry == null) {
+                entry = new CachedAddressSpace();
+                cached.put(key, entry);
+                startWatch = true;
+            }
+            entry.lastAccess = now;
+        }
+
+        // Started without holding the lock, concurrent reads go to the API server until the watch has synced
+        if (startWatch) {
+            startWatch(key, addressSpace, entry);
+        }
+
+        AddressIndex index = entry.index;
+        if (index == null || now < entry.bypassUntil) {
+            index = new AddressIndex(addressSpaceApi.withAddressSpace(addressSpace).listAddresses());
+        }
+        return index;
+    }
+
+    /**
+     * Make reads of an address space bypass the cache until the watch has seen the modifications just made.
+     */
+    public void invalidate(AddressSpace addressSpace) {
+        CachedAddressSpace entry;
+        synchronized (this) {
+            entry = cached.get(getKey(addressSpace));
+        }
+        if (entry != null) {
+            entry.bypassUntil = clock.millis() + writeGracePeriod.toMillis();
+        }
+    }
+
+    private void startWatch(String key, AddressSpace addressSpace, CachedAddressSpace entry) {
+        Watch watch;
+        try {
+            watch = addressSpaceApi.withAddressSpace(addressSpace).watchAddresses(entry, resyncInterval);
+            log.debug("Started watching addresses in {}", key);
+        } catch (Exception e) {
+            log.warn("Error watching addresses in {}, reading from API server", key, e);
+            synchronized (this) {
+                cached.remove(key, entry);
+            }
+            return;
+        }
+
+        boolean removed;
+        synchronized (this) {
+            removed = cached.get(key) != entry;
+            if (!removed) {
+                entry.watch = watch;
+            }
+        }
+        // closed or idle while starting
+        if (removed) {
+            closeWatches(Collections.singletonList(watch));
+        }
+    }
+
+    /**
+     * Close the watches of address spaces that have not been read within the idle timeout.
+     */
+    void closeIdle() {
+        long now = clock.millis();
+        List<Watch> idle = new ArrayList<>();
+        synchronized (this) {
+            Iterator<Map.Entry<String, CachedAddressSpace>> it = cached.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, CachedAddressSpace> entry = it.next();
+                if (now - entry.getValue().lastAccess > idleTimeout.toMillis()) {
+                    log.debug("Stopped watching idle addresses in {}", entry.getKey());
+                    it.remove();
+                    idle.add(entry.getValue().watch);
+                }
+            }
+        }
+        closeWatches(idle);
+    }
+
+    private static String getKey(AddressSpace addressSpace) {
+        return addressSpace.getNamespace() + "/" + addressSpace.getName();
+    }
+
+    private static void closeWatches(Collection<Watch> watches) {
+        for (Watch watch : watches) {
+            if (watch != null) {
+                try {
+                    watch.close();
+                } catch (Exception e) {
+                    log.warn("Error closing address watch", e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Number of address spaces being watched.
+     */
+    synchronized int size() {
+        return cached.size();
+    }
+
+    @Override
+    public void close() {
+        idleTimer.shutdownNow();
+        List<Watch> watches = new ArrayList<>();
+        synchronized (this) {
+            for (CachedAddressSpace entry : cached.values()) {
+                watches.add(entry.watch);
+            }
+            cached.clear();
+        }
+        closeWatches(watches);
+    }
+}
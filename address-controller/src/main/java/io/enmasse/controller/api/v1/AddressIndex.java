@@ -0,0 +1,65 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.api.v1;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.AddressList;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Immutable snapshot of the addresses in an address space, indexed by resource name and address. The
+ * version changes whenever an address is added, removed or modified, and is used as the entity tag of lists.
+ */
+public class AddressIndex {
+    private final Set<Address> addresses;
+    private final Map<String, Address> byName = new HashMap<>();
+    private final Map<String, Address> byAddress = new HashMap<>();
+    private final String version;
+
+    public AddressIndex(Set<Address> addresses) {
+        this.addresses = Collections.unmodifiableSet(new LinkedHashSet<>(addresses));
+        for (Address address : this.addresses) {
+            byName.put(address.getName(), address);
+            byAddress.put(address.getAddress(), address);
+        }
+        this.version = computeVersion(byName);
+    }
+
+    private static String computeVersion(Map<String, Address> byName) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String name : new TreeSet<>(byName.keySet())) {
+                digest.update((name + ":" + byName.get(name).getVersion() + "\n").getBytes(StandardCharsets.UTF_8));
+            }
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public AddressList toList() {
+        return new AddressList(addresses);
+    }
+
+    public Set<Address> getAddresses() {
+        return addresses;
+    }
+
+    public Optional<Address> getByName(String name) {
+        return Optional.ofNullable(byName.get(name));
+    }
+
+    public Optional<Address> getByAddress(String address) {
+        return Optional.ofNullable(byAddress.get(address));
+    }
+
+    public String getVersion() {
+        return version;
+    }
+}
@@ -8,6 +8,8 @@ import io.enmasse.address.model.v1.Either;
 import io.enmasse.api.common.Exceptions;
 import io.enmasse.api.common.SchemaProvider;
 import io.enmasse.controller.api.v1.AddressApiHelper;
+import io.enmasse.controller.api.v1.AddressCache;
+import io.enmasse.controller.api.v1.AddressIndex;
 import io.enmasse.address.model.Address;
 import io.enmasse.address.model.AddressList;
 import io.enmasse.k8s.api.AddressSpaceApi;
@@ -17,7 +19,9 @@ import org.slf4j.LoggerFactory;
 import javax.validation.constraints.NotNull;
 import javax.ws.rs.*;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
 import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 import java.util.concurrent.Callable;
@@ -30,8 +34,8 @@ public class HttpAddressService {
     private static final Logger log = LoggerFactory.getLogger(HttpAddressService.class.getName());
     private final AddressApiHelper apiHelper;
 
-    public HttpAddressService(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider) {
-        this.apiHelper = new AddressApiHelper(addressSpaceApi, schemaProvider);
+    public HttpAddressService(AddressSpaceApi addressSpaceApi, SchemaProvider schemaProvider, AddressCache addressCache) {
+        this.apiHelper = new AddressApiHelper(addressSpaceApi, schemaProvider, addressCache);
     }
 
     private Response doRequest(String errorMessage, Callable<Response> request) throws Exception {
@@ -46,18 +50,15 @@ public class HttpAddressService {
     @GET
     @Produces({MediaType.APPLICATION_JSON})
     @Consumes({MediaType.APPLICATION_JSON})
-    public Response getAddressList(@Context SecurityContext securityContext, @PathParam("addressSpace") String addressSpace, @QueryParam("address") String address) throws Exception {
+    public Response getAddressList(@Context SecurityContext securityContext, @Context Request request, @PathParam("addressSpace") String addressSpace, @QueryParam("address") String address) throws Exception {
         return doRequest("Error listing addresses",() -> {
-            AddressList list = apiHelper.getAddresses(securityContext, addressSpace);
+            AddressIndex index = apiHelper.getAddressIndex(securityContext, addressSpace);
             if (address == null) {
-                return Response.ok(list).build();
+                return conditionalResponse(request, index.toList(), new EntityTag(index.getVersion()));
             } else {
-                for (Address entity : list) {
-                    if (entity.getAddress().equals(address)) {
-                        return Response.ok(entity).build();
-                    }
-                }
-                throw new NotFoundException("Address " + address + " not found");
+                Address entity = index.getByAddress(address)
+                        .orElseThrow(() -> new NotFoundException("Address " + address + " not found"));
+                return conditionalResponse(request, entity, getEntityTag(entity));
             }
         });
     }
@@ -66,11 +67,30 @@ public class HttpAddressService {
     @Produces({MediaType.APPLICATION_JSON})
     @Consumes({MediaType.APPLICATION_JSON})
     @Path("{address}")
-    public Response getAddress(@Context SecurityContext securityContext, @PathParam("addressSpace") String addressSpaceName, @PathParam("address") String address) throws Exception {
-        return doRequest("Error getting address",
-                () -> Response.ok(apiHelper.getAddress(securityContext, addressSpaceName, address)
-                        .orElseThrow(() -> Exceptions.notFoundException("Address " + address + " not found")))
-                        .build());
+    public Response getAddress(@Context SecurityContext securityContext, @Context Request request, @PathParam("addressSpace") String addressSpaceName, @PathParam("address") String address) throws Exception {
+        return doRequest("Error getting address", () -> {
+            Address entity = apiHelper.getAddress(securityContext, addressSpaceName, address)
+                    .orElseThrow(() -> Exceptions.notFoundException("Address " + address + " not found"));
+            return conditionalResponse(request, entity, getEntityTag(entity));
+        });
+    }
+
+    private static EntityTag getEntityTag(Address address) {
+        return address.getVersion() != null ? new EntityTag(address.getVersion()) : null;
+    }
+
+    /**
+     * Respond with 304 Not Modified if the client already has the current version of the entity.
+     */
+    private static Response conditionalResponse(Request request, Object entity, EntityTag tag) {
+        if (tag == null) {
+            return Response.ok(entity).build();
+        }
+        Response.ResponseBuilder notModified = request.evaluatePreconditions(tag);
+        if (notModified != null) {
+            return notModified.build();
+        }
+        return Response.ok(entity).tag(tag).build();
     }
 
     @POST
@@ -45,8 +45,13 @@ public class KubernetesHelper implements Kubernetes {
     private final String addressSpaceAdminSa;
     private final boolean enableRbac;
     private final String impersonateUser;
+    private final TemplateCache templateCache;
 
     public KubernetesHelper(String namespace, NamespacedOpenShiftClient client, String token, String environment, File templateDir, String addressControllerSa, String addressSpaceAdminSa, boolean enableRbac, String impersonateUser) {
+        this(namespace, client, token, environment, templateDir, addressControllerSa, addressSpaceAdminSa, enableRbac, impersonateUser, new TemplateCache());
+    }
+
+    private KubernetesHelper(String namespace, NamespacedOpenShiftClient client, String token, String environment, File templateDir, String addressControllerSa, String addressSpaceAdminSa, boolean enableRbac, String impersonateUser, TemplateCache templateCache) {
         this.client = client;
         this.namespace = namespace;
         this.controllerToken = token;
@@ -56,6 +61,7 @@ public class KubernetesHelper implements Kubernetes {
         this.addressSpaceAdminSa = addressSpaceAdminSa;
         this.enableRbac = enableRbac;
         this.impersonateUser = impersonateUser;
+        this.templateCache = templateCache;
     }
 
     @Override
@@ -117,13 +123,13 @@ public class KubernetesHelper implements Kubernetes {
 
     @Override
     public Kubernetes withNamespace(String namespace) {
-        return new KubernetesHelper(namespace, client, controllerToken, environment, templateDir, addressControllerSa, addressSpaceAdminSa, enableRbac, impersonateUser);
+        return new KubernetesHelper(namespace, client, controllerToken, environment, templateDir, addressControllerSa, addressSpaceAdminSa, enableRbac, impersonateUser, templateCache);
     }
 
     @Override
     public KubernetesList processTemplate(String templateName, ParameterValue... parameterValues) {
         File templateFile = new File(templateDir, templateName + TEMPLATE_SUFFIX);
-        return client.templates().load(templateFile).processLocally(parameterValues);
+        return templateCache.process(templateFile, parameterValues);
     }
 
     @Override
@@ -464,7 +470,7 @@ public class KubernetesHelper implements Kubernetes {
         return doRawHttpRequest(apiPath + "/clusterroles/" + roleName, "GET", null, true, null) != null;
     }
 
-    private static boolean isReady(Deployment deployment) {
+    public static boolean isReady(Deployment deployment) {
         Integer unavailableReplicas = deployment.getStatus().getUnavailableReplicas();
         return unavailableReplicas == null || unavailableReplicas == 0;
     }
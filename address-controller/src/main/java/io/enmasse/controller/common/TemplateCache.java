@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.kubernetes.api.model.KubernetesListBuilder;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.utils.Serialization;
+import io.fabric8.openshift.api.model.Parameter;
+import io.fabric8.openshift.api.model.Template;
+import io.fabric8.openshift.client.ParameterValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.*;
+
+/**
+ * Processes templates locally, parsing each template file only once. A template is parsed again if its file
+ * has been modified. Parameters are substituted the same way as the client does when processing locally. Template
+ * files are read like the client loads them, in JSON or YAML, without needing a connection to the cluster.
+ */
+public class TemplateCache {
+    private static final Logger log = LoggerFactory.getLogger(TemplateCache.class.getName());
+    private static final ObjectMapper mapper = new ObjectMapper();
+
+    private final Map<File, ParsedTemplate> templates = new HashMap<>();
+
+    private static class ParsedTemplate {
+        final long lastModified;
+        final String objects;
+        final List<Parameter> parameters;
+
+        ParsedTemplate(long lastModified, String objects, List<Parameter> parameters) {
+            this.lastModified = lastModified;
+            this.objects = objects;
+            this.parameters = parameters;
+        }
+    }
+
+    public KubernetesList process(File templateFile, ParameterValue ... parameterValues) {
+        ParsedTemplate template = getTemplate(templateFile);
+
+        Map<String, String> values = new HashMap<>();
+        for (ParameterValue parameterValue : parameterValues) {
+            values.put(parameterValue.getName(), parameterValue.getValue());
+        }
+
+        String json = template.objects;
+        for (Parameter parameter : template.parameters) {
+            String name = parameter.getName();
+            String placeholder = "${" + name + "}";
+            String value;
+            if (values.containsKey(name)) {
+                value = values.get(name);
+            } else if (parameter.getValue() != null && !parameter.getValue().isEmpty()) {
+                value = parameter.getValue();
+            } else if (parameter.getFrom() != null && !parameter.getFrom().isEmpty()) {
+                value = placeholder;
+            } else if (Boolean.TRUE.equals(parameter.getRequired())) {
+                throw new KubernetesClientException("Required parameter: " + name + " not specified in template " + templateFile);
+            } else {
+                value = "";
+            }
+            json = json.replace(placeholder, value);
+        }
+
+        try {
+            return mapper.readValue(json, KubernetesList.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized ParsedTemplate getTemplate(File templateFile) {
+        long lastModified = templateFile.lastModified();
+        ParsedTemplate template = templates.get(templateFile);
+        if (template == null || template.lastModified != lastModified) {
+            log.debug("Parsing template {}", templateFile);
+            template = parse(templateFile, lastModified);
+            templates.put(templateFile, template);
+        }
+        return template;
+    }
+
+    private ParsedTemplate parse(File templateFile, long lastModified) {
+        Template template;
+        try (InputStream input = new FileInputStream(templateFile)) {
+            template = Serialization.unmarshal(input, Template.class);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        List<HasMetadata> objects = template.getObjects() != null ? template.getObjects() : Collections.emptyList();
+        List<Parameter> parameters = template.getParameters() != null ? template.getParameters() : Collections.emptyList();
+        try {
+            String json = mapper.writeValueAsString(new KubernetesListBuilder().withItems(objects).build());
+            return new ParsedTemplate(lastModified, json, new ArrayList<>(parameters));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
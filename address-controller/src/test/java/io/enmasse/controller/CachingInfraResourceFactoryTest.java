@@ -0,0 +1,81 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller;
+
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.address.model.Endpoint;
+import io.enmasse.address.model.Schema;
+import io.enmasse.api.common.SchemaProvider;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class CachingInfraResourceFactoryTest {
+    private InfraResourceFactory delegate;
+    private SchemaProvider schemaProvider;
+    private CachingInfraResourceFactory factory;
+
+    @Before
+    public void setup() {
+        delegate = mock(InfraResourceFactory.class);
+        schemaProvider = mock(SchemaProvider.class);
+        when(schemaProvider.getSchema()).thenReturn(mock(Schema.class));
+        when(delegate.createResourceList(any())).thenAnswer(invocation -> Collections.singletonList(new DeploymentBuilder()
+                .withNewMetadata()
+                .withName("admin." + ((AddressSpace) invocation.getArguments()[0]).getName())
+                .endMetadata()
+                .build()));
+        factory = new CachingInfraResourceFactory(delegate, schemaProvider);
+    }
+
+    private static AddressSpace createAddressSpace(String name, String plan) {
+        return new AddressSpace.Builder()
+                .setName(name)
+                .setNamespace("mynamespace")
+                .setType("standard")
+                .setPlan(plan)
+                .setEndpointList(Collections.singletonList(new Endpoint.Builder()
+                        .setName("messaging")
+                        .setService("messaging")
+                        .build()))
+                .build();
+    }
+
+    @Test
+    public void testResourcesCachedUntilSpecChanged() {
+        List<HasMetadata> resources = factory.createResourceList(createAddressSpace("space1", "small"));
+        assertThat(resources.get(0).getMetadata().getName(), is("admin.space1"));
+
+        factory.createResourceList(createAddressSpace("space1", "small"));
+        factory.createResourceList(createAddressSpace("space1", "small"));
+        verify(delegate, times(1)).createResourceList(any());
+
+        factory.createResourceList(createAddressSpace("space2", "small"));
+        verify(delegate, times(2)).createResourceList(any());
+        assertThat(factory.size(), is(2));
+
+        factory.createResourceList(createAddressSpace("space1", "large"));
+        verify(delegate, times(3)).createResourceList(any());
+        assertThat(factory.size(), is(2));
+    }
+
+    @Test
+    public void testCacheClearedOnSchemaChange() {
+        factory.createResourceList(createAddressSpace("space1", "small"));
+        when(schemaProvider.getSchema()).thenReturn(mock(Schema.class));
+        factory.createResourceList(createAddressSpace("space1", "small"));
+        factory.createResourceList(createAddressSpace("space1", "small"));
+        verify(delegate, times(2)).createResourceList(any());
+    }
+}
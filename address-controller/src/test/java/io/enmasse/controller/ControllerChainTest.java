@@ -78,5 +78,37 @@ public class ControllerChainTest {
         verify(mockController).handle(eq(a2));
     }
 
-}
+    @Test
+    public void testOnlyChangedAddressSpacesReplaced() throws Exception {
+        TestAddressSpaceApi api = spy(testApi);
+        ControllerChain controllerChain = new ControllerChain(kubernetes, api, new TestSchemaProvider(), mock(EventLogger.class), Duration.ofSeconds(5), Duration.ofSeconds(5));
 
+        AddressSpace a1 = new AddressSpace.Builder()
+                .setName("myspace")
+                .setNamespace("mynamespace")
+                .setType("type1")
+                .setPlan("myplan")
+                .setStatus(new Status(false))
+                .build();
+
+        AddressSpace a2 = new AddressSpace.Builder()
+                .setName("myspace2")
+                .setNamespace("mynamespace2")
+                .setType("type1")
+                .setPlan("myplan")
+                .setStatus(new Status(false))
+                .build();
+
+        controllerChain.addController(addressSpace -> {
+            if (addressSpace.getName().equals("myspace2")) {
+                addressSpace.getStatus().setReady(true);
+            }
+            return addressSpace;
+        });
+
+        controllerChain.onUpdate(Sets.newSet(a1, a2));
+
+        verify(api, never()).replaceAddressSpace(eq(a1));
+        verify(api).replaceAddressSpace(eq(a2));
+    }
+}
@@ -14,12 +14,14 @@ import io.fabric8.openshift.api.model.RouteListBuilder;
 import io.fabric8.openshift.client.OpenShiftClient;
 import org.junit.Test;
 
+import java.util.Arrays;
+
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
 
 public class EndpointControllerTest {
 
@@ -37,7 +39,7 @@ public class EndpointControllerTest {
         when(client.isAdaptable(OpenShiftClient.class)).thenReturn(true);
         when(client.adapt(OpenShiftClient.class)).thenReturn(client);
 
-        EndpointController controller = new EndpointController(client);
+        EndpointController controller = new EndpointController(client, mock(InfraResourceTracker.class));
 
         Route route = new RouteBuilder()
                 .editOrNewMetadata()
@@ -71,4 +73,47 @@ public class EndpointControllerTest {
         assertThat(newspace.getEndpoints().get(0).getHost().get(), is("messaging.example.com"));
         assertTrue(newspace.getEndpoints().get(0).getCertSpec().isPresent());
     }
+
+    @Test
+    public void testRoutesFromTracker() {
+        AddressSpace addressSpace = new AddressSpace.Builder()
+                .setName("myspace")
+                .setNamespace("mynamespace")
+                .setType("type1")
+                .setPlan("myplan")
+                .build();
+
+        OpenShiftClient client = mock(OpenShiftClient.class);
+        when(client.isAdaptable(OpenShiftClient.class)).thenReturn(true);
+        InfraResourceTracker infraResourceTracker = mock(InfraResourceTracker.class);
+        when(infraResourceTracker.hasSynced(eq("mynamespace"))).thenReturn(true);
+
+        Route route = new RouteBuilder()
+                .editOrNewMetadata()
+                .withName("messaging")
+                .withNamespace(addressSpace.getNamespace())
+                .addToAnnotations(AnnotationKeys.ADDRESS_SPACE, addressSpace.getName())
+                .endMetadata()
+                .editOrNewSpec()
+                .withHost("messaging.example.com")
+                .withNewTo()
+                .withName("messaging")
+                .endTo()
+                .endSpec()
+                .build();
+        Route otherRoute = new RouteBuilder(route)
+                .editMetadata()
+                .withName("other")
+                .addToAnnotations(AnnotationKeys.ADDRESS_SPACE, "otherspace")
+                .endMetadata()
+                .build();
+        when(infraResourceTracker.getRoutes(eq("mynamespace"))).thenReturn(Arrays.asList(route, otherRoute));
+
+        EndpointController controller = new EndpointController(client, infraResourceTracker);
+        AddressSpace newspace = controller.handle(addressSpace);
+
+        assertThat(newspace.getEndpoints().size(), is(1));
+        assertThat(newspace.getEndpoints().get(0).getName(), is("messaging"));
+        verify(client, never()).routes();
+    }
 }
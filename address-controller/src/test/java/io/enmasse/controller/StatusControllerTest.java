@@ -15,9 +15,9 @@ import java.util.Collections;
 
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
-import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.*;
 
 public class StatusControllerTest {
 
@@ -38,7 +38,7 @@ public class StatusControllerTest {
 
         when(kubernetes.getReadyDeployments()).thenReturn(Collections.singleton(deployment));
 
-        StatusController controller = new StatusController(kubernetes,  infraResourceFactory);
+        StatusController controller = new StatusController(kubernetes,  infraResourceFactory, mock(InfraResourceTracker.class));
 
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
@@ -72,7 +72,7 @@ public class StatusControllerTest {
 
         when(kubernetes.getReadyDeployments()).thenReturn(Collections.emptySet());
 
-        StatusController controller = new StatusController(kubernetes,  infraResourceFactory);
+        StatusController controller = new StatusController(kubernetes,  infraResourceFactory, mock(InfraResourceTracker.class));
 
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
@@ -87,4 +87,35 @@ public class StatusControllerTest {
         controller.handle(addressSpace);
         assertFalse(addressSpace.getStatus().isReady());
     }
+
+    @Test
+    public void testStatusControllerUsesTracker() throws Exception {
+        InfraResourceFactory infraResourceFactory = mock(InfraResourceFactory.class);
+        InfraResourceTracker infraResourceTracker = mock(InfraResourceTracker.class);
+        Kubernetes kubernetes = mock(Kubernetes.class);
+
+        Deployment deployment = new DeploymentBuilder()
+                .withNewMetadata()
+                .withName("mydepl1")
+                .endMetadata()
+                .build();
+
+        when(infraResourceTracker.hasSynced(eq("mynamespace"))).thenReturn(true);
+        when(infraResourceTracker.getReadyDeployments(eq("mynamespace"))).thenReturn(Collections.singleton("mydepl1"));
+
+        StatusController controller = new StatusController(kubernetes, infraResourceFactory, infraResourceTracker);
+
+        AddressSpace addressSpace = new AddressSpace.Builder()
+                .setName("myspace")
+                .setNamespace("mynamespace")
+                .setType("type1")
+                .setPlan("myplan")
+                .build();
+
+        when(infraResourceFactory.createResourceList(eq(addressSpace))).thenReturn(Collections.singletonList(deployment));
+
+        controller.handle(addressSpace);
+        assertTrue(addressSpace.getStatus().isReady());
+        verify(kubernetes, never()).withNamespace(any());
+    }
 }
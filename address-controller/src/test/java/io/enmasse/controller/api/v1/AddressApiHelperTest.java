@@ -5,6 +5,7 @@
 
 package io.enmasse.controller.api.v1;
 
+import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
@@ -12,9 +13,11 @@ import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Optional;
@@ -27,8 +30,12 @@ import io.enmasse.controller.TestSchemaProvider;
 import io.enmasse.k8s.api.AddressApi;
 import io.enmasse.k8s.api.AddressSpaceApi;
 import org.apache.http.auth.BasicUserPrincipal;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.mockito.MockitoAnnotations;
 import org.mockito.internal.util.collections.Sets;
 
 import javax.ws.rs.BadRequestException;
@@ -37,11 +44,20 @@ import javax.ws.rs.core.SecurityContext;
 public class AddressApiHelperTest {
 
     private AddressApiHelper helper;
+    private AddressCache addressCache;
     private AddressApi addressApi;
     private SecurityContext securityContext;
+    @Captor
+    private ArgumentCaptor<Collection<Address>> created;
+
+    @After
+    public void teardown() {
+        addressCache.close();
+    }
 
     @Before
     public void setup() {
+        MockitoAnnotations.initMocks(this);
         AddressSpace addressSpace = mock(AddressSpace.class);
         when(addressSpace.getType()).thenReturn("type1");
         AddressSpaceApi addressSpaceApi = mock(AddressSpaceApi.class);
@@ -51,7 +67,8 @@ public class AddressApiHelperTest {
         when(securityContext.isUserInRole(any())).thenReturn(true);
         when(addressSpaceApi.getAddressSpaceWithName(eq("test"))).thenReturn(Optional.of(addressSpace));
         when(addressSpaceApi.withAddressSpace(eq(addressSpace))).thenReturn(addressApi);
-        helper = new AddressApiHelper(addressSpaceApi, new TestSchemaProvider());
+        addressCache = new AddressCache(addressSpaceApi);
+        helper = new AddressApiHelper(addressSpaceApi, new TestSchemaProvider(), addressCache);
     }
 
     @Test
@@ -62,7 +79,24 @@ public class AddressApiHelperTest {
         addresses.add(createAddress("q2"));
         helper.putAddresses(securityContext,"test", new AddressList(addresses));
         verify(addressApi, never()).deleteAddress(any());
-        verify(addressApi).createAddress(eq(createAddress("q2")));
+        verify(addressApi).createAddresses(created.capture());
+        assertThat(created.getValue(), hasItem(createAddress("q2")));
+    }
+
+    @Test
+    public void testAppendAddresses() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.singleton(createAddress("q1")));
+        AddressList newAddresses = new AddressList();
+        for (int i = 0; i < 5000; i++) {
+            newAddresses.add(createAddress("a" + i));
+        }
+
+        AddressList result = helper.appendAddresses(securityContext, "test", newAddresses);
+        verify(addressApi).createAddresses(eq(newAddresses));
+        verify(addressApi, times(1)).listAddresses();
+        assertThat(result.size(), is(5001));
+        assertThat(result, hasItem(createAddress("q1")));
+        assertThat(result, hasItem(createAddress("a4999")));
     }
 
     @Test
@@ -0,0 +1,162 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.api.v1;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.AddressSpace;
+import io.enmasse.k8s.api.AddressApi;
+import io.enmasse.k8s.api.AddressSpaceApi;
+import io.enmasse.k8s.api.Watch;
+import io.enmasse.k8s.api.Watcher;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.internal.util.collections.Sets;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class AddressCacheTest {
+    private AddressSpaceApi addressSpaceApi;
+    private AddressApi addressApi;
+    private Watch watch;
+    private Clock clock;
+    private AddressSpace addressSpace;
+    private AddressCache cache;
+
+    @After
+    public void teardown() {
+        cache.close();
+    }
+
+    @Before
+    public void setup() throws Exception {
+        addressSpace = mock(AddressSpace.class);
+        when(addressSpace.getName()).thenReturn("myspace");
+        when(addressSpace.getNamespace()).thenReturn("ns1");
+        addressSpaceApi = mock(AddressSpaceApi.class);
+        addressApi = mock(AddressApi.class);
+        watch = mock(Watch.class);
+        clock = mock(Clock.class);
+        when(clock.millis()).thenReturn(0L);
+        when(addressSpaceApi.withAddressSpace(eq(addressSpace))).thenReturn(addressApi);
+        when(addressApi.watchAddresses(any(), any())).thenReturn(watch);
+        cache = new AddressCache(addressSpaceApi, clock, Duration.ofMinutes(5), Duration.ofMinutes(10), Duration.ofSeconds(5));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Watcher<Address> getWatcher() throws Exception {
+        ArgumentCaptor<Watcher> captor = ArgumentCaptor.forClass(Watcher.class);
+        verify(addressApi).watchAddresses(captor.capture(), any());
+        return captor.getValue();
+    }
+
+    @Test
+    public void testReadsFromApiUntilSynced() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.singleton(createAddress("q1", "1")));
+
+        AddressIndex index = cache.getIndex(addressSpace);
+        assertThat(index.getByName("q1").isPresent(), is(true));
+        verify(addressApi, times(1)).listAddresses();
+
+        getWatcher().onUpdate(Sets.newSet(createAddress("q1", "1"), createAddress("q2", "1")));
+        AddressIndex synced = cache.getIndex(addressSpace);
+        assertThat(synced.getByAddress("q2").isPresent(), is(true));
+        assertThat(synced.getVersion(), is(not(index.getVersion())));
+        verify(addressApi, times(1)).listAddresses();
+        verify(addressApi, times(1)).watchAddresses(any(), any());
+    }
+
+    @Test
+    public void testVersionChangesWithAddresses() throws Exception {
+        AddressIndex index = new AddressIndex(Sets.newSet(createAddress("q1", "1"), createAddress("q2", "1")));
+        assertThat(new AddressIndex(Sets.newSet(createAddress("q2", "1"), createAddress("q1", "1"))).getVersion(), is(index.getVersion()));
+        assertThat(new AddressIndex(Sets.newSet(createAddress("q1", "1"), createAddress("q2", "2"))).getVersion(), is(not(index.getVersion())));
+        assertThat(new AddressIndex(Sets.newSet(createAddress("q1", "1"))).getVersion(), is(not(index.getVersion())));
+    }
+
+    @Test
+    public void testWritesBypassCache() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.emptySet());
+        cache.getIndex(addressSpace);
+        getWatcher().onUpdate(Collections.emptySet());
+
+        when(addressApi.listAddresses()).thenReturn(Collections.singleton(createAddress("q1", "1")));
+        cache.invalidate(addressSpace);
+        assertThat(cache.getIndex(addressSpace).getByName("q1").isPresent(), is(true));
+
+        when(clock.millis()).thenReturn(Duration.ofSeconds(6).toMillis());
+        assertFalse(cache.getIndex(addressSpace).getByName("q1").isPresent());
+    }
+
+    @Test
+    public void testIdleWatchesClosed() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.emptySet());
+        cache.getIndex(addressSpace);
+        assertThat(cache.size(), is(1));
+
+        when(clock.millis()).thenReturn(Duration.ofMinutes(6).toMillis());
+        cache.getIndex(addressSpace);
+        when(clock.millis()).thenReturn(Duration.ofMinutes(11).toMillis());
+        cache.closeIdle();
+        verify(watch, never()).close();
+        assertThat(cache.size(), is(1));
+
+        when(clock.millis()).thenReturn(Duration.ofMinutes(17).toMillis());
+        cache.closeIdle();
+        verify(watch).close();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testWatchClosedWhenIdleWhileStarting() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.emptySet());
+        when(addressApi.watchAddresses(any(), any())).thenAnswer(invocation -> {
+            when(clock.millis()).thenReturn(Duration.ofMinutes(11).toMillis());
+            cache.closeIdle();
+            return watch;
+        });
+
+        cache.getIndex(addressSpace);
+        verify(watch).close();
+        assertThat(cache.size(), is(0));
+    }
+
+    @Test
+    public void testWatchRetriedAfterError() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.singleton(createAddress("q1", "1")));
+        when(addressApi.watchAddresses(any(), any())).thenThrow(new RuntimeException("unavailable")).thenReturn(watch);
+
+        assertThat(cache.getIndex(addressSpace).getByName("q1").isPresent(), is(true));
+        assertThat(cache.size(), is(0));
+
+        cache.getIndex(addressSpace);
+        verify(addressApi, times(2)).watchAddresses(any(), any());
+        assertThat(cache.size(), is(1));
+    }
+
+    @Test
+    public void testClose() throws Exception {
+        when(addressApi.listAddresses()).thenReturn(Collections.emptySet());
+        cache.getIndex(addressSpace);
+        cache.close();
+        verify(watch).close();
+        assertThat(cache.size(), is(0));
+    }
+
+    private static Address createAddress(String name, String version) {
+        return new Address.Builder().setName(name).setAddress(name).setAddressSpace("myspace").setType("queue").setPlan("plan1").setVersion(version).build();
+    }
+}
@@ -9,13 +9,17 @@ import io.enmasse.address.model.AddressList;
 import io.enmasse.address.model.AddressSpace;
 import io.enmasse.address.model.v1.Either;
 import io.enmasse.controller.TestSchemaProvider;
+import io.enmasse.controller.api.v1.AddressCache;
 import io.enmasse.api.common.DefaultExceptionMapper;
 import io.enmasse.k8s.api.TestAddressApi;
 import io.enmasse.k8s.api.TestAddressSpaceApi;
 import org.apache.http.auth.BasicUserPrincipal;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
 import javax.ws.rs.core.SecurityContext;
 
@@ -23,8 +27,11 @@ import java.util.concurrent.Callable;
 
 import static org.hamcrest.CoreMatchers.hasItem;
 import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -35,12 +42,20 @@ public class HttpAddressServiceTest {
     private Address q1;
     private Address a1;
     private SecurityContext securityContext;
+    private Request request;
     private DefaultExceptionMapper exceptionMapper = new DefaultExceptionMapper();
+    private AddressCache addressCache;
+
+    @After
+    public void teardown() {
+        addressCache.close();
+    }
 
     @Before
     public void setup() {
         addressSpaceApi = new TestAddressSpaceApi();
-        this.addressService = new HttpAddressService(addressSpaceApi, new TestSchemaProvider());
+        addressCache = new AddressCache(addressSpaceApi);
+        this.addressService = new HttpAddressService(addressSpaceApi, new TestSchemaProvider(), addressCache);
 
         AddressSpace addressSpace = new AddressSpace.Builder()
                 .setName("myspace")
@@ -51,6 +66,7 @@ public class HttpAddressServiceTest {
         securityContext = mock(SecurityContext.class);
         when(securityContext.getUserPrincipal()).thenReturn(new BasicUserPrincipal("me"));
         when(securityContext.isUserInRole(any())).thenReturn(true);
+        request = mock(Request.class);
 
         addressSpaceApi.createAddressSpace(addressSpace);
         addressApi = (TestAddressApi) addressSpaceApi.withAddressSpace(addressSpace);
@@ -78,7 +94,7 @@ public class HttpAddressServiceTest {
 
     @Test
     public void testList() {
-        Response response = invoke(() -> addressService.getAddressList(securityContext,"myspace", null));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, request,"myspace", null));
 
         assertThat(response.getStatus(), is(200));
         AddressList list = (AddressList) response.getEntity();
@@ -88,9 +104,26 @@ public class HttpAddressServiceTest {
         assertThat(list, hasItem(a1));
     }
 
+    @Test
+    public void testListNotModified() {
+        Response response = invoke(() -> addressService.getAddressList(securityContext, request, "myspace", null));
+        assertThat(response.getStatus(), is(200));
+        EntityTag tag = response.getEntityTag();
+        assertNotNull(tag);
+
+        when(request.evaluatePreconditions(eq(tag))).thenReturn(Response.notModified(tag));
+        response = invoke(() -> addressService.getAddressList(securityContext, request, "myspace", null));
+        assertThat(response.getStatus(), is(304));
+
+        addressApi.deleteAddress(a1);
+        response = invoke(() -> addressService.getAddressList(securityContext, request, "myspace", null));
+        assertThat(response.getStatus(), is(200));
+        assertThat(response.getEntityTag(), is(not(tag)));
+    }
+
     @Test
     public void testGetByAddress() {
-        Response response = invoke(() -> addressService.getAddressList(securityContext,"myspace", "A1"));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, request,"myspace", "A1"));
 
         assertThat(response.getStatus(), is(200));
         Address address = (Address) response.getEntity();
@@ -100,7 +133,7 @@ public class HttpAddressServiceTest {
 
     @Test
     public void testGetByAddressNotFound() {
-        Response response = invoke(() -> addressService.getAddressList(securityContext,"myspace", "b1"));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, request,"myspace", "b1"));
 
         assertThat(response.getStatus(), is(404));
     }
@@ -108,13 +141,13 @@ public class HttpAddressServiceTest {
     @Test
     public void testListException() {
         addressApi.throwException = true;
-        Response response = invoke(() -> addressService.getAddressList(securityContext,"myspace", null));
+        Response response = invoke(() -> addressService.getAddressList(securityContext, request,"myspace", null));
         assertThat(response.getStatus(), is(500));
     }
 
     @Test
     public void testGet() {
-        Response response = invoke(() -> addressService.getAddress(securityContext,"myspace", "q1"));
+        Response response = invoke(() -> addressService.getAddress(securityContext, request,"myspace", "q1"));
         assertThat(response.getStatus(), is(200));
         Address address = (Address) response.getEntity();
 
@@ -124,16 +157,16 @@ public class HttpAddressServiceTest {
     @Test
     public void testGetException() {
         addressApi.throwException = true;
-        Response response = invoke(() -> addressService.getAddress(securityContext,"myspace", "q1"));
+        Response response = invoke(() -> addressService.getAddress(securityContext, request,"myspace", "q1"));
         assertThat(response.getStatus(), is(500));
     }
 
     @Test
     public void testGetUnknown() {
-        Response response = invoke(() -> addressService.getAddress(securityContext,"unknownspace", "q1"));
+        Response response = invoke(() -> addressService.getAddress(securityContext, request,"unknownspace", "q1"));
         assertThat(response.getStatus(), is(404));
 
-        response = invoke(() -> addressService.getAddress(securityContext,"myspace", "doesnotexist"));
+        response = invoke(() -> addressService.getAddress(securityContext, request,"myspace", "doesnotexist"));
         assertThat(response.getStatus(), is(404));
     }
 
@@ -190,10 +223,10 @@ public class HttpAddressServiceTest {
         Response response = invoke(() -> addressService.deleteAddress(securityContext,"myspace", "a1"));
         assertThat(response.getStatus(), is(401));
 
-        response = invoke(() -> addressService.getAddressList(securityContext,"myspace", null));
+        response = invoke(() -> addressService.getAddressList(securityContext, request,"myspace", null));
         assertThat(response.getStatus(), is(401));
 
-        response = invoke(() -> addressService.getAddress(securityContext,"myspace", "q1"));
+        response = invoke(() -> addressService.getAddress(securityContext, request,"myspace", "q1"));
         assertThat(response.getStatus(), is(401));
 
         Address a2 = new Address.Builder()
@@ -0,0 +1,62 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.common;
+
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.KubernetesList;
+import io.fabric8.openshift.client.ParameterValue;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class TemplateCacheTest {
+    private TemplateCache templateCache;
+
+    @Before
+    public void setup() {
+        templateCache = new TemplateCache();
+    }
+
+    @Test
+    public void testProcessTemplate() {
+        File templateFile = new File("src/test/resources/templates/test.json");
+        KubernetesList list = templateCache.process(templateFile, new ParameterValue("MYPARAM", "value1"));
+        assertThat(list.getItems().size(), is(1));
+        assertThat(((ConfigMap) list.getItems().get(0)).getData().get("key"), is("value1"));
+
+        list = templateCache.process(templateFile, new ParameterValue("MYPARAM", "value2"));
+        assertThat(((ConfigMap) list.getItems().get(0)).getData().get("key"), is("value2"));
+    }
+
+    @Test
+    public void testProcessYamlTemplate() {
+        KubernetesList list = templateCache.process(new File("src/test/resources/templates/test.yaml"), new ParameterValue("MYPARAM", "value1"));
+        assertThat(((ConfigMap) list.getItems().get(0)).getData().get("key"), is("value1"));
+    }
+
+    @Test
+    public void testModifiedTemplateParsedAgain() throws Exception {
+        File templateFile = File.createTempFile("template", ".json");
+        templateFile.deleteOnExit();
+        String template = new String(Files.readAllBytes(new File("src/test/resources/templates/test.json").toPath()), StandardCharsets.UTF_8);
+        Files.write(templateFile.toPath(), template.getBytes(StandardCharsets.UTF_8));
+        templateFile.setLastModified(1000);
+
+        KubernetesList list = templateCache.process(templateFile, new ParameterValue("MYPARAM", "value"));
+        assertThat(list.getItems().get(0).getMetadata().getName(), is("mymap"));
+
+        Files.write(templateFile.toPath(), template.replace("mymap", "othermap").getBytes(StandardCharsets.UTF_8));
+        templateFile.setLastModified(2000);
+
+        list = templateCache.process(templateFile, new ParameterValue("MYPARAM", "value"));
+        assertThat(list.getItems().get(0).getMetadata().getName(), is("othermap"));
+    }
+}
@@ -5,17 +5,37 @@
 package io.enmasse.address.model;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 public class AddressResolver {
     private final Schema schema;
     private final AddressSpaceType addressSpaceType;
 
+    // Plans resolved so far, by address type and plan name
+    private final Map<String, Map<String, ResolvedPlan>> resolvedPlans = new HashMap<>();
+
     public AddressResolver(Schema schema, AddressSpaceType addressSpaceType) {
         this.schema = schema;
         this.addressSpaceType = addressSpaceType;
     }
 
+    /**
+     * Resolve the type and plan of an address. The result is memoised per plan.
+     */
+    public synchronized ResolvedPlan resolve(Address address) {
+        Map<String, ResolvedPlan> plans = resolvedPlans.get(address.getType());
+        ResolvedPlan resolved = plans != null ? plans.get(address.getPlan()) : null;
+        if (resolved == null) {
+            AddressType addressType = getType(address);
+            AddressPlan addressPlan = getPlan(addressType, address);
+            resolved = new ResolvedPlan(addressType, addressPlan, getResourceDefinitions(addressPlan), isPooled(addressPlan), isShardedTopic(addressPlan));
+            resolvedPlans.computeIfAbsent(address.getType(), t -> new HashMap<>()).put(address.getPlan(), resolved);
+        }
+        return resolved;
+    }
+
     public AddressPlan getPlan(AddressType addressType, Address address) {
         return addressType.findAddressPlan(address.getPlan()).orElseThrow(() -> new UnresolvedAddressException("Unknown address plan " + address.getPlan()));
     }
@@ -41,14 +61,23 @@ public class AddressResolver {
         return schema.findResourceDefinition(resourceName).orElseThrow(() -> new UnresolvedAddressException("Unknown resource definition " + resourceName));
     }
 
-    public ResourceDefinition getResourceDefinition(AddressPlan addressPlan, String resourceName) {
-        if (isShardedTopic(addressPlan)) {
+    public ResourceDefinition getResourceDefinition(ResolvedPlan resolvedPlan, String resourceName) {
+        if (resolvedPlan.isShardedTopic()) {
             resourceName = resourceName + "-topic";
         }
         return getResourceDefinition(resourceName);
     }
 
-    private boolean isShardedTopic(AddressPlan addressPlan) {
+    private static boolean isPooled(AddressPlan addressPlan) {
+        for (ResourceRequest request : addressPlan.getRequiredResources()) {
+            if ("broker".equals(request.getResourceName()) && request.getAmount() < 1.0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isShardedTopic(AddressPlan addressPlan) {
         if (addressPlan.getAddressType().equals("topic")) {
             boolean isSharded = true;
             for (ResourceRequest resourceRequest : addressPlan.getRequiredResources()) {
@@ -63,6 +92,6 @@ public class AddressResolver {
     }
 
     public void validate(Address address) {
-        getResourceDefinitions(getPlan(getType(address), address));
+        resolve(address);
     }
 }
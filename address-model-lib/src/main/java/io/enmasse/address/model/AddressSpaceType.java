@@ -15,6 +15,8 @@ public class AddressSpaceType {
     private final List<AddressSpacePlan> plans;
     private final List<AddressType> addressTypes;
     private final List<String> serviceNames;
+    private final Map<String, AddressSpacePlan> planIndex;
+    private final Map<String, AddressType> addressTypeIndex;
 
     public AddressSpaceType(String name, String description, List<AddressSpacePlan> plans, List<AddressType> addressTypes, List<String> serviceNames) {
         this.name = name;
@@ -22,6 +24,18 @@ public class AddressSpaceType {
         this.plans = plans;
         this.addressTypes = addressTypes;
         this.serviceNames = serviceNames;
+
+        Map<String, AddressSpacePlan> planIndex = new HashMap<>();
+        for (AddressSpacePlan plan : plans) {
+            planIndex.putIfAbsent(plan.getName(), plan);
+        }
+        this.planIndex = Collections.unmodifiableMap(planIndex);
+
+        Map<String, AddressType> addressTypeIndex = new HashMap<>();
+        for (AddressType addressType : addressTypes) {
+            addressTypeIndex.putIfAbsent(addressType.getName(), addressType);
+        }
+        this.addressTypeIndex = Collections.unmodifiableMap(addressTypeIndex);
     }
 
     public String getName() {
@@ -41,12 +55,7 @@ public class AddressSpaceType {
     }
 
     public Optional<AddressSpacePlan> findAddressSpacePlan(String name) {
-        for (AddressSpacePlan plan : plans) {
-            if (plan.getName().equals(name)) {
-                return Optional.ofNullable(plan);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(planIndex.get(name));
     }
 
     public List<String> getServiceNames() {
@@ -54,12 +63,7 @@ public class AddressSpaceType {
     }
 
     public Optional<AddressType> findAddressType(String type) {
-        for (AddressType addressType : addressTypes) {
-            if (addressType.getName().equals(type)) {
-                return Optional.of(addressType);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(addressTypeIndex.get(type));
     }
 
     public static class Builder {
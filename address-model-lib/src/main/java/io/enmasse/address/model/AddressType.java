@@ -13,11 +13,18 @@ public class AddressType {
     private final String name;
     private final String description;
     private final List<AddressPlan> addressPlans;
+    private final Map<String, AddressPlan> addressPlanIndex;
 
     private AddressType(String name, String description, List<AddressPlan> addressPlans) {
         this.name = name;
         this.description = description;
         this.addressPlans = addressPlans;
+
+        Map<String, AddressPlan> addressPlanIndex = new HashMap<>();
+        for (AddressPlan plan : addressPlans) {
+            addressPlanIndex.putIfAbsent(plan.getName(), plan);
+        }
+        this.addressPlanIndex = Collections.unmodifiableMap(addressPlanIndex);
     }
 
     public String getName() {
@@ -48,12 +55,7 @@ public class AddressType {
     }
 
     public Optional<AddressPlan> findAddressPlan(String planName) {
-        for (AddressPlan plan : addressPlans) {
-            if (plan.getName().equals(planName)) {
-                return Optional.of(plan);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(addressPlanIndex.get(planName));
     }
 
     public static class Builder {
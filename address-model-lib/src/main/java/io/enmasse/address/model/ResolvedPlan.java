@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.address.model;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An address plan together with what is derived from it when provisioning addresses using it.
+ */
+public class ResolvedPlan {
+    private final AddressType addressType;
+    private final AddressPlan addressPlan;
+    private final List<ResourceDefinition> resourceDefinitions;
+    private final boolean pooled;
+    private final boolean shardedTopic;
+
+    ResolvedPlan(AddressType addressType, AddressPlan addressPlan, List<ResourceDefinition> resourceDefinitions, boolean pooled, boolean shardedTopic) {
+        this.addressType = addressType;
+        this.addressPlan = addressPlan;
+        this.resourceDefinitions = Collections.unmodifiableList(resourceDefinitions);
+        this.pooled = pooled;
+        this.shardedTopic = shardedTopic;
+    }
+
+    public AddressType getAddressType() {
+        return addressType;
+    }
+
+    public AddressPlan getAddressPlan() {
+        return addressPlan;
+    }
+
+    public List<ResourceDefinition> getResourceDefinitions() {
+        return resourceDefinitions;
+    }
+
+    /**
+     * If addresses using the plan share a broker with other addresses.
+     */
+    public boolean isPooled() {
+        return pooled;
+    }
+
+    /**
+     * If addresses using the plan are topics with brokers of their own.
+     */
+    public boolean isShardedTopic() {
+        return shardedTopic;
+    }
+}
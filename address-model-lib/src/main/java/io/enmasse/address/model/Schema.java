@@ -9,10 +9,24 @@ import java.util.*;
 public class Schema {
     private final List<AddressSpaceType> addressSpaceTypes;
     private final List<ResourceDefinition> resourceDefinitions;
+    private final Map<String, AddressSpaceType> addressSpaceTypeIndex;
+    private final Map<String, ResourceDefinition> resourceDefinitionIndex;
 
     public Schema(List<AddressSpaceType> addressSpaceTypes, List<ResourceDefinition> resourceDefinitions) {
         this.addressSpaceTypes = addressSpaceTypes;
         this.resourceDefinitions = resourceDefinitions;
+
+        Map<String, AddressSpaceType> addressSpaceTypeIndex = new HashMap<>();
+        for (AddressSpaceType type : addressSpaceTypes) {
+            addressSpaceTypeIndex.putIfAbsent(type.getName(), type);
+        }
+        this.addressSpaceTypeIndex = Collections.unmodifiableMap(addressSpaceTypeIndex);
+
+        Map<String, ResourceDefinition> resourceDefinitionIndex = new HashMap<>();
+        for (ResourceDefinition resourceDefinition : resourceDefinitions) {
+            resourceDefinitionIndex.putIfAbsent(resourceDefinition.getName(), resourceDefinition);
+        }
+        this.resourceDefinitionIndex = Collections.unmodifiableMap(resourceDefinitionIndex);
     }
 
     public List<AddressSpaceType> getAddressSpaceTypes() {
@@ -20,21 +34,11 @@ public class Schema {
     }
 
     public Optional<AddressSpaceType> findAddressSpaceType(String name) {
-        for (AddressSpaceType type : addressSpaceTypes) {
-            if (type.getName().equals(name)) {
-                return Optional.ofNullable(type);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(addressSpaceTypeIndex.get(name));
     }
 
     public Optional<ResourceDefinition> findResourceDefinition(String name) {
-        for (ResourceDefinition resourceDefinition : resourceDefinitions) {
-            if (name.equals(resourceDefinition.getName())) {
-                return Optional.of(resourceDefinition);
-            }
-        }
-        return Optional.empty();
+        return Optional.ofNullable(resourceDefinitionIndex.get(name));
     }
 
     public List<ResourceDefinition> getResourceDefinitions() {
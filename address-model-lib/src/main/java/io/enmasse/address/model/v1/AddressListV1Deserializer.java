@@ -8,7 +8,6 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.enmasse.address.model.AddressList;
@@ -21,8 +20,6 @@ import java.io.IOException;
  */
 class AddressListV1Deserializer extends JsonDeserializer<AddressList> {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
-
     private final AddressV1Deserializer addressDeserializer;
 
     public AddressListV1Deserializer(AddressV1Deserializer addressDeserializer) {
@@ -31,8 +28,15 @@ class AddressListV1Deserializer extends JsonDeserializer<AddressList> {
 
     @Override
     public AddressList deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
-        ObjectNode root = mapper.readValue(jsonParser, ObjectNode.class);
-        return deserialize(root);
+        AddressList retval = new AddressList();
+        for (String field = ParserUtil.firstField(jsonParser); field != null; field = ParserUtil.nextField(jsonParser)) {
+            if (Fields.ITEMS.equals(field) && ParserUtil.isArray(jsonParser)) {
+                while (ParserUtil.nextElement(jsonParser)) {
+                    retval.add(addressDeserializer.deserialize(jsonParser));
+                }
+            }
+        }
+        return retval;
     }
 
     AddressList deserialize(ObjectNode root) {
@@ -8,9 +8,6 @@ import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.DeserializationContext;
 import com.fasterxml.jackson.databind.JsonDeserializer;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
-import com.fasterxml.jackson.databind.node.ObjectNode;
 import io.enmasse.address.model.AddressSpaceList;
 
 import java.io.IOException;
@@ -21,8 +18,6 @@ import java.io.IOException;
  */
 class AddressSpaceListV1Deserializer extends JsonDeserializer<AddressSpaceList> {
 
-    private static final ObjectMapper mapper = new ObjectMapper();
-
     private final AddressSpaceV1Deserializer addressSpaceDeserializer;
 
     AddressSpaceListV1Deserializer(AddressSpaceV1Deserializer addressSpaceDeserializer) {
@@ -31,12 +26,12 @@ class AddressSpaceListV1Deserializer extends JsonDeserializer<AddressSpaceList>
 
     @Override
     public AddressSpaceList deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException, JsonProcessingException {
-        ObjectNode root = mapper.readValue(jsonParser, ObjectNode.class);
         AddressSpaceList retval = new AddressSpaceList();
-        if (root.hasNonNull(Fields.ITEMS)) {
-            ArrayNode items = (ArrayNode) root.get(Fields.ITEMS);
-            for (int i = 0; i < items.size(); i++) {
-                retval.add(addressSpaceDeserializer.deserialize((ObjectNode) items.get(i)));
+        for (String field = ParserUtil.firstField(jsonParser); field != null; field = ParserUtil.nextField(jsonParser)) {
+            if (Fields.ITEMS.equals(field) && ParserUtil.isArray(jsonParser)) {
+                while (ParserUtil.nextElement(jsonParser)) {
+                    retval.add(addressSpaceDeserializer.deserialize(jsonParser));
+                }
             }
         }
         return retval;
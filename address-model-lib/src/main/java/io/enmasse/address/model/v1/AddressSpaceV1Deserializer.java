@@ -30,8 +30,266 @@ class AddressSpaceV1Deserializer extends JsonDeserializer<AddressSpace> {
 
     @Override
     public AddressSpace deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
-        ObjectNode root = mapper.readValue(jsonParser, ObjectNode.class);
-        return deserialize(root);
+        return deserialize(jsonParser);
+    }
+
+    /**
+     * Decode an address space from the token stream, giving the same result as decoding it from its tree.
+     */
+    AddressSpace deserialize(JsonParser parser) throws IOException {
+        boolean hasMetadata = false;
+        String name = null;
+        String namespace = null;
+        String createdBy = null;
+        String createdByUid = null;
+
+        boolean hasSpec = false;
+        String type = null;
+        String plan = null;
+        List<io.enmasse.address.model.Endpoint> endpoints = null;
+        boolean hasAuthenticationService = false;
+        String authType = null;
+        Map<String, Object> details = new LinkedHashMap<>();
+
+        Status status = null;
+
+        for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+            switch (field) {
+                case Fields.METADATA:
+                    hasMetadata = ParserUtil.isObject(parser);
+                    if (hasMetadata) {
+                        for (String metadataField = ParserUtil.firstField(parser); metadataField != null; metadataField = ParserUtil.nextField(parser)) {
+                            switch (metadataField) {
+                                case Fields.NAME:
+                                    name = ParserUtil.readString(parser);
+                                    break;
+                                case Fields.NAMESPACE:
+                                    namespace = ParserUtil.readText(parser);
+                                    break;
+                                case Fields.CREATED_BY:
+                                    createdBy = ParserUtil.readText(parser);
+                                    break;
+                                case Fields.CREATED_BY_UID:
+                                    createdByUid = ParserUtil.readText(parser);
+                                    break;
+                            }
+                        }
+                    }
+                    break;
+                case Fields.SPEC:
+                    hasSpec = ParserUtil.isObject(parser);
+                    if (hasSpec) {
+                        for (String specField = ParserUtil.firstField(parser); specField != null; specField = ParserUtil.nextField(parser)) {
+                            switch (specField) {
+                                case Fields.TYPE:
+                                    type = ParserUtil.readString(parser);
+                                    break;
+                                case Fields.PLAN:
+                                    plan = ParserUtil.readString(parser);
+                                    break;
+                                case Fields.ENDPOINTS:
+                                    endpoints = ParserUtil.isArray(parser) ? readEndpoints(parser) : null;
+                                    break;
+                                case Fields.AUTHENTICATION_SERVICE:
+                                    hasAuthenticationService = ParserUtil.isObject(parser);
+                                    details.clear();
+                                    if (hasAuthenticationService) {
+                                        for (String authField = ParserUtil.firstField(parser); authField != null; authField = ParserUtil.nextField(parser)) {
+                                            if (Fields.TYPE.equals(authField)) {
+                                                authType = ParserUtil.readText(parser);
+                                            } else if (Fields.DETAILS.equals(authField) && ParserUtil.isObject(parser)) {
+                                                for (String key = ParserUtil.firstField(parser); key != null; key = ParserUtil.nextField(parser)) {
+                                                    details.put(key, ParserUtil.readScalar(parser));
+                                                }
+                                            }
+                                        }
+                                    }
+                                    break;
+                            }
+                        }
+                    }
+                    break;
+                case Fields.STATUS:
+                    if (ParserUtil.isObject(parser)) {
+                        status = readStatus(parser);
+                    }
+                    break;
+            }
+        }
+
+        if (!hasMetadata) {
+            throw new DeserializeException("Missing 'metadata' object field");
+        } else if (name == null) {
+            throw new DeserializeException("Missing 'name' string field in 'metadata'");
+        } else if (!hasSpec) {
+            throw new DeserializeException("Missing 'spec' object field");
+        } else if (type == null) {
+            throw new DeserializeException("Missing 'type' string field in 'spec'");
+        } else if (plan == null) {
+            throw new DeserializeException("Missing 'plan' string field in 'spec'");
+        }
+
+        AddressSpace.Builder builder = new AddressSpace.Builder()
+                .setName(name)
+                .setType(type)
+                .setPlan(plan);
+
+        if (namespace != null) {
+            builder.setNamespace(namespace);
+        }
+
+        if (createdBy != null) {
+            builder.setCreatedBy(createdBy);
+        }
+
+        if (createdByUid != null) {
+            builder.setCreatedByUid(createdByUid);
+        }
+
+        builder.setEndpointList(endpoints);
+
+        if (hasAuthenticationService) {
+            builder.setAuthenticationService(createAuthenticationService(AuthenticationServiceType.create(authType), details));
+        } else {
+            builder.setAuthenticationService(new AuthenticationService.Builder()
+                    .setType(decodeContext.getDefaultAuthenticationServiceType())
+                    .build());
+        }
+
+        if (status != null) {
+            builder.setStatus(status);
+        }
+        return builder.build();
+    }
+
+    private static List<io.enmasse.address.model.Endpoint> readEndpoints(JsonParser parser) throws IOException {
+        List<io.enmasse.address.model.Endpoint> endpoints = new ArrayList<>();
+        while (ParserUtil.nextElement(parser)) {
+            io.enmasse.address.model.Endpoint.Builder b = new io.enmasse.address.model.Endpoint.Builder();
+            CertSpec cert = null;
+            CertSpec certProvider = null;
+            for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+                switch (field) {
+                    case Fields.NAME:
+                        b.setName(ParserUtil.readText(parser));
+                        break;
+                    case Fields.SERVICE:
+                        b.setService(ParserUtil.readText(parser));
+                        break;
+                    case Fields.HOST:
+                        String host = ParserUtil.readText(parser);
+                        if (host != null) {
+                            b.setHost(host);
+                        }
+                        break;
+                    case Fields.PORT:
+                        b.setPort(ParserUtil.readInt(parser));
+                        break;
+                    case Fields.SERVICE_PORTS:
+                        if (ParserUtil.isArray(parser)) {
+                            b.setServicePorts(readServicePorts(parser));
+                        }
+                        break;
+                    case Fields.CERT:
+                        cert = ParserUtil.isObject(parser) ? readCertSpec(parser, Fields.PROVIDER) : null;
+                        break;
+                    case Fields.CERT_PROVIDER:
+                        certProvider = ParserUtil.isObject(parser) ? readCertSpec(parser, Fields.NAME) : null;
+                        break;
+                }
+            }
+            if (cert != null) {
+                b.setCertSpec(cert);
+            } else if (certProvider != null) {
+                b.setCertSpec(certProvider);
+            }
+            endpoints.add(b.build());
+        }
+        return endpoints;
+    }
+
+    private static Map<String, Integer> readServicePorts(JsonParser parser) throws IOException {
+        Map<String, Integer> servicePorts = new HashMap<>();
+        while (ParserUtil.nextElement(parser)) {
+            String name = null;
+            int port = 0;
+            for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+                if (Fields.NAME.equals(field)) {
+                    name = ParserUtil.readText(parser);
+                } else if (Fields.PORT.equals(field)) {
+                    port = ParserUtil.readInt(parser);
+                }
+            }
+            servicePorts.put(name, port);
+        }
+        return servicePorts;
+    }
+
+    private static CertSpec readCertSpec(JsonParser parser, String providerField) throws IOException {
+        String provider = null;
+        String secretName = null;
+        for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+            if (providerField.equals(field)) {
+                provider = ParserUtil.readText(parser);
+            } else if (Fields.SECRET_NAME.equals(field)) {
+                secretName = ParserUtil.readText(parser);
+            }
+        }
+        CertSpec certSpec = new CertSpec(provider);
+        if (secretName != null) {
+            certSpec.setSecretName(secretName);
+        }
+        return certSpec;
+    }
+
+    private static Status readStatus(JsonParser parser) throws IOException {
+        boolean isReady = false;
+        List<String> messages = new ArrayList<>();
+        for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+            if (Fields.IS_READY.equals(field)) {
+                isReady = ParserUtil.readBoolean(parser);
+            } else if (Fields.MESSAGES.equals(field)) {
+                messages.clear();
+                if (ParserUtil.isArray(parser)) {
+                    while (ParserUtil.nextElement(parser)) {
+                        messages.add(ParserUtil.readText(parser));
+                    }
+                }
+            }
+        }
+        Status status = new Status(isReady);
+        for (String message : messages) {
+            status.appendMessage(message);
+        }
+        return status;
+    }
+
+    /**
+     * Check the details against those known for the type, and convert them to the types expected.
+     */
+    private static AuthenticationService createAuthenticationService(AuthenticationServiceType authType, Map<String, Object> details) {
+        Map<String, Object> detailsMap = new HashMap<>();
+        for (Map.Entry<String, Object> entry : details.entrySet()) {
+            Class expectedType = authType.getDetailsFields().get(entry.getKey());
+            if (expectedType == null) {
+                throw new DeserializeException("Unknown details field " + entry.getKey() + " encountered");
+            }
+            if (!expectedType.equals(entry.getValue().getClass())) {
+                throw new RuntimeException("Expected value of type " + expectedType + ", but was " + entry.getValue().getClass());
+            }
+            detailsMap.put(entry.getKey(), entry.getValue());
+        }
+
+        if (!detailsMap.keySet().containsAll(authType.getMandatoryFields())) {
+            Set<String> missingDetails = new HashSet<>(authType.getMandatoryFields());
+            missingDetails.removeAll(detailsMap.keySet());
+            throw new DeserializeException("Missing details " + missingDetails + " for type " + authType.getName());
+        }
+
+        return new AuthenticationService.Builder()
+                .setType(authType)
+                .setDetails(detailsMap)
+                .build();
     }
 
     AddressSpace deserialize(ObjectNode root) {
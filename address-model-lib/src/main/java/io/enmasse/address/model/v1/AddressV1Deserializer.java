@@ -15,7 +15,9 @@ import io.enmasse.address.model.Address;
 import io.enmasse.address.model.Status;
 
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * Deserializer for Address V1 format
@@ -25,8 +27,137 @@ class AddressV1Deserializer extends JsonDeserializer<Address> {
 
     @Override
     public Address deserialize(JsonParser jsonParser, DeserializationContext deserializationContext) throws IOException {
-        ObjectNode root = mapper.readValue(jsonParser, ObjectNode.class);
-        return deserialize(root);
+        return deserialize(jsonParser);
+    }
+
+    /**
+     * Decode an address from the token stream, giving the same result as decoding it from its tree.
+     */
+    Address deserialize(JsonParser parser) throws IOException {
+        Address.Builder builder = new Address.Builder();
+        boolean hasSpec = false;
+        String address = null;
+        String type = null;
+        String plan = null;
+        Status status = null;
+
+        for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+            switch (field) {
+                case Fields.METADATA:
+                    if (ParserUtil.isObject(parser)) {
+                        readMetadata(parser, builder);
+                    }
+                    break;
+                case Fields.SPEC:
+                    hasSpec = ParserUtil.isObject(parser);
+                    if (hasSpec) {
+                        for (String specField = ParserUtil.firstField(parser); specField != null; specField = ParserUtil.nextField(parser)) {
+                            switch (specField) {
+                                case Fields.ADDRESS:
+                                    address = ParserUtil.readString(parser);
+                                    break;
+                                case Fields.TYPE:
+                                    type = ParserUtil.readString(parser);
+                                    break;
+                                case Fields.PLAN:
+                                    plan = ParserUtil.readString(parser);
+                                    break;
+                            }
+                        }
+                    }
+                    break;
+                case Fields.STATUS:
+                    status = ParserUtil.isObject(parser) ? readStatus(parser) : null;
+                    break;
+            }
+        }
+
+        if (!hasSpec) {
+            throw new DeserializeException("Missing 'spec' object field");
+        } else if (address == null) {
+            throw new DeserializeException("Missing 'address' string field in 'spec'");
+        } else if (type == null) {
+            throw new DeserializeException("Missing 'type' string field in 'spec'");
+        } else if (plan == null) {
+            throw new DeserializeException("Missing 'plan' string field in 'spec'");
+        }
+
+        builder.setAddress(address)
+                .setType(type)
+                .setPlan(plan);
+        if (status != null) {
+            builder.setStatus(status);
+        }
+        return builder.build();
+    }
+
+    private static void readMetadata(JsonParser parser, Address.Builder builder) throws IOException {
+        for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+            switch (field) {
+                case Fields.NAME:
+                    String name = ParserUtil.readText(parser);
+                    if (name != null) {
+                        builder.setName(name);
+                    }
+                    break;
+                case Fields.ADDRESS_SPACE:
+                    String addressSpace = ParserUtil.readText(parser);
+                    if (addressSpace != null) {
+                        builder.setAddressSpace(addressSpace);
+                    }
+                    break;
+                case Fields.UUID:
+                    String uuid = ParserUtil.readText(parser);
+                    if (uuid != null) {
+                        builder.setUuid(uuid);
+                    }
+                    break;
+                case Fields.ANNOTATIONS:
+                    if (ParserUtil.isObject(parser)) {
+                        for (String key = ParserUtil.firstField(parser); key != null; key = ParserUtil.nextField(parser)) {
+                            String value = ParserUtil.readString(parser);
+                            if (value != null) {
+                                builder.putAnnotation(key, value);
+                            }
+                        }
+                    }
+                    break;
+            }
+        }
+    }
+
+    private static Status readStatus(JsonParser parser) throws IOException {
+        boolean isReady = false;
+        Status.Phase phase = null;
+        List<String> messages = new ArrayList<>();
+        for (String field = ParserUtil.firstField(parser); field != null; field = ParserUtil.nextField(parser)) {
+            switch (field) {
+                case Fields.IS_READY:
+                    isReady = ParserUtil.readBoolean(parser);
+                    break;
+                case Fields.PHASE:
+                    String value = ParserUtil.readText(parser);
+                    phase = value != null ? Status.Phase.valueOf(value) : null;
+                    break;
+                case Fields.MESSAGES:
+                    messages.clear();
+                    if (ParserUtil.isArray(parser)) {
+                        while (ParserUtil.nextElement(parser)) {
+                            messages.add(ParserUtil.readText(parser));
+                        }
+                    }
+                    break;
+            }
+        }
+
+        Status status = new Status(isReady);
+        if (phase != null) {
+            status.setPhase(phase);
+        }
+        for (String message : messages) {
+            status.appendMessage(message);
+        }
+        return status;
     }
 
     Address deserialize(ObjectNode root) {
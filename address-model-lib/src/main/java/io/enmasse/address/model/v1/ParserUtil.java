@@ -0,0 +1,135 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.address.model.v1;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+
+/**
+ * Helpers for deserializers reading directly from the token stream, without building a tree first. Values
+ * are converted the same way as JsonNode.asText() and friends, so that both ways of decoding give the same result.
+ */
+class ParserUtil {
+
+    /**
+     * Move to the first field of the object the parser is at.
+     *
+     * @return name of the field, with the parser at its value, or null if the object is empty
+     */
+    static String firstField(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.START_OBJECT) {
+            token = parser.nextToken();
+        }
+        if (token == JsonToken.FIELD_NAME) {
+            return currentField(parser);
+        } else if (token == JsonToken.END_OBJECT) {
+            return null;
+        }
+        throw new DeserializeException("Expected object, but was " + token);
+    }
+
+    /**
+     * Move to the next field of the current object, skipping whatever is left of the current value.
+     *
+     * @return name of the field, with the parser at its value, or null at the end of the object
+     */
+    static String nextField(JsonParser parser) throws IOException {
+        parser.skipChildren();
+        if (parser.nextToken() != JsonToken.FIELD_NAME) {
+            return null;
+        }
+        return currentField(parser);
+    }
+
+    private static String currentField(JsonParser parser) throws IOException {
+        String name = parser.getCurrentName();
+        parser.nextToken();
+        return name;
+    }
+
+    static boolean isObject(JsonParser parser) {
+        return parser.currentToken() == JsonToken.START_OBJECT;
+    }
+
+    static boolean isArray(JsonParser parser) {
+        return parser.currentToken() == JsonToken.START_ARRAY;
+    }
+
+    /**
+     * Move to the next element of the current array.
+     *
+     * @return false at the end of the array
+     */
+    static boolean nextElement(JsonParser parser) throws IOException {
+        JsonToken token = parser.nextToken();
+        return token != null && token != JsonToken.END_ARRAY;
+    }
+
+    /**
+     * @return the value if it is a string, null otherwise
+     */
+    static String readString(JsonParser parser) throws IOException {
+        if (parser.currentToken() == JsonToken.VALUE_STRING) {
+            return parser.getText();
+        }
+        parser.skipChildren();
+        return null;
+    }
+
+    /**
+     * @return the value as text, like JsonNode.asText(), or null if the value is null
+     */
+    static String readText(JsonParser parser) throws IOException {
+        JsonToken token = parser.currentToken();
+        if (token == JsonToken.VALUE_NULL) {
+            return null;
+        } else if (token.isStructStart()) {
+            parser.skipChildren();
+            return "";
+        }
+        return parser.getValueAsString();
+    }
+
+    static boolean readBoolean(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return false;
+        }
+        return parser.getValueAsBoolean();
+    }
+
+    static int readInt(JsonParser parser) throws IOException {
+        if (parser.currentToken().isStructStart()) {
+            parser.skipChildren();
+            return 0;
+        }
+        return parser.getValueAsInt();
+    }
+
+    /**
+     * @return the value as a String, Integer, Long or Boolean, like JsonNode values of those types
+     */
+    static Object readScalar(JsonParser parser) throws IOException {
+        switch (parser.currentToken()) {
+            case VALUE_STRING:
+                return parser.getText();
+            case VALUE_TRUE:
+                return true;
+            case VALUE_FALSE:
+                return false;
+            case VALUE_NUMBER_INT:
+                switch (parser.getNumberType()) {
+                    case INT:
+                        return parser.getIntValue();
+                    case LONG:
+                        return parser.getLongValue();
+                }
+        }
+        throw new DeserializeException("Unsupported value " + parser.getText());
+    }
+}
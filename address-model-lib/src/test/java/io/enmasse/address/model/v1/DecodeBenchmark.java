@@ -0,0 +1,145 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.address.model.v1;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.enmasse.address.model.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing decoding from the token stream with decoding from a tree, which is how the
+ * deserializers used to work. Allocation per decode is reported by the gc profiler enabled in main.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DecodeBenchmark {
+
+    @Param({"100"})
+    private int numAddresses;
+
+    private final ObjectMapper treeMapper = new ObjectMapper();
+    private final ObjectMapper mapper = CodecV1.getMapper();
+    private final AddressV1Deserializer addressDeserializer = new AddressV1Deserializer();
+    private final AddressListV1Deserializer addressListDeserializer = new AddressListV1Deserializer(addressDeserializer);
+    private final AddressSpaceV1Deserializer addressSpaceDeserializer = new AddressSpaceV1Deserializer(() -> AuthenticationServiceType.NONE);
+
+    private byte[] address;
+    private byte[] addressList;
+    private byte[] addressSpace;
+
+    @Setup
+    public void setup() throws JsonProcessingException {
+        Set<Address> addresses = new HashSet<>();
+        for (int i = 0; i < numAddresses; i++) {
+            addresses.add(createAddress("queue" + i));
+        }
+        address = mapper.writeValueAsBytes(createAddress("myqueue"));
+        addressList = mapper.writeValueAsBytes(new AddressList(addresses));
+        addressSpace = mapper.writeValueAsBytes(createAddressSpace());
+    }
+
+    static Address createAddress(String name) {
+        return new Address.Builder()
+                .setName(name)
+                .setAddress(name)
+                .setAddressSpace("myspace")
+                .setType("queue")
+                .setPlan("pooled-queue")
+                .putAnnotation("enmasse.io/broker-id", "broker-0")
+                .putAnnotation("enmasse.io/cluster-id", "broker")
+                .setStatus(new Status(true).setPhase(Status.Phase.Active).appendMessage("ok"))
+                .build();
+    }
+
+    static AddressSpace createAddressSpace() {
+        return new AddressSpace.Builder()
+                .setName("myspace")
+                .setNamespace("mynamespace")
+                .setType("standard")
+                .setPlan("unlimited-standard")
+                .setCreatedBy("developer")
+                .setEndpointList(Arrays.asList(
+                        new Endpoint.Builder()
+                                .setName("messaging")
+                                .setService("messaging")
+                                .setHost("messaging.example.com")
+                                .setPort(5671)
+                                .setCertSpec(new CertSpec("selfsigned").setSecretName("external-certs-messaging"))
+                                .build(),
+                        new Endpoint.Builder()
+                                .setName("console")
+                                .setService("console")
+                                .build()))
+                .setAuthenticationService(new AuthenticationService.Builder()
+                        .setType(AuthenticationServiceType.NONE)
+                        .build())
+                .setStatus(new Status(true))
+                .build();
+    }
+
+    @Benchmark
+    public Address addressStreaming() throws IOException {
+        return mapper.readValue(address, Address.class);
+    }
+
+    @Benchmark
+    public Address addressTree() throws IOException {
+        return addressDeserializer.deserialize(treeMapper.readValue(address, ObjectNode.class));
+    }
+
+    @Benchmark
+    public AddressList addressListStreaming() throws IOException {
+        return mapper.readValue(addressList, AddressList.class);
+    }
+
+    @Benchmark
+    public AddressList addressListTree() throws IOException {
+        return addressListDeserializer.deserialize(treeMapper.readValue(addressList, ObjectNode.class));
+    }
+
+    @Benchmark
+    public AddressSpace addressSpaceStreaming() throws IOException {
+        return mapper.readValue(addressSpace, AddressSpace.class);
+    }
+
+    @Benchmark
+    public AddressSpace addressSpaceTree() throws IOException {
+        return addressSpaceDeserializer.deserialize(treeMapper.readValue(addressSpace, ObjectNode.class));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(DecodeBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
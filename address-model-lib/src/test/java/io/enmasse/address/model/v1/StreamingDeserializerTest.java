@@ -0,0 +1,140 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.address.model.v1;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.enmasse.address.model.*;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+/**
+ * Checks that decoding from the token stream gives the same result as decoding from the tree.
+ */
+public class StreamingDeserializerTest {
+    private final ObjectMapper treeMapper = new ObjectMapper();
+    private final ObjectMapper mapper = CodecV1.getMapper();
+    private final AddressV1Deserializer addressDeserializer = new AddressV1Deserializer();
+    private final AddressListV1Deserializer addressListDeserializer = new AddressListV1Deserializer(addressDeserializer);
+    private final AddressSpaceV1Deserializer addressSpaceDeserializer = new AddressSpaceV1Deserializer(() -> AuthenticationServiceType.NONE);
+
+    private void assertSameAddress(String json) throws IOException {
+        Address streamed = mapper.readValue(json, Address.class);
+        Address tree = addressDeserializer.deserialize(treeMapper.readValue(json, ObjectNode.class));
+        assertEquals(toTree(tree), toTree(streamed));
+        assertThat(streamed.getStatus(), is(tree.getStatus()));
+    }
+
+    private void assertSameAddressSpace(String json) throws IOException {
+        AddressSpace streamed = mapper.readValue(json, AddressSpace.class);
+        AddressSpace tree = addressSpaceDeserializer.deserialize(treeMapper.readValue(json, ObjectNode.class));
+        assertEquals(toTree(tree), toTree(streamed));
+    }
+
+    private JsonNode toTree(Object value) {
+        return mapper.valueToTree(value);
+    }
+
+    @Test
+    public void testAddress() throws IOException {
+        assertSameAddress(mapper.writeValueAsString(DecodeBenchmark.createAddress("q1")));
+        assertSameAddress("{\"metadata\":{\"addressSpace\":\"as1\"},\"spec\":{\"address\":\"a1\",\"type\":\"anycast\",\"plan\":\"p\"}}");
+    }
+
+    @Test
+    public void testAddressFieldsInAnyOrder() throws IOException {
+        assertSameAddress("{" +
+                "\"status\":{\"messages\":[\"m1\",\"m2\"],\"phase\":\"Configuring\",\"isReady\":\"true\"}," +
+                "\"unknown\":{\"nested\":[1,{\"a\":\"b\"}]}," +
+                "\"spec\":{\"plan\":\"p\",\"extra\":[],\"type\":\"queue\",\"address\":\"a1\"}," +
+                "\"metadata\":{\"annotations\":{\"a\":\"1\",\"b\":2,\"c\":{}},\"uuid\":null,\"name\":12,\"addressSpace\":\"as1\"}," +
+                "\"kind\":\"Address\"}");
+    }
+
+    @Test
+    public void testAddressMissingSpecFields() throws IOException {
+        for (String json : new String[] {
+                "{\"kind\":\"Address\"}",
+                "{\"spec\":[]}",
+                "{\"spec\":{\"type\":\"queue\",\"plan\":\"p\"}}",
+                "{\"spec\":{\"address\":\"a1\",\"type\":1,\"plan\":\"p\"}}",
+                "{\"spec\":{\"address\":\"a1\",\"type\":\"queue\"}}"}) {
+            String expected = null;
+            try {
+                addressDeserializer.deserialize(treeMapper.readValue(json, ObjectNode.class));
+            } catch (DeserializeException e) {
+                expected = e.getMessage();
+            }
+            try {
+                mapper.readValue(json, Address.class);
+                fail("Expected exception for " + json);
+            } catch (DeserializeException e) {
+                assertThat(e.getMessage(), is(expected));
+            }
+        }
+    }
+
+    @Test
+    public void testAddressList() throws IOException {
+        String json = "{\"items\":[" +
+                mapper.writeValueAsString(DecodeBenchmark.createAddress("q1")) + "," +
+                mapper.writeValueAsString(DecodeBenchmark.createAddress("q2")) + "]," +
+                "\"kind\":\"AddressList\"}";
+        AddressList streamed = mapper.readValue(json, AddressList.class);
+        AddressList tree = addressListDeserializer.deserialize(treeMapper.readValue(json, ObjectNode.class));
+        assertEquals(toTree(tree), toTree(streamed));
+        assertThat(streamed.size(), is(2));
+
+        assertTrue(mapper.readValue("{\"items\":null}", AddressList.class).isEmpty());
+        assertTrue(mapper.readValue("{\"items\":[]}", AddressList.class).isEmpty());
+    }
+
+    @Test
+    public void testAddressSpace() throws IOException {
+        assertSameAddressSpace(mapper.writeValueAsString(DecodeBenchmark.createAddressSpace()));
+        assertSameAddressSpace("{\"metadata\":{\"name\":\"myspace\"},\"spec\":{\"type\":\"brokered\",\"plan\":\"p\"}}");
+    }
+
+    @Test
+    public void testAddressSpaceFieldsInAnyOrder() throws IOException {
+        assertSameAddressSpace("{" +
+                "\"status\":{\"messages\":[\"m1\"],\"isReady\":true}," +
+                "\"spec\":{" +
+                "  \"authenticationService\":{\"details\":{\"port\":5671,\"host\":\"example.com\",\"caCertSecretName\":\"ca\",\"clientCertSecretName\":\"client\",\"saslInitHost\":\"sasl\"},\"type\":\"external\"}," +
+                "  \"endpoints\":[" +
+                "    {\"servicePorts\":[{\"port\":5672,\"name\":\"amqp\"}],\"service\":\"messaging\",\"name\":\"messaging\",\"port\":443,\"certProvider\":{\"secretName\":\"s1\",\"name\":\"openshift\"}}," +
+                "    {\"name\":\"console\",\"service\":\"console\",\"host\":\"console.example.com\",\"cert\":{\"provider\":\"selfsigned\"},\"certProvider\":{\"name\":\"ignored\",\"secretName\":\"s2\"}}]," +
+                "  \"plan\":\"p\",\"type\":\"standard\"}," +
+                "\"metadata\":{\"createdByUid\":\"42\",\"createdBy\":\"developer\",\"namespace\":\"ns1\",\"name\":\"myspace\"}}");
+    }
+
+    @Test
+    public void testAddressSpaceWithoutEndpoints() throws IOException {
+        String json = "{\"metadata\":{\"name\":\"myspace\"},\"spec\":{\"type\":\"brokered\",\"plan\":\"p\",\"endpoints\":null}}";
+        assertSameAddressSpace(json);
+        assertNull(mapper.readValue(json, AddressSpace.class).getEndpoints());
+    }
+
+    @Test(expected = DeserializeException.class)
+    public void testAddressSpaceUnknownDetails() throws IOException {
+        mapper.readValue("{\"metadata\":{\"name\":\"myspace\"},\"spec\":{\"type\":\"brokered\",\"plan\":\"p\"," +
+                "\"authenticationService\":{\"type\":\"none\",\"details\":{\"foo\":\"bar\"}}}}", AddressSpace.class);
+    }
+
+    @Test
+    public void testAddressSpaceList() throws IOException {
+        String json = "{\"kind\":\"AddressSpaceList\",\"items\":[" + mapper.writeValueAsString(DecodeBenchmark.createAddressSpace()) + "]}";
+        AddressSpaceList list = mapper.readValue(json, AddressSpaceList.class);
+        assertThat(list.size(), is(1));
+        assertThat(list.iterator().next().getName(), is("myspace"));
+        assertThat(mapper.readValue("{\"items\":[]}", AddressSpaceList.class), is(new AddressSpaceList(Collections.emptySet())));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.address.model.v1.address;
+
+import io.enmasse.address.model.*;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.sameInstance;
+import static org.junit.Assert.*;
+
+public class AddressResolverTest {
+    private Schema schema;
+    private AddressResolver resolver;
+
+    @Before
+    public void setup() {
+        AddressType queue = new AddressType.Builder()
+                .setName("queue")
+                .setDescription("queue")
+                .setAddressPlans(Arrays.asList(
+                        createPlan("pooled-queue", "queue", 0.1),
+                        createPlan("sharded-queue", "queue", 1)))
+                .build();
+        AddressType topic = new AddressType.Builder()
+                .setName("topic")
+                .setDescription("topic")
+                .setAddressPlans(Arrays.asList(
+                        createPlan("pooled-topic", "topic", 0.1),
+                        createPlan("sharded-topic", "topic", 1)))
+                .build();
+        AddressSpaceType standard = new AddressSpaceType.Builder()
+                .setName("standard")
+                .setDescription("standard")
+                .setAddressTypes(Arrays.asList(queue, topic))
+                .setAddressSpacePlans(Collections.emptyList())
+                .setServiceNames(Collections.emptyList())
+                .build();
+        schema = new Schema.Builder()
+                .setAddressSpaceTypes(Collections.singletonList(standard))
+                .setResourceDefinitions(Arrays.asList(
+                        new ResourceDefinition.Builder().setName("broker").build(),
+                        new ResourceDefinition.Builder().setName("broker-topic").build()))
+                .build();
+        resolver = new AddressResolver(schema, standard);
+    }
+
+    private static AddressPlan createPlan(String name, String type, double brokerCredit) {
+        return new AddressPlan.Builder()
+                .setName(name)
+                .setAddressType(type)
+                .setRequestedResources(Arrays.asList(
+                        new ResourceRequest("router", 0.1),
+                        new ResourceRequest("broker", brokerCredit)))
+                .build();
+    }
+
+    private static Address createAddress(String type, String plan) {
+        return new Address.Builder()
+                .setAddress("a1")
+                .setType(type)
+                .setPlan(plan)
+                .build();
+    }
+
+    @Test
+    public void testLookups() {
+        assertTrue(schema.findAddressSpaceType("standard").isPresent());
+        assertFalse(schema.findAddressSpaceType("brokered").isPresent());
+        assertThat(schema.findResourceDefinition("broker-topic").get().getName(), is("broker-topic"));
+        assertFalse(schema.findResourceDefinition("router").isPresent());
+
+        AddressType queue = schema.findAddressSpaceType("standard").get().findAddressType("queue").get();
+        assertThat(queue.findAddressPlan("sharded-queue").get().getName(), is("sharded-queue"));
+        assertFalse(queue.findAddressPlan("pooled-topic").isPresent());
+    }
+
+    @Test
+    public void testResolve() {
+        ResolvedPlan pooledQueue = resolver.resolve(createAddress("queue", "pooled-queue"));
+        assertThat(pooledQueue.getAddressType().getName(), is("queue"));
+        assertThat(pooledQueue.getAddressPlan().getName(), is("pooled-queue"));
+        assertTrue(pooledQueue.isPooled());
+        assertFalse(pooledQueue.isShardedTopic());
+        assertThat(pooledQueue.getResourceDefinitions().size(), is(1));
+        assertThat(resolver.resolve(createAddress("queue", "pooled-queue")), is(sameInstance(pooledQueue)));
+
+        ResolvedPlan shardedTopic = resolver.resolve(createAddress("topic", "sharded-topic"));
+        assertFalse(shardedTopic.isPooled());
+        assertTrue(shardedTopic.isShardedTopic());
+        assertThat(resolver.getResourceDefinition(shardedTopic, "broker").getName(), is("broker-topic"));
+        assertThat(resolver.getResourceDefinition(resolver.resolve(createAddress("topic", "pooled-topic")), "broker").getName(), is("broker"));
+    }
+
+    @Test(expected = UnresolvedAddressException.class)
+    public void testUnknownType() {
+        resolver.resolve(createAddress("anycast", "pooled-queue"));
+    }
+
+    @Test(expected = UnresolvedAddressException.class)
+    public void testPlanOfOtherType() {
+        resolver.resolve(createAddress("queue", "pooled-topic"));
+    }
+}
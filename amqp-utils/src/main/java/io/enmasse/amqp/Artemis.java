@@ -19,13 +19,13 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingDeque;
-import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
- * Represents an Artemis broker that may be managed
+ * Represents an Artemis broker that may be managed. Any number of requests may be outstanding on the management
+ * link at the same time. Responses are correlated with their requests by correlation id, or by the order in which
+ * the requests were sent for brokers that do not set it (the broker answers in order on the single link).
  */
 public class Artemis implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(Artemis.class.getName());
@@ -35,18 +35,20 @@ public class Artemis implements AutoCloseable {
     private final ProtonSender sender;
     private final ProtonReceiver receiver;
     private final String replyTo;
-    private final BlockingQueue<Message> replies;
+    // requests sent and not answered yet, in the order they were sent. Guarded by itself
+    private final LinkedHashMap<String, CompletableFuture<Message>> pending;
+    private final AtomicLong idCounter = new AtomicLong(0);
     private final String brokerContainerId;
     private long requestTimeoutMillis = 10_000;
 
-    private Artemis(Context context, ProtonConnection connection, ProtonSender sender, ProtonReceiver receiver, String replyTo, BlockingQueue<Message> replies) {
+    private Artemis(Context context, ProtonConnection connection, ProtonSender sender, ProtonReceiver receiver, String replyTo, LinkedHashMap<String, CompletableFuture<Message>> pending) {
         this.context = context;
         this.connection = connection;
         this.brokerContainerId = connection.getRemoteContainer();
         this.sender = sender;
         this.receiver = receiver;
         this.replyTo = replyTo;
-        this.replies = replies;
+        this.pending = pending;
     }
 
     public Artemis setRequestTimeout(long timeout, TimeUnit timeUnit) {
@@ -94,14 +96,14 @@ public class Artemis implements AutoCloseable {
     }
 
     private static void createReceiver(Vertx vertx, ProtonConnection connection, ProtonSender sender, Future<Artemis> promise, int retries) {
-        BlockingQueue<Message> replies = new LinkedBlockingDeque<>();
+        LinkedHashMap<String, CompletableFuture<Message>> pending = new LinkedHashMap<>();
         ProtonReceiver receiver = connection.createReceiver("activemq.management");
         Source source = new Source();
         source.setDynamic(true);
         receiver.setSource(source);
         receiver.openHandler(h -> {
             if (h.succeeded()) {
-                promise.complete(new Artemis(vertx.getOrCreateContext(), connection, sender, receiver, h.result().getRemoteSource().getAddress(), replies));
+                promise.complete(new Artemis(vertx.getOrCreateContext(), connection, sender, receiver, h.result().getRemoteSource().getAddress(), pending));
             } else {
                 if (retries > maxRetries) {
                     promise.fail(h.cause());
@@ -112,16 +114,36 @@ public class Artemis implements AutoCloseable {
             }
         });
         receiver.handler(((protonDelivery, message) -> {
-            try {
-                replies.put(message);
-                ProtonHelper.accepted(protonDelivery, true);
-            } catch (Exception e) {
-                ProtonHelper.rejected(protonDelivery, true);
+            CompletableFuture<Message> response = takeRequest(pending, message.getCorrelationId());
+            if (response != null) {
+                // no-op if timed out, the late response is discarded
+                response.complete(message);
+            } else {
+                log.debug("Discarding response with unknown correlation id {}", message.getCorrelationId());
             }
+            ProtonHelper.accepted(protonDelivery, true);
         }));
         receiver.open();
     }
 
+    /**
+     * Remove the request answered by a response, by correlation id or else the oldest one.
+     */
+    private static CompletableFuture<Message> takeRequest(LinkedHashMap<String, CompletableFuture<Message>> pending, Object correlationId) {
+        synchronized (pending) {
+            if (correlationId != null) {
+                return pending.remove(correlationId.toString());
+            }
+            Iterator<CompletableFuture<Message>> it = pending.values().iterator();
+            if (!it.hasNext()) {
+                return null;
+            }
+            CompletableFuture<Message> oldest = it.next();
+            it.remove();
+            return oldest;
+        }
+    }
+
     private Message doOperation(String resource, String operation, Object ... parameters) throws TimeoutException {
         Message message = createOperationMessage(resource, operation);
         Message response = doRequestResponse(message, parameters);
@@ -131,6 +153,12 @@ public class Artemis implements AutoCloseable {
         return response;
     }
 
+    private CompletableFuture<Message> doOperationAsync(String resource, String operation, Object ... parameters) {
+        Message message = createOperationMessage(resource, operation);
+        message.setBody(new AmqpValue(Json.encode(encodeParameters(parameters))));
+        return sendMessage(message);
+    }
+
     private Message doAttribute(String resource, String attribute, Object ... parameters) throws TimeoutException {
         Message message = createAttributeMessage(resource, attribute);
         Message response = doRequestResponse(message, parameters);
@@ -145,6 +173,11 @@ public class Artemis implements AutoCloseable {
     }
 
     private Message doRequestResponse(long timeout, TimeUnit timeUnit, Message message, Object ... parameters) throws TimeoutException {
+        message.setBody(new AmqpValue(Json.encode(encodeParameters(parameters))));
+        return sendMessage(message, timeout, timeUnit);
+    }
+
+    private static JsonArray encodeParameters(Object ... parameters) {
         JsonArray params = new JsonArray();
         for (Object param : parameters) {
             if (param == null) {
@@ -153,9 +186,7 @@ public class Artemis implements AutoCloseable {
                 params.add(param);
             }
         }
-
-        message.setBody(new AmqpValue(Json.encode(params)));
-        return sendMessage(message, timeout, timeUnit);
+        return params;
     }
 
     private Message createOperationMessage(String resource, String operation) {
@@ -180,16 +211,63 @@ public class Artemis implements AutoCloseable {
         return message;
     }
 
+    private CompletableFuture<Message> sendMessage(Message message) {
+        String id = brokerContainerId + "-" + idCounter.incrementAndGet();
+        message.setMessageId(id);
+        message.setCorrelationId(id);
+
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        context.runOnContext(h -> {
+            // registered when sent, so that the pending requests are in the order of the link. Requests cancelled
+            // on timeout are kept until answered, so that their late response is not taken for the next request
+            synchronized (pending) {
+                pending.put(id, response);
+            }
+            sender.send(message);
+        });
+        return response;
+    }
+
     private Message sendMessage(Message message, long timeout, TimeUnit timeUnit) {
-        context.runOnContext(h -> sender.send(message));
+        return awaitResponse(sendMessage(message), timeout, timeUnit);
+    }
+
+    /**
+     * @return the response, or null if not received within the timeout
+     */
+    private static Message awaitResponse(CompletableFuture<Message> response, long timeout, TimeUnit timeUnit) {
         try {
-            Message m = replies.poll(timeout, timeUnit);
-            return m;
-        } catch (InterruptedException e) {
+            return response.get(timeout, timeUnit);
+        } catch (TimeoutException e) {
+            response.cancel(false);
+            return null;
+        } catch (InterruptedException | ExecutionException e) {
             throw new RuntimeException(e);
         }
     }
 
+    /**
+     * Wait for the responses of pipelined requests. Each response must arrive within the request timeout
+     * of the previous one, and remaining requests are cancelled if not.
+     */
+    private void awaitAll(List<CompletableFuture<Message>> responses, String description) throws TimeoutException {
+        for (int i = 0; i < responses.size(); i++) {
+            if (awaitResponse(responses.get(i), requestTimeoutMillis, TimeUnit.MILLISECONDS) == null) {
+                responses.forEach(response -> response.cancel(false));
+                throw new TimeoutException("Timed out getting response from broker " + brokerContainerId + " on " + description + " after " + i + " of " + responses.size() + " responses");
+            }
+        }
+    }
+
+    /**
+     * Number of requests waiting for a response, including those that timed out.
+     */
+    public int numPending() {
+        synchronized (pending) {
+            return pending.size();
+        }
+    }
+
     public void deployQueue(String name, String address) throws TimeoutException {
         log.info("Deploying queue {} with address {} on broker {}", name, address, brokerContainerId);
         doOperation("broker", "deployQueue", address, name, null, false);
@@ -200,6 +278,20 @@ public class Artemis implements AutoCloseable {
         doOperation("broker", "createQueue", address, "ANYCAST", name, null, true, -1, false, true);
     }
 
+    /**
+     * Create queues in one pipelined burst, without waiting for each response before sending the next request.
+     *
+     * @param addressByQueue address of each queue to create, by queue name
+     */
+    public void createQueues(Map<String, String> addressByQueue) throws TimeoutException {
+        log.info("Creating {} queues on broker {}", addressByQueue.size(), brokerContainerId);
+        List<CompletableFuture<Message>> responses = new ArrayList<>(addressByQueue.size());
+        for (Map.Entry<String, String> entry : addressByQueue.entrySet()) {
+            responses.add(doOperationAsync("broker", "createQueue", entry.getValue(), "ANYCAST", entry.getKey(), null, true, -1, false, true));
+        }
+        awaitAll(responses, "broker.createQueue");
+    }
+
     public void createConnectorService(String name, Map<String, String> connParams) throws TimeoutException {
         log.info("Creating connector service {} on broker {}", name, brokerContainerId);
         String factoryName = "org.apache.activemq.artemis.integration.amqp.AMQPConnectorServiceFactory";
@@ -211,6 +303,18 @@ public class Artemis implements AutoCloseable {
         doOperation("broker", "destroyQueue", name, true);
     }
 
+    /**
+     * Destroy queues in one pipelined burst, without waiting for each response before sending the next request.
+     */
+    public void destroyQueues(Collection<String> names) throws TimeoutException {
+        log.info("Destroying {} queues on broker {}", names.size(), brokerContainerId);
+        List<CompletableFuture<Message>> responses = new ArrayList<>(names.size());
+        for (String name : names) {
+            responses.add(doOperationAsync("broker", "destroyQueue", name, true));
+        }
+        awaitAll(responses, "broker.destroyQueue");
+    }
+
     public void destroyConnectorService(String address) throws TimeoutException {
         doOperation("broker", "destroyConnectorService", address);
         log.info("Destroyed connector service {} on broker {}", address, brokerContainerId);
@@ -262,6 +366,15 @@ public class Artemis implements AutoCloseable {
     }
 
     public void close() {
+        IllegalStateException cause = new IllegalStateException("Connection to broker " + brokerContainerId + " closed");
+        List<CompletableFuture<Message>> responses;
+        synchronized (pending) {
+            responses = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        for (CompletableFuture<Message> response : responses) {
+            response.completeExceptionally(cause);
+        }
         context.runOnContext(id -> connection.close());
     }
 
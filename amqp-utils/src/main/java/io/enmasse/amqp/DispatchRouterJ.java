@@ -18,6 +18,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Consumer;
 
 /**
@@ -37,6 +38,8 @@ public class DispatchRouterJ extends AbstractVerticle {
     private String certDir;
 
     private RoutingTable routingTable = new RoutingTable();
+    // connections opened on the normal ports, that is not by route containers
+    private final Set<ProtonConnection> clientConnections = ConcurrentHashMap.newKeySet();
 
     public DispatchRouterJ(String certDir) {
         this.certDir = certDir;
@@ -89,10 +92,12 @@ public class DispatchRouterJ extends AbstractVerticle {
             connection.openHandler(ar -> connectionOpen(ar, isRouteContainer));
             connection.disconnectHandler(conn -> {
                 log.info("Connection disconnected!");
+                clientConnections.remove(connection);
                 connection.disconnect();
             });
             connection.closeHandler(handle -> {
                 log.info("Connection closing!");
+                clientConnections.remove(connection);
                 connection.close();
                 connection.disconnect();
             });
@@ -113,6 +118,8 @@ public class DispatchRouterJ extends AbstractVerticle {
             ProtonConnection connection = result.result();
             if (isRouteContainer) {
                 routingTable.addConnection(connection, vertx.getOrCreateContext());
+            } else {
+                clientConnections.add(connection);
             }
             connection.open();
         }
@@ -140,6 +147,13 @@ public class DispatchRouterJ extends AbstractVerticle {
     public int getRouteContainerPort() {
         return routeContainer.actualPort();
     }
+
+    /**
+     * Number of AMQP connections currently opened on the normal ports.
+     */
+    public int getNumClientConnections() {
+        return clientConnections.size();
+    }
     public static class Receiver {
         private final ProtonReceiver protonReceiver;
         private final Context context;
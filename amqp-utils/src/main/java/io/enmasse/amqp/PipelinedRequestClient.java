@@ -0,0 +1,224 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.amqp;
+
+import io.vertx.core.Context;
+import io.vertx.core.Vertx;
+import io.vertx.proton.*;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.message.Message;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A client for doing request-response over AMQP, keeping the connection and links open between requests.
+ * Requests are sent without waiting for the previous responses, which are correlated by message id.
+ */
+public class PipelinedRequestClient implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(PipelinedRequestClient.class);
+    private final String host;
+    private final int port;
+    private final String address;
+    private final Vertx vertx;
+    private final ProtonClientOptions clientOptions;
+    private final Context context;
+    private final String idPrefix;
+    private final AtomicLong idCounter = new AtomicLong(0);
+    private final Map<String, CompletableFuture<Message>> pending = new ConcurrentHashMap<>();
+
+    // accessed on context only, connection is set once the links are open and a reply address is assigned
+    private ProtonConnection connection;
+    private ProtonConnection opening;
+    private ProtonSender sender;
+    private String replyTo;
+    private boolean connecting;
+    private boolean closed;
+    private final List<Message> waiting = new ArrayList<>();
+
+    public PipelinedRequestClient(String host, int port, String address, Vertx vertx, ProtonClientOptions clientOptions) {
+        this.host = host;
+        this.port = port;
+        this.address = address;
+        this.vertx = vertx;
+        this.clientOptions = clientOptions;
+        this.context = vertx.getOrCreateContext();
+        this.idPrefix = host + ":" + port + "-";
+    }
+
+    /**
+     * Send a request, connecting first if needed.
+     *
+     * @return a future completed with the response
+     */
+    public CompletableFuture<Message> request(Message message) {
+        String id = idPrefix + idCounter.incrementAndGet();
+        message.setMessageId(id);
+        message.setCorrelationId(id);
+        if (message.getAddress() == null) {
+            message.setAddress(address);
+        }
+
+        CompletableFuture<Message> response = new CompletableFuture<>();
+        pending.put(id, response);
+        // completed, failed or cancelled by the caller on timeout
+        response.whenComplete((m, t) -> pending.remove(id));
+
+        context.runOnContext(v -> {
+            if (closed) {
+                response.completeExceptionally(new IllegalStateException("Client closed"));
+            } else if (connection != null) {
+                send(message);
+            } else {
+                waiting.add(message);
+                connect();
+            }
+        });
+        return response;
+    }
+
+    public Message request(Message message, long timeout, TimeUnit timeUnit) throws InterruptedException, TimeoutException, ExecutionException {
+        CompletableFuture<Message> response = request(message);
+        try {
+            return response.get(timeout, timeUnit);
+        } catch (TimeoutException e) {
+            response.cancel(false);
+            throw e;
+        }
+    }
+
+    /**
+     * Number of requests waiting for a response.
+     */
+    public int numPending() {
+        return pending.size();
+    }
+
+    private void send(Message message) {
+        message.setReplyTo(replyTo);
+        sender.send(message);
+    }
+
+    private void connect() {
+        if (connecting) {
+            return;
+        }
+        connecting = true;
+
+        ProtonClient client = ProtonClient.create(vertx);
+        client.connect(clientOptions, host, port, connectEvent -> {
+            if (connectEvent.failed()) {
+                connecting = false;
+                failWaiting(connectEvent.cause());
+                return;
+            }
+
+            ProtonConnection conn = connectEvent.result();
+            opening = conn;
+            conn.closeHandler(c -> {
+                reset(conn, "Connection to " + host + ":" + port + " closed");
+                conn.close();
+                conn.disconnect();
+            });
+            conn.disconnectHandler(c -> reset(conn, "Disconnected from " + host + ":" + port));
+            conn.open();
+
+            ProtonSender s = conn.createSender(address);
+            s.open();
+
+            ProtonReceiver receiver = conn.createReceiver(address);
+            Source source = new Source();
+            source.setDynamic(true);
+            receiver.setSource(source);
+            receiver.handler((delivery, msg) -> {
+                Object correlationId = msg.getCorrelationId();
+                CompletableFuture<Message> response = correlationId != null ? pending.get(correlationId.toString()) : null;
+                if (response != null) {
+                    response.complete(msg);
+                } else {
+                    log.debug("Discarding response with unknown correlation id {}", correlationId);
+                }
+            });
+            receiver.openHandler(receiverOpenEvent -> {
+                if (opening != conn) {
+                    return;
+                }
+                opening = null;
+                connecting = false;
+                if (receiverOpenEvent.failed()) {
+                    failWaiting(receiverOpenEvent.cause());
+                    conn.close();
+                } else if (receiver.getRemoteSource() == null || receiver.getRemoteSource().getAddress() == null) {
+                    failWaiting(new IllegalStateException("No reply address assigned by " + host + ":" + port));
+                    conn.close();
+                } else {
+                    connection = conn;
+                    sender = s;
+                    replyTo = receiver.getRemoteSource().getAddress();
+                    for (Message message : waiting) {
+                        send(message);
+                    }
+                    waiting.clear();
+                }
+            });
+            receiver.open();
+        });
+    }
+
+    private void failWaiting(Throwable cause) {
+        for (Message message : waiting) {
+            CompletableFuture<Message> response = pending.get(String.valueOf(message.getMessageId()));
+            if (response != null) {
+                response.completeExceptionally(cause != null ? cause : new IllegalStateException("Unable to open links to " + host + ":" + port));
+            }
+        }
+        waiting.clear();
+    }
+
+    private void reset(ProtonConnection conn, String reason) {
+        if (conn == opening) {
+            opening = null;
+            connecting = false;
+            failWaiting(new IllegalStateException(reason));
+            return;
+        }
+        if (conn != connection) {
+            return;
+        }
+        log.debug(reason);
+        connection = null;
+        sender = null;
+        replyTo = null;
+        // responses won't come over a new connection
+        IllegalStateException cause = new IllegalStateException(reason);
+        for (CompletableFuture<Message> response : new ArrayList<>(pending.values())) {
+            response.completeExceptionally(cause);
+        }
+    }
+
+    @Override
+    public void close() {
+        context.runOnContext(v -> {
+            closed = true;
+            if (opening != null) {
+                ProtonConnection conn = opening;
+                reset(conn, "Client closed");
+                conn.close();
+            }
+            if (connection != null) {
+                ProtonConnection conn = connection;
+                reset(conn, "Client closed");
+                conn.close();
+            }
+            failWaiting(new IllegalStateException("Client closed"));
+        });
+    }
+}
@@ -17,6 +17,8 @@ import org.junit.Test;
 import org.junit.Ignore;
 import org.junit.runner.RunWith;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeoutException;
 
@@ -34,8 +36,9 @@ public class ArtemisTest {
     }
 
     @After
-    public void teardown() {
+    public void teardown() throws Exception {
         vertx.close();
+        server.stop();
     }
 
 
@@ -70,4 +73,35 @@ public class ArtemisTest {
             });
         });
     }
+
+    @Test
+    public void testPipelinedQueueCreation(TestContext testContext) throws InterruptedException {
+        Future<Artemis> promise = Artemis.create(vertx, new ProtonClientOptions(), "localhost", 12346);
+        Async async = testContext.async();
+        promise.setHandler(result -> {
+            testContext.assertTrue(result.succeeded());
+            Artemis artemis = result.result();
+
+            vertx.executeBlocking(p -> {
+                try {
+                    Map<String, String> queues = new LinkedHashMap<>();
+                    for (int i = 0; i < 500; i++) {
+                        queues.put("queue" + i, "queue" + i);
+                    }
+                    artemis.createQueues(queues);
+                    testContext.assertEquals(queues.keySet(), artemis.getQueueNames());
+                    testContext.assertEquals(0, artemis.numPending());
+
+                    artemis.destroyQueues(queues.keySet());
+                    testContext.assertEquals(0L, artemis.getNumQueues());
+                    p.complete();
+                } catch (Exception e) {
+                    p.fail(e);
+                }
+            }, r -> {
+                testContext.assertTrue(r.succeeded());
+                async.complete();
+            });
+        });
+    }
 }
@@ -0,0 +1,136 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.amqp;
+
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonClientOptions;
+import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonSession;
+import org.apache.qpid.proton.amqp.messaging.AmqpValue;
+import org.apache.qpid.proton.amqp.messaging.Source;
+import org.apache.qpid.proton.message.Message;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class PipelinedRequestClientTest {
+    private Vertx vertx;
+    private ProtonServer server;
+    private final AtomicInteger numConnections = new AtomicInteger(0);
+    private volatile boolean assignReplyAddress = true;
+
+    @Before
+    public void setup() throws InterruptedException {
+        vertx = Vertx.vertx();
+        server = ProtonServer.create(vertx);
+        CountDownLatch latch = new CountDownLatch(1);
+        server.connectHandler(conn -> {
+            numConnections.incrementAndGet();
+            CompletableFuture<ProtonSender> futureSender = new CompletableFuture<>();
+            conn.closeHandler(c -> {
+                conn.close();
+                conn.disconnect();
+            });
+            conn.disconnectHandler(c -> {
+                conn.disconnect();
+            }).open();
+
+            conn.sessionOpenHandler(ProtonSession::open);
+
+            conn.receiverOpenHandler(receiver -> {
+                receiver.setTarget(receiver.getRemoteTarget());
+                receiver.handler((delivery, message) -> {
+                    // echo the request body back
+                    Message response = Message.Factory.create();
+                    response.setAddress(message.getReplyTo());
+                    response.setBody(message.getBody());
+                    response.setCorrelationId(message.getMessageId());
+                    futureSender.thenAccept(sender -> sender.send(response));
+                });
+                receiver.open();
+            });
+
+            conn.senderOpenHandler(sender -> {
+                Source source = (Source) sender.getRemoteSource();
+                if (assignReplyAddress && source.getDynamic()) {
+                    source.setAddress("reply-" + numConnections.get());
+                }
+                sender.setSource(source);
+                sender.open();
+                futureSender.complete(sender);
+            });
+        }).listen(12348, res -> {
+            latch.countDown();
+        });
+        latch.await();
+    }
+
+    @After
+    public void teardown() {
+        server.close();
+        vertx.close();
+    }
+
+    @Test
+    public void testPipelinedRequests() throws Exception {
+        PipelinedRequestClient client = new PipelinedRequestClient("127.0.0.1", 12348, "$management", vertx, new ProtonClientOptions());
+        try {
+            List<CompletableFuture<Message>> responses = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                Message request = Message.Factory.create();
+                request.setBody(new AmqpValue("request-" + i));
+                responses.add(client.request(request));
+            }
+
+            for (int i = 0; i < 10; i++) {
+                Message response = responses.get(i).get(10, TimeUnit.SECONDS);
+                assertEquals("request-" + i, ((AmqpValue) response.getBody()).getValue());
+            }
+
+            // connection kept open for later requests
+            Message request = Message.Factory.create();
+            request.setBody(new AmqpValue("last"));
+            Message response = client.request(request, 10, TimeUnit.SECONDS);
+            assertEquals("last", ((AmqpValue) response.getBody()).getValue());
+
+            assertEquals(1, numConnections.get());
+            assertEquals(0, client.numPending());
+        } finally {
+            client.close();
+        }
+    }
+
+    @Test
+    public void testMissingReplyAddressFailsRequest() throws Exception {
+        assignReplyAddress = false;
+        PipelinedRequestClient client = new PipelinedRequestClient("127.0.0.1", 12348, "$management", vertx, new ProtonClientOptions());
+        try {
+            Message request = Message.Factory.create();
+            request.setBody(new AmqpValue("request"));
+            try {
+                client.request(request, 10, TimeUnit.SECONDS);
+                fail("Expected request to fail without a reply address");
+            } catch (ExecutionException e) {
+                assertEquals(IllegalStateException.class, e.getCause().getClass());
+            }
+            assertEquals(0, client.numPending());
+        } finally {
+            client.close();
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Caches token reviews and subject access reviews for a while, so that clients polling the API do not cause
+ * reviews to be performed for every request. Tokens are only kept as a hash. Negative results are cached for
+ * a shorter time, so that newly granted access is picked up quickly.
+ */
+public class CachingAuthApi implements AuthApi {
+    private static final Logger log = LoggerFactory.getLogger(CachingAuthApi.class);
+    private final AuthApi delegate;
+    private final ExpiringCache<String, TokenReview> tokenReviews;
+    private final ExpiringCache<List<String>, SubjectAccessReview> accessReviews;
+
+    public CachingAuthApi(AuthApi delegate) {
+        this(delegate, Clock.systemUTC(), 1000, Duration.ofSeconds(60), Duration.ofSeconds(5));
+    }
+
+    public CachingAuthApi(AuthApi delegate, Clock clock, int maxEntries, Duration positiveTtl, Duration negativeTtl) {
+        this.delegate = delegate;
+        this.tokenReviews = new ExpiringCache<>(clock, maxEntries, positiveTtl, negativeTtl, TokenReview::isAuthenticated);
+        this.accessReviews = new ExpiringCache<>(clock, maxEntries, positiveTtl, negativeTtl, SubjectAccessReview::isAllowed);
+    }
+
+    @Override
+    public TokenReview performTokenReview(String token) {
+        TokenReview review = tokenReviews.get(hash(token), key -> delegate.performTokenReview(token));
+        log.debug("Token reviews: {} hits, {} misses", tokenReviews.getNumHits(), tokenReviews.getNumMisses());
+        return review;
+    }
+
+    @Override
+    public SubjectAccessReview performSubjectAccessReview(String user, String namespace, String verb) {
+        SubjectAccessReview review = accessReviews.get(Arrays.asList(user, namespace, verb), key -> delegate.performSubjectAccessReview(user, namespace, verb));
+        log.debug("Subject access reviews: {} hits, {} misses", accessReviews.getNumHits(), accessReviews.getNumMisses());
+        return review;
+    }
+
+    private static String hash(String token) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return Base64.getEncoder().encodeToString(digest.digest(String.valueOf(token).getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public long getNumTokenReviewHits() {
+        return tokenReviews.getNumHits();
+    }
+
+    public long getNumTokenReviewMisses() {
+        return tokenReviews.getNumMisses();
+    }
+
+    public long getNumAccessReviewHits() {
+        return accessReviews.getNumHits();
+    }
+
+    public long getNumAccessReviewMisses() {
+        return accessReviews.getNumMisses();
+    }
+
+    @Override
+    public String getCert(String secretName, String namespace) {
+        return delegate.getCert(secretName, namespace);
+    }
+
+    @Override
+    public String getNamespace() {
+        return delegate.getNamespace();
+    }
+
+    @Override
+    public String getUserId(String userName) {
+        return delegate.getUserId(userName);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * A bounded cache where values expire after a time to live, which is shorter for negative values. Concurrent
+ * lookups of a key that is being loaded wait for that load instead of loading it again. Failed loads are not cached.
+ */
+class ExpiringCache<K, V> {
+    private final Clock clock;
+    private final Duration positiveTtl;
+    private final Duration negativeTtl;
+    private final Predicate<V> isPositive;
+
+    // guarded by this
+    private final Map<K, Entry<V>> entries;
+    private long numHits;
+    private long numMisses;
+
+    private static class Entry<V> {
+        final CompletableFuture<V> value = new CompletableFuture<>();
+        long expiresAt = Long.MAX_VALUE;
+    }
+
+    ExpiringCache(Clock clock, int maxEntries, Duration positiveTtl, Duration negativeTtl, Predicate<V> isPositive) {
+        this.clock = clock;
+        this.positiveTtl = positiveTtl;
+        this.negativeTtl = negativeTtl;
+        this.isPositive = isPositive;
+        this.entries = new LinkedHashMap<K, Entry<V>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    V get(K key, Function<K, V> loader) {
+        Entry<V> entry;
+        boolean load = false;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry != null && entry.expiresAt > clock.millis()) {
+                numHits++;
+            } else {
+                numMisses++;
+                entry = new Entry<>();
+                entries.put(key, entry);
+                load = true;
+            }
+        }
+
+        if (load) {
+            try {
+                V value = loader.apply(key);
+                synchronized (this) {
+                    entry.expiresAt = clock.millis() + (isPositive.test(value) ? positiveTtl : negativeTtl).toMillis();
+                }
+                entry.value.complete(value);
+            } catch (RuntimeException | Error e) {
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                entry.value.completeExceptionally(e);
+                throw e;
+            }
+        }
+        return await(entry.value);
+    }
+
+    private static <V> V await(CompletableFuture<V> value) {
+        boolean interrupted = false;
+        try {
+            while (true) {
+                try {
+                    return value.get();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    }
+                    throw new RuntimeException(e.getCause());
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    synchronized long getNumHits() {
+        return numHits;
+    }
+
+    synchronized long getNumMisses() {
+        return numMisses;
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+}
@@ -0,0 +1,141 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.api.auth;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CachingAuthApiTest {
+    private AuthApi delegate;
+    private TestClock clock;
+    private CachingAuthApi authApi;
+
+    private static class TestClock extends Clock {
+        volatile Instant now = Instant.ofEpochSecond(1000);
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+
+    @Before
+    public void setup() {
+        delegate = mock(AuthApi.class);
+        clock = new TestClock();
+        authApi = new CachingAuthApi(delegate, clock, 2, Duration.ofSeconds(60), Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testTokenReviewCached() {
+        when(delegate.performTokenReview("token1")).thenReturn(new TokenReview("user1", "uid1", true));
+        when(delegate.performTokenReview("token2")).thenReturn(new TokenReview(null, null, false));
+
+        assertTrue(authApi.performTokenReview("token1").isAuthenticated());
+        assertThat(authApi.performTokenReview("token1").getUserName(), is("user1"));
+        assertFalse(authApi.performTokenReview("token2").isAuthenticated());
+        assertFalse(authApi.performTokenReview("token2").isAuthenticated());
+        verify(delegate, times(1)).performTokenReview("token1");
+        verify(delegate, times(1)).performTokenReview("token2");
+        assertThat(authApi.getNumTokenReviewHits(), is(2L));
+        assertThat(authApi.getNumTokenReviewMisses(), is(2L));
+
+        // negative results expire first
+        clock.now = clock.now.plusSeconds(10);
+        authApi.performTokenReview("token1");
+        authApi.performTokenReview("token2");
+        verify(delegate, times(1)).performTokenReview("token1");
+        verify(delegate, times(2)).performTokenReview("token2");
+
+        clock.now = clock.now.plusSeconds(60);
+        authApi.performTokenReview("token1");
+        verify(delegate, times(2)).performTokenReview("token1");
+    }
+
+    @Test
+    public void testAccessReviewCachedPerVerb() {
+        when(delegate.performSubjectAccessReview("user1", "ns1", "get")).thenReturn(new SubjectAccessReview("user1", true));
+        when(delegate.performSubjectAccessReview("user1", "ns1", "create")).thenReturn(new SubjectAccessReview("user1", false));
+
+        assertTrue(authApi.performSubjectAccessReview("user1", "ns1", "get").isAllowed());
+        assertTrue(authApi.performSubjectAccessReview("user1", "ns1", "get").isAllowed());
+        assertFalse(authApi.performSubjectAccessReview("user1", "ns1", "create").isAllowed());
+        verify(delegate, times(1)).performSubjectAccessReview("user1", "ns1", "get");
+        verify(delegate, times(1)).performSubjectAccessReview("user1", "ns1", "create");
+        assertThat(authApi.getNumAccessReviewHits(), is(1L));
+        assertThat(authApi.getNumAccessReviewMisses(), is(2L));
+    }
+
+    @Test
+    public void testFailedReviewNotCached() {
+        when(delegate.performTokenReview("token1"))
+                .thenThrow(new RuntimeException("unavailable"))
+                .thenReturn(new TokenReview("user1", "uid1", true));
+
+        try {
+            authApi.performTokenReview("token1");
+            fail("Expected exception");
+        } catch (RuntimeException e) {
+            assertThat(e.getMessage(), is("unavailable"));
+        }
+        assertTrue(authApi.performTokenReview("token1").isAuthenticated());
+        verify(delegate, times(2)).performTokenReview("token1");
+    }
+
+    @Test
+    public void testConcurrentLookupsDeduplicated() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(delegate.performTokenReview("token1")).thenAnswer(invocation -> {
+            started.countDown();
+            assertTrue(release.await(1, TimeUnit.MINUTES));
+            return new TokenReview("user1", "uid1", true);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TokenReview>> reviews = new ArrayList<>();
+            reviews.add(executor.submit(() -> authApi.performTokenReview("token1")));
+            assertTrue(started.await(1, TimeUnit.MINUTES));
+            for (int i = 0; i < 3; i++) {
+                reviews.add(executor.submit(() -> authApi.performTokenReview("token1")));
+            }
+            while (authApi.getNumTokenReviewHits() < 3) {
+                Thread.sleep(10);
+            }
+            release.countDown();
+
+            for (Future<TokenReview> review : reviews) {
+                assertTrue(review.get(1, TimeUnit.MINUTES).isAuthenticated());
+            }
+            verify(delegate, times(1)).performTokenReview("token1");
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -33,6 +33,14 @@ public class TestAddressApi implements AddressApi {
         createAddress(destination);
     }
 
+    @Override
+    public void replaceAddressStatus(Address destination) {
+        Optional<Address> existing = getAddressWithName(destination.getName());
+        if (existing.isPresent()) {
+            replaceAddress(new Address.Builder(existing.get()).setStatus(destination.getStatus()).build());
+        }
+    }
+
     @Override
     public void deleteAddress(Address destination) {
         if (throwException) {
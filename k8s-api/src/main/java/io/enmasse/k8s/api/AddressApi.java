@@ -7,6 +7,7 @@ package io.enmasse.k8s.api;
 import io.enmasse.address.model.Address;
 
 import java.time.Duration;
+import java.util.Collection;
 import java.util.Optional;
 import java.util.Set;
 
@@ -19,7 +20,22 @@ public interface AddressApi {
     Set<Address> listAddresses();
 
     void createAddress(Address address);
+
+    /**
+     * Create a batch of addresses. Implementations may create them concurrently and in any order.
+     */
+    default void createAddresses(Collection<Address> addresses) {
+        addresses.forEach(this::createAddress);
+    }
+
     void replaceAddress(Address address);
+
+    /**
+     * Replace the status of an address, expecting the address to be at its version. If the address was
+     * modified since, the status and the placement annotations set by the controllers are applied to its
+     * latest version. Nothing is done if it doesn't exist.
+     */
+    void replaceAddressStatus(Address address);
     void deleteAddress(Address address);
 
     Watch watchAddresses(Watcher<Address> watcher, Duration resyncInterval) throws Exception;
@@ -13,6 +13,7 @@ import io.enmasse.k8s.api.cache.*;
 import io.fabric8.kubernetes.api.model.ConfigMap;
 import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
 import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.client.KubernetesClientException;
 import io.fabric8.kubernetes.client.RequestConfig;
 import io.fabric8.kubernetes.client.RequestConfigBuilder;
 import io.fabric8.openshift.client.NamespacedOpenShiftClient;
@@ -22,7 +23,12 @@ import org.slf4j.LoggerFactory;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Implements the AddressApi using config maps.
@@ -30,14 +36,42 @@ import java.util.stream.Collectors;
 public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap, ConfigMapList> {
 
     private static final Logger log = LoggerFactory.getLogger(ConfigMapAddressApi.class);
+    // bursts of address changes within this window are processed at once
+    private static final Duration coalesceWindow = Duration.ofMillis(500);
+    private static final int maxConflictRetries = 5;
+    // annotations set by the controllers when placing an address, kept along with the status
+    private static final List<String> controllerAnnotations = Arrays.asList(AnnotationKeys.CLUSTER_ID, AnnotationKeys.BROKER_ID);
+    private static final int maxParallelCreates = 10;
     private final NamespacedOpenShiftClient client;
     private final String namespace;
+    private final ExecutorService createExecutor;
 
     private final ObjectMapper mapper = CodecV1.getMapper();
 
     public ConfigMapAddressApi(NamespacedOpenShiftClient client, String namespace) {
+        this(client, namespace, newCreateExecutor());
+    }
+
+    /**
+     * For instances created per request, sharing the executor used for bulk creation.
+     */
+    ConfigMapAddressApi(NamespacedOpenShiftClient client, String namespace, ExecutorService createExecutor) {
         this.client = client;
         this.namespace = namespace;
+        this.createExecutor = createExecutor;
+    }
+
+    /**
+     * Executor for bulk creation, bounded to maxParallelCreates threads that exit when idle.
+     */
+    static ExecutorService newCreateExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(maxParallelCreates, maxParallelCreates, 60, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "address-create");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
@@ -100,6 +134,41 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
         }
     }
 
+    @Override
+    public void createAddresses(Collection<Address> addresses) {
+        if (addresses.size() <= 1) {
+            addresses.forEach(this::createAddress);
+            return;
+        }
+
+        // each config map is a separate request, so bulk creation is bounded by round trips rather than the API server
+        List<Future<?>> results = new ArrayList<>(addresses.size());
+        for (Address address : addresses) {
+            results.add(createExecutor.submit(() -> createAddress(address)));
+        }
+
+        RuntimeException failure = null;
+        for (Future<?> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                RuntimeException cause = e.getCause() instanceof RuntimeException ? (RuntimeException) e.getCause() : new RuntimeException(e.getCause());
+                if (failure == null) {
+                    failure = cause;
+                } else {
+                    failure.addSuppressed(cause);
+                }
+            } catch (InterruptedException e) {
+                results.forEach(r -> r.cancel(true));
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while creating addresses", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
     @Override
     public void replaceAddress(Address address) {
         String name = address.getName();
@@ -113,6 +182,56 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
         }
     }
 
+    @Override
+    public void replaceAddressStatus(Address address) {
+        String name = address.getName();
+        Address toWrite = address;
+        for (int attempt = 0; ; attempt++) {
+            if (toWrite.getVersion() == null) {
+                replaceAddress(toWrite);
+                return;
+            }
+            ConfigMap map = create(toWrite);
+            if (map == null) {
+                return;
+            }
+            try {
+                // no need to read it first, the write fails if it was modified since
+                client.configMaps().inNamespace(namespace).withName(name).lockResourceVersion(toWrite.getVersion()).replace(map);
+                return;
+            } catch (KubernetesClientException e) {
+                if (e.getCode() == 404) {
+                    log.debug("Address {} deleted, not replacing status", name);
+                    return;
+                } else if (e.getCode() != 409 || attempt >= maxConflictRetries) {
+                    throw e;
+                }
+            }
+
+            log.debug("Conflict replacing status of address {}, retrying with the latest version", name);
+            Optional<Address> latest = getAddressWithName(name);
+            if (!latest.isPresent()) {
+                return;
+            }
+            toWrite = withControllerState(latest.get(), address);
+        }
+    }
+
+    /**
+     * The latest version of an address with the status and placement set by the controllers applied.
+     */
+    static Address withControllerState(Address latest, Address address) {
+        Address.Builder builder = new Address.Builder(latest)
+                .setStatus(address.getStatus());
+        for (String key : controllerAnnotations) {
+            String value = address.getAnnotations().get(key);
+            if (value != null) {
+                builder.putAnnotation(key, value);
+            }
+        }
+        return builder.build();
+    }
+
     private ConfigMap create(Address address) {
         String name = address.getName();
         ConfigMapBuilder builder = new ConfigMapBuilder()
@@ -146,20 +265,23 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
 
     @Override
     public Watch watchAddresses(Watcher<Address> watcher, Duration resyncInterval) {
-        WorkQueue<ConfigMap> queue = new FifoQueue<>(config -> config.getMetadata().getName());
+        WorkQueue<ConfigMap> queue = new CoalescingQueue<>(config -> config.getMetadata().getName(), coalesceWindow);
         Reflector.Config<ConfigMap, ConfigMapList> config = new Reflector.Config<>();
         config.setClock(Clock.systemUTC());
         config.setExpectedType(ConfigMap.class);
         config.setListerWatcher(this);
         config.setResyncInterval(resyncInterval);
         config.setWorkQueue(queue);
+        TransformingCache<ConfigMap, Address> addressCache = new TransformingCache<>(
+                map -> map.getMetadata().getName(),
+                map -> map.getMetadata().getResourceVersion(),
+                this::getAddressFromConfig);
         config.setProcessor(map -> {
                     if (queue.hasSynced()) {
-                        long start = System.nanoTime();
-                        watcher.onUpdate(queue.list().stream()
-                                .map(this::getAddressFromConfig)
-                                .collect(Collectors.toSet()));
-                        long end = System.nanoTime();
+                        // only the config maps changed since the previous event are decoded
+                        Delta<Address> delta = addressCache.update(queue.list());
+                        log.debug("Address delta {}", delta);
+                        notifyWatcher(watcher, addressCache.list(), delta);
                     }
                 });
 
@@ -169,6 +291,18 @@ public class ConfigMapAddressApi implements AddressApi, ListerWatcher<ConfigMap,
         return controller;
     }
 
+    /**
+     * Hand copies of the cached addresses to the watcher, as watchers modify the status and annotations in place.
+     */
+    static void notifyWatcher(Watcher<Address> watcher, Collection<Address> cached, Delta<Address> delta) throws Exception {
+        Map<String, Address> copies = new HashMap<>();
+        for (Address address : cached) {
+            copies.put(address.getName(), new Address.Builder(address).build());
+        }
+        Delta<Address> copiedDelta = delta.map(address -> copies.getOrDefault(address.getName(), new Address.Builder(address).build()));
+        watcher.onUpdate(new HashSet<>(copies.values()), copiedDelta);
+    }
+
     @Override
     public ConfigMapList list(ListOptions listOptions) {
         return client.configMaps()
@@ -21,6 +21,7 @@ import org.slf4j.LoggerFactory;
 import java.time.Clock;
 import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.ExecutorService;
 import java.util.stream.Collectors;
 
 /**
@@ -30,6 +31,8 @@ public class ConfigMapAddressSpaceApi implements AddressSpaceApi, ListerWatcher<
     protected final Logger log = LoggerFactory.getLogger(getClass().getName());
     private final NamespacedOpenShiftClient client;
     private final ObjectMapper mapper = CodecV1.getMapper();
+    // shared by the address apis of all address spaces
+    private final ExecutorService addressCreateExecutor = ConfigMapAddressApi.newCreateExecutor();
 
     public ConfigMapAddressSpaceApi(NamespacedOpenShiftClient client) {
         this.client = client;
@@ -172,7 +175,7 @@ public class ConfigMapAddressSpaceApi implements AddressSpaceApi, ListerWatcher<
 
     @Override
     public AddressApi withAddressSpace(AddressSpace addressSpace) {
-        return new ConfigMapAddressApi(client, addressSpace.getNamespace());
+        return new ConfigMapAddressApi(client, addressSpace.getNamespace(), addressCreateExecutor);
     }
 
     @Override
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Changes of a set of resources since the previous update delivered to a watcher.
+ */
+public class Delta<T> {
+    private final List<T> added;
+    private final List<T> modified;
+    private final List<T> removed;
+
+    public Delta(List<T> added, List<T> modified, List<T> removed) {
+        this.added = Collections.unmodifiableList(added);
+        this.modified = Collections.unmodifiableList(modified);
+        this.removed = Collections.unmodifiableList(removed);
+    }
+
+    public List<T> getAdded() {
+        return added;
+    }
+
+    public List<T> getModified() {
+        return modified;
+    }
+
+    public List<T> getRemoved() {
+        return removed;
+    }
+
+    public <R> Delta<R> map(Function<T, R> mapper) {
+        return new Delta<>(
+                added.stream().map(mapper).collect(Collectors.toList()),
+                modified.stream().map(mapper).collect(Collectors.toList()),
+                removed.stream().map(mapper).collect(Collectors.toList()));
+    }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && modified.isEmpty() && removed.isEmpty();
+    }
+
+    @Override
+    public String toString() {
+        return "{added=" + added.size() + ",modified=" + modified.size() + ",removed=" + removed.size() + "}";
+    }
+}
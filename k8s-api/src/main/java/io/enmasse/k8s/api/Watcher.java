@@ -8,4 +8,12 @@ import java.util.Set;
 
 public interface Watcher<T> {
     void onUpdate(Set<T> items) throws Exception;
+
+    /**
+     * Called with the full set of items along with what changed since the previous call, by the
+     * watches able to track it. Watchers interested in the changes only should override it.
+     */
+    default void onUpdate(Set<T> items, Delta<T> delta) throws Exception {
+        onUpdate(items);
+    }
 }
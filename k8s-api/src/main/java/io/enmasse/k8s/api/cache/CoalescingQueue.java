@@ -0,0 +1,308 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Work queue that keeps only the latest event for each key and coalesces bursts of events
+ * arriving within a window into a single processor invocation. If the processor fails, it is
+ * invoked again (even without new events) after an exponentially growing back-off.
+ */
+public class CoalescingQueue<T> implements WorkQueue<T> {
+    private static final Logger log = LoggerFactory.getLogger(CoalescingQueue.class);
+    private static final Duration defaultInitialBackoff = Duration.ofSeconds(1);
+    private static final Duration defaultMaxBackoff = Duration.ofMinutes(5);
+
+    private final KeyExtractor<T> keyExtractor;
+    private final long coalesceWindowNanos;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+
+    private final Map<String, T> store = new HashMap<>();
+
+    private final Lock lock = new ReentrantLock();
+    private final Condition available = lock.newCondition();
+    // guarded by lock, latest event by key (null key for sync events)
+    private final Map<String, Event<T>> pending = new LinkedHashMap<>();
+    private long firstPendingTime;
+    private int pendingEventCount;
+    private boolean retry;
+    private T retryObj;
+    private long backoffNanos;
+    private long notBefore;
+
+    private final AtomicInteger initialPopulationCount = new AtomicInteger(0);
+    private volatile boolean populated = false;
+    // guarded by this
+    private boolean replaced = false;
+
+    private volatile long processed;
+    private volatile long failures;
+    private volatile long lastQueueLatencyMillis;
+    private volatile long lastProcessingTimeMillis;
+
+    private enum EventType {
+        Added,
+        Updated,
+        Deleted,
+        Sync
+    }
+
+    private static class Event<T> {
+        final EventType eventType;
+        final T obj;
+
+        private Event(EventType eventType, T obj) {
+            this.eventType = eventType;
+            this.obj = obj;
+        }
+    }
+
+    public CoalescingQueue(KeyExtractor<T> keyExtractor, Duration coalesceWindow) {
+        this(keyExtractor, coalesceWindow, defaultInitialBackoff, defaultMaxBackoff);
+    }
+
+    public CoalescingQueue(KeyExtractor<T> keyExtractor, Duration coalesceWindow, Duration initialBackoff, Duration maxBackoff) {
+        this.keyExtractor = keyExtractor;
+        this.coalesceWindowNanos = coalesceWindow.toNanos();
+        this.initialBackoffNanos = initialBackoff.toNanos();
+        this.maxBackoffNanos = maxBackoff.toNanos();
+    }
+
+    @Override
+    public void pop(Processor<T> processor, long timeout, TimeUnit timeUnit) throws Exception {
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        List<Event<T>> events;
+        int eventCount;
+        long queueLatency;
+        T obj;
+
+        lock.lock();
+        try {
+            if (!awaitReady(deadline)) {
+                log.debug("Woke up but queue is empty");
+                return;
+            }
+
+            // let a burst of events pile up before processing them all at once
+            long windowEnd = firstPendingTime + coalesceWindowNanos;
+            long now = System.nanoTime();
+            while (!pending.isEmpty() && windowEnd - now > 0) {
+                available.awaitNanos(windowEnd - now);
+                now = System.nanoTime();
+            }
+
+            events = new ArrayList<>(pending.values());
+            eventCount = pendingEventCount;
+            queueLatency = pending.isEmpty() ? 0 : now - firstPendingTime;
+            obj = events.isEmpty() ? retryObj : events.get(0).obj;
+            pending.clear();
+            pendingEventCount = 0;
+        } finally {
+            lock.unlock();
+        }
+
+        synchronized (this) {
+            for (Event<T> event : events) {
+                switch (event.eventType) {
+                    case Deleted:
+                        store.remove(keyExtractor.getKey(event.obj));
+                        break;
+                    case Updated:
+                    case Added:
+                        store.put(keyExtractor.getKey(event.obj), event.obj);
+                        break;
+                    case Sync:
+                        if (initialPopulationCount.get() > 0) {
+                            initialPopulationCount.decrementAndGet();
+                        }
+                        break;
+                }
+            }
+
+            long start = System.nanoTime();
+            try {
+                processor.process(obj);
+                processed();
+            } catch (Exception e) {
+                failed(obj);
+                throw e;
+            } finally {
+                lastQueueLatencyMillis = TimeUnit.NANOSECONDS.toMillis(queueLatency);
+                lastProcessingTimeMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+                log.debug("Processed {} events for {} keys, queued for {} ms, processing took {} ms",
+                        eventCount, events.size(), lastQueueLatencyMillis, lastProcessingTimeMillis);
+            }
+        }
+    }
+
+    /**
+     * Wait until there is something to process and the back-off (if any) has expired, or the deadline.
+     * Must be called holding the lock.
+     */
+    private boolean awaitReady(long deadline) throws InterruptedException {
+        while (true) {
+            long now = System.nanoTime();
+            boolean hasWork = !pending.isEmpty() || retry;
+            if (hasWork && now - notBefore >= 0) {
+                return true;
+            }
+            long waitTime = deadline - now;
+            if (waitTime <= 0) {
+                return false;
+            }
+            if (hasWork) {
+                waitTime = Math.min(waitTime, notBefore - now);
+            }
+            available.awaitNanos(waitTime);
+        }
+    }
+
+    private void processed() {
+        lock.lock();
+        try {
+            processed++;
+            retry = false;
+            retryObj = null;
+            backoffNanos = 0;
+            notBefore = System.nanoTime();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void failed(T obj) {
+        lock.lock();
+        try {
+            failures++;
+            retry = true;
+            retryObj = obj;
+            backoffNanos = backoffNanos == 0 ? initialBackoffNanos : Math.min(backoffNanos * 2, maxBackoffNanos);
+            notBefore = System.nanoTime() + backoffNanos;
+            log.info("Processing failed, retrying in {} ms", TimeUnit.NANOSECONDS.toMillis(backoffNanos));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void queueEvent(EventType eventType, T obj) {
+        String key = obj != null ? keyExtractor.getKey(obj) : null;
+        lock.lock();
+        try {
+            populated = true;
+            if (pending.isEmpty()) {
+                firstPendingTime = System.nanoTime();
+            }
+            // only the latest event for a key matters, the store ends up the same
+            pending.remove(key);
+            pending.put(key, new Event<>(eventType, obj));
+            pendingEventCount++;
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public boolean hasSynced() {
+        return populated && initialPopulationCount.get() == 0;
+    }
+
+    @Override
+    public void add(T t) {
+        queueEvent(EventType.Added, t);
+    }
+
+    @Override
+    public void update(T t) {
+        queueEvent(EventType.Updated, t);
+    }
+
+    @Override
+    public void delete(T t) {
+        queueEvent(EventType.Deleted, t);
+    }
+
+    @Override
+    public synchronized List<T> list() {
+        return new ArrayList<>(store.values());
+    }
+
+    @Override
+    public synchronized List<String> listKeys() {
+        return new ArrayList<>(store.keySet());
+    }
+
+    @Override
+    public synchronized void replace(List<T> list, String resourceVersion) {
+        Map<String, T> newItems = new HashMap<>();
+        for (T item : list) {
+            String key = keyExtractor.getKey(item);
+            newItems.put(key, item);
+        }
+        log.debug("Replacing queue with {} items. Populated {}", list.size(), populated);
+        store.clear();
+        store.putAll(newItems);
+        // events added before the first list do not make the queue synced, the list has to be processed first
+        if (!replaced) {
+            replaced = true;
+            initialPopulationCount.set(1);
+        }
+
+        lock.lock();
+        try {
+            // the list supersedes the events queued before it
+            pending.clear();
+            pendingEventCount = 0;
+        } finally {
+            lock.unlock();
+        }
+        queueEvent(EventType.Sync, null);
+    }
+
+    /**
+     * Number of keys with events waiting to be processed.
+     */
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Time the events processed last waited in the queue, since the first of them was queued.
+     */
+    public long getLastQueueLatencyMillis() {
+        return lastQueueLatencyMillis;
+    }
+
+    /**
+     * Time the last processor invocation took.
+     */
+    public long getLastProcessingTimeMillis() {
+        return lastProcessingTimeMillis;
+    }
+
+    public long getProcessedCount() {
+        return processed;
+    }
+
+    public long getFailureCount() {
+        return failures;
+    }
+}
@@ -57,8 +57,8 @@ public class Reflector<T extends HasMetadata, LT extends KubernetesResourceList>
         } catch (InterruptedException e) {
             Thread.interrupted();
         } catch (Exception e) {
+            // queues like the CoalescingQueue retry the processing with back-off
             log.warn("Exception doing resource update", e);
-            // TODO: We can attempt to requeue here
         }
     }
 
@@ -0,0 +1,111 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.KubernetesResourceList;
+import io.fabric8.kubernetes.client.RequestConfig;
+import io.fabric8.kubernetes.client.RequestConfigBuilder;
+import io.fabric8.kubernetes.client.Watch;
+import io.fabric8.kubernetes.client.Watcher;
+import io.fabric8.kubernetes.client.dsl.FilterWatchListDeletable;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Local copy of a kind of resources, in one or all namespaces, kept up to date by a watch.
+ */
+public class ResourceCache<T extends HasMetadata, LT extends KubernetesResourceList> implements ListerWatcher<T, LT> {
+    private final NamespacedOpenShiftClient client;
+    private final Resources<T, LT> resources;
+    private final Controller controller;
+    private volatile List<T> items = Collections.emptyList();
+    private volatile boolean synced = false;
+
+    /**
+     * Selects the resources to cache.
+     */
+    public interface Resources<T, LT> {
+        FilterWatchListDeletable<T, LT, Boolean, Watch, Watcher<T>> select(NamespacedOpenShiftClient client);
+    }
+
+    /**
+     * @param keyExtractor key identifying a resource among the selected ones
+     * @param onChange called after the cache is updated
+     */
+    public ResourceCache(NamespacedOpenShiftClient client, Class<T> type, KeyExtractor<T> keyExtractor, Resources<T, LT> resources, Duration resyncInterval, Runnable onChange) {
+        this.client = client;
+        this.resources = resources;
+
+        WorkQueue<T> queue = new FifoQueue<>(keyExtractor);
+        Reflector.Config<T, LT> config = new Reflector.Config<>();
+        config.setClock(Clock.systemUTC());
+        config.setExpectedType(type);
+        config.setListerWatcher(this);
+        config.setResyncInterval(resyncInterval);
+        config.setWorkQueue(queue);
+        config.setProcessor(item -> {
+            if (queue.hasSynced()) {
+                items = Collections.unmodifiableList(queue.list());
+                synced = true;
+                onChange.run();
+            }
+        });
+        this.controller = new Controller(new Reflector<>(config));
+    }
+
+    /**
+     * Key for resources of a single namespace.
+     */
+    public static String nameOf(HasMetadata resource) {
+        return resource.getMetadata().getName();
+    }
+
+    /**
+     * Key for resources in any namespace.
+     */
+    public static String namespaceAndNameOf(HasMetadata resource) {
+        return resource.getMetadata().getNamespace() + "/" + resource.getMetadata().getName();
+    }
+
+    public void start() {
+        controller.start();
+    }
+
+    public void stop() throws InterruptedException {
+        controller.stop();
+    }
+
+    /**
+     * If the cache was populated, before that the cache is empty.
+     */
+    public boolean hasSynced() {
+        return synced;
+    }
+
+    public List<T> list() {
+        return items;
+    }
+
+    @Override
+    public LT list(ListOptions listOptions) {
+        return resources.select(client).list();
+    }
+
+    @Override
+    public Watch watch(Watcher<T> watcher, ListOptions listOptions) {
+        RequestConfig requestConfig = new RequestConfigBuilder()
+                .withRequestTimeout(listOptions.getTimeoutSeconds())
+                .build();
+        return client.withRequestConfig(requestConfig).call(c ->
+                resources.select(c)
+                        .withResourceVersion(listOptions.getResourceVersion())
+                        .watch(watcher));
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.enmasse.k8s.api.Delta;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Keeps the result of transforming (i.e. decoding) the items of a store, keyed by item key and resource version,
+ * so that only items added or changed since the previous update are transformed again.
+ */
+public class TransformingCache<T, R> {
+    private final KeyExtractor<T> keyExtractor;
+    private final KeyExtractor<T> versionExtractor;
+    private final Function<T, R> transformer;
+    private Map<String, Entry<R>> entries = new HashMap<>();
+
+    private static class Entry<R> {
+        final String version;
+        final R value;
+
+        private Entry(String version, R value) {
+            this.version = version;
+            this.value = value;
+        }
+    }
+
+    public TransformingCache(KeyExtractor<T> keyExtractor, KeyExtractor<T> versionExtractor, Function<T, R> transformer) {
+        this.keyExtractor = keyExtractor;
+        this.versionExtractor = versionExtractor;
+        this.transformer = transformer;
+    }
+
+    /**
+     * Update the cache with the current items, transforming only the ones not seen before with the same version.
+     *
+     * @return the changes since the previous update
+     */
+    public synchronized Delta<R> update(List<T> items) {
+        Map<String, Entry<R>> updated = new HashMap<>(items.size() * 4 / 3 + 1);
+        List<R> added = new ArrayList<>();
+        List<R> modified = new ArrayList<>();
+
+        for (T item : items) {
+            String key = keyExtractor.getKey(item);
+            String version = versionExtractor.getKey(item);
+            Entry<R> entry = entries.get(key);
+            if (entry == null) {
+                entry = new Entry<>(version, transformer.apply(item));
+                added.add(entry.value);
+            } else if (version == null || !version.equals(entry.version)) {
+                entry = new Entry<>(version, transformer.apply(item));
+                modified.add(entry.value);
+            }
+            updated.put(key, entry);
+        }
+
+        List<R> removed = new ArrayList<>();
+        for (Map.Entry<String, Entry<R>> entry : entries.entrySet()) {
+            if (!updated.containsKey(entry.getKey())) {
+                removed.add(entry.getValue().value);
+            }
+        }
+
+        entries = updated;
+        return new Delta<>(added, modified, removed);
+    }
+
+    public synchronized List<R> list() {
+        List<R> values = new ArrayList<>(entries.size());
+        for (Entry<R> entry : entries.values()) {
+            values.add(entry.value);
+        }
+        return values;
+    }
+}
@@ -0,0 +1,157 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.Status;
+import io.enmasse.address.model.v1.CodecV1;
+import io.enmasse.config.AnnotationKeys;
+import io.fabric8.kubernetes.api.model.ConfigMap;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.ConfigMapList;
+import io.fabric8.kubernetes.api.model.DoneableConfigMap;
+import io.fabric8.kubernetes.client.KubernetesClientException;
+import io.fabric8.kubernetes.client.dsl.MixedOperation;
+import io.fabric8.kubernetes.client.dsl.NonNamespaceOperation;
+import io.fabric8.kubernetes.client.dsl.Replaceable;
+import io.fabric8.kubernetes.client.dsl.Resource;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class ConfigMapAddressApiTest {
+    private Resource<ConfigMap, DoneableConfigMap> configMap;
+    private ConfigMapAddressApi addressApi;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        // the client retries conflicts itself when replacing with a locked version, so it is stubbed to
+        // let the conflicts through to the address api
+        NamespacedOpenShiftClient client = mock(NamespacedOpenShiftClient.class);
+        MixedOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> configMaps = mock(MixedOperation.class);
+        NonNamespaceOperation<ConfigMap, ConfigMapList, DoneableConfigMap, Resource<ConfigMap, DoneableConfigMap>> inNamespace = mock(NonNamespaceOperation.class);
+        configMap = mock(Resource.class);
+        when(client.configMaps()).thenReturn(configMaps);
+        when(configMaps.inNamespace(eq("myspace"))).thenReturn(inNamespace);
+        when(inNamespace.withName(eq("q1"))).thenReturn(configMap);
+        addressApi = new ConfigMapAddressApi(client, "myspace");
+    }
+
+    @SuppressWarnings("unchecked")
+    private Replaceable<ConfigMap, ConfigMap> lockedVersion(String version) {
+        Replaceable<ConfigMap, ConfigMap> locked = mock(Replaceable.class);
+        when(configMap.lockResourceVersion(eq(version))).thenReturn(locked);
+        return locked;
+    }
+
+    @Test
+    public void testReplaceStatusAfterConflictKeepsPlacement() throws Exception {
+        Address latest = new Address.Builder()
+                .setName("q1")
+                .setAddress("q1")
+                .setAddressSpace("myspace")
+                .setType("queue")
+                .setPlan("pooled-queue")
+                .setVersion("2")
+                .build();
+        when(configMap.get()).thenReturn(toConfigMap(latest));
+        Replaceable<ConfigMap, ConfigMap> stale = lockedVersion("1");
+        Replaceable<ConfigMap, ConfigMap> current = lockedVersion("2");
+        when(stale.replace(any(ConfigMap.class))).thenThrow(new KubernetesClientException("Conflict", 409, null));
+
+        Address scheduled = new Address.Builder(latest)
+                .setVersion("1")
+                .setStatus(new Status(true))
+                .putAnnotation(AnnotationKeys.CLUSTER_ID, "broker")
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-0")
+                .build();
+        addressApi.replaceAddressStatus(scheduled);
+
+        ArgumentCaptor<ConfigMap> written = ArgumentCaptor.forClass(ConfigMap.class);
+        verify(current).replace(written.capture());
+        Address result = CodecV1.getMapper().readValue(written.getValue().getData().get("config.json"), Address.class);
+        assertThat(result.getStatus().isReady(), is(true));
+        assertThat(result.getAnnotations().get(AnnotationKeys.CLUSTER_ID), is("broker"));
+        assertThat(result.getAnnotations().get(AnnotationKeys.BROKER_ID), is("broker-0"));
+    }
+
+    @Test
+    public void testControllerStateOverridesOnlyPlacement() {
+        Address latest = new Address.Builder()
+                .setAddress("q1")
+                .setType("queue")
+                .putAnnotation("user", "value")
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-1")
+                .build();
+        Address written = new Address.Builder()
+                .setAddress("q1")
+                .setType("queue")
+                .setStatus(new Status(true))
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-0")
+                .build();
+
+        Address result = ConfigMapAddressApi.withControllerState(latest, written);
+        assertThat(result.getStatus().isReady(), is(true));
+        assertThat(result.getAnnotations().get("user"), is("value"));
+        assertThat(result.getAnnotations().get(AnnotationKeys.BROKER_ID), is("broker-0"));
+    }
+
+    @Test
+    public void testWatcherGetsCopiesOfCachedAddresses() throws Exception {
+        Address cached = new Address.Builder()
+                .setName("q1")
+                .setAddress("q1")
+                .setType("queue")
+                .build();
+        Delta<Address> delta = new Delta<>(Collections.singletonList(cached), Collections.emptyList(), Collections.emptyList());
+
+        List<Address> seen = new ArrayList<>();
+        ConfigMapAddressApi.notifyWatcher(new Watcher<Address>() {
+            @Override
+            public void onUpdate(Set<Address> items) {
+            }
+
+            @Override
+            public void onUpdate(Set<Address> items, Delta<Address> d) {
+                Address address = items.iterator().next();
+                address.getStatus().setReady(true).appendMessage("placed");
+                address.getAnnotations().put(AnnotationKeys.BROKER_ID, "broker-0");
+                seen.add(address);
+                seen.add(d.getAdded().get(0));
+            }
+        }, Collections.singletonList(cached), delta);
+
+        // the same copy in the set and in the delta
+        assertTrue(seen.get(0) == seen.get(1));
+        assertThat(cached.getStatus().isReady(), is(false));
+        assertTrue(cached.getStatus().getMessages().isEmpty());
+        assertNull(cached.getAnnotations().get(AnnotationKeys.BROKER_ID));
+    }
+
+    private static ConfigMap toConfigMap(Address address) throws Exception {
+        return new ConfigMapBuilder()
+                .editOrNewMetadata()
+                .withName(address.getName())
+                .withResourceVersion(address.getVersion())
+                .endMetadata()
+                .addToData("config.json", CodecV1.getMapper().writeValueAsString(address))
+                .build();
+    }
+}
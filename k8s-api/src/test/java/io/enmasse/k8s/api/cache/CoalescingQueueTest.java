@@ -0,0 +1,105 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class CoalescingQueueTest {
+    @Test
+    public void testCoalesce() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s, Duration.ofMillis(100));
+        for (int i = 0; i < 1000; i++) {
+            queue.add("k" + (i % 10));
+        }
+        assertTrue(queue.hasSynced());
+        assertThat(queue.getQueueDepth(), is(10));
+
+        Processor<String> mockProc = mock(Processor.class);
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(1)).process(any());
+        assertThat(queue.listKeys().size(), is(10));
+        assertThat(queue.getQueueDepth(), is(0));
+        assertThat(queue.getProcessedCount(), is(1L));
+
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(1)).process(any());
+    }
+
+    @Test
+    public void testLatestEventWins() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s, Duration.ZERO);
+        queue.add("k1");
+        queue.add("k2");
+        queue.delete("k1");
+
+        Processor<String> mockProc = mock(Processor.class);
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc).process(any());
+        assertThat(queue.list(), is(Arrays.asList("k2")));
+    }
+
+    @Test
+    public void testRetryWithBackoff() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s, Duration.ZERO, Duration.ofMillis(200), Duration.ofSeconds(1));
+        queue.add("k1");
+
+        Processor<String> mockProc = mock(Processor.class);
+        doThrow(new RuntimeException("failure")).doNothing().when(mockProc).process(any());
+        try {
+            queue.pop(mockProc, 0, TimeUnit.SECONDS);
+            fail("Expected processor failure");
+        } catch (RuntimeException e) {
+            assertThat(queue.getFailureCount(), is(1L));
+        }
+
+        // not retried before the back-off
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(1)).process(any());
+
+        // retried without new events
+        queue.pop(mockProc, 5, TimeUnit.SECONDS);
+        verify(mockProc, times(2)).process(any());
+        assertThat(queue.getProcessedCount(), is(1L));
+
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc, times(2)).process(any());
+    }
+
+    @Test
+    public void testEmpty() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s, Duration.ofMillis(100));
+        Processor<String> mockProc = mock(Processor.class);
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verifyZeroInteractions(mockProc);
+        assertFalse(queue.hasSynced());
+    }
+
+    @Test
+    public void testSync() throws Exception {
+        CoalescingQueue<String> queue = new CoalescingQueue<>(s -> s, Duration.ofMillis(100));
+        queue.add("k0");
+        queue.replace(Arrays.asList("k1", "k2", "k3"), "33");
+        assertFalse(queue.hasSynced());
+        assertThat(queue.getQueueDepth(), is(1));
+
+        Processor<String> mockProc = mock(Processor.class);
+        queue.pop(mockProc, 0, TimeUnit.SECONDS);
+        verify(mockProc).process(null);
+        assertTrue(queue.hasSynced());
+        assertThat(queue.list().size(), is(3));
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.k8s.api.cache;
+
+import io.enmasse.k8s.api.Delta;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.hasItems;
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class TransformingCacheTest {
+    private final AtomicInteger transformed = new AtomicInteger(0);
+
+    // items are "key:version"
+    private final TransformingCache<String, String> cache = new TransformingCache<>(
+            s -> s.split(":")[0],
+            s -> s.split(":")[1],
+            s -> {
+                transformed.incrementAndGet();
+                return s.toUpperCase();
+            });
+
+    @Test
+    public void testAdded() {
+        Delta<String> delta = cache.update(Arrays.asList("k1:1", "k2:1"));
+        assertThat(delta.getAdded(), hasItems("K1:1", "K2:1"));
+        assertTrue(delta.getModified().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertThat(transformed.get(), is(2));
+        assertThat(cache.list().size(), is(2));
+    }
+
+    @Test
+    public void testUnchangedNotTransformed() {
+        cache.update(Arrays.asList("k1:1", "k2:1"));
+        Delta<String> delta = cache.update(Arrays.asList("k1:1", "k2:1"));
+        assertTrue(delta.isEmpty());
+        assertThat(transformed.get(), is(2));
+        assertThat(cache.list(), hasItems("K1:1", "K2:1"));
+    }
+
+    @Test
+    public void testModified() {
+        cache.update(Arrays.asList("k1:1", "k2:1"));
+        Delta<String> delta = cache.update(Arrays.asList("k1:1", "k2:2"));
+        assertThat(delta.getModified(), is(Collections.singletonList("K2:2")));
+        assertTrue(delta.getAdded().isEmpty());
+        assertTrue(delta.getRemoved().isEmpty());
+        assertThat(transformed.get(), is(3));
+        assertThat(cache.list(), hasItems("K1:1", "K2:2"));
+    }
+
+    @Test
+    public void testRemoved() {
+        cache.update(Arrays.asList("k1:1", "k2:1"));
+        Delta<String> delta = cache.update(Collections.singletonList("k1:1"));
+        assertThat(delta.getRemoved(), is(Collections.singletonList("K2:1")));
+        assertTrue(delta.getAdded().isEmpty());
+        assertTrue(delta.getModified().isEmpty());
+        assertThat(cache.list(), is(Collections.singletonList("K1:1")));
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonClientOptions;
+
+/**
+ * Delegates the authentication of the MQTT client credentials to the AMQP side,
+ * running only the SASL handshake and then dropping the connection.
+ * It's used before attaching a client to a shared (pooled) AMQP connection
+ */
+public class AmqpAuthenticator {
+
+    private final ProtonClient client;
+    private final String address;
+    private final int port;
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance
+     * @param address   address of the AMQP service handling SASL
+     * @param port  port of the AMQP service handling SASL
+     */
+    public AmqpAuthenticator(Vertx vertx, String address, int port) {
+        this.client = ProtonClient.create(vertx);
+        this.address = address;
+        this.port = port;
+    }
+
+    /**
+     * Authenticate the provided credentials
+     *
+     * @param userName  username (null for SASL ANONYMOUS)
+     * @param password  password
+     * @param handler   handler called with the authentication result, failed with a
+     *                  SecurityException if the credentials are rejected
+     */
+    public void authenticate(String userName, String password, Handler<AsyncResult<Void>> handler) {
+
+        // NOTE : Vert.x Proton completes the connect only after the SASL outcome
+        this.client.connect(new ProtonClientOptions(), this.address, this.port, userName, password, done -> {
+
+            if (done.succeeded()) {
+                done.result().disconnect();
+                handler.handle(Future.succeededFuture());
+            } else {
+                handler.handle(Future.failedFuture(done.cause()));
+            }
+        });
+    }
+}
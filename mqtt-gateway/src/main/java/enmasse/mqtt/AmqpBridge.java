@@ -40,15 +40,14 @@ import io.vertx.proton.ProtonDelivery;
 import io.vertx.proton.ProtonLinkOptions;
 import io.vertx.proton.ProtonReceiver;
 import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSession;
 import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -57,6 +56,8 @@ import java.util.stream.Collectors;
 public class AmqpBridge {
 
     private static final int AMQP_SERVICES_CONNECTION_TIMEOUT = 5000; // in ms
+    private static final int DEFAULT_MAX_PUBLISHERS = 100;
+    private static final long DEFAULT_PUBLISHER_IDLE_TIMEOUT = 60000; // in ms
 
     private static final Logger LOG = LoggerFactory.getLogger(AmqpBridge.class);
 
@@ -64,6 +65,11 @@ public class AmqpBridge {
 
     private ProtonClient client;
     private ProtonConnection connection;
+    private ProtonSession session;
+
+    // pool providing the shared connection (null when the bridge has its own connection)
+    private AmqpConnectionPool pool;
+    private final Handler<Void> sharedConnectionCloseHandler = this::handleSharedConnectionClose;
 
     // local endpoint for handling remote connected MQTT client
     private MqttEndpoint mqttEndpoint;
@@ -80,8 +86,13 @@ public class AmqpBridge {
     // callback called when the MQTT client closes connection
     private Handler<AmqpBridge> mqttEndpointCloseHandler;
 
+    // max number of publishers (attached links couples) on topics
+    private int maxPublishers = DEFAULT_MAX_PUBLISHERS;
+    // inactivity timeout (in ms) for detaching publishers on topics
+    private long publisherIdleTimeout = DEFAULT_PUBLISHER_IDLE_TIMEOUT;
+
     // topic subscriptions with granted QoS levels
-    private Map<String, MqttQoS> grantedQoSLevels;
+    private SubscriptionTrie grantedQoSLevels;
 
     /**
      * Constructor
@@ -123,151 +134,216 @@ public class AmqpBridge {
                         .disconnectHandler(this::handleRemoteDisconnect)
                         .open();
 
-                // setup MQTT endpoint handlers and AMQP endpoints
-                this.setupMqttEndpoint();
-                this.setupAmqpEndpoits();
+                this.setup(openHandler);
 
-                // setup a Future for completed connection steps with all services
-                // with AMQP_WILL and AMQP_LIST/AMQP_SUBSCRIPTIONS or AMQP_CLOSE handled
-                Future<AmqpSubscriptionsMessage> connectionFuture = Future.future();
-                connectionFuture.setHandler(ar -> {
+            } else {
 
-                    if (ar.succeeded()) {
+                this.handleConnectionFailure(done.cause(), openHandler);
+            }
 
-                        this.rcvEndpoint.publishHandler(this::publishHandler);
-                        this.rcvEndpoint.pubrelHandler(this::pubrelHandler);
+        });
 
-                        AmqpSubscriptionsMessage amqpSubscriptionsMessage = ar.result();
+    }
 
-                        if (amqpSubscriptionsMessage != null) {
-                            this.mqttEndpoint.accept(!amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
-                            // added topic subscriptions of a previous session in the local collection
-                            this.grantedQoSLevels = amqpSubscriptionsMessage.topicSubscriptions()
-                                    .stream()
-                                    .collect(Collectors.toMap(amqpTopicSubscription -> amqpTopicSubscription.topic(),
-                                            amqpTopicSubscription -> amqpTopicSubscription.qos()));
+    /**
+     * Open the bridge attaching it to a connection shared through the provided pool.
+     * The MQTT client credentials are authenticated before the attach
+     *
+     * @param pool  pool providing the shared AMQP connections
+     * @param authenticator authenticator for the MQTT client credentials
+     * @param openHandler   handler called when the open is completed (with success or not)
+     */
+    public void open(AmqpConnectionPool pool, AmqpAuthenticator authenticator, Handler<AsyncResult<AmqpBridge>> openHandler) {
 
-                        } else {
-                            this.mqttEndpoint.accept(false);
-                            this.grantedQoSLevels = new HashMap<>();
-                        }
-                        LOG.info("CONNACK to MQTT client {} [accepted]", this.mqttEndpoint.clientIdentifier());
+        String userName = (this.mqttEndpoint.auth() != null) ? this.mqttEndpoint.auth().userName() : null;
+        String password = (this.mqttEndpoint.auth() != null) ? this.mqttEndpoint.auth().password() : null;
 
-                        // open unique client publish address receiver
-                        this.rcvEndpoint.openPublish();
+        authenticator.authenticate(userName, password, auth -> {
 
-                        openHandler.handle(Future.succeededFuture(AmqpBridge.this));
+            if (auth.succeeded()) {
 
-                    } else {
+                this.pool = pool;
+                this.pool.acquire(this.sharedConnectionCloseHandler, done -> {
 
-                        this.mqttEndpoint.reject(MqttConnectReturnCode.CONNECTION_REFUSED_SERVER_UNAVAILABLE);
-                        LOG.error("CONNACK to MQTT client {} [rejected]", this.mqttEndpoint.clientIdentifier());
+                    if (done.succeeded()) {
 
-                        openHandler.handle(Future.failedFuture(ar.cause()));
-                    }
+                        this.connection = done.result();
+                        this.setup(openHandler);
+
+                    } else {
 
+                        this.pool = null;
+                        this.handleConnectionFailure(done.cause(), openHandler);
+                    }
                 });
 
-                // step 1 : send AMQP_WILL to Last Will and Testament Service
-                Future<ProtonDelivery> willFuture = Future.future();
-                // if remote MQTT has specified the will
-                if (this.mqttEndpoint.will().isWillFlag()) {
+            } else {
 
-                    // sending AMQP_WILL
-                    MqttWill will = this.mqttEndpoint.will();
+                this.handleConnectionFailure(auth.cause(), openHandler);
+            }
+        });
+    }
 
-                    AmqpWillMessage amqpWillMessage =
-                            new AmqpWillMessage(will.isWillRetain(),
-                                    will.willTopic(),
-                                    MqttQoS.valueOf(will.willQos()),
-                                    Buffer.buffer(will.willMessage()));
+    /**
+     * Setup the bridge on the opened AMQP connection, attaching the session
+     * and running the connection steps with all services
+     *
+     * @param openHandler   handler called when the open is completed (with success or not)
+     */
+    private void setup(Handler<AsyncResult<AmqpBridge>> openHandler) {
 
-                    // specified link name for the Last Will and Testament Service as MQTT clientid
-                    ProtonLinkOptions linkOptions = new ProtonLinkOptions();
-                    linkOptions.setLinkName(this.mqttEndpoint.clientIdentifier());
+        // the bridge links live on their own session so that the connection could be shared
+        this.session = this.connection.createSession();
+        this.session.open();
 
-                    // setup and open AMQP endpoints to Last Will and Testament Service
-                    ProtonSender wsSender = this.connection.createSender(AmqpLwtServiceEndpoint.LWT_SERVICE_ENDPOINT, linkOptions);
-                    this.lwtEndpoint = new AmqpLwtServiceEndpoint(wsSender);
+        // setup MQTT endpoint handlers and AMQP endpoints
+        this.setupMqttEndpoint();
+        this.setupAmqpEndpoits();
 
-                    this.lwtEndpoint.open();
-                    this.lwtEndpoint.sendWill(amqpWillMessage, willFuture.completer());
+        // setup a Future for completed connection steps with all services
+        // with AMQP_WILL and AMQP_LIST/AMQP_SUBSCRIPTIONS or AMQP_CLOSE handled
+        Future<AmqpSubscriptionsMessage> connectionFuture = Future.future();
+        connectionFuture.setHandler(ar -> {
 
-                } else {
+            if (ar.succeeded()) {
 
-                    // otherwise just complete the Future
-                    willFuture.complete();
+                this.rcvEndpoint.publishHandler(this::publishHandler);
+                this.rcvEndpoint.pubrelHandler(this::pubrelHandler);
+
+                AmqpSubscriptionsMessage amqpSubscriptionsMessage = ar.result();
+
+                this.grantedQoSLevels = new SubscriptionTrie();
+
+                if (amqpSubscriptionsMessage != null) {
+                    this.mqttEndpoint.accept(!amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
+                    // added topic subscriptions of a previous session in the local collection
+                    amqpSubscriptionsMessage.topicSubscriptions().forEach(amqpTopicSubscription -> {
+                        this.grantedQoSLevels.add(amqpTopicSubscription.topic(), amqpTopicSubscription.qos());
+                    });
+
+                } else {
+                    this.mqttEndpoint.accept(false);
                 }
+                LOG.info("CONNACK to MQTT client {} [accepted]", this.mqttEndpoint.clientIdentifier());
 
-                willFuture.compose(v -> {
+                // open unique client publish address receiver
+                this.rcvEndpoint.openPublish();
 
-                    // handling AMQP_SUBSCRIPTIONS reply from Subscription Service
-                    this.rcvEndpoint.subscriptionsHandler(amqpSubscriptionsMessage -> {
+                openHandler.handle(Future.succeededFuture(AmqpBridge.this));
 
-                        LOG.info("Session present: {}", !amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
-                        LOG.info(amqpSubscriptionsMessage.toString());
+            } else {
 
-                        connectionFuture.complete(amqpSubscriptionsMessage);
-                    });
+                this.mqttEndpoint.reject(MqttConnectReturnCode.CONNECTION_REFUSED_SERVER_UNAVAILABLE);
+                LOG.error("CONNACK to MQTT client {} [rejected]", this.mqttEndpoint.clientIdentifier());
 
-                    // step 2 : send AMQP_CLOSE or AMQP_LIST (based on "clean session" flag) to Subscription Service
-                    Future<ProtonDelivery> sessionFuture = Future.future();
+                openHandler.handle(Future.failedFuture(ar.cause()));
+            }
 
-                    if (this.mqttEndpoint.isCleanSession()) {
+        });
 
-                        // sending AMQP_CLOSE
-                        AmqpCloseMessage amqpCloseMessage =
-                                new AmqpCloseMessage(this.mqttEndpoint.clientIdentifier());
+        // step 1 : send AMQP_WILL to Last Will and Testament Service
+        Future<ProtonDelivery> willFuture = Future.future();
+        // if remote MQTT has specified the will
+        if (this.mqttEndpoint.will().isWillFlag()) {
 
-                        this.ssEndpoint.sendClose(amqpCloseMessage, closeAsyncResult -> {
+            // sending AMQP_WILL
+            MqttWill will = this.mqttEndpoint.will();
 
-                            // in case of AMQP_CLOSE, the connection completes on its disposition
-                            // no other AMQP message will be delivered by Subscription Service (i.e. AMQP_SUBSCRIPTIONS)
-                            if (closeAsyncResult.succeeded()) {
-                                connectionFuture.complete();
-                            }
-                        });
+            AmqpWillMessage amqpWillMessage =
+                    new AmqpWillMessage(will.isWillRetain(),
+                            will.willTopic(),
+                            MqttQoS.valueOf(will.willQos()),
+                            Buffer.buffer(will.willMessage()));
 
-                    } else {
+            // specified link name for the Last Will and Testament Service as MQTT clientid
+            ProtonLinkOptions linkOptions = new ProtonLinkOptions();
+            linkOptions.setLinkName(this.mqttEndpoint.clientIdentifier());
 
-                        // sending AMQP_LIST
-                        AmqpListMessage amqpListMessage =
-                                new AmqpListMessage(this.mqttEndpoint.clientIdentifier());
+            // setup and open AMQP endpoints to Last Will and Testament Service
+            ProtonSender wsSender = this.session.createSender(AmqpLwtServiceEndpoint.LWT_SERVICE_ENDPOINT, linkOptions);
+            this.lwtEndpoint = new AmqpLwtServiceEndpoint(wsSender);
 
-                        this.ssEndpoint.sendList(amqpListMessage, sessionFuture.completer());
-                    }
+            this.lwtEndpoint.open();
+            this.lwtEndpoint.sendWill(amqpWillMessage, willFuture.completer());
 
-                    return sessionFuture;
+        } else {
 
-                }).compose(v -> {
-                    // nothing here !??
-                }, connectionFuture);
+            // otherwise just complete the Future
+            willFuture.complete();
+        }
 
-                // timeout for the overall connection process
-                vertx.setTimer(AMQP_SERVICES_CONNECTION_TIMEOUT, timer -> {
-                   if (!connectionFuture.isComplete()) {
-                       connectionFuture.fail("Timeout on connecting to AMQP services");
-                   }
+        willFuture.compose(v -> {
+
+            // handling AMQP_SUBSCRIPTIONS reply from Subscription Service
+            this.rcvEndpoint.subscriptionsHandler(amqpSubscriptionsMessage -> {
+
+                LOG.info("Session present: {}", !amqpSubscriptionsMessage.topicSubscriptions().isEmpty());
+                LOG.info(amqpSubscriptionsMessage.toString());
+
+                connectionFuture.complete(amqpSubscriptionsMessage);
+            });
+
+            // step 2 : send AMQP_CLOSE or AMQP_LIST (based on "clean session" flag) to Subscription Service
+            Future<ProtonDelivery> sessionFuture = Future.future();
+
+            if (this.mqttEndpoint.isCleanSession()) {
+
+                // sending AMQP_CLOSE
+                AmqpCloseMessage amqpCloseMessage =
+                        new AmqpCloseMessage(this.mqttEndpoint.clientIdentifier());
+
+                this.ssEndpoint.sendClose(amqpCloseMessage, closeAsyncResult -> {
+
+                    // in case of AMQP_CLOSE, the connection completes on its disposition
+                    // no other AMQP message will be delivered by Subscription Service (i.e. AMQP_SUBSCRIPTIONS)
+                    if (closeAsyncResult.succeeded()) {
+                        connectionFuture.complete();
+                    }
                 });
 
             } else {
 
-                LOG.error("Error connecting to AMQP services ...", done.cause());
-                if (done.cause() instanceof SecurityException) {
-                    // error on the SASL mechanism side
-                    this.mqttEndpoint.reject(MqttConnectReturnCode.CONNECTION_REFUSED_NOT_AUTHORIZED);
-                } else {
-                    // no connection with the AMQP side
-                    this.mqttEndpoint.reject(MqttConnectReturnCode.CONNECTION_REFUSED_SERVER_UNAVAILABLE);
-                }
-
-                openHandler.handle(Future.failedFuture(done.cause()));
+                // sending AMQP_LIST
+                AmqpListMessage amqpListMessage =
+                        new AmqpListMessage(this.mqttEndpoint.clientIdentifier());
 
-                LOG.info("CONNACK to MQTT client {}", this.mqttEndpoint.clientIdentifier());
+                this.ssEndpoint.sendList(amqpListMessage, sessionFuture.completer());
             }
 
+            return sessionFuture;
+
+        }).compose(v -> {
+            // nothing here !??
+        }, connectionFuture);
+
+        // timeout for the overall connection process
+        vertx.setTimer(AMQP_SERVICES_CONNECTION_TIMEOUT, timer -> {
+           if (!connectionFuture.isComplete()) {
+               connectionFuture.fail("Timeout on connecting to AMQP services");
+           }
         });
+    }
+
+    /**
+     * Handle a failure connecting (or authenticating) to AMQP services, rejecting the MQTT client
+     *
+     * @param cause cause of the failure
+     * @param openHandler   handler called when the open is completed
+     */
+    private void handleConnectionFailure(Throwable cause, Handler<AsyncResult<AmqpBridge>> openHandler) {
+
+        LOG.error("Error connecting to AMQP services ...", cause);
+        if (cause instanceof SecurityException) {
+            // error on the SASL mechanism side
+            this.mqttEndpoint.reject(MqttConnectReturnCode.CONNECTION_REFUSED_NOT_AUTHORIZED);
+        } else {
+            // no connection with the AMQP side
+            this.mqttEndpoint.reject(MqttConnectReturnCode.CONNECTION_REFUSED_SERVER_UNAVAILABLE);
+        }
 
+        openHandler.handle(Future.failedFuture(cause));
+
+        LOG.info("CONNACK to MQTT client {}", this.mqttEndpoint.clientIdentifier());
     }
 
     /**
@@ -275,6 +351,10 @@ public class AmqpBridge {
      */
     public void close() {
 
+        LOG.debug("AMQP bridge for client {} publishing links: opened {}, publishers created {}, evicted {}, idle detached {}",
+                this.mqttEndpoint.clientIdentifier(), this.pubEndpoint.links(), this.pubEndpoint.publishersCreated(),
+                this.pubEndpoint.publishersEvicted(), this.pubEndpoint.publishersIdleDetached());
+
         if (this.lwtEndpoint != null)
             this.lwtEndpoint.close(false);
 
@@ -282,7 +362,13 @@ public class AmqpBridge {
         this.rcvEndpoint.close();
         this.pubEndpoint.close();
 
-        this.connection.close();
+        if (this.pool != null) {
+            // the connection is shared with other bridges, just end the own session
+            this.session.close();
+            this.pool.release(this.connection, this.sharedConnectionCloseHandler);
+        } else {
+            this.connection.close();
+        }
 
         if (this.grantedQoSLevels != null)
             this.grantedQoSLevels.clear();
@@ -295,18 +381,17 @@ public class AmqpBridge {
      */
     private void publishHandler(MqttPublishMessage publish) {
 
-        LOG.info("PUBLISH [{}] from MQTT client {}", publish.messageId(), this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBLISH [{}] from MQTT client {}", publish.messageId(), this.mqttEndpoint.clientIdentifier());
+        }
 
         // TODO: simple way, without considering wildcards
 
         // check if a publisher already exists for the requested topic
         if (!this.pubEndpoint.isPublisher(publish.topicName())) {
 
-            // create two sender for publishing QoS 0/1 and QoS 2 messages
-            ProtonSender senderQoS01 = this.connection.createSender(publish.topicName());
-            ProtonSender senderQoS2 = this.connection.createSender(publish.topicName());
-
-            this.pubEndpoint.addPublisher(publish.topicName(), new AmqpPublisher(senderQoS01, senderQoS2));
+            // the publisher creates the senders for publishing QoS 0/1 and QoS 2 messages when needed
+            this.pubEndpoint.addPublisher(publish.topicName(), new AmqpPublisher(this.session, publish.topicName(), this.mqttEndpoint.clientIdentifier()));
         }
 
         // sending AMQP_PUBLISH
@@ -328,11 +413,15 @@ public class AmqpBridge {
                     if (publish.qosLevel() == MqttQoS.AT_LEAST_ONCE) {
 
                         this.mqttEndpoint.publishAcknowledge((int) amqpPublishMessage.messageId());
-                        LOG.info("PUBACK [{}] to MQTT client {}", amqpPublishMessage.messageId(), this.mqttEndpoint.clientIdentifier());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("PUBACK [{}] to MQTT client {}", amqpPublishMessage.messageId(), this.mqttEndpoint.clientIdentifier());
+                        }
                     } else {
 
                         this.mqttEndpoint.publishReceived((int) amqpPublishMessage.messageId());
-                        LOG.info("PUBREC [{}] to MQTT client {}", amqpPublishMessage.messageId(), this.mqttEndpoint.clientIdentifier());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("PUBREC [{}] to MQTT client {}", amqpPublishMessage.messageId(), this.mqttEndpoint.clientIdentifier());
+                        }
                     }
 
                 }
@@ -354,22 +443,23 @@ public class AmqpBridge {
         // see https://github.com/EnMasseProject/subserv/issues/8
 
         // try to get subscribed topic (that could have wildcards) that matches the publish topic
-        String topic = (this.grantedQoSLevels.size() == 0) ? null :
-                TopicMatcher.match(this.grantedQoSLevels.keySet().stream().collect(Collectors.toList()), publish.topic());
+        SubscriptionTrie.Subscription subscription = this.grantedQoSLevels.match(publish.topic());
 
-        if (topic != null) {
+        if (subscription != null) {
 
             // MQTT 3.1.1 spec :  The QoS of Payload Messages sent in response to a Subscription MUST be
             // the minimum of the QoS of the originally published message and the maximum QoS granted by the Server
-            MqttQoS qos = (publish.qos().value() < this.grantedQoSLevels.get(topic).value()) ?
+            MqttQoS qos = (publish.qos().value() < subscription.qos().value()) ?
                     publish.qos() :
-                    this.grantedQoSLevels.get(topic);
+                    subscription.qos();
 
             this.mqttEndpoint.publish(publish.topic(), publish.payload(), qos, publish.isDup(), publish.isRetain());
             // the the message identifier assigned to the published message
             amqpPublishData.setMessageId(this.mqttEndpoint.lastMessageId());
 
-            LOG.info("PUBLISH [{}] to MQTT client {}", this.mqttEndpoint.lastMessageId(), this.mqttEndpoint.clientIdentifier());
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("PUBLISH [{}] to MQTT client {}", this.mqttEndpoint.lastMessageId(), this.mqttEndpoint.clientIdentifier());
+            }
 
             // for QoS 0, message settled immediately
             if (qos == MqttQoS.AT_MOST_ONCE) {
@@ -391,7 +481,9 @@ public class AmqpBridge {
 
         this.mqttEndpoint.publishRelease((int) pubrel.messageId());
 
-        LOG.info("PUBREL [{}] to MQTT client {}", pubrel.messageId(), this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBREL [{}] to MQTT client {}", pubrel.messageId(), this.mqttEndpoint.clientIdentifier());
+        }
     }
 
     /**
@@ -431,7 +523,7 @@ public class AmqpBridge {
 
                     // add accepted topic subscriptions to the local collection
                     amqpSubscribeMessage.topicSubscriptions().stream().forEach(amqpTopicSubscription -> {
-                        this.grantedQoSLevels.put(amqpTopicSubscription.topic(), amqpTopicSubscription.qos());
+                        this.grantedQoSLevels.add(amqpTopicSubscription.topic(), amqpTopicSubscription.qos());
                     });
 
                 } else {
@@ -516,7 +608,9 @@ public class AmqpBridge {
      */
     private void pubackHandler(int messageId) {
 
-        LOG.info("PUBACK [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBACK [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        }
 
         // a PUBLISH message with QoS 1 was sent to remote MQTT client (not settled yet at source)
         // now PUBACK is received so it's time to settle
@@ -530,7 +624,9 @@ public class AmqpBridge {
      */
     private void pubrelHandler(int messageId) {
 
-        LOG.info("PUBREL [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBREL [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        }
 
         // a PUBLISH message with QoS 2 was received from remote MQTT client, PUBREC was already sent
         // as reply, now that PUBREL is coming it's time to settle and reply with PUBCOMP
@@ -538,7 +634,9 @@ public class AmqpBridge {
 
         this.mqttEndpoint.publishComplete(messageId);
 
-        LOG.info("PUBCOMP [{}] to MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBCOMP [{}] to MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        }
     }
 
     /**
@@ -548,7 +646,9 @@ public class AmqpBridge {
      */
     private void pubrecHandler(int messageId) {
 
-        LOG.info("PUBREC [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBREC [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        }
 
         AmqpPubrelMessage amqpPubrelMessage = new AmqpPubrelMessage(messageId);
 
@@ -568,7 +668,9 @@ public class AmqpBridge {
      */
     private void pubcompHandler(int messageId) {
 
-        LOG.info("PUBCOMP [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("PUBCOMP [{}] from MQTT client {}", messageId, this.mqttEndpoint.clientIdentifier());
+        }
 
         // a PUBLISH message with QoS 2 was sent to remote MQTT client (not settled yet at source)
         // then PUBREC was received. The corresponding PUBREL was sent (after PUBLISH settlement at source)
@@ -603,23 +705,48 @@ public class AmqpBridge {
         //        connection is established (and CONNACK sent to the MQTT client)
 
         // setup and open AMQP endpoint for receiving on unique client control/publish addresses
-        ProtonReceiver receiverControl = this.connection.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_CONTROL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
-        ProtonReceiver receiverPublish = this.connection.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_PUBLISH_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
+        ProtonReceiver receiverControl = this.session.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_CONTROL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
+        ProtonReceiver receiverPublish = this.session.createReceiver(String.format(AmqpReceiverEndpoint.CLIENT_PUBLISH_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
         this.rcvEndpoint = new AmqpReceiverEndpoint(new AmqpReceiver(receiverControl, receiverPublish));
 
         // setup and open AMQP endpoint to Subscription Service
-        ProtonSender ssSender = this.connection.createSender(AmqpSubscriptionServiceEndpoint.SUBSCRIPTION_SERVICE_ENDPOINT);
+        ProtonSender ssSender = this.session.createSender(AmqpSubscriptionServiceEndpoint.SUBSCRIPTION_SERVICE_ENDPOINT);
         this.ssEndpoint = new AmqpSubscriptionServiceEndpoint(ssSender);
 
         // setup and open AMQP endpoint for publishing
-        ProtonSender senderPubrel = this.connection.createSender(String.format(AmqpPublishEndpoint.AMQP_CLIENT_PUBREL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
-        this.pubEndpoint = new AmqpPublishEndpoint(senderPubrel);
+        ProtonSender senderPubrel = this.session.createSender(String.format(AmqpPublishEndpoint.AMQP_CLIENT_PUBREL_ENDPOINT_TEMPLATE, this.mqttEndpoint.clientIdentifier()));
+        this.pubEndpoint = new AmqpPublishEndpoint(this.vertx, senderPubrel, this.maxPublishers, this.publisherIdleTimeout);
 
         this.rcvEndpoint.openControl();
         this.ssEndpoint.open();
         this.pubEndpoint.open();
     }
 
+    /**
+     * Set the max number of publishers on topics, the least recently used ones
+     * are detached when it's exceeded
+     *
+     * @param maxPublishers max number of publishers, 0 for no limit
+     * @return  the current AmqpBridge instance
+     */
+    public AmqpBridge maxPublishers(int maxPublishers) {
+
+        this.maxPublishers = maxPublishers;
+        return this;
+    }
+
+    /**
+     * Set the inactivity timeout for detaching publishers on topics
+     *
+     * @param publisherIdleTimeout  inactivity timeout (in ms), 0 for no timeout
+     * @return  the current AmqpBridge instance
+     */
+    public AmqpBridge publisherIdleTimeout(long publisherIdleTimeout) {
+
+        this.publisherIdleTimeout = publisherIdleTimeout;
+        return this;
+    }
+
     /**
      * Set the session handler called when MQTT client closes connection
      *
@@ -685,6 +812,22 @@ public class AmqpBridge {
         }
     }
 
+    /**
+     * Handler for the shared connection closed or lost
+     *
+     * @param v
+     */
+    private void handleSharedConnectionClose(Void v) {
+
+        LOG.info("AMQP shared connection lost for client {}", this.mqttEndpoint.clientIdentifier());
+
+        try {
+            this.mqttEndpoint.close();
+        } catch (IllegalStateException e) {
+            LOG.warn("MQTT endpoint for client {} already closed", this.mqttEndpoint.clientIdentifier());
+        }
+    }
+
     /**
      * AMQP bridge identifier
      *
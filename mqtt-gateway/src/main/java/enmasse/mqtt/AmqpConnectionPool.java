@@ -0,0 +1,218 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonClientOptions;
+import io.vertx.proton.ProtonConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pool of AMQP connections shared by the AMQP bridges, each one attaching its own session
+ * on the connection it acquires.
+ *
+ * NOTE : it's not thread safe, it's meant to be used from the event loop of the verticle owning it
+ */
+public class AmqpConnectionPool {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AmqpConnectionPool.class);
+
+    private static final int AMQP_HEARTBEAT = 30000; // in ms
+
+    private final Vertx vertx;
+    private final String address;
+    private final int port;
+    private final String userName;
+    private final String password;
+
+    private final ProtonClient client;
+    private final List<PooledConnection> connections;
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance
+     * @param address   AMQP service provider address
+     * @param port  AMQP service provider port
+     * @param size  number of connections in the pool
+     * @param userName  username for connecting (null for SASL ANONYMOUS)
+     * @param password  password for connecting
+     */
+    public AmqpConnectionPool(Vertx vertx, String address, int port, int size, String userName, String password) {
+
+        if (size <= 0) {
+            throw new IllegalArgumentException("AMQP connection pool size must be greater than 0");
+        }
+
+        this.vertx = vertx;
+        this.address = address;
+        this.port = port;
+        this.userName = userName;
+        this.password = password;
+
+        this.client = ProtonClient.create(this.vertx);
+        this.connections = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            this.connections.add(new PooledConnection(i));
+        }
+    }
+
+    /**
+     * Acquire the least loaded connection of the pool, connecting it if needed
+     *
+     * @param closeHandler  handler called when the acquired connection is closed or lost
+     * @param handler   handler called when the connection is available (with success or not)
+     */
+    public void acquire(Handler<Void> closeHandler, Handler<AsyncResult<ProtonConnection>> handler) {
+
+        PooledConnection pooled = this.connections.get(0);
+        for (PooledConnection connection : this.connections) {
+            if (connection.load() < pooled.load()) {
+                pooled = connection;
+            }
+        }
+
+        pooled.connect(closeHandler, handler);
+    }
+
+    /**
+     * Release a connection acquired from the pool, leaving it opened for other bridges
+     *
+     * @param connection    connection to release
+     * @param closeHandler  handler provided on acquiring
+     */
+    public void release(ProtonConnection connection, Handler<Void> closeHandler) {
+
+        for (PooledConnection pooled : this.connections) {
+            if (pooled.connection == connection) {
+                pooled.closeHandlers.remove(closeHandler);
+                break;
+            }
+        }
+    }
+
+    /**
+     * Number of bridges attached to the pool connections
+     *
+     * @return
+     */
+    public int attached() {
+
+        int attached = 0;
+        for (PooledConnection pooled : this.connections) {
+            attached += pooled.closeHandlers.size();
+        }
+        return attached;
+    }
+
+    /**
+     * Close all the pool connections
+     */
+    public void close() {
+
+        for (PooledConnection pooled : this.connections) {
+            if (pooled.connection != null) {
+                pooled.connection.close();
+                pooled.connection = null;
+            }
+            pooled.closeHandlers.clear();
+        }
+    }
+
+    /**
+     * Connection slot of the pool with the bridges attached to it
+     */
+    private class PooledConnection {
+
+        private final int index;
+        private ProtonConnection connection;
+        private boolean connecting;
+
+        // handlers of the attached bridges
+        private final List<Handler<Void>> closeHandlers = new ArrayList<>();
+        // bridges waiting for the connection to be established
+        private final List<Handler<AsyncResult<ProtonConnection>>> pending = new ArrayList<>();
+
+        PooledConnection(int index) {
+            this.index = index;
+        }
+
+        int load() {
+            return this.closeHandlers.size() + this.pending.size();
+        }
+
+        void connect(Handler<Void> closeHandler, Handler<AsyncResult<ProtonConnection>> handler) {
+
+            Handler<AsyncResult<ProtonConnection>> attachHandler = done -> {
+                if (done.succeeded()) {
+                    this.closeHandlers.add(closeHandler);
+                }
+                handler.handle(done);
+            };
+
+            if (this.connection != null && !this.connection.isDisconnected()) {
+                attachHandler.handle(Future.succeededFuture(this.connection));
+                return;
+            }
+
+            this.pending.add(attachHandler);
+            if (this.connecting) {
+                return;
+            }
+            this.connecting = true;
+
+            ProtonClientOptions clientOptions = new ProtonClientOptions();
+            clientOptions.setHeartbeat(AMQP_HEARTBEAT);
+
+            client.connect(clientOptions, address, port, userName, password, done -> {
+
+                this.connecting = false;
+
+                if (done.succeeded()) {
+
+                    ProtonConnection connection = done.result();
+                    connection
+                            .closeHandler(remoteClose -> this.handleClose(connection))
+                            .disconnectHandler(this::handleClose)
+                            .open();
+
+                    this.connection = connection;
+                    LOG.info("AMQP pooled connection [{}] opened with {}:{}", this.index, address, port);
+                } else {
+                    LOG.error("Error opening AMQP pooled connection [{}] with {}:{}", this.index, address, port, done.cause());
+                }
+
+                List<Handler<AsyncResult<ProtonConnection>>> handlers = new ArrayList<>(this.pending);
+                this.pending.clear();
+                handlers.forEach(h -> h.handle(done.map(this.connection)));
+            });
+        }
+
+        void handleClose(ProtonConnection connection) {
+
+            if (this.connection != connection) {
+                return;
+            }
+
+            LOG.info("AMQP pooled connection [{}] closed with {}", this.index, connection.getRemoteContainer());
+            this.connection = null;
+            connection.disconnect();
+
+            // all the bridges attached to the connection lose their sessions
+            List<Handler<Void>> handlers = new ArrayList<>(this.closeHandlers);
+            this.closeHandlers.clear();
+            handlers.forEach(h -> h.handle(null));
+        }
+    }
+}
@@ -11,6 +11,7 @@ import io.vertx.core.Handler;
 import io.vertx.core.Vertx;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.SpringApplication;
@@ -34,12 +35,14 @@ public class Application {
 
     private final Vertx vertx = Vertx.vertx();
 
-    @Value(value = "${enmasse.mqtt.maxinstances:1}")
+    // 0 means one verticle instance for each available processor
+    @Value(value = "${enmasse.mqtt.maxinstances:0}")
     private int maxInstances;
     @Value(value = "${enmasse.mqtt.startuptimeout:20}")
     private int startupTimeout;
+    // every verticle instance needs its own MQTT gateway, confined to its own event loop
     @Autowired
-    private MqttGateway mqttGateway;
+    private ObjectFactory<MqttGateway> mqttGatewayFactory;
 
     private AtomicBoolean running = new AtomicBoolean();
 
@@ -95,7 +98,7 @@ public class Application {
      */
     private void deployVerticles(int instanceCount, Future<Void> resultHandler) {
 
-        LOG.debug("Starting up {} instances of MQTT gateway verticle", instanceCount);
+        LOG.info("Starting up {} instances of MQTT gateway verticle", instanceCount);
 
         List<Future> results = new ArrayList<>();
 
@@ -105,7 +108,8 @@ public class Application {
             Future<Void> result = Future.future();
             results.add(result);
 
-            this.vertx.deployVerticle(this.mqttGateway, done -> {
+            // the MQTT servers of all the instances share the listening port
+            this.vertx.deployVerticle(this.mqttGatewayFactory.getObject(), done -> {
                 if (done.succeeded()) {
                     LOG.debug("Verticle instance {} deployed [{}]", instanceId, done.result());
                     result.complete();
@@ -6,7 +6,9 @@
 package enmasse.mqtt;
 
 import io.vertx.core.AbstractVerticle;
+import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
+import io.vertx.core.Handler;
 import io.vertx.core.net.PemKeyCertOptions;
 import io.vertx.mqtt.MqttEndpoint;
 import io.vertx.mqtt.MqttServer;
@@ -14,6 +16,8 @@ import io.vertx.mqtt.MqttServerOptions;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.ConfigurableBeanFactory;
+import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -22,8 +26,12 @@ import java.util.Map;
 
 /**
  * Vert.x based MQTT gateway for EnMasse
+ *
+ * More instances can be deployed, sharing the listening port. Each instance handles its MQTT connections,
+ * bridges and pooled AMQP connections on its own event loop, so they aren't shared with other instances
  */
 @Component
+@Scope(ConfigurableBeanFactory.SCOPE_PROTOTYPE)
 public class MqttGateway extends AbstractVerticle {
 
     private static final Logger LOG = LoggerFactory.getLogger(MqttGateway.class);
@@ -34,6 +42,16 @@ public class MqttGateway extends AbstractVerticle {
     // connection info to the messaging service
     private String messagingServiceHost;
     private int messagingServicePort;
+    // shared AMQP connections info (pool size 0 means a connection per MQTT client)
+    private int connectionPoolSize;
+    private String connectionPoolUserName;
+    private String connectionPoolPassword;
+    // publishers on topics limits for each client
+    private int maxPublishers;
+    private long publisherIdleTimeout;
+    // AMQP service used for authenticating MQTT clients attached to shared connections
+    private String authServiceHost;
+    private int authServicePort;
 
     // SSL/TLS support stuff
     private boolean ssl;
@@ -41,8 +59,11 @@ public class MqttGateway extends AbstractVerticle {
     private String keyFile;
 
     private MqttServer server;
+    private AmqpConnectionPool connectionPool;
+    private AmqpAuthenticator authenticator;
 
-    private Map<String, AmqpBridge> bridges;
+    // bridges handled by this instance, accessed only from its event loop
+    private final Map<String, AmqpBridge> bridges = new HashMap<>();
 
     /**
      * Set the IP address the MQTT gateway will bind to
@@ -92,6 +113,94 @@ public class MqttGateway extends AbstractVerticle {
         return this;
     }
 
+    /**
+     * Set the number of AMQP connections shared by all the MQTT clients.
+     * With 0, every MQTT client has its own AMQP connection
+     *
+     * @param connectionPoolSize    number of shared AMQP connections
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.connectionpoolsize:0}")
+    public MqttGateway setConnectionPoolSize(int connectionPoolSize) {
+        this.connectionPoolSize = connectionPoolSize;
+        return this;
+    }
+
+    /**
+     * Set the username used by the shared AMQP connections
+     *
+     * @param connectionPoolUserName    username for the shared AMQP connections (empty for SASL ANONYMOUS)
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.connectionpoolusername:}")
+    public MqttGateway setConnectionPoolUserName(String connectionPoolUserName) {
+        this.connectionPoolUserName = connectionPoolUserName;
+        return this;
+    }
+
+    /**
+     * Set the password used by the shared AMQP connections
+     *
+     * @param connectionPoolPassword    password for the shared AMQP connections
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.connectionpoolpassword:}")
+    public MqttGateway setConnectionPoolPassword(String connectionPoolPassword) {
+        this.connectionPoolPassword = connectionPoolPassword;
+        return this;
+    }
+
+    /**
+     * Set the address of the AMQP service authenticating the MQTT clients when
+     * the AMQP connections are shared. If empty, the messaging service is used
+     *
+     * @param authServiceHost   address for the authenticating AMQP service
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.authservicehost:}")
+    public MqttGateway setAuthServiceHost(String authServiceHost) {
+        this.authServiceHost = authServiceHost;
+        return this;
+    }
+
+    /**
+     * Set the port of the AMQP service authenticating the MQTT clients when
+     * the AMQP connections are shared
+     *
+     * @param authServicePort   port for the authenticating AMQP service
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.authserviceport:5672}")
+    public MqttGateway setAuthServicePort(int authServicePort) {
+        this.authServicePort = authServicePort;
+        return this;
+    }
+
+    /**
+     * Set the max number of publishers on topics (links couples) each MQTT client can have attached,
+     * the least recently used ones are detached when it's exceeded
+     *
+     * @param maxPublishers max number of publishers for each client, 0 for no limit
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.maxpublishers:100}")
+    public MqttGateway setMaxPublishers(int maxPublishers) {
+        this.maxPublishers = maxPublishers;
+        return this;
+    }
+
+    /**
+     * Set the inactivity timeout after which the publishers on topics are detached
+     *
+     * @param publisherIdleTimeout  inactivity timeout (in ms), 0 for no timeout
+     * @return  current MQTT gateway instance
+     */
+    @Value(value = "${enmasse.mqtt.publisheridletimeout:60000}")
+    public MqttGateway setPublisherIdleTimeout(long publisherIdleTimeout) {
+        this.publisherIdleTimeout = publisherIdleTimeout;
+        return this;
+    }
+
     /**
      * Set the SSL/TLS support needed for the MQTT connections
      *
@@ -150,6 +259,20 @@ public class MqttGateway extends AbstractVerticle {
             LOG.info("SSL/TLS support enabled key {} cert {}", this.keyFile, this.certFile);
         }
 
+        if (this.connectionPoolSize > 0) {
+
+            this.connectionPool = new AmqpConnectionPool(this.vertx,
+                    this.messagingServiceHost, this.messagingServicePort, this.connectionPoolSize,
+                    isNullOrEmpty(this.connectionPoolUserName) ? null : this.connectionPoolUserName,
+                    isNullOrEmpty(this.connectionPoolUserName) ? null : this.connectionPoolPassword);
+
+            this.authenticator = isNullOrEmpty(this.authServiceHost) ?
+                    new AmqpAuthenticator(this.vertx, this.messagingServiceHost, this.messagingServicePort) :
+                    new AmqpAuthenticator(this.vertx, this.authServiceHost, this.authServicePort);
+
+            LOG.info("AMQP connections shared by MQTT clients, pool size {}", this.connectionPoolSize);
+        }
+
         this.server = MqttServer.create(this.vertx, options);
 
         this.server
@@ -158,8 +281,6 @@ public class MqttGateway extends AbstractVerticle {
 
                     if (done.succeeded()) {
 
-                        this.bridges = new HashMap<>();
-
                         LOG.info("MQTT gateway running on {}:{}", this.bindAddress, this.server.actualPort());
                         LOG.info("AMQP messaging service on {}:{}", this.messagingServiceHost, this.messagingServicePort);
                         startFuture.complete();
@@ -180,7 +301,9 @@ public class MqttGateway extends AbstractVerticle {
 
         LOG.info("CONNECT from MQTT client {}", mqttEndpoint.clientIdentifier());
 
-        AmqpBridge bridge = new AmqpBridge(this.vertx, mqttEndpoint);
+        AmqpBridge bridge = new AmqpBridge(this.vertx, mqttEndpoint)
+                .maxPublishers(this.maxPublishers)
+                .publisherIdleTimeout(this.publisherIdleTimeout);
 
         bridge.mqttEndpointCloseHandler(amqpBridge -> {
 
@@ -188,7 +311,9 @@ public class MqttGateway extends AbstractVerticle {
             amqpBridge.close();
             LOG.info("Closed AMQP bridge for client {}", amqpBridge.id());
 
-        }).open(this.messagingServiceHost, this.messagingServicePort, done -> {
+        });
+
+        Handler<AsyncResult<AmqpBridge>> openHandler = done -> {
 
             if (done.succeeded()) {
 
@@ -197,7 +322,22 @@ public class MqttGateway extends AbstractVerticle {
             } else {
                 LOG.info("Error opening the AMQP bridge ...", done.cause());
             }
-        });
+        };
+
+        if (this.connectionPool != null) {
+            bridge.open(this.connectionPool, this.authenticator, openHandler);
+        } else {
+            bridge.open(this.messagingServiceHost, this.messagingServicePort, openHandler);
+        }
+    }
+
+    /**
+     * Get the number of MQTT clients bridged by this instance
+     *
+     * @param handler   handler called on the instance event loop with the number of bridges
+     */
+    public void bridgesCount(Handler<Integer> handler) {
+        this.context.runOnContext(v -> handler.handle(this.bridges.size()));
     }
 
     @Override
@@ -229,9 +369,17 @@ public class MqttGateway extends AbstractVerticle {
                 entry.getValue().close();
             });
 
+            if (this.connectionPool != null) {
+                this.connectionPool.close();
+            }
+
             this.server.close(shutdownTracker.completer());
         } else {
             shutdownTracker.complete();
         }
     }
+
+    private static boolean isNullOrEmpty(String value) {
+        return value == null || value.isEmpty();
+    }
 }
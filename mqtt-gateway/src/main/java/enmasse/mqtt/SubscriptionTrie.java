@@ -0,0 +1,340 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Topic level trie holding the subscriptions (with granted QoS) of a single MQTT client.
+ *
+ * It handles "+" and "#" wildcards natively so that matching a published topic
+ * only walks the levels of the topic itself without compiling any regular expression.
+ *
+ * NOTE : it's not thread safe, it's meant to be used from the event loop of the bridge owning it
+ */
+public class SubscriptionTrie {
+
+    private static final char LEVEL_SEPARATOR = '/';
+    private static final String PLUS_WILDCARD = "+";
+    private static final String SHARP_WILDCARD = "#";
+
+    private final Node root = new Node();
+    // reusable key for looking up topic levels without creating substrings
+    private final LevelKey levelKey = new LevelKey();
+    private int size;
+
+    /**
+     * Add (or update) a subscription
+     *
+     * @param filter    topic filter (could have wildcards)
+     * @param qos   granted QoS level
+     */
+    public void add(String filter, MqttQoS qos) {
+
+        Node node = this.root;
+        int start = 0;
+        while (start >= 0) {
+
+            int end = filter.indexOf(LEVEL_SEPARATOR, start);
+            String level = filter.substring(start, (end < 0) ? filter.length() : end);
+            start = (end < 0) ? -1 : end + 1;
+
+            node = node.child(level, true);
+        }
+
+        if (node.qos == null) {
+            this.size++;
+        }
+        node.filter = filter;
+        node.qos = qos;
+    }
+
+    /**
+     * Remove a subscription
+     *
+     * @param filter    topic filter to remove
+     * @return  if the subscription was present
+     */
+    public boolean remove(String filter) {
+
+        boolean removed = this.remove(this.root, filter, 0);
+        if (removed) {
+            this.size--;
+        }
+        return removed;
+    }
+
+    /**
+     * Return the best subscription matching the published topic, the one with the
+     * highest granted QoS level (the most specific one on equal QoS levels)
+     *
+     * @param topic fixed topic (for publishing)
+     * @return  the matching subscription or null if there is no match
+     */
+    public Subscription match(String topic) {
+
+        return (this.size == 0) ? null : this.match(this.root, topic, 0, null);
+    }
+
+    /**
+     * Granted QoS level for the provided topic filter
+     *
+     * @param filter    topic filter
+     * @return  granted QoS level or null if there is no such subscription
+     */
+    public MqttQoS get(String filter) {
+
+        Node node = this.root;
+        int start = 0;
+        while (start >= 0 && node != null) {
+
+            int end = filter.indexOf(LEVEL_SEPARATOR, start);
+            String level = filter.substring(start, (end < 0) ? filter.length() : end);
+            start = (end < 0) ? -1 : end + 1;
+
+            node = node.child(level, false);
+        }
+        return (node != null) ? node.qos : null;
+    }
+
+    /**
+     * Number of subscriptions
+     *
+     * @return
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * If there are no subscriptions
+     *
+     * @return
+     */
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Remove all the subscriptions
+     */
+    public void clear() {
+
+        this.root.children = null;
+        this.root.plus = null;
+        this.root.sharp = null;
+        this.size = 0;
+    }
+
+    private boolean remove(Node node, String filter, int start) {
+
+        if (start < 0) {
+
+            if (node.qos == null) {
+                return false;
+            }
+            node.filter = null;
+            node.qos = null;
+            return true;
+        }
+
+        int end = filter.indexOf(LEVEL_SEPARATOR, start);
+        String level = filter.substring(start, (end < 0) ? filter.length() : end);
+
+        Node child = node.child(level, false);
+        if (child == null) {
+            return false;
+        }
+
+        boolean removed = this.remove(child, filter, (end < 0) ? -1 : end + 1);
+        if (removed && child.isEmpty()) {
+            node.unlink(level);
+        }
+        return removed;
+    }
+
+    private Subscription match(Node node, String topic, int start, Subscription best) {
+
+        // all topic levels consumed, the node matches only if it's a subscription
+        if (start < 0) {
+            return better(best, node);
+        }
+
+        int end = topic.indexOf(LEVEL_SEPARATOR, start);
+        int next = (end < 0) ? -1 : end + 1;
+        if (end < 0) {
+            end = topic.length();
+        }
+
+        // exact level match first, so it's preferred on equal QoS levels
+        if (node.children != null) {
+            Node child = node.children.get(this.levelKey.set(topic, start, end));
+            if (child != null) {
+                best = this.match(child, topic, next, best);
+            }
+        }
+
+        // "+" matches exactly one level
+        if (node.plus != null) {
+            best = this.match(node.plus, topic, next, best);
+        }
+
+        // "#" matches all the remaining levels (at least one, as the TopicMatcher does)
+        if (node.sharp != null) {
+            best = better(best, node.sharp);
+        }
+
+        return best;
+    }
+
+    private static Subscription better(Subscription best, Node node) {
+
+        if (node.qos == null) {
+            return best;
+        }
+        return ((best == null) || (node.qos.value() > best.qos().value())) ? node : best;
+    }
+
+    /**
+     * Subscription matching a published topic
+     */
+    public interface Subscription {
+
+        /**
+         * Topic filter (could have wildcards)
+         * @return
+         */
+        String filter();
+
+        /**
+         * Granted QoS level
+         * @return
+         */
+        MqttQoS qos();
+    }
+
+    /**
+     * Node of the trie, related to a topic level
+     */
+    private static final class Node implements Subscription {
+
+        // set only when the node is the last level of a subscription
+        private String filter;
+        private MqttQoS qos;
+
+        private Map<String, Node> children;
+        private Node plus;
+        private Node sharp;
+
+        Node child(String level, boolean create) {
+
+            switch (level) {
+
+                case PLUS_WILDCARD:
+                    if (this.plus == null && create) {
+                        this.plus = new Node();
+                    }
+                    return this.plus;
+
+                case SHARP_WILDCARD:
+                    if (this.sharp == null && create) {
+                        this.sharp = new Node();
+                    }
+                    return this.sharp;
+
+                default:
+                    if (this.children == null) {
+                        if (!create) {
+                            return null;
+                        }
+                        this.children = new HashMap<>();
+                    }
+                    return create ? this.children.computeIfAbsent(level, l -> new Node()) : this.children.get(level);
+            }
+        }
+
+        void unlink(String level) {
+
+            switch (level) {
+
+                case PLUS_WILDCARD:
+                    this.plus = null;
+                    break;
+
+                case SHARP_WILDCARD:
+                    this.sharp = null;
+                    break;
+
+                default:
+                    this.children.remove(level);
+                    if (this.children.isEmpty()) {
+                        this.children = null;
+                    }
+                    break;
+            }
+        }
+
+        boolean isEmpty() {
+            return this.qos == null && this.children == null && this.plus == null && this.sharp == null;
+        }
+
+        @Override
+        public String filter() {
+            return this.filter;
+        }
+
+        @Override
+        public MqttQoS qos() {
+            return this.qos;
+        }
+    }
+
+    /**
+     * Lookup key for a topic level, as a region of the published topic.
+     * It has the same hash code of the corresponding String and equals it, so it can be used
+     * for getting from a HashMap with String keys
+     */
+    private static final class LevelKey {
+
+        private String topic;
+        private int start;
+        private int end;
+        private int hash;
+
+        LevelKey set(String topic, int start, int end) {
+
+            this.topic = topic;
+            this.start = start;
+            this.end = end;
+
+            int h = 0;
+            for (int i = start; i < end; i++) {
+                h = 31 * h + topic.charAt(i);
+            }
+            this.hash = h;
+            return this;
+        }
+
+        @Override
+        public int hashCode() {
+            return this.hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+
+            if (!(o instanceof String)) {
+                return false;
+            }
+            String level = (String) o;
+            int length = this.end - this.start;
+            return level.length() == length && this.topic.regionMatches(this.start, level, 0, length);
+        }
+    }
+}
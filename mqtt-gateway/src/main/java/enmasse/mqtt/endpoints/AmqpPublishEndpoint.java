@@ -11,6 +11,7 @@ import io.netty.handler.codec.mqtt.MqttQoS;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Future;
 import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
 import io.vertx.proton.ProtonDelivery;
 import io.vertx.proton.ProtonQoS;
 import io.vertx.proton.ProtonSender;
@@ -19,6 +20,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 /**
@@ -32,18 +35,47 @@ public class AmqpPublishEndpoint {
 
     // all delivery for published messages if they need settlement (messageId -> delivery)
     private Map<Object, ProtonDelivery> deliveries;
-    // links for publishing message on topic (topic -> link/senders couple)
-    private Map<String, AmqpPublisher> publishers;
+    // publishers of the deliveries waiting for settlement (messageId -> publisher)
+    private Map<Object, AmqpPublisher> deliveryPublishers;
+    // links for publishing message on topic (topic -> link/senders couple), in least recently used order
+    private LinkedHashMap<String, AmqpPublisher> publishers;
     // sender for PUBREL messages
     private ProtonSender senderPubrel;
 
+    private final Vertx vertx;
+    // max number of publishers, the least recently used ones are detached when exceeded (0 for no limit)
+    private final int maxPublishers;
+    // inactivity timeout (in ms) for detaching publishers (0 for no timeout)
+    private final long idleTimeout;
+    private long idleTimerId = -1;
+
+    // link count metrics
+    private long publishersCreated;
+    private long publishersEvicted;
+    private long publishersIdleDetached;
+
     /**
      * Constructor
      *
      * @param senderPubrel  ProtonSender instance related to client PUBREL address
      */
     public AmqpPublishEndpoint(ProtonSender senderPubrel) {
+        this(null, senderPubrel, 0, 0);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param vertx Vert.x instance used for the inactivity timer
+     * @param senderPubrel  ProtonSender instance related to client PUBREL address
+     * @param maxPublishers max number of publishers kept attached (0 for no limit)
+     * @param idleTimeout   inactivity timeout (in ms) for detaching publishers (0 for no timeout)
+     */
+    public AmqpPublishEndpoint(Vertx vertx, ProtonSender senderPubrel, int maxPublishers, long idleTimeout) {
+        this.vertx = vertx;
         this.senderPubrel = senderPubrel;
+        this.maxPublishers = maxPublishers;
+        this.idleTimeout = idleTimeout;
     }
 
     /**
@@ -52,7 +84,12 @@ public class AmqpPublishEndpoint {
     public void open() {
 
         this.deliveries = new HashMap<>();
-        this.publishers = new HashMap<>();
+        this.deliveryPublishers = new HashMap<>();
+        this.publishers = new LinkedHashMap<>(16, 0.75f, true);
+
+        if (this.vertx != null && this.idleTimeout > 0) {
+            this.idleTimerId = this.vertx.setPeriodic(this.idleTimeout, timerId -> this.detachIdlePublishers());
+        }
     }
 
     /**
@@ -67,7 +104,8 @@ public class AmqpPublishEndpoint {
     }
 
     /**
-     * Add a publisher to the endpoint
+     * Add a publisher to the endpoint, detaching the least recently used ones
+     * if the max number of publishers is exceeded
      *
      * @param topic topic for which adding the publisher
      * @param amqpPublisher publisher to add
@@ -78,6 +116,24 @@ public class AmqpPublishEndpoint {
             throw new IllegalStateException(String.format("AMQP publisher for %s already exists !", topic));
         }
         this.publishers.put(topic, amqpPublisher);
+        this.publishersCreated++;
+
+        if (this.maxPublishers > 0 && this.publishers.size() > this.maxPublishers) {
+
+            Iterator<Map.Entry<String, AmqpPublisher>> iterator = this.publishers.entrySet().iterator();
+            while (iterator.hasNext() && this.publishers.size() > this.maxPublishers) {
+
+                Map.Entry<String, AmqpPublisher> entry = iterator.next();
+                // publishers with deliveries in progress can't be detached, as well as the one just added
+                if (!entry.getValue().isBusy() && entry.getValue() != amqpPublisher) {
+
+                    entry.getValue().close();
+                    iterator.remove();
+                    this.publishersEvicted++;
+                    LOG.debug("AMQP publisher for {} detached, max publishers {} exceeded", entry.getKey(), this.maxPublishers);
+                }
+            }
+        }
     }
 
     /**
@@ -90,6 +146,7 @@ public class AmqpPublishEndpoint {
         // send AMQP_PUBLISH message
 
         AmqpPublisher publisher = this.publishers.get(amqpPublishMessage.topic());
+        publisher.used();
 
         // use sender for QoS 0/1 messages
         if (amqpPublishMessage.qos() != MqttQoS.EXACTLY_ONCE) {
@@ -100,8 +157,6 @@ public class AmqpPublishEndpoint {
                 publisher.senderQoS01()
                         .setQoS(ProtonQoS.AT_LEAST_ONCE)
                         .open();
-
-                // TODO: think about starting a timer for inactivity on this link for detaching ?
             }
 
             if (amqpPublishMessage.qos() == MqttQoS.AT_MOST_ONCE) {
@@ -111,10 +166,14 @@ public class AmqpPublishEndpoint {
 
             } else {
 
+                publisher.pendingDelivery();
                 publisher.senderQoS01().send(amqpPublishMessage.toAmqp(), delivery -> {
 
+                    publisher.completedDelivery();
                     if (delivery.getRemoteState() == Accepted.getInstance()) {
-                        LOG.info("AMQP publish delivery {}", delivery.getRemoteState());
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("AMQP publish delivery {}", delivery.getRemoteState());
+                        }
                         handler.handle(Future.succeededFuture(delivery));
                     } else {
                         handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
@@ -132,22 +191,28 @@ public class AmqpPublishEndpoint {
                 publisher.senderQoS2()
                         // TODO: Vert.x Proton doesn't support EXACTLY_ONCE
                         .open();
-
-                // TODO: think about starting a timer for inactivity on this link for detaching ?
             }
 
+            publisher.pendingDelivery();
             publisher.senderQoS2().send(amqpPublishMessage.toAmqp(), delivery -> {
 
                 if (delivery.getRemoteState() == Accepted.getInstance()) {
-                    LOG.info("AMQP publish delivery {}", delivery.getRemoteState());
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("AMQP publish delivery {}", delivery.getRemoteState());
+                    }
 
                     // received disposition not settled, store for future settlement
+                    // (the publisher stays busy until then)
                     if (!delivery.remotelySettled()) {
                         this.deliveries.put(amqpPublishMessage.messageId(), delivery);
+                        this.deliveryPublishers.put(amqpPublishMessage.messageId(), publisher);
+                    } else {
+                        publisher.completedDelivery();
                     }
 
                     handler.handle(Future.succeededFuture(delivery));
                 } else {
+                    publisher.completedDelivery();
                     handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
                 }
             });
@@ -176,7 +241,9 @@ public class AmqpPublishEndpoint {
         this.senderPubrel.send(amqpPubrelMessage.toAmqp(), delivery -> {
 
             if (delivery.getRemoteState() == Accepted.getInstance()) {
-                LOG.info("AMQP pubrel delivery {}", delivery.getRemoteState());
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("AMQP pubrel delivery {}", delivery.getRemoteState());
+                }
                 handler.handle(Future.succeededFuture(delivery));
             } else {
                 handler.handle(Future.failedFuture(String.format("AMQP pubrel delivery %s", delivery.getRemoteState())));
@@ -190,6 +257,11 @@ public class AmqpPublishEndpoint {
      */
     public void close() {
 
+        if (this.idleTimerId != -1) {
+            this.vertx.cancelTimer(this.idleTimerId);
+            this.idleTimerId = -1;
+        }
+
         // detach links
         for (Map.Entry<String, AmqpPublisher> entry: this.publishers.entrySet()) {
 
@@ -205,6 +277,7 @@ public class AmqpPublishEndpoint {
 
         this.publishers.clear();
         this.deliveries.clear();
+        this.deliveryPublishers.clear();
     }
 
     /**
@@ -217,6 +290,77 @@ public class AmqpPublishEndpoint {
         if (this.deliveries.containsKey(messageId)) {
             ProtonDelivery delivery = this.deliveries.remove(messageId);
             delivery.disposition(Accepted.getInstance(), true);
+
+            AmqpPublisher publisher = this.deliveryPublishers.remove(messageId);
+            if (publisher != null) {
+                publisher.completedDelivery();
+            }
         }
     }
+
+    /**
+     * Detach the publishers not used since more than the inactivity timeout
+     */
+    private void detachIdlePublishers() {
+
+        long now = System.currentTimeMillis();
+
+        Iterator<Map.Entry<String, AmqpPublisher>> iterator = this.publishers.entrySet().iterator();
+        while (iterator.hasNext()) {
+
+            Map.Entry<String, AmqpPublisher> entry = iterator.next();
+            if (entry.getValue().isIdle(now, this.idleTimeout)) {
+
+                entry.getValue().close();
+                iterator.remove();
+                this.publishersIdleDetached++;
+                LOG.debug("AMQP publisher for {} detached after {} ms of inactivity", entry.getKey(), this.idleTimeout);
+            }
+        }
+    }
+
+    /**
+     * Number of publishers currently attached
+     * @return
+     */
+    public int publishers() {
+        return this.publishers.size();
+    }
+
+    /**
+     * Number of links currently opened for publishing (PUBREL included)
+     * @return
+     */
+    public int links() {
+
+        int links = this.senderPubrel.isOpen() ? 1 : 0;
+        for (AmqpPublisher publisher : this.publishers.values()) {
+            links += publisher.links();
+        }
+        return links;
+    }
+
+    /**
+     * Number of publishers created since the endpoint was opened
+     * @return
+     */
+    public long publishersCreated() {
+        return this.publishersCreated;
+    }
+
+    /**
+     * Number of publishers detached because the max number of publishers was exceeded
+     * @return
+     */
+    public long publishersEvicted() {
+        return this.publishersEvicted;
+    }
+
+    /**
+     * Number of publishers detached because of inactivity
+     * @return
+     */
+    public long publishersIdleDetached() {
+        return this.publishersIdleDetached;
+    }
 }
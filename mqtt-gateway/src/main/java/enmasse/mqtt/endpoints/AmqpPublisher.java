@@ -5,25 +5,42 @@
 
 package enmasse.mqtt.endpoints;
 
+import io.vertx.proton.ProtonLinkOptions;
 import io.vertx.proton.ProtonSender;
+import io.vertx.proton.ProtonSession;
+
+import java.util.UUID;
 
 /**
- * AMQP publisher with links couple for publishing with QoS 0/1 and QoS 2
+ * AMQP publisher with links couple for publishing with QoS 0/1 and QoS 2.
+ * The links are created lazily, only when a message with the related QoS is published
  */
 public class AmqpPublisher {
 
-    private final ProtonSender senderQoS01;
-    private final ProtonSender senderQoS2;
+    private final ProtonSession session;
+    private final String address;
+    private final String clientId;
+
+    private ProtonSender senderQoS01;
+    private ProtonSender senderQoS2;
+
+    // last time (in ms) the publisher was used
+    private long lastUsed;
+    // deliveries waiting for disposition or settlement
+    private int pending;
 
     /**
      * Constructor
      *
-     * @param senderQoS01   ProtonSender instance related to the publishing address for QoS 0 and 1
-     * @param senderQoS2    ProtonSender instance related to the publishing address for QoS 2
+     * @param session   ProtonSession instance on which creating the links
+     * @param address   publishing address
+     * @param clientId  MQTT client identifier, used for naming the links
      */
-    public AmqpPublisher(ProtonSender senderQoS01, ProtonSender senderQoS2) {
-        this.senderQoS01 = senderQoS01;
-        this.senderQoS2 = senderQoS2;
+    public AmqpPublisher(ProtonSession session, String address, String clientId) {
+        this.session = session;
+        this.address = address;
+        this.clientId = clientId;
+        this.lastUsed = System.currentTimeMillis();
     }
 
     /**
@@ -31,11 +48,11 @@ public class AmqpPublisher {
      */
     public void close() {
 
-        if (this.senderQoS01.isOpen()) {
+        if (this.senderQoS01 != null && this.senderQoS01.isOpen()) {
             this.senderQoS01.close();
         }
 
-        if (this.senderQoS2.isOpen()) {
+        if (this.senderQoS2 != null && this.senderQoS2.isOpen()) {
             this.senderQoS2.close();
         }
     }
@@ -46,7 +63,24 @@ public class AmqpPublisher {
      */
     public boolean isOpen() {
 
-        return (this.senderQoS01.isOpen() || this.senderQoS2.isOpen());
+        return ((this.senderQoS01 != null && this.senderQoS01.isOpen()) ||
+                (this.senderQoS2 != null && this.senderQoS2.isOpen()));
+    }
+
+    /**
+     * Number of opened links
+     * @return
+     */
+    public int links() {
+
+        int links = 0;
+        if (this.senderQoS01 != null && this.senderQoS01.isOpen()) {
+            links++;
+        }
+        if (this.senderQoS2 != null && this.senderQoS2.isOpen()) {
+            links++;
+        }
+        return links;
     }
 
     /**
@@ -54,6 +88,10 @@ public class AmqpPublisher {
      * @return
      */
     public ProtonSender senderQoS01() {
+
+        if (this.senderQoS01 == null) {
+            this.senderQoS01 = this.session.createSender(this.address, this.linkOptions());
+        }
         return this.senderQoS01;
     }
 
@@ -62,6 +100,61 @@ public class AmqpPublisher {
      * @return
      */
     public ProtonSender senderQoS2() {
+
+        if (this.senderQoS2 == null) {
+            this.senderQoS2 = this.session.createSender(this.address, this.linkOptions());
+        }
         return this.senderQoS2;
     }
+
+    /**
+     * Options with a unique link name : the names generated by Vert.x Proton are unique per session only,
+     * so links from different clients publishing on the same topic would collide once routed to the broker
+     * @return
+     */
+    private ProtonLinkOptions linkOptions() {
+
+        return new ProtonLinkOptions().setLinkName(String.format("%s.%s", this.clientId, UUID.randomUUID()));
+    }
+
+    /**
+     * Mark the publisher as used now
+     */
+    void used() {
+        this.lastUsed = System.currentTimeMillis();
+    }
+
+    /**
+     * Track a delivery waiting for disposition or settlement
+     */
+    void pendingDelivery() {
+        this.pending++;
+    }
+
+    /**
+     * Track a delivery completed (disposition received or settled)
+     */
+    void completedDelivery() {
+        this.pending--;
+    }
+
+    /**
+     * If the publisher has deliveries waiting for disposition or settlement,
+     * so that it can't be detached
+     * @return
+     */
+    boolean isBusy() {
+        return this.pending > 0;
+    }
+
+    /**
+     * If the publisher isn't used since more than the provided timeout
+     *
+     * @param now   current time (in ms)
+     * @param idleTimeout   inactivity timeout (in ms)
+     * @return
+     */
+    boolean isIdle(long now, long idleTimeout) {
+        return !this.isBusy() && (now - this.lastUsed) >= idleTimeout;
+    }
 }
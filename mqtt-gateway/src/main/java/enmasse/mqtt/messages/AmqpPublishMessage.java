@@ -5,6 +5,8 @@
 
 package enmasse.mqtt.messages;
 
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.mqtt.MqttQoS;
 import io.vertx.core.buffer.Buffer;
 import io.vertx.proton.ProtonHelper;
@@ -17,6 +19,7 @@ import org.apache.qpid.proton.amqp.messaging.MessageAnnotations;
 import org.apache.qpid.proton.amqp.messaging.Section;
 import org.apache.qpid.proton.message.Message;
 
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -25,9 +28,27 @@ import java.util.Map;
  */
 public class AmqpPublishMessage {
 
-    private static final String AMQP_RETAIN_ANNOTATION = "x-opt-retain-message";
-    private static final String AMQP_QOS_ANNOTATION = "x-opt-mqtt-qos";
-    private static final String AMQ_ORIG_ADDRESS_ANNOTATION = "_AMQ_ORIG_ADDRESS";
+    private static final Symbol AMQP_RETAIN_ANNOTATION = Symbol.valueOf("x-opt-retain-message");
+    private static final Symbol AMQP_QOS_ANNOTATION = Symbol.valueOf("x-opt-mqtt-qos");
+    private static final Symbol AMQ_ORIG_ADDRESS_ANNOTATION = Symbol.valueOf("_AMQ_ORIG_ADDRESS");
+    private static final String AMQ_ORIG_ADDRESS_PROPERTY = "_AMQ_ORIG_ADDRESS";
+
+    // message annotations are immutable and depend only on retain flag and QoS level,
+    // so they are built once and shared by all the messages ([retain][qos])
+    private static final MessageAnnotations[][] MESSAGE_ANNOTATIONS = new MessageAnnotations[2][];
+
+    static {
+        MqttQoS[] levels = { MqttQoS.AT_MOST_ONCE, MqttQoS.AT_LEAST_ONCE, MqttQoS.EXACTLY_ONCE };
+        for (int retain = 0; retain < 2; retain++) {
+            MESSAGE_ANNOTATIONS[retain] = new MessageAnnotations[levels.length];
+            for (MqttQoS qos : levels) {
+                Map<Symbol, Object> map = new HashMap<>();
+                map.put(AMQP_RETAIN_ANNOTATION, retain == 1);
+                map.put(AMQP_QOS_ANNOTATION, qos.value());
+                MESSAGE_ANNOTATIONS[retain][qos.value()] = new MessageAnnotations(Collections.unmodifiableMap(map));
+            }
+        }
+    }
 
     private final Object messageId;
     private final MqttQoS qos;
@@ -81,17 +102,21 @@ public class AmqpPublishMessage {
 
         } else {
 
-            if (messageAnnotations.getValue().containsKey(Symbol.valueOf(AMQ_ORIG_ADDRESS_ANNOTATION))) {
-                topic = (String) messageAnnotations.getValue().get(Symbol.valueOf(AMQ_ORIG_ADDRESS_ANNOTATION));
+            Map<Symbol, Object> annotations = messageAnnotations.getValue();
+
+            Object origAddress = annotations.get(AMQ_ORIG_ADDRESS_ANNOTATION);
+            if (origAddress != null) {
+                topic = (String) origAddress;
             }
 
-            if (messageAnnotations.getValue().containsKey(Symbol.valueOf(AMQP_RETAIN_ANNOTATION))) {
-                isRetain = (boolean) messageAnnotations.getValue().get(Symbol.valueOf(AMQP_RETAIN_ANNOTATION));
+            Object retain = annotations.get(AMQP_RETAIN_ANNOTATION);
+            if (retain != null) {
+                isRetain = (boolean) retain;
             }
 
-            if (messageAnnotations.getValue().containsKey(Symbol.valueOf(AMQP_QOS_ANNOTATION))) {
-                int value = (int) messageAnnotations.getValue().get(Symbol.valueOf(AMQP_QOS_ANNOTATION));
-                qos = MqttQoS.valueOf(value);
+            Object qosValue = annotations.get(AMQP_QOS_ANNOTATION);
+            if (qosValue != null) {
+                qos = MqttQoS.valueOf((int) qosValue);
             } else {
 
                 if (message.getHeader() != null) {
@@ -110,14 +135,16 @@ public class AmqpPublishMessage {
         ApplicationProperties applicationProperties = message.getApplicationProperties();
         if (applicationProperties != null) {
 
-            Object amqOrigAddress = applicationProperties.getValue().get("_AMQ_ORIG_ADDRESS");
+            Object amqOrigAddress = applicationProperties.getValue().get(AMQ_ORIG_ADDRESS_PROPERTY);
             topic = (amqOrigAddress != null) ? amqOrigAddress.toString() : topic;
         }
 
         Section section = message.getBody();
         if ((section != null) && (section instanceof Data)) {
 
-            Buffer payload = Buffer.buffer(((Data) section).getValue().getArray());
+            // wrapping the AMQP body, without copying it
+            Binary binary = ((Data) section).getValue();
+            Buffer payload = Buffer.buffer(Unpooled.wrappedBuffer(binary.getArray(), binary.getArrayOffset(), binary.getLength()));
             return new AmqpPublishMessage(message.getMessageId(), qos, isDup, isRetain, topic, payload);
 
         } else {
@@ -136,11 +163,7 @@ public class AmqpPublishMessage {
 
         message.setMessageId(this.messageId);
 
-        Map<Symbol, Object> map = new HashMap<>();
-        map.put(Symbol.valueOf(AMQP_RETAIN_ANNOTATION), this.isRetain);
-        map.put(Symbol.valueOf(AMQP_QOS_ANNOTATION), this.qos.value());
-        MessageAnnotations messageAnnotations = new MessageAnnotations(map);
-        message.setMessageAnnotations(messageAnnotations);
+        message.setMessageAnnotations(MESSAGE_ANNOTATIONS[this.isRetain ? 1 : 0][this.qos.value()]);
 
         message.setAddress(this.topic);
 
@@ -151,8 +174,15 @@ public class AmqpPublishMessage {
         message.setDeliveryCount(this.isDup ? 1 : 0);
 
         // the payload could be null (or empty)
-        if (this.payload != null)
-            message.setBody(new Data(new Binary(this.payload.getBytes())));
+        if (this.payload != null) {
+
+            // wrapping the payload backing array (if any), without copying it
+            ByteBuf byteBuf = this.payload.getByteBuf();
+            Binary binary = byteBuf.hasArray() ?
+                    new Binary(byteBuf.array(), byteBuf.arrayOffset() + byteBuf.readerIndex(), byteBuf.readableBytes()) :
+                    new Binary(this.payload.getBytes());
+            message.setBody(new Data(binary));
+        }
 
         return message;
     }
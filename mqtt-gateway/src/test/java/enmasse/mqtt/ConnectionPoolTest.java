@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.MqttException;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests related to MQTT clients sharing pooled AMQP connections
+ */
+@RunWith(VertxUnitRunner.class)
+public class ConnectionPoolTest extends MockMqttGatewayTestBase {
+
+    private static final int CONNECTION_POOL_SIZE = 2;
+    private static final int CLIENTS = 5;
+    private static final String CLIENT_ID = "my_client_id";
+
+    @Before
+    public void before(TestContext context) {
+        super.setup(context, false, CONNECTION_POOL_SIZE);
+    }
+
+    @After
+    public void after(TestContext context) {
+        super.tearDown(context);
+    }
+
+    @Test
+    public void connectionsShared(TestContext context) {
+
+        List<MqttClient> clients = new ArrayList<>();
+
+        try {
+
+            // more MQTT clients than AMQP connections in the pool
+            for (int i = 0; i < CLIENTS; i++) {
+
+                MqttClient client = new MqttClient(String.format("tcp://%s:%d", MQTT_BIND_ADDRESS, MQTT_LISTEN_PORT), CLIENT_ID + i, new MemoryPersistence());
+                client.connect();
+                clients.add(client);
+
+                context.assertTrue(client.isConnected());
+            }
+
+            // the clients are multiplexed on the pool connections
+            context.assertEquals(CONNECTION_POOL_SIZE, this.router.getNumClientConnections());
+
+            for (MqttClient client : clients) {
+                client.disconnect();
+                context.assertFalse(client.isConnected());
+            }
+
+        } catch (MqttException e) {
+
+            context.fail(e);
+        }
+    }
+}
@@ -18,6 +18,9 @@ import org.junit.runner.RunWith;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Base class for all unit tests
  */
@@ -43,6 +46,7 @@ public abstract class MockMqttGatewayTestBase {
     protected DispatchRouterJ router;
     protected MockBroker broker;
     protected MqttGateway mqttGateway;
+    protected List<MqttGateway> mqttGateways;
 
     /**
      * Setup the MQTT gateway test base
@@ -52,6 +56,31 @@ public abstract class MockMqttGatewayTestBase {
      */
     protected void setup(TestContext context, boolean ssl) {
 
+        this.setup(context, ssl, 0);
+    }
+
+    /**
+     * Setup the MQTT gateway test base
+     *
+     * @param context   test context
+     * @param ssl   if SSL/TLS support is needed
+     * @param connectionPoolSize    number of shared AMQP connections (0 for a connection per client)
+     */
+    protected void setup(TestContext context, boolean ssl, int connectionPoolSize) {
+
+        this.setup(context, ssl, connectionPoolSize, 1);
+    }
+
+    /**
+     * Setup the MQTT gateway test base
+     *
+     * @param context   test context
+     * @param ssl   if SSL/TLS support is needed
+     * @param connectionPoolSize    number of shared AMQP connections (0 for a connection per client)
+     * @param instances number of MQTT gateway verticle instances sharing the listening port
+     */
+    protected void setup(TestContext context, boolean ssl, int connectionPoolSize, int instances) {
+
         this.vertx = Vertx.vertx();
 
         int port = !ssl ? MQTT_LISTEN_PORT : MQTT_TLS_LISTEN_PORT;
@@ -63,20 +92,27 @@ public abstract class MockMqttGatewayTestBase {
 
         deployVerticle(this.router, context);
 
-        // create and setup MQTT gateway instance
-        this.mqttGateway = new MqttGateway();
-        this.mqttGateway
-                .setBindAddress(MQTT_BIND_ADDRESS)
-                .setListenPort(port)
-                .setMessagingServiceHost(MESSAGING_SERVICE_HOST)
-                .setMessagingServicePort(router.getNormalPort());
-
-        if (ssl) {
-            this.mqttGateway
-                    .setSsl(ssl)
-                    .setKeyFile(SERVER_KEY)
-                    .setCertFile(SERVER_CERT);
+        // create and setup MQTT gateway instances
+        this.mqttGateways = new ArrayList<>();
+        for (int i = 0; i < instances; i++) {
+
+            MqttGateway mqttGateway = new MqttGateway();
+            mqttGateway
+                    .setBindAddress(MQTT_BIND_ADDRESS)
+                    .setListenPort(port)
+                    .setMessagingServiceHost(MESSAGING_SERVICE_HOST)
+                    .setMessagingServicePort(router.getNormalPort())
+                    .setConnectionPoolSize(connectionPoolSize);
+
+            if (ssl) {
+                mqttGateway
+                        .setSsl(ssl)
+                        .setKeyFile(SERVER_KEY)
+                        .setCertFile(SERVER_CERT);
+            }
+            this.mqttGateways.add(mqttGateway);
         }
+        this.mqttGateway = this.mqttGateways.get(0);
 
         // create and setup mock Broker instance
         this.broker = new MockBroker();
@@ -100,7 +136,9 @@ public abstract class MockMqttGatewayTestBase {
         deployVerticle(this.broker, context);
         deployVerticle(this.lwtService, context);
         deployVerticle(this.subscriptionService, context);
-        deployVerticle(this.mqttGateway, context);
+        for (MqttGateway mqttGateway : this.mqttGateways) {
+            deployVerticle(mqttGateway, context);
+        }
     }
 
     protected void deployVerticle(Verticle verticle, TestContext context) {
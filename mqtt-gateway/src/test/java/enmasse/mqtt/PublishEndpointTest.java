@@ -0,0 +1,298 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.endpoints.AmqpPublishEndpoint;
+import enmasse.mqtt.endpoints.AmqpPublisher;
+import enmasse.mqtt.messages.AmqpPublishMessage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.proton.ProtonClient;
+import io.vertx.proton.ProtonConnection;
+import io.vertx.proton.ProtonDelivery;
+import io.vertx.proton.ProtonQoS;
+import io.vertx.proton.ProtonServer;
+import io.vertx.proton.ProtonSession;
+import org.apache.qpid.proton.amqp.messaging.Accepted;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Tests related to the publishers kept attached by the publish endpoint
+ */
+@RunWith(VertxUnitRunner.class)
+public class PublishEndpointTest {
+
+    protected final Logger LOG = LoggerFactory.getLogger(PublishEndpointTest.class);
+
+    private static final String CLIENT_ID = "my_client_id";
+    private static final String MQTT_MESSAGE = "Hello MQTT on EnMasse";
+    private static final long IDLE_TIMEOUT = 100;
+    private static final long WAIT_TIMEOUT = 5000;
+
+    @Rule
+    public RunTestOnContext rule = new RunTestOnContext();
+
+    private ProtonServer server;
+    private ProtonConnection connection;
+    private ProtonSession session;
+    private AmqpPublishEndpoint endpoint;
+
+    // links attached on the server (link name -> address)
+    private final Map<String, String> links = new HashMap<>();
+    // deliveries held by the server, not accepted yet
+    private final List<ProtonDelivery> held = new ArrayList<>();
+    private boolean hold;
+    private int messageId;
+
+    @Before
+    public void before(TestContext context) {
+
+        Async async = context.async();
+
+        this.server = ProtonServer.create(this.rule.vertx());
+        this.server.connectHandler(serverConnection -> {
+
+            serverConnection.openHandler(ar -> serverConnection.open());
+            serverConnection.sessionOpenHandler(serverSession -> serverSession.open());
+            serverConnection.receiverOpenHandler(receiver -> {
+
+                String name = receiver.getName();
+                String address = receiver.getRemoteTarget().getAddress();
+
+                receiver.setTarget(receiver.getRemoteTarget())
+                        .setQoS(ProtonQoS.AT_LEAST_ONCE)
+                        .setAutoAccept(false)
+                        .handler((delivery, message) -> {
+
+                            if (this.hold) {
+                                this.held.add(delivery);
+                            } else {
+                                delivery.disposition(Accepted.getInstance(), true);
+                            }
+                        })
+                        .closeHandler(ar -> {
+
+                            this.links.remove(name);
+                            receiver.close();
+                        })
+                        .open();
+
+                this.links.put(name, address);
+            });
+
+        }).listen(0, context.asyncAssertSuccess(server -> {
+
+            ProtonClient.create(this.rule.vertx()).connect("localhost", server.actualPort(), context.asyncAssertSuccess(connection -> {
+
+                this.connection = connection;
+                this.connection.openHandler(context.asyncAssertSuccess(v -> {
+
+                    this.session = this.connection.createSession();
+                    this.session.open();
+                    async.complete();
+                })).open();
+            }));
+        }));
+    }
+
+    @After
+    public void after(TestContext context) {
+
+        if (this.endpoint != null) {
+            this.endpoint.close();
+        }
+        this.connection.close();
+        this.server.close();
+    }
+
+    @Test
+    public void leastRecentlyUsedEvicted(TestContext context) {
+
+        Async async = context.async();
+
+        this.open(2, 0);
+        this.publish("topic_a", MqttQoS.AT_MOST_ONCE);
+        this.publish("topic_b", MqttQoS.AT_MOST_ONCE);
+        // topic_b becomes the least recently used one
+        this.publish("topic_a", MqttQoS.AT_MOST_ONCE);
+        this.publish("topic_c", MqttQoS.AT_MOST_ONCE);
+
+        context.assertTrue(this.endpoint.isPublisher("topic_a"));
+        context.assertFalse(this.endpoint.isPublisher("topic_b"));
+        context.assertTrue(this.endpoint.isPublisher("topic_c"));
+        context.assertEquals(2, this.endpoint.publishers());
+        context.assertEquals(3L, this.endpoint.publishersCreated());
+        context.assertEquals(1L, this.endpoint.publishersEvicted());
+
+        this.waitFor(context, () -> this.attached("topic_b") == 0 && this.attached("topic_a") == 1 && this.attached("topic_c") == 1, () -> {
+
+            LOG.info("Least recently used publisher detached");
+            async.complete();
+        });
+    }
+
+    @Test
+    public void busyPublishersNotEvicted(TestContext context) {
+
+        Async async = context.async();
+
+        this.open(1, 0);
+
+        // delivery waiting for the disposition
+        this.hold = true;
+        Async accepted = context.async();
+        this.publish("topic_a", MqttQoS.AT_LEAST_ONCE, context.asyncAssertSuccess(delivery -> accepted.complete()));
+
+        this.waitFor(context, () -> this.held.size() == 1, () -> {
+
+            this.publish("topic_b", MqttQoS.AT_MOST_ONCE);
+
+            // over the max, the busy publisher can't be detached
+            context.assertTrue(this.endpoint.isPublisher("topic_a"));
+            context.assertTrue(this.endpoint.isPublisher("topic_b"));
+            context.assertEquals(2, this.endpoint.publishers());
+            context.assertEquals(0L, this.endpoint.publishersEvicted());
+
+            this.hold = false;
+            this.held.remove(0).disposition(Accepted.getInstance(), true);
+
+            this.waitFor(context, () -> accepted.isCompleted(), () -> {
+
+                // not busy anymore, detached with the other one least recently used
+                this.publish("topic_c", MqttQoS.AT_MOST_ONCE);
+
+                context.assertFalse(this.endpoint.isPublisher("topic_a"));
+                context.assertFalse(this.endpoint.isPublisher("topic_b"));
+                context.assertTrue(this.endpoint.isPublisher("topic_c"));
+                context.assertEquals(1, this.endpoint.publishers());
+                context.assertEquals(2L, this.endpoint.publishersEvicted());
+
+                LOG.info("Busy publisher detached once the delivery completed");
+                async.complete();
+            });
+        });
+    }
+
+    @Test
+    public void idlePublishersDetached(TestContext context) {
+
+        Async async = context.async();
+
+        this.open(0, IDLE_TIMEOUT);
+        this.publish("topic_a", MqttQoS.AT_MOST_ONCE);
+
+        // a busy publisher stays attached even if not used anymore
+        this.hold = true;
+        this.publish("topic_b", MqttQoS.AT_LEAST_ONCE, ar -> { });
+
+        this.waitFor(context, () -> this.endpoint.publishersIdleDetached() == 1, () -> {
+
+            context.assertFalse(this.endpoint.isPublisher("topic_a"));
+            context.assertTrue(this.endpoint.isPublisher("topic_b"));
+            context.assertEquals(1, this.endpoint.publishers());
+
+            this.waitFor(context, () -> this.attached("topic_a") == 0 && this.attached("topic_b") == 1, () -> {
+
+                LOG.info("Idle publisher detached");
+                async.complete();
+            });
+        });
+    }
+
+    @Test
+    public void evictedTopicReattached(TestContext context) {
+
+        Async async = context.async();
+
+        this.open(1, 0);
+        this.publish("topic_a", MqttQoS.AT_MOST_ONCE);
+        this.publish("topic_b", MqttQoS.AT_MOST_ONCE);
+
+        context.assertFalse(this.endpoint.isPublisher("topic_a"));
+
+        this.waitFor(context, () -> this.attached("topic_a") == 0, () -> {
+
+            // publishing again on the topic attaches a new link for it
+            this.publish("topic_a", MqttQoS.AT_LEAST_ONCE, context.asyncAssertSuccess(delivery -> {
+
+                context.assertTrue(this.endpoint.isPublisher("topic_a"));
+                context.assertEquals(3L, this.endpoint.publishersCreated());
+                context.assertEquals(1, this.attached("topic_a"));
+
+                LOG.info("Evicted topic attached again");
+                async.complete();
+            }));
+        });
+    }
+
+    private void open(int maxPublishers, long idleTimeout) {
+
+        this.endpoint = new AmqpPublishEndpoint(this.rule.vertx(),
+                this.session.createSender(String.format(AmqpPublishEndpoint.AMQP_CLIENT_PUBREL_ENDPOINT_TEMPLATE, CLIENT_ID)),
+                maxPublishers, idleTimeout);
+        this.endpoint.open();
+    }
+
+    private void publish(String topic, MqttQoS qos) {
+        this.publish(topic, qos, ar -> { });
+    }
+
+    /**
+     * Publish a message as the bridge does, adding the publisher for the topic if needed
+     */
+    private void publish(String topic, MqttQoS qos, Handler<AsyncResult<ProtonDelivery>> handler) {
+
+        if (!this.endpoint.isPublisher(topic)) {
+            this.endpoint.addPublisher(topic, new AmqpPublisher(this.session, topic, CLIENT_ID));
+        }
+        AmqpPublishMessage message = new AmqpPublishMessage(this.messageId++, qos, false, false, topic, Buffer.buffer(MQTT_MESSAGE));
+        this.endpoint.publish(message, handler);
+    }
+
+    private int attached(String address) {
+
+        int attached = 0;
+        for (String linkAddress : this.links.values()) {
+            if (address.equals(linkAddress)) {
+                attached++;
+            }
+        }
+        return attached;
+    }
+
+    private void waitFor(TestContext context, BooleanSupplier condition, Runnable handler) {
+        this.waitFor(context, condition, handler, System.currentTimeMillis() + WAIT_TIMEOUT);
+    }
+
+    private void waitFor(TestContext context, BooleanSupplier condition, Runnable handler, long deadline) {
+
+        if (condition.getAsBoolean()) {
+            handler.run();
+        } else if (System.currentTimeMillis() > deadline) {
+            context.fail("Condition not met in time");
+        } else {
+            this.rule.vertx().setTimer(10, timerId -> this.waitFor(context, condition, handler, deadline));
+        }
+    }
+}
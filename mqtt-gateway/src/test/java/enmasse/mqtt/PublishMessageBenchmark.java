@@ -0,0 +1,74 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.messages.AmqpPublishMessage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.buffer.Buffer;
+import org.apache.qpid.proton.message.Message;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for the MQTT to AMQP and AMQP to MQTT publish message conversion.
+ * Run with the JMH "-prof gc" option for getting the allocation rate as well
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PublishMessageBenchmark {
+
+    private static final String MQTT_TOPIC = "devices/my_device/telemetry";
+
+    @Param({"16", "1024", "65536"})
+    private int payloadSize;
+
+    private Buffer payload;
+    private Message message;
+
+    @Setup
+    public void setup() {
+
+        this.payload = Buffer.buffer(new byte[this.payloadSize]);
+        this.message = new AmqpPublishMessage(1, MqttQoS.AT_LEAST_ONCE, false, true, MQTT_TOPIC, this.payload).toAmqp();
+    }
+
+    @Benchmark
+    public Message mqttToAmqp() {
+
+        return new AmqpPublishMessage(1, MqttQoS.AT_LEAST_ONCE, false, true, MQTT_TOPIC, this.payload).toAmqp();
+    }
+
+    @Benchmark
+    public AmqpPublishMessage amqpToMqtt() {
+
+        return AmqpPublishMessage.from(this.message);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(PublishMessageBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -28,6 +28,9 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 
+import java.util.ArrayList;
+import java.util.List;
+
 /**
  * Tests related to publish
  */
@@ -179,6 +182,31 @@ public class PublishTest extends MockMqttGatewayTestBase {
         context.assertTrue(this.receivedQos == 1);
     }
 
+    @Test
+    public void mqttPublishersOnSameTopic(TestContext context) throws MqttException {
+
+        // the links of both publishers are routed to the broker at the same time, so their names must not collide there
+        List<MqttClient> clients = new ArrayList<>();
+        try {
+
+            for (int i = 0; i < 2; i++) {
+
+                MqttClient client = new MqttClient(String.format("tcp://%s:%d", MQTT_BIND_ADDRESS, MQTT_LISTEN_PORT), PUBLISHER_ID + i, new MemoryPersistence());
+                client.setTimeToWait(10000);
+                client.connect();
+                clients.add(client);
+
+                // blocking until PUBACK is received
+                client.publish(MQTT_TOPIC, MQTT_MESSAGE.getBytes(), 1, false);
+            }
+
+        } finally {
+            for (MqttClient client : clients) {
+                client.disconnect();
+            }
+        }
+    }
+
     private void mqttReceiver(TestContext context, String topic, int qos, Async messageReceived) {
 
         Async connected = context.async();
@@ -0,0 +1,172 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.eclipse.paho.client.mqttv3.MqttClient;
+import org.eclipse.paho.client.mqttv3.persist.MemoryPersistence;
+import org.junit.Ignore;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests related to more MQTT gateway verticle instances sharing the listening port,
+ * checking that the MQTT clients are spread across the instances and
+ * measuring the publishing throughput from 1 to N instances (not run with the unit tests)
+ */
+@RunWith(VertxUnitRunner.class)
+public class ScaleOutTest extends MockMqttGatewayTestBase {
+
+    private static final String MQTT_TOPIC = "mytopic";
+    private static final String MQTT_MESSAGE = "Hello MQTT on EnMasse";
+    private static final String PUBLISHER_ID = "my_publisher_id";
+
+    private static final int MAX_INSTANCES = Math.min(4, Runtime.getRuntime().availableProcessors());
+    private static final int PUBLISHERS_PER_INSTANCE = 2;
+    private static final int MESSAGES_PER_PUBLISHER = 200;
+
+    @Test
+    public void clientsSpreadAcrossInstances(TestContext context) throws Exception {
+
+        int instances = 2;
+        super.setup(context, false, 0, instances);
+
+        List<MqttClient> clients = new ArrayList<>();
+        try {
+
+            clients = this.connect(instances * PUBLISHERS_PER_INSTANCE);
+
+            // the shared listening port dispatches the connections to all the instances
+            List<Integer> bridges = this.bridgesCounts();
+            for (int count : bridges) {
+                context.assertTrue(count > 0, "clients not spread across instances " + bridges);
+            }
+            context.assertEquals(clients.size(), bridges.stream().mapToInt(Integer::intValue).sum());
+
+        } finally {
+            for (MqttClient client : clients) {
+                client.disconnect();
+            }
+            super.tearDown(context);
+        }
+    }
+
+    @Ignore("performance test, to be run manually")
+    @Test
+    public void publishThroughput(TestContext context) throws Exception {
+
+        for (int instances = 1; instances <= MAX_INSTANCES; instances *= 2) {
+
+            super.setup(context, false, 0, instances);
+
+            try {
+
+                int publishers = instances * PUBLISHERS_PER_INSTANCE;
+                List<MqttClient> clients = this.connect(publishers);
+
+                long start = System.nanoTime();
+                int published = this.publish(clients);
+                long elapsed = System.nanoTime() - start;
+
+                context.assertEquals(publishers * MESSAGES_PER_PUBLISHER, published);
+
+                LOG.info("{} instance(s), {} publishers, bridges per instance {} : {} msgs/sec", instances, publishers,
+                        this.bridgesCounts(), (published * TimeUnit.SECONDS.toNanos(1)) / elapsed);
+
+                for (MqttClient client : clients) {
+                    client.disconnect();
+                }
+
+            } finally {
+                super.tearDown(context);
+            }
+        }
+    }
+
+    /**
+     * Connect MQTT clients to the gateway
+     *
+     * @param count number of MQTT clients
+     * @return  connected MQTT clients
+     */
+    private List<MqttClient> connect(int count) throws Exception {
+
+        List<MqttClient> clients = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+
+            MqttClient client = new MqttClient(String.format("tcp://%s:%d", MQTT_BIND_ADDRESS, MQTT_LISTEN_PORT), PUBLISHER_ID + i, new MemoryPersistence());
+            client.connect();
+            clients.add(client);
+        }
+        return clients;
+    }
+
+    /**
+     * Get the number of MQTT clients bridged by each MQTT gateway instance
+     *
+     * @return  number of bridges for each instance
+     */
+    private List<Integer> bridgesCounts() throws Exception {
+
+        List<Integer> counts = new ArrayList<>();
+        for (MqttGateway mqttGateway : this.mqttGateways) {
+
+            CompletableFuture<Integer> count = new CompletableFuture<>();
+            mqttGateway.bridgesCount(count::complete);
+            counts.add(count.get(10, TimeUnit.SECONDS));
+        }
+        return counts;
+    }
+
+    /**
+     * Publish QoS 1 messages (waiting for the PUBACK) from concurrent MQTT clients
+     *
+     * @param clients   connected MQTT clients publishing
+     * @return  number of messages acknowledged
+     */
+    private int publish(List<MqttClient> clients) throws Exception {
+
+        ExecutorService executor = Executors.newFixedThreadPool(clients.size());
+
+        try {
+
+            List<Future<Integer>> results = new ArrayList<>();
+            for (MqttClient client : clients) {
+
+                Callable<Integer> publisher = () -> {
+
+                    int published = 0;
+                    for (int j = 0; j < MESSAGES_PER_PUBLISHER; j++) {
+                        // blocking until PUBACK is received
+                        client.publish(MQTT_TOPIC, MQTT_MESSAGE.getBytes(), 1, false);
+                        published++;
+                    }
+                    return published;
+                };
+                results.add(executor.submit(publisher));
+            }
+
+            int published = 0;
+            for (Future<Integer> result : results) {
+                published += result.get(60, TimeUnit.SECONDS);
+            }
+            return published;
+
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,113 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests related to the subscriptions trie
+ */
+public class SubscriptionTrieTest {
+
+    private SubscriptionTrie trie;
+
+    @Before
+    public void before() {
+        this.trie = new SubscriptionTrie();
+    }
+
+    @Test
+    public void testFixedTopicMatch() {
+
+        this.trie.add("mytopic/foo", MqttQoS.AT_LEAST_ONCE);
+
+        SubscriptionTrie.Subscription subscription = this.trie.match("mytopic/foo");
+        assertNotNull(subscription);
+        assertEquals("mytopic/foo", subscription.filter());
+        assertEquals(MqttQoS.AT_LEAST_ONCE, subscription.qos());
+
+        assertNull(this.trie.match("mytopic/bar"));
+        assertNull(this.trie.match("mytopic"));
+        assertNull(this.trie.match("mytopic/foo/bar"));
+    }
+
+    @Test
+    public void testSharpWildcardMatch() {
+
+        this.trie.add("mytopic/#", MqttQoS.AT_MOST_ONCE);
+
+        assertNotNull(this.trie.match("mytopic/foo"));
+        assertNotNull(this.trie.match("mytopic/foo/bar"));
+        assertNull(this.trie.match("mytopic"));
+        assertNull(this.trie.match("another/foo"));
+
+        this.trie.add("#", MqttQoS.AT_MOST_ONCE);
+        assertEquals("#", this.trie.match("another/foo").filter());
+    }
+
+    @Test
+    public void testPlusWildcardMatch() {
+
+        this.trie.add("mytopic/+/bar/+/foo", MqttQoS.AT_LEAST_ONCE);
+
+        assertNotNull(this.trie.match("mytopic/a/bar/b/foo"));
+        assertNull(this.trie.match("mytopic/a/bar/b/foo/c"));
+        assertNull(this.trie.match("mytopic/a/bar/foo"));
+    }
+
+    @Test
+    public void testNoRegexSemantic() {
+
+        this.trie.add("my.topic/foo", MqttQoS.AT_LEAST_ONCE);
+
+        assertNotNull(this.trie.match("my.topic/foo"));
+        assertNull(this.trie.match("myXtopic/foo"));
+    }
+
+    @Test
+    public void testBestMatch() {
+
+        this.trie.add("mytopic/#", MqttQoS.AT_MOST_ONCE);
+        this.trie.add("mytopic/+", MqttQoS.EXACTLY_ONCE);
+        this.trie.add("mytopic/foo", MqttQoS.AT_LEAST_ONCE);
+
+        // the highest granted QoS wins
+        SubscriptionTrie.Subscription subscription = this.trie.match("mytopic/foo");
+        assertEquals("mytopic/+", subscription.filter());
+        assertEquals(MqttQoS.EXACTLY_ONCE, subscription.qos());
+
+        // the most specific wins on equal QoS
+        this.trie.add("mytopic/+", MqttQoS.AT_LEAST_ONCE);
+        assertEquals("mytopic/foo", this.trie.match("mytopic/foo").filter());
+        assertEquals(3, this.trie.size());
+    }
+
+    @Test
+    public void testRemove() {
+
+        this.trie.add("mytopic/foo", MqttQoS.AT_LEAST_ONCE);
+        this.trie.add("mytopic/foo/bar", MqttQoS.AT_LEAST_ONCE);
+        this.trie.add("mytopic/+", MqttQoS.AT_MOST_ONCE);
+
+        assertFalse(this.trie.remove("mytopic"));
+        assertTrue(this.trie.remove("mytopic/foo"));
+        assertFalse(this.trie.remove("mytopic/foo"));
+
+        assertEquals("mytopic/+", this.trie.match("mytopic/foo").filter());
+        assertNotNull(this.trie.match("mytopic/foo/bar"));
+        assertEquals(MqttQoS.AT_LEAST_ONCE, this.trie.get("mytopic/foo/bar"));
+        assertNull(this.trie.get("mytopic/foo"));
+
+        assertTrue(this.trie.remove("mytopic/+"));
+        assertTrue(this.trie.remove("mytopic/foo/bar"));
+        assertTrue(this.trie.isEmpty());
+        assertNull(this.trie.match("mytopic/foo/bar"));
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import io.netty.handler.codec.mqtt.MqttQoS;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark comparing the regex based TopicMatcher with the SubscriptionTrie
+ * for a client with many subscriptions
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TopicMatcherBenchmark {
+
+    @Param({"10", "100", "1000"})
+    private int subscriptions;
+
+    private List<String> filters;
+    private SubscriptionTrie trie;
+    private String[] topics;
+
+    @Setup
+    public void setup() {
+
+        this.filters = new ArrayList<>();
+        this.trie = new SubscriptionTrie();
+
+        for (int i = 0; i < this.subscriptions; i++) {
+
+            String filter;
+            switch (i % 3) {
+                case 0:
+                    filter = String.format("devices/%d/telemetry", i);
+                    break;
+                case 1:
+                    filter = String.format("devices/%d/+/status", i);
+                    break;
+                default:
+                    filter = String.format("devices/%d/commands/#", i);
+                    break;
+            }
+            this.filters.add(filter);
+            this.trie.add(filter, MqttQoS.AT_LEAST_ONCE);
+        }
+
+        // last subscriptions matched, worst case for the linear scan
+        int last = this.subscriptions - 1;
+        this.topics = new String[] {
+                String.format("devices/%d/telemetry", last - (last % 3)),
+                String.format("devices/%d/sensor/status", last - ((last + 2) % 3)),
+                "devices/unknown/telemetry"
+        };
+    }
+
+    @Benchmark
+    public int topicMatcher() {
+
+        int matches = 0;
+        for (String topic : this.topics) {
+            if (TopicMatcher.match(this.filters, topic) != null) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    @Benchmark
+    public int subscriptionTrie() {
+
+        int matches = 0;
+        for (String topic : this.topics) {
+            if (this.trie.match(topic) != null) {
+                matches++;
+            }
+        }
+        return matches;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+
+        new Runner(new OptionsBuilder()
+                .include(TopicMatcherBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -7,8 +7,6 @@ package enmasse.mqtt;
 
 import enmasse.mqtt.endpoints.AmqpLwtEndpoint;
 import enmasse.mqtt.endpoints.AmqpPublishEndpoint;
-import enmasse.mqtt.messages.AmqpPublishMessage;
-import enmasse.mqtt.messages.AmqpWillMessage;
 import enmasse.mqtt.storage.LwtStorage;
 import io.vertx.core.AbstractVerticle;
 import io.vertx.core.Future;
@@ -35,7 +33,7 @@ public class MqttLwt extends AbstractVerticle {
 
     private static final String CONTAINER_ID = "lwt-service";
 
-    private static final int MAX_MESSAGE_ID = 65535;
+    private static final int STATS_INTERVAL = 10000;
 
     private String certDir;
 
@@ -49,9 +47,14 @@ public class MqttLwt extends AbstractVerticle {
     private AmqpLwtEndpoint lwtEndpoint;
     private LwtStorage lwtStorage;
     private AmqpPublishEndpoint publishEndpoint;
+    private WillDispatcher willDispatcher;
 
-    // counter for the message identifier
-    private int messageIdCounter;
+    // will dispatching configuration
+    private int maxWillBacklog = 100000;
+    private int maxWillsDeferred = 100000;
+    private int maxWillsInFlight = 1000;
+    private int willDeleteBatchSize = 100;
+    private long statsTimerId = -1;
 
     @Override
     public void start(Future<Void> startFuture) throws Exception {
@@ -63,8 +66,18 @@ public class MqttLwt extends AbstractVerticle {
     @Override
     public void stop(Future<Void> stopFuture) throws Exception {
 
-        this.lwtEndpoint.close();
-        this.publishEndpoint.close();
+        if (this.statsTimerId != -1) {
+            this.vertx.cancelTimer(this.statsTimerId);
+        }
+        if (this.willDispatcher != null) {
+            this.willDispatcher.flush();
+        }
+        if (this.lwtEndpoint != null) {
+            this.lwtEndpoint.close();
+        }
+        if (this.publishEndpoint != null) {
+            this.publishEndpoint.close();
+        }
         this.lwtStorage.close();
         LOG.info("Stopping MQTT LWT service verticle...");
         stopFuture.complete();
@@ -73,6 +86,9 @@ public class MqttLwt extends AbstractVerticle {
     /**
      * Connect to the AMQP messaging network
      *
+     * The endpoint receiving wills and disconnections is opened last, so that the storage
+     * and the will dispatcher are ready when the first disconnection arrives
+     *
      * @param startFuture
      */
     private void connect(Future<Void> startFuture) {
@@ -82,87 +98,90 @@ public class MqttLwt extends AbstractVerticle {
         ProtonClientOptions options = this.createClientOptions();
 
 
-        Future<ProtonConnection> lwtConnFuture = Future.future();
+        Future<ProtonConnection> publishConnFuture = Future.future();
 
-        // connecting to the messaging service internal (router network)
-        this.client.connect(options, this.host, this.routeContainerPort, done -> {
+        // connecting to the messaging service
+        this.client.connect(options, this.host, this.normalPort, done -> {
 
             if (done.succeeded()) {
 
+
                 ProtonConnection connection = done.result();
                 connection.setContainer(CONTAINER_ID);
 
                 // TODO
-                this.lwtEndpoint = new AmqpLwtEndpoint(connection);
-                this.lwtEndpoint
-                        .willHandler(this::handleWill)
-                        .disconnectionHandler(this::handleDisconnection);
-                this.lwtEndpoint.open();
+                this.publishEndpoint = new AmqpPublishEndpoint(connection);
+                this.publishEndpoint.open();
 
                 connection.openHandler(o -> {
-                    LOG.info("MQTT LWT service connected to the messaging service internal ...");
-                    lwtConnFuture.complete();
+                    LOG.info("MQTT LWT service connected to the messaging service ...");
+                    publishConnFuture.complete();
                 });
 
             } else {
 
-                LOG.error("Error connecting MQTT LWT service to the messaging service internal ...", done.cause());
+                LOG.error("Error connecting MQTT LWT service to the messaging service ...", done.cause());
 
-                lwtConnFuture.fail(done.cause());
+                publishConnFuture.fail(done.cause());
             }
 
         });
 
-        // compose the connection with messaging service
-        lwtConnFuture.compose(v -> {
+        // compose the connection to the messaging service with connection to storage service
+        publishConnFuture.compose(v -> {
 
-            Future<ProtonConnection> publishConnFuture = Future.future();
+            Future<Void> storageFuture = Future.future();
 
-            this.client.connect(options, this.host, this.normalPort, done -> {
+            // connecting to the storage service
+            this.lwtStorage.open(done -> {
 
                 if (done.succeeded()) {
 
+                    LOG.info("MQTT LWT service connected to the storage service ...");
 
-                    ProtonConnection connection = done.result();
-                    connection.setContainer(CONTAINER_ID);
+                    this.willDispatcher =
+                            new WillDispatcher(this.lwtStorage, this.publishEndpoint, this.maxWillBacklog, this.maxWillsDeferred, this.maxWillsInFlight, this.willDeleteBatchSize);
+                    this.statsTimerId = this.vertx.setPeriodic(STATS_INTERVAL, t -> this.logStats());
 
-                    // TODO
-                    this.publishEndpoint = new AmqpPublishEndpoint(connection);
-                    this.publishEndpoint.open();
-
-                    connection.openHandler(o -> {
-                        LOG.info("MQTT LWT service connected to the messaging service ...");
-                        publishConnFuture.complete();
-                    });
+                    storageFuture.complete();
 
                 } else {
 
-                    LOG.error("Error connecting MQTT LWT service to the messaging service ...", done.cause());
+                    LOG.error("Error connecting MQTT LWT service to the storage service ...", done.cause());
 
-                    publishConnFuture.fail(done.cause());
+                    storageFuture.fail(done.cause());
                 }
 
             });
 
-            return publishConnFuture;
+            return storageFuture;
 
-        // compose the connection to the messaging service with connection to storage service
+        // compose the connection to the storage service with connection to the messaging service internal
         }).compose(v -> {
 
-            // connecting to the storage service
-            this.lwtStorage.open(done -> {
+            // connecting to the messaging service internal (router network)
+            this.client.connect(options, this.host, this.routeContainerPort, done -> {
 
                 if (done.succeeded()) {
 
-                    LOG.info("MQTT LWT service connected to the storage service ...");
+                    ProtonConnection connection = done.result();
+                    connection.setContainer(CONTAINER_ID);
 
                     // TODO
+                    this.lwtEndpoint = new AmqpLwtEndpoint(connection);
+                    this.lwtEndpoint
+                            .willHandler(this::handleWill)
+                            .disconnectionHandler(this::handleDisconnection);
+                    this.lwtEndpoint.open();
 
-                    startFuture.complete();
+                    connection.openHandler(o -> {
+                        LOG.info("MQTT LWT service connected to the messaging service internal ...");
+                        startFuture.complete();
+                    });
 
                 } else {
 
-                    LOG.error("Error connecting MQTT LWT service to the storage service ...", done.cause());
+                    LOG.error("Error connecting MQTT LWT service to the messaging service internal ...", done.cause());
 
                     startFuture.fail(done.cause());
                 }
@@ -204,12 +223,12 @@ public class MqttLwt extends AbstractVerticle {
             if (done.succeeded()) {
                 this.lwtStorage.update(willData.clientId(), willData.amqpWillMessage(), ar -> {
 
-                    LOG.info("Updated will for client {}", willData.clientId());
+                    LOG.debug("Updated will for client {}", willData.clientId());
                 });
             } else {
                 this.lwtStorage.add(willData.clientId(), willData.amqpWillMessage(), ar -> {
 
-                    LOG.info("Added will for client {}", willData.clientId());
+                    LOG.debug("Added will for client {}", willData.clientId());
                 });
             }
         });
@@ -222,51 +241,24 @@ public class MqttLwt extends AbstractVerticle {
 
             this.lwtStorage.delete(disconnectionData.clientId(), done -> {
 
-                LOG.info("Deleted will for client {}", disconnectionData.clientId());
+                LOG.debug("Deleted will for client {}", disconnectionData.clientId());
             });
         } else {
 
-            // brute disconnection, get will message and deliver it
-            this.lwtStorage.get(disconnectionData.clientId(), ar -> {
-
-                if (ar.succeeded()) {
-
-                    AmqpWillMessage amqpWillMessage = ar.result();
-
-                    // TODO : workaround ...
-                    // check why with a message-id null or String the Artemis broker change "To" property
-                    // so that the message isn't delivered by MQTT gateway
-                    Object messageId = this.nextMessageId();
-                    AmqpPublishMessage amqpPublishMessage =
-                            new AmqpPublishMessage(messageId, amqpWillMessage.qos(), false, amqpWillMessage.isRetain(), amqpWillMessage.topic(), amqpWillMessage.payload());
-
-                    this.publishEndpoint.publish(amqpPublishMessage, ar1 -> {
-
-                        if (ar1.succeeded()) {
-
-                            LOG.info("Published will message for client {}", disconnectionData.clientId());
-
-                            this.lwtStorage.delete(disconnectionData.clientId(), ar2 -> {
-
-                                LOG.info("Deleted will for client {}", disconnectionData.clientId());
-                            });
-                        }
-                    });
-                }
-            });
+            // brute disconnection, queue will message for delivering it
+            this.willDispatcher.dispatch(disconnectionData.clientId());
         }
     }
 
-    /**
-     * Update and return the next message identifier
-     *
-     * @return message identifier
-     */
-    private int nextMessageId() {
+    private void logStats() {
 
-        // if 0 or MAX_MESSAGE_ID, it becomes 1 (first valid messageId)
-        this.messageIdCounter = ((this.messageIdCounter % MAX_MESSAGE_ID) != 0) ? this.messageIdCounter + 1 : 1;
-        return this.messageIdCounter;
+        // only while dispatching wills
+        if (this.willDispatcher.backlog() > 0 || this.willDispatcher.inFlight() > 0) {
+            LOG.info("Wills backlog = {}, deferred = {}, in flight = {}, published = {}, failed = {}, dropped = {}, latency avg = {} ms, max = {} ms",
+                    this.willDispatcher.backlog(), this.willDispatcher.deferred(), this.willDispatcher.inFlight(),
+                    this.willDispatcher.published(), this.willDispatcher.failed(), this.willDispatcher.dropped(),
+                    this.willDispatcher.averageLatency(), this.willDispatcher.maxLatency());
+        }
     }
 
     /**
@@ -318,6 +310,55 @@ public class MqttLwt extends AbstractVerticle {
         return this;
     }
 
+    /**
+     * Set the max number of brute disconnections waiting for publishing their will
+     *
+     * @param maxWillBacklog    max number of disconnections waiting
+     * @return  current MQTT LWT instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.maxwillbacklog:100000}")
+    public MqttLwt setMaxWillBacklog(int maxWillBacklog) {
+        this.maxWillBacklog = maxWillBacklog;
+        return this;
+    }
+
+    /**
+     * Set the max number of brute disconnections waiting for room in the backlog,
+     * the wills of the disconnections exceeding it are not published
+     *
+     * @param maxWillsDeferred  max number of disconnections deferred
+     * @return  current MQTT LWT instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.maxwillsdeferred:100000}")
+    public MqttLwt setMaxWillsDeferred(int maxWillsDeferred) {
+        this.maxWillsDeferred = maxWillsDeferred;
+        return this;
+    }
+
+    /**
+     * Set the max number of will messages published and not accepted yet
+     *
+     * @param maxWillsInFlight  max number of wills in flight
+     * @return  current MQTT LWT instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.maxwillsinflight:1000}")
+    public MqttLwt setMaxWillsInFlight(int maxWillsInFlight) {
+        this.maxWillsInFlight = maxWillsInFlight;
+        return this;
+    }
+
+    /**
+     * Set the number of published wills deleted from the storage at once
+     *
+     * @param willDeleteBatchSize   number of wills deleted at once
+     * @return  current MQTT LWT instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.willdeletebatchsize:100}")
+    public MqttLwt setWillDeleteBatchSize(int willDeleteBatchSize) {
+        this.willDeleteBatchSize = willDeleteBatchSize;
+        return this;
+    }
+
     /**
      * Set the LWT Storage service implementation to use
      *
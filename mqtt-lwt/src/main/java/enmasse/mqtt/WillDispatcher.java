@@ -0,0 +1,338 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.endpoints.AmqpPublishEndpoint;
+import enmasse.mqtt.messages.AmqpPublishMessage;
+import enmasse.mqtt.messages.AmqpWillMessage;
+import enmasse.mqtt.storage.LwtStorage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Queue;
+
+/**
+ * Pipeline for publishing the will messages of brute disconnected clients.
+ *
+ * Disconnections are queued (up to a max backlog) and the related wills are published
+ * keeping up to a max number of them in flight, without waiting for the previous ones to
+ * be accepted. Disconnections exceeding the backlog are deferred, and moved to the backlog
+ * as the pipeline drains. Disconnections exceeding the deferred ones as well are dropped : their
+ * will isn't published and stays in the storage, until the client connects again and replaces it.
+ * Published wills are deleted from the storage in batches.
+ *
+ * NOTE : it's not thread safe, it's meant to be used from the event loop of the LWT service
+ */
+public class WillDispatcher {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WillDispatcher.class);
+
+    private static final int MAX_MESSAGE_ID = 65535;
+
+    private final LwtStorage lwtStorage;
+    private final AmqpPublishEndpoint publishEndpoint;
+
+    private final int maxBacklog;
+    private final int maxDeferred;
+    private final int maxInFlight;
+    private final int deleteBatchSize;
+
+    // disconnected clients waiting for their will to be published
+    private final Queue<PendingWill> backlog = new ArrayDeque<>();
+    // client id -> disconnected client waiting for room in the backlog
+    private final Map<String, PendingWill> deferred = new LinkedHashMap<>();
+    private int inFlight;
+    private boolean draining;
+    // published wills to delete from the storage
+    private Map<String, AmqpWillMessage> deletes = new HashMap<>();
+
+    // counter for the message identifier
+    private int messageIdCounter;
+
+    // statistics
+    private long dispatched;
+    private long published;
+    private long failed;
+    private long dropped;
+    private long totalLatency;
+    private long maxLatency;
+
+    /**
+     * Disconnected client waiting for its will to be published
+     */
+    private static final class PendingWill {
+
+        private final String clientId;
+        private final long timestamp;
+
+        PendingWill(String clientId, long timestamp) {
+            this.clientId = clientId;
+            this.timestamp = timestamp;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param lwtStorage    LWT Storage service instance
+     * @param publishEndpoint   endpoint for publishing the will messages
+     * @param maxBacklog    max number of disconnections waiting for publishing their will
+     * @param maxDeferred   max number of disconnections waiting for room in the backlog
+     * @param maxInFlight   max number of wills published and not accepted yet
+     * @param deleteBatchSize   number of published wills deleted from the storage at once
+     */
+    public WillDispatcher(LwtStorage lwtStorage, AmqpPublishEndpoint publishEndpoint, int maxBacklog, int maxDeferred, int maxInFlight, int deleteBatchSize) {
+        this.lwtStorage = lwtStorage;
+        this.publishEndpoint = publishEndpoint;
+        this.maxBacklog = maxBacklog;
+        this.maxDeferred = maxDeferred;
+        this.maxInFlight = maxInFlight;
+        this.deleteBatchSize = deleteBatchSize;
+    }
+
+    /**
+     * Queue the publishing of the will for a brute disconnected client
+     *
+     * @param clientId  client identifier
+     * @return  if queued, false if deferred or dropped because the backlog is full
+     */
+    public boolean dispatch(String clientId) {
+
+        this.dispatched++;
+        PendingWill pendingWill = new PendingWill(clientId, System.nanoTime());
+
+        if (this.backlog.size() >= this.maxBacklog) {
+
+            if (this.deferred.containsKey(clientId)) {
+                return false;
+            }
+            if (this.deferred.size() >= this.maxDeferred) {
+                // the will stays in the storage, not published
+                this.dropped++;
+                LOG.warn("Will backlog full, will for client {} dropped", clientId);
+                return false;
+            }
+            // the will is still in the storage, queued when the backlog drains
+            this.deferred.put(clientId, pendingWill);
+            LOG.debug("Will backlog full, will for client {} deferred", clientId);
+            return false;
+        }
+
+        this.backlog.add(pendingWill);
+        this.drain();
+        return true;
+    }
+
+    /**
+     * Delete the published wills not yet deleted from the storage
+     */
+    public void flush() {
+
+        if (this.deletes.isEmpty()) {
+            return;
+        }
+
+        Map<String, AmqpWillMessage> batch = this.deletes;
+        this.deletes = new HashMap<>();
+
+        this.lwtStorage.delete(batch, done -> {
+
+            if (done.succeeded()) {
+                LOG.debug("Deleted {} published wills", done.result());
+            } else {
+                LOG.error("Error deleting {} published wills", batch.size(), done.cause());
+            }
+        });
+    }
+
+    /**
+     * Number of disconnections waiting for publishing their will
+     *
+     * @return
+     */
+    public int backlog() {
+        return this.backlog.size();
+    }
+
+    /**
+     * Number of wills published and not accepted yet
+     *
+     * @return
+     */
+    public int inFlight() {
+        return this.inFlight;
+    }
+
+    /**
+     * Number of disconnections queued for publishing their will
+     *
+     * @return
+     */
+    public long dispatched() {
+        return this.dispatched;
+    }
+
+    /**
+     * Number of wills published
+     *
+     * @return
+     */
+    public long published() {
+        return this.published;
+    }
+
+    /**
+     * Number of wills not published due to a delivery error
+     *
+     * @return
+     */
+    public long failed() {
+        return this.failed;
+    }
+
+    /**
+     * Number of disconnections waiting for room in the backlog
+     *
+     * @return
+     */
+    public int deferred() {
+        return this.deferred.size();
+    }
+
+    /**
+     * Number of disconnections dropped, without publishing their will, because too many were deferred
+     *
+     * @return
+     */
+    public long dropped() {
+        return this.dropped;
+    }
+
+    /**
+     * Average time from the disconnection to the will publishing
+     *
+     * @return  latency (in ms)
+     */
+    public long averageLatency() {
+        return (this.published == 0) ? 0 : this.totalLatency / this.published / 1_000_000;
+    }
+
+    /**
+     * Max time from the disconnection to the will publishing
+     *
+     * @return  latency (in ms)
+     */
+    public long maxLatency() {
+        return this.maxLatency / 1_000_000;
+    }
+
+    private void drain() {
+
+        // storage and endpoint could complete synchronously, avoid nested draining
+        if (this.draining) {
+            return;
+        }
+        this.draining = true;
+
+        this.requeueDeferred();
+        while (this.inFlight < this.maxInFlight && !this.backlog.isEmpty()) {
+
+            PendingWill pendingWill = this.backlog.poll();
+            this.requeueDeferred();
+            this.inFlight++;
+
+            this.lwtStorage.get(pendingWill.clientId, ar -> {
+
+                if (ar.succeeded()) {
+                    this.publish(pendingWill, ar.result());
+                } else {
+                    // no will for the client
+                    this.completed(pendingWill, null, false);
+                }
+            });
+        }
+        this.draining = false;
+
+        // nothing more to publish for now
+        if (this.inFlight == 0) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Move the deferred disconnections to the backlog, as long as there is room
+     */
+    private void requeueDeferred() {
+
+        Iterator<PendingWill> it = this.deferred.values().iterator();
+        while (this.backlog.size() < this.maxBacklog && it.hasNext()) {
+            this.backlog.add(it.next());
+            it.remove();
+        }
+    }
+
+    private void publish(PendingWill pendingWill, AmqpWillMessage amqpWillMessage) {
+
+        // TODO : workaround ...
+        // check why with a message-id null or String the Artemis broker change "To" property
+        // so that the message isn't delivered by MQTT gateway
+        Object messageId = this.nextMessageId();
+        AmqpPublishMessage amqpPublishMessage =
+                new AmqpPublishMessage(messageId, amqpWillMessage.qos(), false, amqpWillMessage.isRetain(), amqpWillMessage.topic(), amqpWillMessage.payload());
+
+        this.publishEndpoint.publish(amqpPublishMessage, ar -> {
+
+            if (ar.failed()) {
+                LOG.warn("Error publishing will message for client {}", pendingWill.clientId, ar.cause());
+            }
+            this.completed(pendingWill, amqpWillMessage, ar.succeeded());
+        });
+    }
+
+    private void completed(PendingWill pendingWill, AmqpWillMessage amqpWillMessage, boolean isPublished) {
+
+        this.inFlight--;
+
+        if (isPublished) {
+
+            long latency = System.nanoTime() - pendingWill.timestamp;
+            this.published++;
+            this.totalLatency += latency;
+            this.maxLatency = Math.max(this.maxLatency, latency);
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Published will message for client {} in {} ms", pendingWill.clientId, latency / 1_000_000);
+            }
+
+            this.deletes.put(pendingWill.clientId, amqpWillMessage);
+            if (this.deletes.size() >= this.deleteBatchSize) {
+                this.flush();
+            }
+
+        } else if (amqpWillMessage != null) {
+            this.failed++;
+        }
+
+        this.drain();
+    }
+
+    /**
+     * Update and return the next message identifier
+     *
+     * @return message identifier
+     */
+    private int nextMessageId() {
+
+        // if 0 or MAX_MESSAGE_ID, it becomes 1 (first valid messageId)
+        this.messageIdCounter = ((this.messageIdCounter % MAX_MESSAGE_ID) != 0) ? this.messageIdCounter + 1 : 1;
+        return this.messageIdCounter;
+    }
+}
@@ -18,8 +18,21 @@ import org.apache.qpid.proton.amqp.messaging.Accepted;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
 /**
  * Publisher endpoint
+ *
+ * A sender is attached for each topic with messages in flight, it's shared by all of them
+ * and messages are sent as soon as the sender has credits (so without waiting for previous
+ * deliveries to be settled). The sender is detached when there are no more messages in flight.
  */
 public class AmqpPublishEndpoint {
 
@@ -27,6 +40,9 @@ public class AmqpPublishEndpoint {
 
     private ProtonConnection connection;
 
+    // topic -> publisher with messages in flight
+    private final Map<String, Publisher> publishers = new HashMap<>();
+
     /**
      * Constructor
      *
@@ -50,59 +66,162 @@ public class AmqpPublishEndpoint {
      * Send the AMQP_PUBLISH to the attached topic/address
      *
      * @param amqpPublishMessage   AMQP_PUBLISH message
+     * @param handler   handler called when the message is sent (QoS 0) or accepted (QoS 1)
      */
     public void publish(AmqpPublishMessage amqpPublishMessage, Handler<AsyncResult<ProtonDelivery>> handler) {
 
         // send AMQP_PUBLISH message
 
-        LOG.info("Will ready for publishing on topic [{}]", amqpPublishMessage.topic());
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Will ready for publishing on topic [{}]", amqpPublishMessage.topic());
+        }
 
         // use sender for QoS 0/1 messages
         if (amqpPublishMessage.qos() != MqttQoS.EXACTLY_ONCE) {
 
-            ProtonSender sender = this.connection.createSender(amqpPublishMessage.topic());
-
-            sender.setQoS(ProtonQoS.AT_LEAST_ONCE)
-                  .open();
-
-            if (amqpPublishMessage.qos() == MqttQoS.AT_MOST_ONCE) {
-
-                sender.send(amqpPublishMessage.toAmqp());
-                sender.close();
-                LOG.info("AMQP published on {}", amqpPublishMessage.topic());
-
-                handler.handle(Future.succeededFuture(null));
-
-            } else {
-
-                sender.send(amqpPublishMessage.toAmqp(), delivery -> {
-
-                    if (delivery.getRemoteState() == Accepted.getInstance()) {
-                        LOG.info("AMQP publish delivery {}", delivery.getRemoteState());
-                        handler.handle(Future.succeededFuture(delivery));
-                    } else {
-                        handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
-                    }
-
-                    sender.close();
-                });
+            Publisher publisher = this.publishers.get(amqpPublishMessage.topic());
+            if (publisher == null) {
+                publisher = new Publisher(amqpPublishMessage.topic());
+                this.publishers.put(amqpPublishMessage.topic(), publisher);
             }
+            publisher.publish(new PendingMessage(amqpPublishMessage, handler));
 
         // use sender for QoS 2 messages
         } else {
 
             // TODO
+            handler.handle(Future.failedFuture("AMQP publish with QoS 2 not supported"));
         }
     }
 
+    /**
+     * Number of topics with messages in flight
+     *
+     * @return
+     */
+    public int publishers() {
+        return this.publishers.size();
+    }
+
     /**
      * Close the endpoint, closing the connection
      */
     public void close() {
 
-        // TODO : check what to close other than connection while this class evolves
+        for (Publisher publisher : new ArrayList<>(this.publishers.values())) {
+            publisher.fail("AMQP publish endpoint closed");
+        }
+        this.publishers.clear();
+
         if (this.connection != null) {
             this.connection.close();
         }
     }
+
+    /**
+     * Message waiting for credits or for the settlement
+     */
+    private static final class PendingMessage {
+
+        private final AmqpPublishMessage amqpPublishMessage;
+        private final Handler<AsyncResult<ProtonDelivery>> handler;
+
+        PendingMessage(AmqpPublishMessage amqpPublishMessage, Handler<AsyncResult<ProtonDelivery>> handler) {
+            this.amqpPublishMessage = amqpPublishMessage;
+            this.handler = handler;
+        }
+    }
+
+    /**
+     * Sender for a topic with its messages in flight
+     */
+    private final class Publisher {
+
+        private final String topic;
+        private final ProtonSender sender;
+
+        // waiting for credits
+        private final Queue<PendingMessage> queued = new ArrayDeque<>();
+        // sent but not settled yet
+        private final Set<PendingMessage> unsettled = new LinkedHashSet<>();
+
+        Publisher(String topic) {
+
+            this.topic = topic;
+            this.sender = connection.createSender(topic);
+            this.sender.setQoS(ProtonQoS.AT_LEAST_ONCE)
+                    .sendQueueDrainHandler(s -> this.send())
+                    .closeHandler(ar -> this.fail("AMQP sender detached"))
+                    .open();
+        }
+
+        void publish(PendingMessage pendingMessage) {
+
+            this.queued.add(pendingMessage);
+            this.send();
+        }
+
+        void fail(String reason) {
+
+            if (publishers.get(this.topic) == this) {
+                publishers.remove(this.topic);
+            }
+
+            List<PendingMessage> failed = new ArrayList<>(this.queued);
+            for (PendingMessage pendingMessage : this.unsettled) {
+                // QoS 0 messages were already completed on sending
+                if (pendingMessage.amqpPublishMessage.qos() == MqttQoS.AT_LEAST_ONCE) {
+                    failed.add(pendingMessage);
+                }
+            }
+            this.queued.clear();
+            this.unsettled.clear();
+
+            for (PendingMessage pendingMessage : failed) {
+                pendingMessage.handler.handle(Future.failedFuture(reason));
+            }
+            this.sender.closeHandler(null).close();
+        }
+
+        private void send() {
+
+            // pipelining up to the credits given by the peer
+            while (!this.queued.isEmpty() && !this.sender.sendQueueFull()) {
+
+                PendingMessage pendingMessage = this.queued.poll();
+                this.unsettled.add(pendingMessage);
+
+                this.sender.send(pendingMessage.amqpPublishMessage.toAmqp(), delivery -> this.settled(pendingMessage, delivery));
+
+                if (pendingMessage.amqpPublishMessage.qos() == MqttQoS.AT_MOST_ONCE) {
+                    pendingMessage.handler.handle(Future.succeededFuture(null));
+                }
+            }
+        }
+
+        private void settled(PendingMessage pendingMessage, ProtonDelivery delivery) {
+
+            if (!this.unsettled.remove(pendingMessage)) {
+                return;
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("AMQP publish delivery {} on {}", delivery.getRemoteState(), this.topic);
+            }
+
+            if (pendingMessage.amqpPublishMessage.qos() == MqttQoS.AT_LEAST_ONCE) {
+                if (delivery.getRemoteState() == Accepted.getInstance()) {
+                    pendingMessage.handler.handle(Future.succeededFuture(delivery));
+                } else {
+                    pendingMessage.handler.handle(Future.failedFuture(String.format("AMQP publish delivery %s", delivery.getRemoteState())));
+                }
+            }
+
+            // nothing more in flight on this topic
+            if (this.queued.isEmpty() && this.unsettled.isEmpty()) {
+                publishers.remove(this.topic);
+                this.sender.closeHandler(null).close();
+            }
+        }
+    }
 }
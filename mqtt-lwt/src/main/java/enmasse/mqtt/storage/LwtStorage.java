@@ -9,6 +9,8 @@ import enmasse.mqtt.messages.AmqpWillMessage;
 import io.vertx.core.AsyncResult;
 import io.vertx.core.Handler;
 
+import java.util.Map;
+
 /**
  * LWT Storage Service interface
  */
@@ -55,6 +57,15 @@ public interface LwtStorage {
      */
     void delete(String clientId, Handler<AsyncResult<Integer>> handler);
 
+    /**
+     * Delete "will" information for a batch of clients, only if it's still the provided one
+     * (so not updated in the meantime)
+     *
+     * @param wills "will" information to delete, by client identifier
+     * @param handler   handler called with the number of deleted "will" information
+     */
+    void delete(Map<String, AmqpWillMessage> wills, Handler<AsyncResult<Integer>> handler);
+
     /**
      * Close and disconnect from the storage service
      */
@@ -0,0 +1,373 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt.storage.impl;
+
+import enmasse.mqtt.messages.AmqpWillMessage;
+import enmasse.mqtt.storage.LwtStorage;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Context;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.Vertx;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Durable implementation of the LWT Storage service.
+ *
+ * The "will" information is served from memory while every change is written behind
+ * to an append only log file: changes are collected on the event loop and committed
+ * in batches on a worker thread, every flush interval or when the batch is full.
+ * A change is acknowledged to the caller only when its batch is in the log, a batch
+ * which failed to be written is retried with the next one.
+ * On open, the log is replayed for recovering the "will" information; until then
+ * all the operations fail.
+ */
+@Component
+@ConditionalOnProperty(name = "enmasse.mqtt.lwt.storage", havingValue = "file")
+public class FileLwtStorage implements LwtStorage {
+
+    private static final Logger LOG = LoggerFactory.getLogger(FileLwtStorage.class);
+
+    private static final String LOG_FILE_NAME = "wills.log";
+
+    private String storageDir;
+    private long flushInterval;
+    private int maxBatchSize;
+    private int initialCapacity;
+
+    private Context context;
+    private long flushTimerId = -1;
+
+    // null until the log is replayed
+    private Map<String, AmqpWillMessage> wills;
+    private WillLog log;
+    // changes not written to the log yet and the callers waiting for them
+    private List<WillLog.Operation> pending = new ArrayList<>();
+    private List<Handler<AsyncResult<Void>>> acks = new ArrayList<>();
+    private boolean flushing;
+
+    /**
+     * Set the directory where the log file is stored
+     *
+     * @param storageDir    storage directory
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.dir:/var/lib/lwt}")
+    public FileLwtStorage setStorageDir(String storageDir) {
+        this.storageDir = storageDir;
+        return this;
+    }
+
+    /**
+     * Set the max time changes are kept in memory before writing them to the log
+     *
+     * @param flushInterval flush interval (in ms)
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.flushinterval:100}")
+    public FileLwtStorage setFlushInterval(long flushInterval) {
+        this.flushInterval = flushInterval;
+        return this;
+    }
+
+    /**
+     * Set the number of changes which triggers writing them to the log before the flush interval
+     *
+     * @param maxBatchSize  max number of changes in a batch
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.maxbatchsize:1000}")
+    public FileLwtStorage setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Set the initial (and minimum) size of the log file
+     *
+     * @param initialCapacity   initial log size (in bytes)
+     * @return  current LWT storage instance
+     */
+    @Value(value = "${enmasse.mqtt.lwt.storage.initialcapacity:67108864}")
+    public FileLwtStorage setInitialCapacity(int initialCapacity) {
+        this.initialCapacity = initialCapacity;
+        return this;
+    }
+
+    @Override
+    public void open(Handler<AsyncResult<Void>> handler) {
+
+        this.context = Vertx.currentContext();
+        if (this.context == null) {
+            handler.handle(Future.failedFuture(new IllegalStateException("The LWT storage has to be opened on a Vert.x context")));
+            return;
+        }
+
+        this.log = new WillLog(Paths.get(this.storageDir, LOG_FILE_NAME), this.initialCapacity);
+
+        this.context.<Map<String, AmqpWillMessage>>executeBlocking(future -> {
+
+            try {
+                future.complete(this.log.open());
+            } catch (Exception e) {
+                future.fail(e);
+            }
+
+        }, true, done -> {
+
+            if (this.log == null) {
+                handler.handle(Future.failedFuture(new IllegalStateException("The LWT storage was closed while opening")));
+            } else if (done.succeeded()) {
+
+                this.wills = done.result();
+                this.flushTimerId = this.context.owner().setPeriodic(this.flushInterval, timerId -> this.flush());
+                handler.handle(Future.succeededFuture());
+
+            } else {
+                LOG.error("Error opening the LWT storage log", done.cause());
+                handler.handle(Future.failedFuture(done.cause()));
+            }
+        });
+    }
+
+    @Override
+    public void add(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
+
+        if (!this.checkOpen(handler)) {
+            return;
+        }
+
+        if (this.wills.putIfAbsent(clientId, willMessage) != null) {
+            LOG.warn("Will already existing for the client {}", clientId);
+            handler.handle(Future.failedFuture(new IllegalArgumentException("Will already existing for the client")));
+        } else {
+            LOG.debug("Will added for the client {}", clientId);
+            this.write(new WillLog.Operation(WillLog.PUT, clientId, willMessage), handler, null);
+        }
+    }
+
+    @Override
+    public void get(String clientId, Handler<AsyncResult<AmqpWillMessage>> handler) {
+
+        if (!this.checkOpen(handler)) {
+            return;
+        }
+
+        AmqpWillMessage willMessage = this.wills.get(clientId);
+        if (willMessage == null) {
+            LOG.warn("No will for the client {}", clientId);
+            handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
+        } else {
+            LOG.debug("Will retrieved for the client {}", clientId);
+            handler.handle(Future.succeededFuture(willMessage));
+        }
+    }
+
+    @Override
+    public void update(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
+
+        if (!this.checkOpen(handler)) {
+            return;
+        }
+
+        if (this.wills.replace(clientId, willMessage) == null) {
+            LOG.warn("No will for the client {}", clientId);
+            handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
+        } else {
+            LOG.debug("Will updated for the client {}", clientId);
+            this.write(new WillLog.Operation(WillLog.PUT, clientId, willMessage), handler, null);
+        }
+    }
+
+    @Override
+    public void delete(String clientId, Handler<AsyncResult<Integer>> handler) {
+
+        if (!this.checkOpen(handler)) {
+            return;
+        }
+
+        if (this.wills.remove(clientId) == null) {
+            LOG.warn("No will for the client {}", clientId);
+            handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
+        } else {
+            LOG.debug("Will deleted for the client {}", clientId);
+            this.write(new WillLog.Operation(WillLog.DELETE, clientId, null), handler, null);
+        }
+    }
+
+    @Override
+    public void delete(Map<String, AmqpWillMessage> wills, Handler<AsyncResult<Integer>> handler) {
+
+        if (!this.checkOpen(handler)) {
+            return;
+        }
+
+        List<WillLog.Operation> operations = new ArrayList<>();
+        for (Map.Entry<String, AmqpWillMessage> entry : wills.entrySet()) {
+            if (this.wills.remove(entry.getKey(), entry.getValue())) {
+                operations.add(new WillLog.Operation(WillLog.DELETE, entry.getKey(), null));
+            }
+        }
+        LOG.debug("Deleted {} wills on {}", operations.size(), wills.size());
+        if (operations.isEmpty()) {
+            handler.handle(Future.succeededFuture(0));
+        } else {
+            this.write(operations, handler, operations.size());
+        }
+    }
+
+    @Override
+    public void close() {
+
+        this.close(done -> {
+            if (done.failed()) {
+                LOG.error("Error closing the LWT storage log", done.cause());
+            }
+        });
+    }
+
+    /**
+     * Close the storage, writing the pending changes to the log
+     *
+     * @param handler   handler called when the log is closed
+     */
+    public void close(Handler<AsyncResult<Void>> handler) {
+
+        if (this.context == null || this.log == null) {
+            handler.handle(Future.succeededFuture());
+            return;
+        }
+
+        if (this.flushTimerId != -1) {
+            this.context.owner().cancelTimer(this.flushTimerId);
+            this.flushTimerId = -1;
+        }
+
+        List<WillLog.Operation> batch = this.pending;
+        this.pending = new ArrayList<>();
+        List<Handler<AsyncResult<Void>>> acks = this.acks;
+        this.acks = new ArrayList<>();
+        WillLog log = this.log;
+        this.log = null;
+        this.wills = null;
+
+        // ordered after the batches already in progress
+        this.context.<Void>executeBlocking(future -> {
+
+            try {
+                if (!batch.isEmpty()) {
+                    log.append(batch);
+                }
+                future.complete();
+            } catch (Exception e) {
+                future.fail(e);
+            }
+            try {
+                log.close();
+            } catch (Exception e) {
+                future.tryFail(e);
+            }
+
+        }, true, done -> {
+
+            acks.forEach(ack -> ack.handle(done));
+            handler.handle(done);
+        });
+    }
+
+    private <T> boolean checkOpen(Handler<AsyncResult<T>> handler) {
+
+        if (this.wills == null) {
+            handler.handle(Future.failedFuture(new IllegalStateException("The LWT storage is not open")));
+            return false;
+        }
+        return true;
+    }
+
+    private void write(WillLog.Operation operation, Handler<AsyncResult<Integer>> handler, Integer result) {
+        this.write(Collections.singletonList(operation), handler, result);
+    }
+
+    private void write(List<WillLog.Operation> operations, Handler<AsyncResult<Integer>> handler, Integer result) {
+
+        this.pending.addAll(operations);
+        this.acks.add(done -> {
+            if (done.succeeded()) {
+                handler.handle(Future.succeededFuture(result));
+            } else {
+                handler.handle(Future.failedFuture(done.cause()));
+            }
+        });
+        if (this.pending.size() >= this.maxBatchSize) {
+            this.flush();
+        }
+    }
+
+    /**
+     * Write the pending changes to the log as a single batch, on a worker thread
+     */
+    private void flush() {
+
+        if (this.pending.isEmpty() || this.flushing || this.log == null) {
+            return;
+        }
+
+        List<WillLog.Operation> batch = this.pending;
+        this.pending = new ArrayList<>();
+        List<Handler<AsyncResult<Void>>> acks = this.acks;
+        this.acks = new ArrayList<>();
+        this.flushing = true;
+
+        WillLog log = this.log;
+        this.context.<Void>executeBlocking(future -> {
+
+            try {
+                log.append(batch);
+                future.complete();
+            } catch (Exception e) {
+                future.fail(e);
+            }
+
+        }, true, done -> {
+
+            this.flushing = false;
+            if (done.succeeded()) {
+
+                LOG.debug("Written {} changes to the LWT storage log", batch.size());
+                acks.forEach(ack -> ack.handle(done));
+
+                // changes piled up during the write
+                if (this.pending.size() >= this.maxBatchSize) {
+                    this.flush();
+                }
+
+            } else if (this.log == null) {
+
+                LOG.error("Error writing {} changes to the LWT storage log", batch.size(), done.cause());
+                acks.forEach(ack -> ack.handle(done));
+
+            } else {
+
+                // kept ahead of the newer changes, written again on the next flush
+                LOG.error("Error writing {} changes to the LWT storage log, retrying", batch.size(), done.cause());
+                batch.addAll(this.pending);
+                this.pending = batch;
+                acks.addAll(this.acks);
+                this.acks = acks;
+            }
+        });
+    }
+}
@@ -12,6 +12,7 @@ import io.vertx.core.Future;
 import io.vertx.core.Handler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Component;
 
 import java.util.HashMap;
@@ -21,6 +22,7 @@ import java.util.Map;
  * In memory implementation of the LWT Storage service
  */
 @Component
+@ConditionalOnProperty(name = "enmasse.mqtt.lwt.storage", havingValue = "memory", matchIfMissing = true)
 public class InMemoryLwtStorage implements LwtStorage {
 
     public static final Logger LOG = LoggerFactory.getLogger(InMemoryLwtStorage.class);
@@ -40,12 +42,11 @@ public class InMemoryLwtStorage implements LwtStorage {
     @Override
     public void add(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
 
-        if (this.wills.containsKey(clientId)) {
+        if (this.wills.putIfAbsent(clientId, willMessage) != null) {
             LOG.warn("Will already existing for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("Will already existing for the client")));
         } else {
-            this.wills.put(clientId, willMessage);
-            LOG.info("Will added for the client {}", clientId);
+            LOG.debug("Will added for the client {}", clientId);
             handler.handle(Future.succeededFuture());
         }
     }
@@ -53,24 +54,24 @@ public class InMemoryLwtStorage implements LwtStorage {
     @Override
     public void get(String clientId, Handler<AsyncResult<AmqpWillMessage>> handler) {
 
-        if (!this.wills.containsKey(clientId)) {
+        AmqpWillMessage willMessage = this.wills.get(clientId);
+        if (willMessage == null) {
             LOG.warn("No will for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
         } else {
-            LOG.info("Will retrieved for the client {}", clientId);
-            handler.handle(Future.succeededFuture(this.wills.get(clientId)));
+            LOG.debug("Will retrieved for the client {}", clientId);
+            handler.handle(Future.succeededFuture(willMessage));
         }
     }
 
     @Override
     public void update(String clientId, AmqpWillMessage willMessage, Handler<AsyncResult<Integer>> handler) {
 
-        if (!this.wills.containsKey(clientId)) {
+        if (this.wills.replace(clientId, willMessage) == null) {
             LOG.warn("No will for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
         } else {
-            this.wills.put(clientId, willMessage);
-            LOG.info("Will updated for the client {}", clientId);
+            LOG.debug("Will updated for the client {}", clientId);
             handler.handle(Future.succeededFuture());
         }
     }
@@ -78,16 +79,28 @@ public class InMemoryLwtStorage implements LwtStorage {
     @Override
     public void delete(String clientId, Handler<AsyncResult<Integer>> handler) {
 
-        if (!this.wills.containsKey(clientId)) {
+        if (this.wills.remove(clientId) == null) {
             LOG.warn("No will for the client {}", clientId);
             handler.handle(Future.failedFuture(new IllegalArgumentException("No will for the client")));
         } else {
-            this.wills.remove(clientId);
-            LOG.error("Will deleted for the client {}", clientId);
+            LOG.debug("Will deleted for the client {}", clientId);
             handler.handle(Future.succeededFuture());
         }
     }
 
+    @Override
+    public void delete(Map<String, AmqpWillMessage> wills, Handler<AsyncResult<Integer>> handler) {
+
+        int deleted = 0;
+        for (Map.Entry<String, AmqpWillMessage> entry : wills.entrySet()) {
+            if (this.wills.remove(entry.getKey(), entry.getValue())) {
+                deleted++;
+            }
+        }
+        LOG.debug("Deleted {} wills on {}", deleted, wills.size());
+        handler.handle(Future.succeededFuture(deleted));
+    }
+
     @Override
     public void close() {
 
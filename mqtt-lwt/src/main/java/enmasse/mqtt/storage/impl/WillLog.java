@@ -0,0 +1,331 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt.storage.impl;
+
+import enmasse.mqtt.messages.AmqpWillMessage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.buffer.Buffer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Append only log of "will" information, memory mapped from a file.
+ *
+ * Every record is laid out as [length][body][crc32 of body] where the body is
+ * [type][client id] followed by [retain][qos][topic][payload] for a PUT record.
+ * A zero length marks the end of the log. When the log is full, or mostly made of
+ * overwritten records, it's compacted into a new file with only the live records.
+ *
+ * NOTE : it's not thread safe, it's meant to be used by a single (blocking) thread at time
+ */
+class WillLog {
+
+    private static final Logger LOG = LoggerFactory.getLogger(WillLog.class);
+
+    static final byte PUT = 1;
+    static final byte DELETE = 2;
+
+    private static final int LENGTH_SIZE = 4;
+    private static final int CRC_SIZE = 4;
+    private static final String COMPACT_SUFFIX = ".compact";
+
+    private final Path path;
+    private final int initialCapacity;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+
+    // client identifier -> offset of the last PUT record for it
+    private final Map<String, Integer> offsets = new HashMap<>();
+    // size of the records still live (not overwritten or deleted)
+    private long liveBytes;
+
+    /**
+     * Operation on the log
+     */
+    static final class Operation {
+
+        private final byte type;
+        private final String clientId;
+        private final AmqpWillMessage willMessage;
+
+        Operation(byte type, String clientId, AmqpWillMessage willMessage) {
+            this.type = type;
+            this.clientId = clientId;
+            this.willMessage = willMessage;
+        }
+    }
+
+    /**
+     * Constructor
+     *
+     * @param path  path of the log file
+     * @param initialCapacity   initial (and minimum) size of the log file
+     */
+    WillLog(Path path, int initialCapacity) {
+        this.path = path;
+        this.initialCapacity = initialCapacity;
+    }
+
+    /**
+     * Open the log, replaying all its records
+     *
+     * @return  the "will" information recovered from the log
+     * @throws IOException
+     */
+    Map<String, AmqpWillMessage> open() throws IOException {
+
+        Files.createDirectories(this.path.getParent());
+        // a compaction not completed, the original log is still the valid one
+        Files.deleteIfExists(this.compactPath());
+
+        this.channel = FileChannel.open(this.path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(this.channel.size(), this.initialCapacity));
+
+        Map<String, AmqpWillMessage> wills = new HashMap<>();
+
+        int position = 0;
+        int records = 0;
+        while (position + LENGTH_SIZE <= this.buffer.limit()) {
+
+            int length = this.buffer.getInt(position);
+            if (length <= 0 || position + LENGTH_SIZE + length + CRC_SIZE > this.buffer.limit()) {
+                break;
+            }
+
+            byte[] body = new byte[length];
+            ByteBuffer slice = this.buffer.duplicate();
+            slice.position(position + LENGTH_SIZE);
+            slice.get(body);
+
+            if (crc(body) != slice.getInt()) {
+                // torn write at the tail of the log, everything after is garbage
+                LOG.warn("Corrupted record at {} in the log {}, truncating", position, this.path);
+                for (int i = position; i < this.buffer.limit(); i++) {
+                    this.buffer.put(i, (byte) 0);
+                }
+                break;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+            byte type = in.readByte();
+            String clientId = in.readUTF();
+            if (type == PUT) {
+                wills.put(clientId, readWill(in));
+            } else {
+                wills.remove(clientId);
+            }
+            this.track(type, clientId, position);
+
+            position += LENGTH_SIZE + length + CRC_SIZE;
+            records++;
+        }
+        this.buffer.position(position);
+
+        LOG.info("Recovered {} wills from {} records in the log {}", wills.size(), records, this.path);
+        return wills;
+    }
+
+    /**
+     * Append a batch of operations to the log, forcing them on the storage as a whole
+     *
+     * @param batch operations to append
+     * @throws IOException
+     */
+    void append(List<Operation> batch) throws IOException {
+
+        for (Operation operation : batch) {
+
+            byte[] record = encode(operation);
+            if (this.buffer.remaining() < record.length + LENGTH_SIZE) {
+                this.compact(record.length + LENGTH_SIZE);
+            }
+
+            int position = this.buffer.position();
+            this.buffer.put(record);
+            this.track(operation.type, operation.clientId, position);
+        }
+        this.buffer.force();
+
+        // most of the log is made of overwritten or deleted records, the batch is already
+        // written so a failure here just leaves the log as it is
+        if (this.buffer.position() > this.buffer.capacity() / 4 * 3 && this.liveBytes < this.buffer.position() / 2) {
+            try {
+                this.compact(0);
+            } catch (IOException e) {
+                LOG.warn("Error compacting the log {}", this.path, e);
+            }
+        }
+    }
+
+    /**
+     * Close the log
+     *
+     * @throws IOException
+     */
+    void close() throws IOException {
+
+        if (this.channel != null) {
+            this.buffer.force();
+            this.channel.close();
+            this.channel = null;
+            this.buffer = null;
+        }
+        this.offsets.clear();
+        this.liveBytes = 0;
+    }
+
+    /**
+     * Size of the records still live
+     *
+     * @return
+     */
+    long liveBytes() {
+        return this.liveBytes;
+    }
+
+    /**
+     * Rewrite the log with only the live records, in a new file big enough for them
+     * and the required free space. The log is switched to the new file only when it has
+     * replaced the old one, on failure the old file stays the one in use
+     *
+     * @param required  free space required after compaction
+     * @throws IOException
+     */
+    private void compact(int required) throws IOException {
+
+        long capacity = Math.max(this.initialCapacity, 2 * (this.liveBytes + required));
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Log %s exceeds the max size", this.path));
+        }
+
+        Path compactPath = this.compactPath();
+        FileChannel compactChannel = FileChannel.open(compactPath, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        MappedByteBuffer compactBuffer;
+        Map<String, Integer> compactOffsets = new HashMap<>();
+        try {
+
+            compactBuffer = compactChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+            for (Map.Entry<String, Integer> entry : this.offsets.entrySet()) {
+
+                int position = entry.getValue();
+                ByteBuffer record = this.buffer.duplicate();
+                record.limit(position + this.recordSize(position));
+                record.position(position);
+
+                compactOffsets.put(entry.getKey(), compactBuffer.position());
+                compactBuffer.put(record);
+            }
+            compactBuffer.force();
+
+            Files.move(compactPath, this.path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        } catch (IOException | RuntimeException e) {
+            compactChannel.close();
+            Files.deleteIfExists(compactPath);
+            throw e;
+        }
+
+        LOG.info("Log {} compacted from {} to {} bytes", this.path, this.buffer.position(), compactBuffer.position());
+
+        // from now on every write goes to the new file
+        FileChannel oldChannel = this.channel;
+        this.channel = compactChannel;
+        this.buffer = compactBuffer;
+        this.offsets.clear();
+        this.offsets.putAll(compactOffsets);
+        oldChannel.close();
+    }
+
+    private void track(byte type, String clientId, int position) {
+
+        Integer previous = (type == PUT) ? this.offsets.put(clientId, position) : this.offsets.remove(clientId);
+        if (previous != null) {
+            this.liveBytes -= this.recordSize(previous);
+        }
+        if (type == PUT) {
+            this.liveBytes += this.recordSize(position);
+        }
+    }
+
+    private int recordSize(int position) {
+        return LENGTH_SIZE + this.buffer.getInt(position) + CRC_SIZE;
+    }
+
+    private Path compactPath() {
+        return this.path.resolveSibling(this.path.getFileName() + COMPACT_SUFFIX);
+    }
+
+    private static byte[] encode(Operation operation) throws IOException {
+
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(body);
+        out.writeByte(operation.type);
+        out.writeUTF(operation.clientId);
+        if (operation.type == PUT) {
+            writeWill(out, operation.willMessage);
+        }
+        out.flush();
+        byte[] bytes = body.toByteArray();
+
+        ByteBuffer record = ByteBuffer.allocate(LENGTH_SIZE + bytes.length + CRC_SIZE);
+        record.putInt(bytes.length).put(bytes).putInt(crc(bytes));
+        return record.array();
+    }
+
+    private static void writeWill(DataOutputStream out, AmqpWillMessage willMessage) throws IOException {
+
+        out.writeBoolean(willMessage.isRetain());
+        out.writeByte(willMessage.qos().value());
+        out.writeUTF(willMessage.topic());
+        if (willMessage.payload() != null) {
+            byte[] payload = willMessage.payload().getBytes();
+            out.writeInt(payload.length);
+            out.write(payload);
+        } else {
+            out.writeInt(-1);
+        }
+    }
+
+    private static AmqpWillMessage readWill(DataInputStream in) throws IOException {
+
+        boolean isRetain = in.readBoolean();
+        MqttQoS qos = MqttQoS.valueOf(in.readByte());
+        String topic = in.readUTF();
+        Buffer payload = null;
+        int length = in.readInt();
+        if (length >= 0) {
+            byte[] bytes = new byte[length];
+            in.readFully(bytes);
+            payload = Buffer.buffer(bytes);
+        }
+        return new AmqpWillMessage(isRetain, topic, qos, payload);
+    }
+
+    private static int crc(byte[] bytes) {
+
+        CRC32 crc = new CRC32();
+        crc.update(bytes, 0, bytes.length);
+        return (int) crc.getValue();
+    }
+}
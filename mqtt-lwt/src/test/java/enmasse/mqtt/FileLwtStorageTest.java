@@ -0,0 +1,261 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.messages.AmqpWillMessage;
+import enmasse.mqtt.storage.impl.FileLwtStorage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.Async;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.RunTestOnContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests related to the file based LWT storage service only
+ */
+@RunWith(VertxUnitRunner.class)
+public class FileLwtStorageTest {
+
+    protected final Logger LOG = LoggerFactory.getLogger(FileLwtStorageTest.class);
+
+    private static final AmqpWillMessage WILL_MESSAGE =
+            new AmqpWillMessage(true, "will_topic", MqttQoS.AT_MOST_ONCE, Buffer.buffer("Hello"));
+
+    private static final String CLIENT_ID = "client_id";
+
+    private static final int WILLS_COUNT = 10000;
+
+    @Rule
+    public RunTestOnContext rule = new RunTestOnContext();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FileLwtStorage lwtStorage;
+
+    @Before
+    public void before(TestContext context) {
+
+        this.lwtStorage = this.createStorage();
+        this.lwtStorage.open(context.asyncAssertSuccess());
+    }
+
+    @After
+    public void after(TestContext context) {
+        this.lwtStorage.close(context.asyncAssertSuccess());
+    }
+
+    @Test
+    public void recoverAddedWill(TestContext context) {
+
+        Async async = context.async();
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, done -> {
+
+            context.assertTrue(done.succeeded());
+            this.reopen(context, () -> {
+
+                this.lwtStorage.get(CLIENT_ID, done1 -> {
+
+                    context.assertTrue(done1.succeeded());
+                    this.assertWill(context, WILL_MESSAGE, done1.result());
+                    LOG.info("Added will recovered");
+                    async.complete();
+                });
+            });
+        });
+    }
+
+    @Test
+    public void recoverUpdatedWill(TestContext context) {
+
+        Async async = context.async();
+
+        AmqpWillMessage willMessage1 = new AmqpWillMessage(false, "will_topic_1", MqttQoS.AT_LEAST_ONCE, null);
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, done -> {
+
+            context.assertTrue(done.succeeded());
+            this.lwtStorage.update(CLIENT_ID, willMessage1, done1 -> {
+
+                context.assertTrue(done1.succeeded());
+                this.reopen(context, () -> {
+
+                    this.lwtStorage.get(CLIENT_ID, done2 -> {
+
+                        context.assertTrue(done2.succeeded());
+                        this.assertWill(context, willMessage1, done2.result());
+                        LOG.info("Updated will recovered");
+                        async.complete();
+                    });
+                });
+            });
+        });
+    }
+
+    @Test
+    public void notRecoverDeletedWill(TestContext context) {
+
+        Async async = context.async();
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, done -> {
+
+            context.assertTrue(done.succeeded());
+            this.lwtStorage.delete(CLIENT_ID, done1 -> {
+
+                context.assertTrue(done1.succeeded());
+                this.reopen(context, () -> {
+
+                    this.lwtStorage.get(CLIENT_ID, done2 -> {
+
+                        context.assertTrue(!done2.succeeded());
+                        LOG.info("Deleted will not recovered");
+                        async.complete();
+                    });
+                });
+            });
+        });
+    }
+
+    @Test
+    public void recoverAfterCompaction(TestContext context) {
+
+        Async async = context.async();
+
+        // a lot of overwritten wills, so that the (small) log needs to be compacted
+        for (int i = 0; i < WILLS_COUNT; i++) {
+            String clientId = CLIENT_ID + (i % 10);
+            AmqpWillMessage willMessage = new AmqpWillMessage(false, "will_topic_" + i, MqttQoS.AT_LEAST_ONCE, Buffer.buffer("Hello_" + i));
+            if (i < 10) {
+                this.lwtStorage.add(clientId, willMessage, context.asyncAssertSuccess());
+            } else {
+                this.lwtStorage.update(clientId, willMessage, context.asyncAssertSuccess());
+            }
+        }
+
+        this.reopen(context, () -> {
+
+            int last = WILLS_COUNT - 1;
+            this.lwtStorage.get(CLIENT_ID + (last % 10), done -> {
+
+                context.assertTrue(done.succeeded());
+                context.assertEquals("will_topic_" + last, done.result().topic());
+                LOG.info("Wills recovered after compaction");
+                async.complete();
+            });
+        });
+    }
+
+    @Test
+    public void failWhileReplaying(TestContext context) {
+
+        Async async = context.async();
+
+        this.lwtStorage.add(CLIENT_ID, WILL_MESSAGE, context.asyncAssertSuccess(v -> {
+
+            this.lwtStorage.close(context.asyncAssertSuccess(v1 -> {
+
+                this.lwtStorage = this.createStorage();
+                this.lwtStorage.open(context.asyncAssertSuccess(v2 -> {
+
+                    this.lwtStorage.get(CLIENT_ID, context.asyncAssertSuccess(willMessage -> {
+
+                        this.assertWill(context, WILL_MESSAGE, willMessage);
+                        LOG.info("Will available once replayed");
+                        async.complete();
+                    }));
+                }));
+
+                // the log is replayed on a worker thread, nothing to serve yet
+                this.lwtStorage.get(CLIENT_ID, context.asyncAssertFailure(e -> context.assertTrue(e instanceof IllegalStateException)));
+                this.lwtStorage.add(CLIENT_ID + "_1", WILL_MESSAGE, context.asyncAssertFailure());
+                this.lwtStorage.update(CLIENT_ID, WILL_MESSAGE, context.asyncAssertFailure());
+                this.lwtStorage.delete(CLIENT_ID, context.asyncAssertFailure());
+            }));
+        }));
+    }
+
+    @Test
+    public void retryFailedFlush(TestContext context) throws IOException {
+
+        Async async = context.async();
+
+        // blocks the compaction file, so that writing more than the log capacity fails
+        File compactFile = new File(this.folder.getRoot(), "wills.log.compact");
+        context.assertTrue(compactFile.mkdir());
+        context.assertTrue(new File(compactFile, "blocker").createNewFile());
+
+        Buffer payload = Buffer.buffer(new byte[1024]);
+        int count = 100;
+        AtomicInteger acked = new AtomicInteger();
+        for (int i = 0; i < count; i++) {
+            AmqpWillMessage willMessage = new AmqpWillMessage(false, "will_topic_" + i, MqttQoS.AT_LEAST_ONCE, payload);
+            this.lwtStorage.add(CLIENT_ID + i, willMessage, context.asyncAssertSuccess(v -> {
+
+                if (acked.incrementAndGet() == count) {
+
+                    this.reopen(context, () -> {
+
+                        this.lwtStorage.get(CLIENT_ID + (count - 1), context.asyncAssertSuccess(willMessage1 -> {
+
+                            context.assertEquals("will_topic_" + (count - 1), willMessage1.topic());
+                            LOG.info("Wills recovered after a failed flush");
+                            async.complete();
+                        }));
+                    });
+                }
+            }));
+        }
+
+        // not acknowledged while the log can't be written, then written on a next flush
+        this.rule.vertx().setTimer(500, t -> {
+
+            context.assertEquals(0, acked.get());
+            context.assertTrue(new File(compactFile, "blocker").delete());
+            context.assertTrue(compactFile.delete());
+        });
+    }
+
+    private FileLwtStorage createStorage() {
+
+        return new FileLwtStorage()
+                .setStorageDir(this.folder.getRoot().getAbsolutePath())
+                .setFlushInterval(100)
+                .setMaxBatchSize(100)
+                .setInitialCapacity(64 * 1024);
+    }
+
+    private void assertWill(TestContext context, AmqpWillMessage expected, AmqpWillMessage actual) {
+
+        // recovered from the log, so not the same instance
+        context.assertEquals(expected.isRetain(), actual.isRetain());
+        context.assertEquals(expected.topic(), actual.topic());
+        context.assertEquals(expected.qos(), actual.qos());
+        context.assertEquals(expected.payload(), actual.payload());
+    }
+
+    private void reopen(TestContext context, Runnable handler) {
+
+        this.lwtStorage.close(context.asyncAssertSuccess(v -> {
+
+            this.lwtStorage = this.createStorage();
+            this.lwtStorage.open(context.asyncAssertSuccess(v1 -> handler.run()));
+        }));
+    }
+}
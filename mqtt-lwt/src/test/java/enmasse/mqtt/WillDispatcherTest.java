@@ -0,0 +1,169 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package enmasse.mqtt;
+
+import enmasse.mqtt.endpoints.AmqpPublishEndpoint;
+import enmasse.mqtt.messages.AmqpPublishMessage;
+import enmasse.mqtt.messages.AmqpWillMessage;
+import enmasse.mqtt.storage.LwtStorage;
+import enmasse.mqtt.storage.impl.InMemoryLwtStorage;
+import io.netty.handler.codec.mqtt.MqttQoS;
+import io.vertx.core.AsyncResult;
+import io.vertx.core.Future;
+import io.vertx.core.Handler;
+import io.vertx.core.buffer.Buffer;
+import io.vertx.ext.unit.TestContext;
+import io.vertx.ext.unit.junit.VertxUnitRunner;
+import io.vertx.proton.ProtonDelivery;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tests related to the will dispatching pipeline only
+ */
+@RunWith(VertxUnitRunner.class)
+public class WillDispatcherTest {
+
+    protected final Logger LOG = LoggerFactory.getLogger(WillDispatcherTest.class);
+
+    private static final String CLIENT_ID = "client_id";
+
+    private static final int CLIENTS_COUNT = 20000;
+    private static final int MAX_IN_FLIGHT = 100;
+    private static final int DELETE_BATCH_SIZE = 50;
+
+    private LwtStorage lwtStorage;
+    private MockPublishEndpoint publishEndpoint;
+
+    @Before
+    public void before(TestContext context) {
+
+        this.lwtStorage = new InMemoryLwtStorage();
+        this.lwtStorage.open(context.asyncAssertSuccess());
+        this.publishEndpoint = new MockPublishEndpoint();
+
+        for (int i = 0; i < CLIENTS_COUNT; i++) {
+            AmqpWillMessage willMessage = new AmqpWillMessage(false, "will_topic_" + i, MqttQoS.AT_LEAST_ONCE, Buffer.buffer("Hello_" + i));
+            this.lwtStorage.add(CLIENT_ID + i, willMessage, context.asyncAssertSuccess());
+        }
+    }
+
+    @After
+    public void after(TestContext context) {
+        this.lwtStorage.close();
+    }
+
+    @Test
+    public void massDisconnection(TestContext context) {
+
+        WillDispatcher willDispatcher = new WillDispatcher(this.lwtStorage, this.publishEndpoint, CLIENTS_COUNT, CLIENTS_COUNT, MAX_IN_FLIGHT, DELETE_BATCH_SIZE);
+
+        for (int i = 0; i < CLIENTS_COUNT; i++) {
+            context.assertTrue(willDispatcher.dispatch(CLIENT_ID + i));
+        }
+
+        // never more wills in flight than allowed, the others wait in the backlog
+        context.assertEquals(MAX_IN_FLIGHT, willDispatcher.inFlight());
+        context.assertEquals(CLIENTS_COUNT - MAX_IN_FLIGHT, willDispatcher.backlog());
+
+        // peer accepting the deliveries
+        while (this.publishEndpoint.accept()) { }
+
+        context.assertEquals(0, willDispatcher.backlog());
+        context.assertEquals(0, willDispatcher.inFlight());
+        context.assertEquals((long) CLIENTS_COUNT, willDispatcher.published());
+        context.assertEquals(0L, willDispatcher.failed());
+        LOG.info("Published {} wills, latency avg = {} ms, max = {} ms",
+                willDispatcher.published(), willDispatcher.averageLatency(), willDispatcher.maxLatency());
+
+        // published wills deleted from the storage
+        for (int i = 0; i < CLIENTS_COUNT; i++) {
+            this.lwtStorage.get(CLIENT_ID + i, done -> context.assertTrue(done.failed()));
+        }
+    }
+
+    @Test
+    public void fullBacklog(TestContext context) {
+
+        WillDispatcher willDispatcher = new WillDispatcher(this.lwtStorage, this.publishEndpoint, 10, 2, 1, DELETE_BATCH_SIZE);
+
+        for (int i = 0; i < 11; i++) {
+            context.assertTrue(willDispatcher.dispatch(CLIENT_ID + i));
+        }
+        // one in flight and the backlog full
+        context.assertFalse(willDispatcher.dispatch(CLIENT_ID + 11));
+        context.assertFalse(willDispatcher.dispatch(CLIENT_ID + 12));
+        context.assertEquals(2, willDispatcher.deferred());
+
+        // too many deferred, dropped and left in the storage
+        context.assertFalse(willDispatcher.dispatch(CLIENT_ID + 13));
+        context.assertEquals(2, willDispatcher.deferred());
+        context.assertEquals(1L, willDispatcher.dropped());
+
+        // deferred wills queued as the backlog drains
+        while (this.publishEndpoint.accept()) { }
+
+        context.assertEquals(0, willDispatcher.deferred());
+        context.assertEquals(0, willDispatcher.backlog());
+        context.assertEquals(13L, willDispatcher.published());
+        this.lwtStorage.get(CLIENT_ID + 11, done -> context.assertTrue(done.failed()));
+        this.lwtStorage.get(CLIENT_ID + 12, done -> context.assertTrue(done.failed()));
+        this.lwtStorage.get(CLIENT_ID + 13, done -> context.assertTrue(done.succeeded()));
+    }
+
+    @Test
+    public void updatedWillNotDeleted(TestContext context) {
+
+        WillDispatcher willDispatcher = new WillDispatcher(this.lwtStorage, this.publishEndpoint, CLIENTS_COUNT, CLIENTS_COUNT, MAX_IN_FLIGHT, DELETE_BATCH_SIZE);
+
+        context.assertTrue(willDispatcher.dispatch(CLIENT_ID + 0));
+
+        // client reconnected with a new will while the previous one was in flight
+        AmqpWillMessage willMessage = new AmqpWillMessage(false, "will_topic", MqttQoS.AT_LEAST_ONCE, Buffer.buffer("Hello"));
+        this.lwtStorage.update(CLIENT_ID + 0, willMessage, context.asyncAssertSuccess());
+
+        while (this.publishEndpoint.accept()) { }
+
+        this.lwtStorage.get(CLIENT_ID + 0, context.asyncAssertSuccess(will -> context.assertTrue(will == willMessage)));
+    }
+
+    /**
+     * Publish endpoint which settles deliveries only when asked
+     */
+    private static class MockPublishEndpoint extends AmqpPublishEndpoint {
+
+        private final List<Handler<AsyncResult<ProtonDelivery>>> unsettled = new ArrayList<>();
+
+        MockPublishEndpoint() {
+            super(null);
+        }
+
+        @Override
+        public void publish(AmqpPublishMessage amqpPublishMessage, Handler<AsyncResult<ProtonDelivery>> handler) {
+            this.unsettled.add(handler);
+        }
+
+        boolean accept() {
+
+            if (this.unsettled.isEmpty()) {
+                return false;
+            }
+            List<Handler<AsyncResult<ProtonDelivery>>> handlers = new ArrayList<>(this.unsettled);
+            this.unsettled.clear();
+            for (Handler<AsyncResult<ProtonDelivery>> handler : handlers) {
+                handler.handle(Future.succeededFuture());
+            }
+            return true;
+        }
+    }
+}
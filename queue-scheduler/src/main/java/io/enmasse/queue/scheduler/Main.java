@@ -7,8 +7,8 @@ package io.enmasse.queue.scheduler;
 
 import io.enmasse.amqp.Artemis;
 import io.enmasse.amqp.ExternalSaslAuthenticator;
-import io.fabric8.kubernetes.client.DefaultKubernetesClient;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.openshift.client.DefaultOpenShiftClient;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import io.vertx.core.Future;
 import io.vertx.core.Vertx;
 
@@ -51,7 +51,7 @@ public class Main {
         }
 
 
-        KubernetesClient kubernetesClient = new DefaultKubernetesClient();
+        NamespacedOpenShiftClient kubernetesClient = new DefaultOpenShiftClient();
         ConfigServiceClient configServiceClient = new ConfigServiceClient(scheduler, kubernetesClient, getEnvOrThrow("NAMESPACE"));
 
         vertx.deployVerticle(configServiceClient);
@@ -0,0 +1,204 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Applies queue operations with a pipeline per broker, so that brokers are updated concurrently while each
+ * broker has a bounded number of operations in flight. Operations on the same queue are applied in order,
+ * and an operation cancels a pending opposite operation on the same queue. Failed operations are retried,
+ * and handed to the failure handler once all attempts have failed. A retry waiting for its delay is
+ * replaced by any operation submitted for the same queue in the meantime.
+ */
+class QueueDeployer {
+    private static final Logger log = LoggerFactory.getLogger(QueueDeployer.class);
+    private final int maxInFlight;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final ExecutorService executor;
+    private final ScheduledExecutorService retryTimer;
+    private volatile FailureHandler failureHandler = operation -> { };
+
+    // guarded by this
+    private final Map<Broker, Pipeline> pipelines = new IdentityHashMap<>();
+
+    interface FailureHandler {
+        void operationFailed(QueueOperation operation);
+    }
+
+    private static class Pipeline {
+        final Map<String, QueueOperation> pending = new LinkedHashMap<>();
+        final Set<String> inFlight = new HashSet<>();
+        // operations waiting for their retry delay, by queue
+        final Map<String, QueueOperation> retrying = new HashMap<>();
+        long submitted;
+        boolean removed;
+
+        boolean isIdle() {
+            return pending.isEmpty() && inFlight.isEmpty() && retrying.isEmpty();
+        }
+    }
+
+    QueueDeployer(int maxInFlight, int maxAttempts, Duration retryDelay) {
+        this.maxInFlight = maxInFlight;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.executor = Executors.newCachedThreadPool(runnable -> createThread(runnable, "queue-deployer"));
+        this.retryTimer = Executors.newSingleThreadScheduledExecutor(runnable -> createThread(runnable, "queue-deployer-retry"));
+    }
+
+    private static Thread createThread(Runnable runnable, String name) {
+        Thread thread = new Thread(runnable, name);
+        thread.setDaemon(true);
+        return thread;
+    }
+
+    void setFailureHandler(FailureHandler failureHandler) {
+        this.failureHandler = failureHandler;
+    }
+
+    /**
+     * Queue operations to be applied in the background.
+     */
+    synchronized void submit(List<QueueOperation> operations) {
+        Set<Pipeline> updated = new HashSet<>();
+        for (QueueOperation operation : operations) {
+            Pipeline pipeline = pipelines.computeIfAbsent(operation.getBroker(), b -> new Pipeline());
+            pipeline.submitted++;
+            QueueOperation retry = pipeline.retrying.remove(operation.getAddress());
+            if (retry != null) {
+                log.debug("Retry of {} replaced by {}", retry, operation);
+            }
+            enqueue(pipeline, operation);
+            updated.add(pipeline);
+        }
+        for (Pipeline pipeline : updated) {
+            dispatch(pipeline);
+        }
+    }
+
+    private void enqueue(Pipeline pipeline, QueueOperation operation) {
+        QueueOperation existing = pipeline.pending.get(operation.getAddress());
+        if (existing == null) {
+            pipeline.pending.put(operation.getAddress(), operation);
+        } else if (existing.getType() != operation.getType()) {
+            log.debug("{} cancelled by {}", existing, operation);
+            pipeline.pending.remove(operation.getAddress());
+        }
+    }
+
+    private void dispatch(Pipeline pipeline) {
+        Iterator<QueueOperation> it = pipeline.pending.values().iterator();
+        while (pipeline.inFlight.size() < maxInFlight && it.hasNext()) {
+            QueueOperation operation = it.next();
+            if (!pipeline.inFlight.contains(operation.getAddress())) {
+                it.remove();
+                pipeline.inFlight.add(operation.getAddress());
+                executor.execute(() -> run(pipeline, operation));
+            }
+        }
+    }
+
+    private void run(Pipeline pipeline, QueueOperation operation) {
+        boolean failed = false;
+        try {
+            operation.apply();
+        } catch (Exception e) {
+            log.warn("Error applying {} (attempt {} of {})", operation, operation.getAttempt(), maxAttempts, e);
+            failed = true;
+        }
+
+        QueueOperation retry = null;
+        boolean report = false;
+        synchronized (this) {
+            pipeline.inFlight.remove(operation.getAddress());
+            if (failed && !pipeline.removed && !pipeline.pending.containsKey(operation.getAddress())) {
+                if (operation.getAttempt() < maxAttempts) {
+                    retry = operation.nextAttempt();
+                    pipeline.retrying.put(operation.getAddress(), retry);
+                } else {
+                    report = true;
+                }
+            }
+            if (!pipeline.removed) {
+                dispatch(pipeline);
+            }
+            notifyAll();
+        }
+
+        if (retry != null) {
+            QueueOperation nextAttempt = retry;
+            long delay = retryDelay.toMillis() << (operation.getAttempt() - 1);
+            retryTimer.schedule(() -> retry(pipeline, nextAttempt), delay, TimeUnit.MILLISECONDS);
+        } else if (report) {
+            failureHandler.operationFailed(operation);
+        }
+    }
+
+    private synchronized void retry(Pipeline pipeline, QueueOperation operation) {
+        // only if not replaced by a newer operation on the same queue
+        if (pipeline.retrying.remove(operation.getAddress(), operation) && !pipeline.removed) {
+            enqueue(pipeline, operation);
+            dispatch(pipeline);
+        }
+        notifyAll();
+    }
+
+    /**
+     * Drop the pipeline of a broker that is gone, cancelling its pending operations.
+     */
+    synchronized void removeBroker(Broker broker) {
+        Pipeline pipeline = pipelines.remove(broker);
+        if (pipeline != null) {
+            pipeline.removed = true;
+            pipeline.pending.clear();
+            pipeline.retrying.clear();
+        }
+        notifyAll();
+    }
+
+    /**
+     * If the broker has no operations pending, in flight or waiting for a retry.
+     */
+    synchronized boolean isIdle(Broker broker) {
+        Pipeline pipeline = pipelines.get(broker);
+        return pipeline == null || pipeline.isIdle();
+    }
+
+    /**
+     * Number of operations submitted for a broker, to detect operations submitted in between two points in time.
+     */
+    synchronized long getNumSubmitted(Broker broker) {
+        Pipeline pipeline = pipelines.get(broker);
+        return pipeline == null ? 0 : pipeline.submitted;
+    }
+
+    /**
+     * Wait until all brokers are idle.
+     *
+     * @return true if all brokers became idle before the timeout
+     */
+    synchronized boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (!pipelines.values().stream().allMatch(Pipeline::isIdle)) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+}
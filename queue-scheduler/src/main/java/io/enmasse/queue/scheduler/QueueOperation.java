@@ -0,0 +1,83 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Creation or deletion of a queue on a broker, as planned by the scheduler.
+ */
+class QueueOperation {
+    enum Type {
+        Create,
+        Delete
+    }
+
+    private final Type type;
+    private final String groupId;
+    private final String brokerId;
+    private final Broker broker;
+    private final String address;
+    private final int attempt;
+
+    private QueueOperation(Type type, String groupId, String brokerId, Broker broker, String address, int attempt) {
+        this.type = type;
+        this.groupId = groupId;
+        this.brokerId = brokerId;
+        this.broker = broker;
+        this.address = address;
+        this.attempt = attempt;
+    }
+
+    static QueueOperation create(String groupId, String brokerId, Broker broker, String address) {
+        return new QueueOperation(Type.Create, groupId, brokerId, broker, address, 1);
+    }
+
+    static QueueOperation delete(String groupId, String brokerId, Broker broker, String address) {
+        return new QueueOperation(Type.Delete, groupId, brokerId, broker, address, 1);
+    }
+
+    QueueOperation nextAttempt() {
+        return new QueueOperation(type, groupId, brokerId, broker, address, attempt + 1);
+    }
+
+    void apply() throws TimeoutException {
+        if (type == Type.Create) {
+            broker.createQueue(address);
+        } else {
+            broker.deleteQueue(address);
+        }
+    }
+
+    Type getType() {
+        return type;
+    }
+
+    String getGroupId() {
+        return groupId;
+    }
+
+    String getBrokerId() {
+        return brokerId;
+    }
+
+    Broker getBroker() {
+        return broker;
+    }
+
+    String getAddress() {
+        return address;
+    }
+
+    int getAttempt() {
+        return attempt;
+    }
+
+    @Override
+    public String toString() {
+        return type + " " + address + " on " + brokerId + " in " + groupId;
+    }
+}
@@ -38,6 +38,8 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
 
     private final int port;
     private final String certDir;
+    private final long reconcileInterval = TimeUnit.SECONDS.toMillis(30);
+    private long reconcileTimer;
 
     public QueueScheduler(BrokerFactory brokerFactory, SchedulerState schedulerState, int listenPort, String certDir) {
         this.brokerFactory = brokerFactory;
@@ -101,6 +103,9 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
                 log.error("Error starting queue scheduler", event.cause());
             }
         });
+
+        reconcileTimer = vertx.setPeriodic(reconcileInterval, id ->
+                executeBlocking(schedulerState::reconcile, "Error reconciling brokers"));
     }
 
     private void connectionOpened(ProtonConnection connection) {
@@ -118,6 +123,7 @@ public class QueueScheduler extends AbstractVerticle implements ConfigListener {
     @Override
     public void stop() {
         log.info("Stopping server!");
+        vertx.cancelTimer(reconcileTimer);
         if (server != null) {
             server.close();
         }
@@ -9,22 +9,32 @@ import io.enmasse.address.model.Address;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.TimeoutException;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 /**
  * Contains the mapping from queue to broker and ensures there is only one modifying the state at a time.
+ * Changes are planned against the queues scheduled on each broker, and the resulting operations are
+ * applied in the background by the {@link QueueDeployer}, so brokers are not called while holding the lock.
  */
 public class SchedulerState implements StateListener {
     private static final Logger log = LoggerFactory.getLogger(SchedulerState.class.getName());
     private final Map<String, Map<String, Broker>> brokerGroupMap = new LinkedHashMap<>();
     private final Map<String, Set<Address>> addressMap = new LinkedHashMap<>();
+    private final Map<Broker, Set<String>> scheduledQueues = new IdentityHashMap<>();
+    private final Set<Broker> failedBrokers = Collections.newSetFromMap(new IdentityHashMap<>());
     private final StateListener chainedListener;
+    private final QueueDeployer deployer;
 
-    public SchedulerState(StateListener chainedListener) {
+    SchedulerState(StateListener chainedListener, QueueDeployer deployer) {
         this.chainedListener = chainedListener;
+        this.deployer = deployer;
+        deployer.setFailureHandler(this::operationFailed);
+    }
+
+    public SchedulerState(StateListener chainedListener) {
+        this(chainedListener, new QueueDeployer(4, 3, Duration.ofSeconds(1)));
     }
 
     public SchedulerState() {
@@ -36,29 +46,31 @@ public class SchedulerState implements StateListener {
         removedGroups.removeAll(updatedMap.keySet());
         removedGroups.forEach(addressMap::remove);
 
+        List<QueueOperation> plan = new ArrayList<>();
         for (Map.Entry<String, Set<Address>> entry : updatedMap.entrySet()) {
-            groupUpdated(entry.getKey(), entry.getValue());
+            groupUpdated(entry.getKey(), entry.getValue(), plan);
         }
+        deployer.submit(plan);
         if (chainedListener != null) {
             chainedListener.addressesChanged(updatedMap);
         }
     }
 
-    private synchronized void groupUpdated(String groupId, Set<Address> addresses) throws TimeoutException {
+    private void groupUpdated(String groupId, Set<Address> addresses, List<QueueOperation> plan) {
         Set<Address> existing = addressMap.getOrDefault(groupId, Collections.emptySet());
 
         Set<Address> removed = new HashSet<>(existing);
         removed.removeAll(addresses);
         if (!removed.isEmpty()) {
             log.info("Removing addresses for {}: {}", groupId, removed);
-            deleteAddresses(groupId, removed);
+            deleteAddresses(groupId, removed, plan);
         }
 
         Set<Address> added = new HashSet<>(addresses);
         added.removeAll(existing);
         if (!added.isEmpty()) {
             log.info("Adding addresses for {}: {}", groupId, added);
-            addAddresses(groupId, addresses, added);
+            addAddresses(groupId, addresses, added, plan);
         }
 
         addressMap.put(groupId, addresses);
@@ -66,131 +78,200 @@ public class SchedulerState implements StateListener {
     }
 
 
-    public synchronized void brokerAdded(String groupId, String brokerId, Broker broker) throws TimeoutException {
-        if (!brokerGroupMap.containsKey(groupId)) {
-            brokerGroupMap.put(groupId, new LinkedHashMap<>());
-        }
+    public void brokerAdded(String groupId, String brokerId, Broker broker) throws TimeoutException {
+        Set<String> queueNames = broker.getQueueNames();
+        synchronized (this) {
+            if (!brokerGroupMap.containsKey(groupId)) {
+                brokerGroupMap.put(groupId, new LinkedHashMap<>());
+            }
 
-        if (brokerGroupMap.get(groupId).containsKey(brokerId)) {
-            throw new IllegalArgumentException("Broker with id " + brokerId + " already exists in group " + groupId);
-        }
-        brokerGroupMap.get(groupId).put(brokerId, broker);
+            if (brokerGroupMap.get(groupId).containsKey(brokerId)) {
+                throw new IllegalArgumentException("Broker with id " + brokerId + " already exists in group " + groupId);
+            }
+            brokerGroupMap.get(groupId).put(brokerId, broker);
+            scheduledQueues.put(broker, new HashSet<>(queueNames));
 
-        Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
-        log.info("Broker " + brokerId + " in group " + groupId + " was added, distributing addresses: " + addresses);
-        if (addresses.size() == 1) {
-            deployQueue(broker, addresses.iterator().next().getAddress());
-        } else {
-            distributeAddressesByNumQueues(groupId, addresses);
+            Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
+            log.info("Broker " + brokerId + " in group " + groupId + " was added, distributing addresses: " + addresses);
+            List<QueueOperation> plan = new ArrayList<>();
+            if (addresses.size() == 1) {
+                distributeAddressesAll(groupId, addresses, plan);
+            } else {
+                distributeAddressesByNumQueues(groupId, addresses, plan);
+            }
+            deployer.submit(plan);
         }
         if (chainedListener != null) {
             chainedListener.brokerAdded(groupId, brokerId, broker);
         }
     }
 
-    private static void deployQueue(Broker broker, String address) throws TimeoutException {
-        broker.createQueue(address);
+    public void brokerRemoved(String groupId, String brokerId) throws TimeoutException {
+        synchronized (this) {
+            Map<String, Broker> brokerMap = brokerGroupMap.get(groupId);
+            if (brokerMap != null && brokerMap.containsKey(brokerId)) {
+                Broker broker = brokerMap.remove(brokerId);
+                if (brokerMap.isEmpty()) {
+                    brokerGroupMap.remove(groupId);
+                }
+                scheduledQueues.remove(broker);
+                failedBrokers.remove(broker);
+                deployer.removeBroker(broker);
+
+                Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
+                // If colocated queues, ensure missing queues are recreated on other brokers.
+                if (addresses.size() > 1) {
+                    List<QueueOperation> plan = new ArrayList<>();
+                    distributeAddressesByNumQueues(groupId, addresses, plan);
+                    deployer.submit(plan);
+                }
+                log.info("Broker " + brokerId + " in group " + groupId + " was removed");
+            } else {
+                log.info("Broker was already removed, ignoring");
+            }
+        }
+        if (chainedListener != null) {
+            chainedListener.brokerRemoved(groupId, brokerId);
+        }
     }
 
-    private static void deleteQueue(Broker broker, String address) throws TimeoutException {
-        broker.deleteQueue(address);
+    private synchronized void operationFailed(QueueOperation operation) {
+        if (scheduledQueues.containsKey(operation.getBroker())) {
+            log.warn("Giving up on {}, reconciling broker later", operation);
+            failedBrokers.add(operation.getBroker());
+        }
     }
 
-    public synchronized void brokerRemoved(String groupId, String brokerId) throws TimeoutException {
-        Map<String, Broker> brokerMap = brokerGroupMap.get(groupId);
-        if (brokerMap != null && brokerMap.containsKey(brokerId)) {
-            brokerMap.remove(brokerId);
-            if (brokerMap.isEmpty()) {
-                brokerGroupMap.remove(groupId);
+    /**
+     * Reconcile brokers where operations failed: their queues are listed again, queues of addresses that
+     * no longer exist are deleted and addresses that are missing are scheduled again. Brokers with
+     * operations still in progress are left for the next time.
+     */
+    public void reconcile() throws TimeoutException {
+        Map<Broker, Long> toReconcile = new IdentityHashMap<>();
+        synchronized (this) {
+            for (Broker broker : failedBrokers) {
+                if (deployer.isIdle(broker)) {
+                    toReconcile.put(broker, deployer.getNumSubmitted(broker));
+                }
             }
-            Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
-            // If colocated queues, ensure missing queues are recreated on other brokers.
-            if (addresses.size() > 1) {
-                distributeAddressesByNumQueues(groupId, addresses);
+        }
+
+        Map<Broker, Set<String>> actualQueues = new IdentityHashMap<>();
+        for (Broker broker : toReconcile.keySet()) {
+            try {
+                actualQueues.put(broker, broker.getQueueNames());
+            } catch (TimeoutException e) {
+                log.warn("Timed out listing queues of broker, will retry", e);
             }
-            log.info("Broker " + brokerId + " in group " + groupId + " was removed");
-        } else {
-            log.info("Broker was already removed, ignoring");
         }
-        if (chainedListener != null) {
-            chainedListener.brokerRemoved(groupId, brokerId);
+
+        synchronized (this) {
+            List<QueueOperation> plan = new ArrayList<>();
+            for (Map.Entry<String, Map<String, Broker>> group : brokerGroupMap.entrySet()) {
+                String groupId = group.getKey();
+                boolean reconciled = false;
+                for (Map.Entry<String, Broker> entry : group.getValue().entrySet()) {
+                    Broker broker = entry.getValue();
+                    Set<String> actual = actualQueues.get(broker);
+                    // Skip if operations were submitted while listing, as they may not be reflected
+                    if (actual == null || deployer.getNumSubmitted(broker) != toReconcile.get(broker) || !failedBrokers.remove(broker)) {
+                        continue;
+                    }
+                    scheduledQueues.put(broker, new HashSet<>(actual));
+                    reconciled = true;
+
+                    Set<Address> addresses = addressMap.get(groupId);
+                    if (addresses != null) {
+                        Set<String> stale = new HashSet<>(actual);
+                        for (Address address : addresses) {
+                            stale.remove(address.getAddress());
+                        }
+                        for (String queue : stale) {
+                            scheduledQueues.get(broker).remove(queue);
+                            plan.add(QueueOperation.delete(groupId, entry.getKey(), broker, queue));
+                        }
+                    }
+                }
+
+                Set<Address> addresses = addressMap.getOrDefault(groupId, Collections.emptySet());
+                if (reconciled && !addresses.isEmpty()) {
+                    log.info("Reconciled brokers in group {}", groupId);
+                    addAddresses(groupId, addresses, addresses, plan);
+                }
+            }
+            deployer.submit(plan);
         }
     }
 
-    private void addAddresses(String groupId, Set<Address> addresses, Set<Address> added) throws TimeoutException {
+    private Set<String> scheduledQueues(Broker broker) {
+        return scheduledQueues.computeIfAbsent(broker, b -> new HashSet<>());
+    }
+
+    private void addAddresses(String groupId, Set<Address> addresses, Set<Address> added, List<QueueOperation> plan) {
 
         // TODO: Fetch this information from somewhere, but assume > 1 address means shared flavor
         if (addresses.size() > 1) {
-            distributeAddressesByNumQueues(groupId, added);
+            distributeAddressesByNumQueues(groupId, added, plan);
         } else {
-            distributeAddressesAll(groupId, added);
+            distributeAddressesAll(groupId, added, plan);
         }
     }
 
-    private void distributeAddressesByNumQueues(String groupId, Set<Address> addresses) throws TimeoutException {
+    private void distributeAddressesByNumQueues(String groupId, Set<Address> addresses, List<QueueOperation> plan) {
         Map<String, Broker> brokerMap = brokerGroupMap.get(groupId);
         if (brokerMap == null) {
             return;
         }
 
-
-        Map<String, Address> addressesToDeploy = addresses.stream().collect(Collectors.toMap(Address::getAddress, Function.identity()));
-
-        // Remove addresses that are already distributed. This is to avoid changes in broker list to affect where queues are scheduler
-
-        List<BrokerInfo> brokerInfos = new ArrayList<>();
-        for (Map.Entry<String, Broker> entry : brokerMap.entrySet()) {
-            BrokerInfo brokerInfo = new BrokerInfo(entry.getKey(), entry.getValue(), entry.getValue().getQueueNames());
-            addressesToDeploy.keySet().removeAll(brokerInfo.queueNames);
-            brokerInfos.add(brokerInfo);
+        Set<String> addressesToDeploy = new LinkedHashSet<>();
+        for (Address address : addresses) {
+            addressesToDeploy.add(address.getAddress());
         }
 
-        PriorityQueue<BrokerInfo> brokerByNumQueues = new PriorityQueue<>(brokerInfos.size(), (a, b) -> {
-            if (a.queueNames.size() < b.queueNames.size()) {
-                return -1;
-            } else if (a.queueNames.size() > b.queueNames.size()) {
-                return 1;
-            } else {
-                return 0;
-            }
-        });
-
-        brokerByNumQueues.addAll(brokerInfos);
-
-        for (Address address : addressesToDeploy.values()) {
-            BrokerInfo brokerInfo = brokerByNumQueues.poll();
-            Broker broker = brokerInfo.broker;
-            deployQueue(broker, address.getAddress());
-            brokerInfo.queueNames.add(address.getAddress());
-            brokerByNumQueues.offer(brokerInfo);
+        // Remove addresses that are already distributed. This is to avoid changes in broker list to affect where queues are scheduler
+        for (Broker broker : brokerMap.values()) {
+            addressesToDeploy.removeAll(scheduledQueues(broker));
         }
-    }
 
-    private static class BrokerInfo {
-        final String brokerId;
-        final Broker broker;
-        final Set<String> queueNames;
+        PriorityQueue<Map.Entry<String, Broker>> brokerByNumQueues = new PriorityQueue<>(brokerMap.size(),
+                Comparator.comparingInt(entry -> scheduledQueues(entry.getValue()).size()));
+        brokerByNumQueues.addAll(brokerMap.entrySet());
 
-        private BrokerInfo(String brokerId, Broker broker, Set<String> queueNames) {
-            this.brokerId = brokerId;
-            this.broker = broker;
-            this.queueNames = new HashSet<>(queueNames);
+        for (String address : addressesToDeploy) {
+            Map.Entry<String, Broker> entry = brokerByNumQueues.poll();
+            scheduledQueues(entry.getValue()).add(address);
+            plan.add(QueueOperation.create(groupId, entry.getKey(), entry.getValue(), address));
+            brokerByNumQueues.offer(entry);
         }
     }
 
-    private void distributeAddressesAll(String groupId, Set<Address> addresses) throws TimeoutException {
+    private void distributeAddressesAll(String groupId, Set<Address> addresses, List<QueueOperation> plan) {
         for (Address address : addresses) {
-            for (Broker  broker : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).values()) {
-                deployQueue(broker, address.getAddress());
+            for (Map.Entry<String, Broker> entry : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).entrySet()) {
+                if (scheduledQueues(entry.getValue()).add(address.getAddress())) {
+                    plan.add(QueueOperation.create(groupId, entry.getKey(), entry.getValue(), address.getAddress()));
+                }
             }
         }
     }
 
-    private void deleteAddresses(String groupId, Set<Address> removed) throws TimeoutException {
-        for (Broker broker : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).values()) {
+    private void deleteAddresses(String groupId, Set<Address> removed, List<QueueOperation> plan) {
+        for (Map.Entry<String, Broker> entry : brokerGroupMap.getOrDefault(groupId, Collections.emptyMap()).entrySet()) {
             for (Address address : removed) {
-                deleteQueue(broker, address.getAddress());
+                if (scheduledQueues(entry.getValue()).remove(address.getAddress())) {
+                    plan.add(QueueOperation.delete(groupId, entry.getKey(), entry.getValue(), address.getAddress()));
+                }
             }
         }
     }
+
+    /**
+     * Wait until all planned operations have been applied.
+     *
+     * @return true if all were applied before the timeout
+     */
+    boolean awaitDeployed(Duration timeout) throws InterruptedException {
+        return deployer.awaitIdle(timeout);
+    }
 }
@@ -16,7 +16,7 @@ import java.util.Set;
 import java.util.stream.Collectors;
 
 import io.enmasse.address.model.Address;
-import io.fabric8.kubernetes.client.KubernetesClient;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.internal.util.collections.Sets;
@@ -28,7 +28,7 @@ public class ConfigServiceClientTest {
     @Before
     public void setup() throws Exception {
         listener = new TestListener();
-        KubernetesClient kubeClient = mock(KubernetesClient.class);
+        NamespacedOpenShiftClient kubeClient = mock(NamespacedOpenShiftClient.class);
 
         client = new ConfigServiceClient(listener, kubeClient, "default");
     }
@@ -36,7 +36,7 @@ public class ConfigServiceClientTest {
     @Test
     public void testClientUpdatesListener() throws Exception {
         assertNull(listener.addressMap);
-        client.resourcesUpdated(Sets.newSet(
+        client.onUpdate(Sets.newSet(
                 createAddress("queue1", "queue", "pooled-inmemory"),
                 createAddress("queue2", "queue", "pooled-inmemory"),
                 createAddress("queue3", "queue", "inmemory"),
@@ -54,6 +54,7 @@ public class ConfigServiceClientTest {
     private Address createAddress(String name, String type, String planName) {
         return new Address.Builder()
                 .setName(name)
+                .setAddress(name)
                 .setType(type)
                 .setPlan(planName)
                 .build();
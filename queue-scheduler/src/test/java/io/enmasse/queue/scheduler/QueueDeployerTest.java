@@ -0,0 +1,177 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+
+package io.enmasse.queue.scheduler;
+
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+public class QueueDeployerTest {
+
+    /**
+     * Broker blocking on each call until released, and failing to create the queues in the failing set.
+     */
+    private static class BlockingBroker implements Broker {
+        final Set<String> queues = Collections.synchronizedSet(new LinkedHashSet<>());
+        final Set<String> failing = Collections.synchronizedSet(new HashSet<>());
+        final AtomicInteger inFlight = new AtomicInteger();
+        final AtomicInteger maxInFlight = new AtomicInteger();
+        final AtomicInteger calls = new AtomicInteger();
+        final CountDownLatch release = new CountDownLatch(1);
+
+        private void call(String address, boolean create) throws TimeoutException {
+            calls.incrementAndGet();
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                assertTrue(release.await(1, TimeUnit.MINUTES));
+                if (create && failing.contains(address)) {
+                    throw new TimeoutException("Timed out creating " + address);
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Set<String> getQueueNames() {
+            return new HashSet<>(queues);
+        }
+
+        @Override
+        public void createQueue(String address) throws TimeoutException {
+            call(address, true);
+            queues.add(address);
+        }
+
+        @Override
+        public void deleteQueue(String address) throws TimeoutException {
+            call(address, false);
+            queues.remove(address);
+        }
+    }
+
+    @Test
+    public void testBrokersUpdatedConcurrently() throws Exception {
+        QueueDeployer deployer = new QueueDeployer(2, 1, Duration.ofMillis(10));
+        BlockingBroker br1 = new BlockingBroker();
+        BlockingBroker br2 = new BlockingBroker();
+
+        List<QueueOperation> plan = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            plan.add(QueueOperation.create("group", "br1", br1, "queue" + i));
+            plan.add(QueueOperation.create("group", "br2", br2, "queue" + i));
+        }
+        deployer.submit(plan);
+
+        long deadline = System.currentTimeMillis() + 60_000;
+        while ((br1.inFlight.get() < 2 || br2.inFlight.get() < 2) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        br1.release.countDown();
+        br2.release.countDown();
+
+        assertTrue(deployer.awaitIdle(Duration.ofMinutes(1)));
+        assertThat(br1.queues.size(), is(10));
+        assertThat(br2.queues.size(), is(10));
+        assertThat(br1.maxInFlight.get(), is(2));
+        assertThat(br2.maxInFlight.get(), is(2));
+    }
+
+    @Test
+    public void testOppositeOperationsCancelled() throws Exception {
+        QueueDeployer deployer = new QueueDeployer(1, 1, Duration.ofMillis(10));
+        BlockingBroker broker = new BlockingBroker();
+
+        deployer.submit(Arrays.asList(
+                QueueOperation.create("group", "br1", broker, "queue1"),
+                QueueOperation.create("group", "br1", broker, "queue2"),
+                QueueOperation.delete("group", "br1", broker, "queue2")));
+        broker.release.countDown();
+
+        assertTrue(deployer.awaitIdle(Duration.ofMinutes(1)));
+        assertThat(broker.calls.get(), is(1));
+        assertThat(broker.queues, is(Collections.singleton("queue1")));
+    }
+
+    @Test
+    public void testFailedOperationsRetried() throws Exception {
+        QueueDeployer deployer = new QueueDeployer(2, 3, Duration.ofMillis(10));
+        List<QueueOperation> failed = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch reported = new CountDownLatch(1);
+        deployer.setFailureHandler(operation -> {
+            failed.add(operation);
+            reported.countDown();
+        });
+        BlockingBroker broker = new BlockingBroker();
+        broker.failing.add("queue2");
+        broker.release.countDown();
+
+        deployer.submit(Arrays.asList(
+                QueueOperation.create("group", "br1", broker, "queue1"),
+                QueueOperation.create("group", "br1", broker, "queue2")));
+
+        assertTrue(reported.await(1, TimeUnit.MINUTES));
+        assertTrue(deployer.awaitIdle(Duration.ofMinutes(1)));
+        assertThat(broker.calls.get(), is(4));
+        assertThat(failed.size(), is(1));
+        assertThat(failed.get(0).getAddress(), is("queue2"));
+        assertThat(failed.get(0).getAttempt(), is(3));
+    }
+
+    @Test
+    public void testRetryReplacedByNewerOperation() throws Exception {
+        QueueDeployer deployer = new QueueDeployer(1, 3, Duration.ofSeconds(1));
+        BlockingBroker broker = new BlockingBroker();
+        broker.failing.add("queue1");
+        broker.release.countDown();
+
+        deployer.submit(Collections.singletonList(QueueOperation.create("group", "br1", broker, "queue1")));
+        long deadline = System.currentTimeMillis() + 60_000;
+        while ((broker.calls.get() < 1 || broker.inFlight.get() > 0) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        Thread.sleep(100);
+
+        // the address is deleted while the create waits for its retry
+        deployer.submit(Collections.singletonList(QueueOperation.delete("group", "br1", broker, "queue1")));
+        assertTrue(deployer.awaitIdle(Duration.ofMinutes(1)));
+        Thread.sleep(1500);
+
+        assertTrue(deployer.isIdle(broker));
+        assertThat(broker.calls.get(), is(2));
+        assertTrue(broker.queues.isEmpty());
+    }
+
+    @Test
+    public void testFailedOperationNotRetriedWhenNewerPending() throws Exception {
+        QueueDeployer deployer = new QueueDeployer(1, 3, Duration.ofMillis(10));
+        BlockingBroker broker = new BlockingBroker();
+        broker.failing.add("queue1");
+
+        deployer.submit(Collections.singletonList(QueueOperation.create("group", "br1", broker, "queue1")));
+        long deadline = System.currentTimeMillis() + 60_000;
+        while (broker.inFlight.get() < 1 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        deployer.submit(Collections.singletonList(QueueOperation.delete("group", "br1", broker, "queue1")));
+        broker.release.countDown();
+
+        assertTrue(deployer.awaitIdle(Duration.ofMinutes(1)));
+        assertThat(broker.calls.get(), is(2));
+        assertTrue(broker.queues.isEmpty());
+    }
+}
@@ -196,6 +196,7 @@ public class QueueSchedulerTest {
     private Address createQueue(String name, boolean pooled, boolean persisted) {
         Address.Builder builder = new Address.Builder();
         builder.setName(name);
+        builder.setAddress(name);
         builder.setType("queue");
         builder.setPlan(pooled ? (persisted ? "pooled-persisted" : "pooled-inmemory") : (persisted ? "persisted" : "inmemory"));
         return builder.build();
@@ -38,6 +38,19 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
     private final SchemaProvider schemaProvider;
     private final Duration recheckInterval;
     private final Duration resyncInterval;
+    private final Duration routerCheckTimeout = Duration.ofSeconds(10);
+    private RouterStatusCollector routerStatusCollector;
+    private final int statusWriteParallelism = 4;
+    private final Duration statusRetryDelay = Duration.ofSeconds(5);
+    private final AddressStatusWriter statusWriter;
+
+    // state of the last reconcile, accessed from the checker thread only
+    private final Map<String, String> reconciledVersions = new HashMap<>();
+    private Map<String, String> knownVersions = new HashMap<>();
+    private Schema reconciledSchema;
+    private Long lastFullReconcile;
+    private AddressResolver addressResolver;
+    private Schema resolverSchema;
 
     public AddressController(String addressSpaceName, AddressApi addressApi, Kubernetes kubernetes, BrokerSetGenerator clusterGenerator, String certDir, EventLogger eventLogger, SchemaProvider schemaProvider, Duration recheckInterval, Duration resyncInterval) {
         this.addressSpaceName = addressSpaceName;
@@ -49,6 +62,7 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         this.schemaProvider = schemaProvider;
         this.recheckInterval = recheckInterval;
         this.resyncInterval = resyncInterval;
+        this.statusWriter = new AddressStatusWriter(addressApi, statusWriteParallelism, statusRetryDelay);
     }
 
     @Override
@@ -76,6 +90,10 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         if (watch != null) {
             watch.close();
         }
+        if (routerStatusCollector != null) {
+            routerStatusCollector.close();
+        }
+        statusWriter.close();
     }
 
     @Override
@@ -87,15 +105,57 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
             return;
         }
         AddressSpaceType addressSpaceType = schema.findAddressSpaceType("standard").orElseThrow(() -> new RuntimeException("Unable to start standard-controller: standard address space not found in schema!"));
-        AddressResolver addressResolver = new AddressResolver(schema, addressSpaceType);
+        if (addressResolver == null || schema != resolverSchema) {
+            addressResolver = new AddressResolver(schema, addressSpaceType);
+            resolverSchema = schema;
+        }
         if (addressSpaceType.getPlans().isEmpty()) {
             log.info("No address space plan available");
             return;
         }
 
-        Map<String, Status> previousStatus = new HashMap<>();
+        boolean fullReconcile = lastFullReconcile == null || schema != reconciledSchema || start - lastFullReconcile >= resyncInterval.toNanos();
+
+        // classify addresses in a single pass, skipping those active and unchanged since the last reconcile
+        Map<String, String> versions = new HashMap<>();
+        Map<Status.Phase, Long> countByPhase = new HashMap<>();
+        for (Status.Phase phase : Status.Phase.values()) {
+            countByPhase.put(phase, 0L);
+        }
+        Set<Address> pendingAddresses = new HashSet<>();
+        Set<Address> checkAddresses = new HashSet<>();
+        Set<Address> terminatingAddresses = new HashSet<>();
+        int skipped = 0;
         for (Address address : addressSet) {
-            previousStatus.put(address.getAddress(), new Status(address.getStatus()));
+            versions.put(address.getAddress(), address.getVersion());
+            Status.Phase phase = address.getStatus().getPhase();
+            countByPhase.put(phase, 1 + countByPhase.get(phase));
+            switch (phase) {
+                case Pending:
+                    pendingAddresses.add(address);
+                    break;
+                case Configuring:
+                case Active:
+                    if (!fullReconcile && isReconciled(address)) {
+                        skipped++;
+                    } else {
+                        checkAddresses.add(address);
+                    }
+                    break;
+                case Terminating:
+                    terminatingAddresses.add(address);
+                    break;
+            }
+        }
+
+        // brokers and routers only need to be provisioned again if the set of addresses changed
+        boolean changed = fullReconcile || !pendingAddresses.isEmpty() || !versions.equals(knownVersions);
+
+        Map<String, Status> previousStatus = new HashMap<>();
+        for (Set<Address> addresses : Arrays.asList(pendingAddresses, checkAddresses, terminatingAddresses)) {
+            for (Address address : addresses) {
+                previousStatus.put(address.getAddress(), new Status(address.getStatus()));
+            }
         }
 
         AddressSpacePlan addressSpacePlan = addressSpaceType.getPlans().get(0);
@@ -103,72 +163,118 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         long resolvedPlan = System.nanoTime();
         AddressProvisioner provisioner = new AddressProvisioner(addressResolver, addressSpacePlan, clusterGenerator, kubernetes, eventLogger);
 
-        Map<Status.Phase, Long> countByPhase = countPhases(addressSet);
         log.info("Total: {}, Active: {}, Configuring: {}, Pending: {}, Terminating: {}, Failed: {}", addressSet.size(), countByPhase.get(Active), countByPhase.get(Configuring), countByPhase.get(Pending), countByPhase.get(Terminating), countByPhase.get(Failed));
         if (countByPhase.get(Configuring) < 5) {
-            log.debug("Addresses in configuring: {}", filterByPhases(addressSet, Arrays.asList(Configuring)));
+            log.debug("Addresses in configuring: {}", filterByPhases(checkAddresses, Arrays.asList(Configuring)));
         }
         if (countByPhase.get(Pending) < 5) {
-            log.debug("Addresses in pending : {}", filterByPhases(addressSet, Arrays.asList(Pending)));
+            log.debug("Addresses in pending : {}", pendingAddresses);
         }
 
-        Map<String, Map<String, UsageInfo>> usageMap = provisioner.checkUsage(filterByNotPhases(addressSet, Arrays.asList(Pending)));
+        long calculatedUsage = resolvedPlan;
+        long checkedQuota = resolvedPlan;
+        long listClusters = resolvedPlan;
+        long provisionResources = resolvedPlan;
+        List<BrokerCluster> clusterList = null;
+        if (changed) {
+            Map<String, Map<String, UsageInfo>> usageMap = provisioner.checkUsage(filterByNotPhases(addressSet, Arrays.asList(Pending)));
 
-        long calculatedUsage = System.nanoTime();
-        Set<Address> pendingAddresses = filterByPhases(addressSet, Arrays.asList(Pending));
-        Map<String, Map<String, UsageInfo>> neededMap = provisioner.checkQuota(usageMap, pendingAddresses);
+            calculatedUsage = System.nanoTime();
+            Map<String, Map<String, UsageInfo>> neededMap = provisioner.checkQuota(usageMap, pendingAddresses);
 
-        log.info("Usage: {}, Needed: {}", usageMap, neededMap);
+            log.info("Usage: {}, Needed: {}", usageMap, neededMap);
 
-        long checkedQuota = System.nanoTime();
+            checkedQuota = System.nanoTime();
 
-        List<BrokerCluster> clusterList = kubernetes.listClusters();
-        RouterCluster routerCluster = kubernetes.getRouterCluster();
-        long listClusters = System.nanoTime();
+            clusterList = kubernetes.listClusters();
+            RouterCluster routerCluster = kubernetes.getRouterCluster();
+            listClusters = System.nanoTime();
 
-        provisioner.provisionResources(routerCluster, clusterList, neededMap, pendingAddresses);
+            provisioner.provisionResources(routerCluster, clusterList, neededMap, pendingAddresses);
 
-        long provisionResources = System.nanoTime();
+            provisionResources = System.nanoTime();
+        }
 
-        checkStatuses(filterByPhases(addressSet, Arrays.asList(Status.Phase.Configuring, Status.Phase.Active)), addressResolver);
+        // addresses scheduled by the quota check are now configuring, and need to be checked as well
+        for (Address address : pendingAddresses) {
+            if (Configuring.equals(address.getStatus().getPhase())) {
+                checkAddresses.add(address);
+            }
+        }
+        checkStatuses(checkAddresses, addressResolver);
         long checkStatuses = System.nanoTime();
-        for (Address address : filterByPhases(addressSet, Arrays.asList(Status.Phase.Configuring, Status.Phase.Active))) {
+        for (Address address : checkAddresses) {
             if (address.getStatus().isReady()) {
                 address.getStatus().setPhase(Active);
             }
         }
 
-        deprovisionUnused(clusterList, filterByNotPhases(addressSet, Arrays.asList(Terminating)));
+        if (clusterList != null) {
+            deprovisionUnused(clusterList, filterByNotPhases(addressSet, Arrays.asList(Terminating)));
+        }
         long deprovisionUnused = System.nanoTime();
 
-        for (Address address : addressSet) {
-            if (!previousStatus.get(address.getAddress()).equals(address.getStatus())) {
-                addressApi.replaceAddress(address);
+        Set<String> statusWritten = new HashSet<>();
+        for (Set<Address> addresses : Arrays.asList(pendingAddresses, checkAddresses, terminatingAddresses)) {
+            for (Address address : addresses) {
+                if (!previousStatus.get(address.getAddress()).equals(address.getStatus())) {
+                    statusWriter.write(address);
+                    statusWritten.add(address.getAddress());
+                }
             }
         }
 
         long replaceAddresses = System.nanoTime();
-        garbageCollectTerminating(filterByPhases(addressSet, Arrays.asList(Status.Phase.Terminating)), addressResolver);
+        garbageCollectTerminating(terminatingAddresses, addressResolver);
         long gcTerminating = System.nanoTime();
-        log.info("total: {} ns, resolvedPlan: {} ns, calculatedUsage: {} ns, checkedQuota: {} ns, listClusters: {} ns, provisionResources: {} ns, checkStatuses: {} ns, deprovisionUnused: {} ns, replaceAddresses: {} ns, gcTerminating: {} ns", gcTerminating - start, resolvedPlan - start, calculatedUsage - resolvedPlan,  checkedQuota  - calculatedUsage, listClusters - checkedQuota, provisionResources - listClusters, checkStatuses - provisionResources, deprovisionUnused - checkStatuses, replaceAddresses - deprovisionUnused, gcTerminating - replaceAddresses);
 
+        // only remember what was reconciled once done, so that a failed reconcile is retried in full. Addresses
+        // with a status write pending are only remembered when they come back with the written status, as the
+        // write may fail
+        for (Address address : checkAddresses) {
+            if (Active.equals(address.getStatus().getPhase()) && address.getStatus().isReady() && address.getVersion() != null
+                    && !statusWritten.contains(address.getAddress())) {
+                reconciledVersions.put(address.getAddress(), address.getVersion());
+            } else {
+                reconciledVersions.remove(address.getAddress());
+            }
+        }
+        reconciledVersions.keySet().retainAll(versions.keySet());
+        knownVersions = versions;
+        reconciledSchema = schema;
+        if (fullReconcile) {
+            lastFullReconcile = start;
+        }
+
+        log.info("total: {} ns, resolvedPlan: {} ns, calculatedUsage: {} ns, checkedQuota: {} ns, listClusters: {} ns, provisionResources: {} ns, checkStatuses: {} ns, deprovisionUnused: {} ns, replaceAddresses: {} ns, gcTerminating: {} ns, full: {}, checked: {}, skipped: {}, status writes pending: {}", gcTerminating - start, resolvedPlan - start, calculatedUsage - resolvedPlan,  checkedQuota  - calculatedUsage, listClusters - checkedQuota, provisionResources - listClusters, checkStatuses - provisionResources, deprovisionUnused - checkStatuses, replaceAddresses - deprovisionUnused, gcTerminating - replaceAddresses, fullReconcile, checkAddresses.size(), skipped, statusWriter.getNumPending());
+
+    }
+
+    /**
+     * If the address was active and ready when last reconciled, and hasn't changed since.
+     */
+    private boolean isReconciled(Address address) {
+        return Active.equals(address.getStatus().getPhase())
+                && address.getStatus().isReady()
+                && address.getVersion() != null
+                && address.getVersion().equals(reconciledVersions.get(address.getAddress()));
     }
 
     private void deprovisionUnused(List<BrokerCluster> clusters, Set<Address> addressSet) {
-        for (BrokerCluster cluster : clusters) {
-            int numFound = 0;
-            for (Address address : addressSet) {
-                String brokerId = address.getAnnotations().get(AnnotationKeys.BROKER_ID);
-                String clusterId = address.getAnnotations().get(AnnotationKeys.CLUSTER_ID);
-                String name = address.getName();
-                if (brokerId == null && name.equals(cluster.getClusterId())) {
-                    numFound++;
-                } else if (cluster.getClusterId().equals(clusterId)) {
-                    numFound++;
-                }
+        Set<String> usedClusters = new HashSet<>();
+        for (Address address : addressSet) {
+            String brokerId = address.getAnnotations().get(AnnotationKeys.BROKER_ID);
+            String clusterId = address.getAnnotations().get(AnnotationKeys.CLUSTER_ID);
+            if (brokerId == null) {
+                usedClusters.add(address.getName());
+            }
+            if (clusterId != null) {
+                usedClusters.add(clusterId);
             }
+        }
 
-            if (numFound == 0) {
+        for (BrokerCluster cluster : clusters) {
+            if (!usedClusters.contains(cluster.getClusterId())) {
                 try {
                     kubernetes.delete(cluster.getResources());
                     eventLogger.log(ControllerReason.BrokerDeleted, "Deleted broker " + cluster.getClusterId(), EventLogger.Type.Normal, ControllerKind.Address, cluster.getClusterId());
@@ -186,17 +292,6 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
                 .collect(Collectors.toSet());
     }
 
-    private Map<Status.Phase,Long> countPhases(Set<Address> addressSet) {
-        Map<Status.Phase, Long> countMap = new HashMap<>();
-        for (Status.Phase phase : Status.Phase.values()) {
-            countMap.put(phase, 0L);
-        }
-        for (Address address : addressSet) {
-            countMap.put(address.getStatus().getPhase(), 1 + countMap.get(address.getStatus().getPhase()));
-        }
-        return countMap;
-    }
-
     private Set<Address> filterByNotPhases(Set<Address> addressSet, List<Status.Phase> phases) {
         return addressSet.stream()
                 .filter(address -> !phases.contains(address.getStatus().getPhase()))
@@ -223,31 +318,28 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         }
         // TODO: Instead of going to the routers directly, list routers, and perform a request against the
         // router agent to do the check
-        RouterStatusCollector routerStatusCollector = new RouterStatusCollector(vertx, certDir);
-        List<RouterStatus> routerStatusList = new ArrayList<>();
+        if (routerStatusCollector == null) {
+            routerStatusCollector = new RouterStatusCollector(vertx, certDir, routerCheckTimeout);
+        }
+        List<Pod> readyRouters = new ArrayList<>();
         for (Pod router : kubernetes.listRouters()) {
             if (Readiness.isPodReady(router)) {
-                try {
-                    RouterStatus routerStatus = routerStatusCollector.collect(router);
-                    if (routerStatus != null) {
-                        routerStatusList.add(routerStatus);
-                    }
-                } catch (Exception e) {
-                    log.info("Error requesting router status from {}. Ignoring", router.getMetadata().getName(), e);
-                    eventLogger.log(RouterCheckFailed, e.getMessage(), Warning, AddressSpace, addressSpaceName);
-                }
+                readyRouters.add(router);
             }
         }
+        List<RouterStatus> routerStatusList = routerStatusCollector.collect(readyRouters, (router, e) -> {
+            log.info("Error requesting router status from {}. Ignoring", router.getMetadata().getName(), e);
+            eventLogger.log(RouterCheckFailed, e.getMessage(), Warning, AddressSpace, addressSpaceName);
+        });
 
         Map<String, Integer> clusterOk = new HashMap<>();
         for (Address address : addresses) {
-            AddressType addressType = addressResolver.getType(address);
-            AddressPlan addressPlan = addressResolver.getPlan(addressType, address);
+            ResolvedPlan resolvedPlan = addressResolver.resolve(address);
 
             int ok = 0;
-            switch (addressType.getName()) {
+            switch (resolvedPlan.getAddressType().getName()) {
                 case "queue":
-                    ok += checkBrokerStatus(address, clusterOk, addressPlan);
+                    ok += checkBrokerStatus(address, clusterOk, resolvedPlan);
                     for (RouterStatus routerStatus : routerStatusList) {
                         ok += routerStatus.checkAddress(address);
                         ok += routerStatus.checkAutoLinks(address);
@@ -255,11 +347,11 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
                     ok += RouterStatus.checkActiveAutoLink(address, routerStatusList);
                     break;
                 case "topic":
-                    ok += checkBrokerStatus(address, clusterOk, addressPlan);
+                    ok += checkBrokerStatus(address, clusterOk, resolvedPlan);
                     for (RouterStatus routerStatus : routerStatusList) {
                         ok += routerStatus.checkLinkRoutes(address);
                     }
-                    if (isPooled(addressPlan)) {
+                    if (resolvedPlan.isPooled()) {
                         ok += RouterStatus.checkActiveLinkRoute(address, routerStatusList);
                     } else {
                         ok += RouterStatus.checkConnection(address, routerStatusList);
@@ -278,8 +370,8 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         return numOk;
     }
 
-    private int checkBrokerStatus(Address address, Map<String, Integer> clusterOk, AddressPlan addressPlan) {
-        String clusterId = isPooled(addressPlan) ? "broker" : address.getName();
+    private int checkBrokerStatus(Address address, Map<String, Integer> clusterOk, ResolvedPlan resolvedPlan) {
+        String clusterId = resolvedPlan.isPooled() ? "broker" : address.getName();
         if (!clusterOk.containsKey(clusterId)) {
             if (!kubernetes.isDestinationClusterReady(clusterId)) {
                 address.getStatus().setReady(false).appendMessage("Cluster " + clusterId + " is unavailable");
@@ -290,15 +382,4 @@ public class AddressController extends AbstractVerticle implements Watcher<Addre
         }
         return clusterOk.get(clusterId);
     }
-
-    private boolean isPooled(AddressPlan plan) {
-        for (ResourceRequest request : plan.getRequiredResources()) {
-            if ("broker".equals(request.getResourceName()) && request.getAmount() < 1.0) {
-                return true;
-            }
-        }
-        return false;
-    }
-
-
 }
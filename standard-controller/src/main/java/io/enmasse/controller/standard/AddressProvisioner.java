@@ -26,6 +26,7 @@ public class AddressProvisioner {
     private final BrokerSetGenerator clusterGenerator;
     private final Kubernetes kubernetes;
     private final EventLogger eventLogger;
+    private final PlacementStrategy placementStrategy;
 
     public AddressProvisioner(AddressResolver addressResolver, AddressSpacePlan addressSpacePlan, BrokerSetGenerator clusterGenerator, Kubernetes kubernetes, EventLogger eventLogger) {
         this.addressResolver = addressResolver;
@@ -33,6 +34,7 @@ public class AddressProvisioner {
         this.clusterGenerator = clusterGenerator;
         this.kubernetes = kubernetes;
         this.eventLogger = eventLogger;
+        this.placementStrategy = PlacementStrategy.fromPlan(addressSpacePlan);
     }
 
     /**
@@ -48,8 +50,7 @@ public class AddressProvisioner {
     }
 
     private void addToUsage(Map<String, Map<String, UsageInfo>> usageMap, Address address) {
-        AddressType addressType = addressResolver.getType(address);
-        AddressPlan addressPlan = addressResolver.getPlan(addressType, address);
+        AddressPlan addressPlan = addressResolver.resolve(address).getAddressPlan();
 
         for (ResourceRequest resourceRequest : addressPlan.getRequiredResources()) {
             String instanceId = null;
@@ -67,79 +68,84 @@ public class AddressProvisioner {
     }
 
     public Map<String, Map<String, UsageInfo>> checkQuota(Map<String, Map<String, UsageInfo>> usageMap, Set<Address> addressSet) {
-        Map<String, Map<String, UsageInfo>> newUsageMap = usageMap;
         Map<String, Double> limits = computeLimits();
-        for (Address address : addressSet) {
-            Map<String, Map<String, UsageInfo>> neededMap = checkQuotaForAddress(limits, newUsageMap, address);
-            if (neededMap != null) {
-                newUsageMap = neededMap;
+        UsageLedger ledger = new UsageLedger(usageMap, pooledPattern, placementStrategy.createPlacement());
+        for (Address address : placementOrder(addressSet)) {
+            if (checkQuotaForAddress(limits, ledger, address)) {
+                ledger.commit();
                 address.getStatus().setPhase(Status.Phase.Configuring);
+            } else {
+                ledger.rollback();
             }
         }
-        return newUsageMap;
+        return ledger.getUsage();
     }
 
-    private static Map<String, Map<String, UsageInfo>> copyUsageMap(Map<String, Map<String, UsageInfo>> usageMap) {
-        Map<String, Map<String, UsageInfo>> newUsageMap = new HashMap<>();
-        for (Map.Entry<String, Map<String, UsageInfo>> entry : usageMap.entrySet()) {
-            newUsageMap.put(entry.getKey(), new HashMap<>());
-            for (Map.Entry<String, UsageInfo> innerEntry : entry.getValue().entrySet()) {
-                newUsageMap.get(entry.getKey()).put(innerEntry.getKey(), new UsageInfo(innerEntry.getValue()));
+    /**
+     * Order in which addresses are placed, largest pooled addresses first if the placement strategy requires it
+     */
+    private Collection<Address> placementOrder(Set<Address> addressSet) {
+        if (!placementStrategy.isDecreasing()) {
+            return addressSet;
+        }
+        Map<Address, Double> pooledCredit = new IdentityHashMap<>();
+        for (Address address : addressSet) {
+            AddressPlan addressPlan = addressResolver.resolve(address).getAddressPlan();
+            double credit = 0;
+            for (ResourceRequest resourceRequest : addressPlan.getRequiredResources()) {
+                if ("broker".equals(resourceRequest.getResourceName()) && resourceRequest.getAmount() < 1) {
+                    credit = resourceRequest.getAmount();
+                }
             }
+            pooledCredit.put(address, credit);
         }
-        return newUsageMap;
+        List<Address> ordered = new ArrayList<>(addressSet);
+        ordered.sort(Comparator.comparingDouble((Address address) -> pooledCredit.get(address)).reversed());
+        return ordered;
     }
 
-    private Map<String, Map<String, UsageInfo>> checkQuotaForAddress(Map<String, Double> limits, Map<String, Map<String, UsageInfo>> usage, Address address) {
-        AddressType addressType = addressResolver.getType(address);
-        AddressPlan addressPlan = addressResolver.getPlan(addressType, address);
-
-        Map<String, Map<String, UsageInfo>> needed = copyUsageMap(usage);
+    private boolean checkQuotaForAddress(Map<String, Double> limits, UsageLedger ledger, Address address) {
+        AddressPlan addressPlan = addressResolver.resolve(address).getAddressPlan();
 
         for (ResourceRequest resourceRequest : addressPlan.getRequiredResources()) {
             String resourceName = resourceRequest.getResourceName();
-            Map<String, UsageInfo> resourceUsage = needed.computeIfAbsent(resourceName, k -> new HashMap<>());
             if ("router".equals(resourceName)) {
-                UsageInfo info = resourceUsage.computeIfAbsent("all", k -> new UsageInfo());
-                info.addUsed(resourceRequest.getAmount());
+                ledger.addUsed(resourceName, "all", resourceRequest.getAmount());
             } else if ("broker".equals(resourceName) && resourceRequest.getAmount() < 1) {
-                boolean scheduled = scheduleAddress(resourceUsage, address, resourceRequest.getAmount());
+                boolean scheduled = scheduleAddress(ledger, address, resourceRequest.getAmount());
                 if (!scheduled) {
-                    allocateBroker(resourceUsage);
-                    if (!scheduleAddress(resourceUsage, address, resourceRequest.getAmount())) {
+                    ledger.allocatePooledBroker();
+                    if (!scheduleAddress(ledger, address, resourceRequest.getAmount())) {
                         log.warn("Unable to find broker for scheduling {}", address);
-                        return null;
+                        return false;
                     }
                 }
             } else if ("broker".equals(resourceName)) {
-                UsageInfo info = resourceUsage.get(address.getName());
-                if (info != null) {
+                if (ledger.hasUsage(resourceName, address.getName())) {
                     throw new IllegalArgumentException("Found unexpected conflicting usage for address " + address.getName());
                 }
-                info = new UsageInfo();
-                info.addUsed(resourceRequest.getAmount());
-                resourceUsage.put(address.getName(), info);
+                ledger.addUsed(resourceName, address.getName(), resourceRequest.getAmount());
             }
 
-            double resourceNeeded = sumNeeded(resourceUsage);
+            double resourceNeeded = ledger.getNeeded(resourceName);
             if (resourceNeeded > limits.get(resourceName)) {
                 log.info("address {} for {} needed {} > limit {}", address.getAddress(), resourceName, resourceNeeded, limits.get(resourceRequest.getResourceName()));
                 address.getStatus().setPhase(Status.Phase.Pending);
                 address.getStatus().appendMessage("Quota exceeded");
-                return null;
+                return false;
             }
         }
 
-        log.debug("address: {}, usage {}, needed: {}, aggregate: {}", address.getAddress(), usage, needed, limits);
+        double totalNeeded = ledger.getTotalNeeded();
+        log.debug("address: {}, total needed: {}, limits: {}", address.getAddress(), totalNeeded, limits);
 
-        double totalNeeded = sumTotalNeeded(needed);
         if (totalNeeded > limits.get("aggregate")) {
-            log.info("address {} usage {}, total needed {} > limit {}", address.getAddress(), usage, totalNeeded, limits.get("aggregate"));
+            log.info("address {}, total needed {} > limit {}", address.getAddress(), totalNeeded, limits.get("aggregate"));
             address.getStatus().setPhase(Status.Phase.Pending);
             address.getStatus().appendMessage("Quota exceeded");
-            return null;
+            return false;
         }
-        return needed;
+        return true;
     }
 
     static int sumTotalNeeded(Map<String, Map<String, UsageInfo>> usageMap) {
@@ -215,9 +221,7 @@ public class AddressProvisioner {
 
                 for (Map.Entry<String, Integer> clusterIdEntry : sharedBrokers.entrySet()) {
                     Address address = addressByClusterId.get(clusterIdEntry.getKey());
-                    AddressType addressType = addressResolver.getType(address);
-                    AddressPlan addressPlan = addressResolver.getPlan(addressType, address);
-                    ResourceDefinition resourceDefinition = addressResolver.getResourceDefinition(addressPlan, resourceName);
+                    ResourceDefinition resourceDefinition = addressResolver.getResourceDefinition(addressResolver.resolve(address), resourceName);
                     provisionBroker(existingClusters, clusterIdEntry.getKey(), resourceDefinition, clusterIdEntry.getValue(), address);
                 }
             }
@@ -237,42 +241,19 @@ public class AddressProvisioner {
     }
 
     private final Pattern pooledPattern = Pattern.compile("^broker-\\d+");
-    private boolean scheduleAddress(Map<String, UsageInfo> usageMap, Address address, double credit) {
+    private boolean scheduleAddress(UsageLedger ledger, Address address, double credit) {
 
         address.getAnnotations().put(AnnotationKeys.CLUSTER_ID, "broker");
 
-        List<BrokerInfo> brokers = new ArrayList<>();
-        for (String host : usageMap.keySet()) {
-            if (pooledPattern.matcher(host).matches()) {
-                brokers.add(new BrokerInfo(host, usageMap.get(host).getUsed()));
-            }
-        }
-
-        brokers.sort(Comparator.comparingDouble(BrokerInfo::getCredit));
-
-        for (BrokerInfo brokerInfo : brokers) {
-            if (brokerInfo.getCredit() + credit < 1) {
-                address.getAnnotations().put(AnnotationKeys.BROKER_ID, brokerInfo.getBrokerId());
-                UsageInfo used = usageMap.get(brokerInfo.getBrokerId());
-                used.addUsed(credit);
-                return true;
-            }
+        Optional<String> brokerId = ledger.findPooledBroker(credit);
+        if (brokerId.isPresent()) {
+            address.getAnnotations().put(AnnotationKeys.BROKER_ID, brokerId.get());
+            ledger.addUsed("broker", brokerId.get(), credit);
+            return true;
         }
         return false;
     }
 
-    private void allocateBroker(Map<String, UsageInfo> resourceNeeded) {
-        int numPooled = 0;
-        for (String id : resourceNeeded.keySet()) {
-            if (pooledPattern.matcher(id).matches()) {
-                numPooled++;
-            }
-        }
-
-        resourceNeeded.put("broker-" + numPooled, new UsageInfo());
-    }
-
-
     private void provisionBroker(List<BrokerCluster> clusterList, String clusterId, ResourceDefinition resourceDefinition, int numReplicas, Address address) {
         try {
             for (BrokerCluster cluster : clusterList) {
@@ -296,23 +277,4 @@ public class AddressProvisioner {
             address.getStatus().appendMessage("Error creating broker: " + e.getMessage());
         }
     }
-
-    private static class BrokerInfo {
-        private final String brokerId;
-        private final double credit;
-
-        public String getBrokerId() {
-            return brokerId;
-        }
-
-        public double getCredit() {
-            return credit;
-        }
-
-        private BrokerInfo(String brokerId, double credit) {
-            this.brokerId = brokerId;
-            this.credit = credit;
-        }
-
-    }
 }
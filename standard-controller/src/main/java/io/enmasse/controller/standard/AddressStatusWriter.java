@@ -0,0 +1,165 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.k8s.api.AddressApi;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes address statuses in the background, with a bounded number of writes in parallel. Statuses of
+ * an address waiting to be written are replaced by newer ones, so that only the latest is written. Failed writes
+ * are retried after a delay, unless a newer status of the address has been queued in the meantime.
+ */
+class AddressStatusWriter implements AutoCloseable {
+    private static final Logger log = LoggerFactory.getLogger(AddressStatusWriter.class);
+    private final AddressApi addressApi;
+    private final int parallelism;
+    private final Duration retryDelay;
+    private final ScheduledThreadPoolExecutor executor;
+
+    // guarded by this
+    private final Map<String, Address> pending = new LinkedHashMap<>();
+    private final Set<String> inFlight = new HashSet<>();
+    private final Map<String, Address> retries = new HashMap<>();
+    private int workers;
+    private long written;
+    private long failed;
+
+    AddressStatusWriter(AddressApi addressApi, int parallelism, Duration retryDelay) {
+        this.addressApi = addressApi;
+        this.parallelism = parallelism;
+        this.retryDelay = retryDelay;
+        this.executor = new ScheduledThreadPoolExecutor(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "address-status-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // writes in flight complete on close, retries waiting for their delay are dropped
+        this.executor.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+    }
+
+    /**
+     * Queue the status of an address to be written. The address is copied, so it can be modified afterwards.
+     */
+    public void write(Address address) {
+        Address copy = new Address.Builder(address).build();
+        synchronized (this) {
+            retries.remove(copy.getName());
+            pending.put(copy.getName(), copy);
+            startWorker();
+        }
+    }
+
+    private void startWorker() {
+        if (workers < parallelism) {
+            workers++;
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Queue a failed write again, unless a newer status was queued while waiting.
+     */
+    private synchronized void retry(String name) {
+        Address address = retries.remove(name);
+        if (address != null && !pending.containsKey(name)) {
+            pending.put(name, address);
+            startWorker();
+        }
+        notifyAll();
+    }
+
+    private void drain() {
+        while (true) {
+            Address address;
+            synchronized (this) {
+                address = nextPending();
+                if (address == null) {
+                    workers--;
+                    notifyAll();
+                    return;
+                }
+                inFlight.add(address.getName());
+            }
+
+            boolean success = false;
+            try {
+                addressApi.replaceAddressStatus(address);
+                success = true;
+            } catch (Exception e) {
+                log.warn("Error writing status of address {}", address.getAddress(), e);
+            } finally {
+                synchronized (this) {
+                    inFlight.remove(address.getName());
+                    if (success) {
+                        written++;
+                    } else {
+                        failed++;
+                        if (!pending.containsKey(address.getName()) && !executor.isShutdown()) {
+                            retries.put(address.getName(), address);
+                            executor.schedule(() -> retry(address.getName()), retryDelay.toMillis(), TimeUnit.MILLISECONDS);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Oldest pending address not being written already, as writes to the same address must not be reordered.
+     */
+    private Address nextPending() {
+        Iterator<Address> it = pending.values().iterator();
+        while (it.hasNext()) {
+            Address address = it.next();
+            if (!inFlight.contains(address.getName())) {
+                it.remove();
+                return address;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Wait until all queued statuses are written, including retries of failed writes.
+     *
+     * @return true if all were written before the timeout
+     */
+    public synchronized boolean awaitWritten(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (workers > 0 || !retries.isEmpty()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return false;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return true;
+    }
+
+    public synchronized int getNumPending() {
+        return pending.size() + inFlight.size() + retries.size();
+    }
+
+    public synchronized long getNumWritten() {
+        return written;
+    }
+
+    public synchronized long getNumFailed() {
+        return failed;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+}
@@ -0,0 +1,30 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import java.util.Optional;
+
+/**
+ * Chooses the pooled broker to place an address on, keeping track of the credit used on each broker.
+ */
+interface BrokerPlacement {
+
+    /**
+     * Add a broker, or update the credit used on it.
+     */
+    void update(String brokerId, double used);
+
+    void remove(String brokerId);
+
+    /**
+     * Find a broker with room for the given credit.
+     *
+     * @param credit The credit needed by the address
+     * @return The broker to place the address on, or empty if a new broker is needed
+     */
+    Optional<String> findBroker(double credit);
+
+    int getNumBrokers();
+}
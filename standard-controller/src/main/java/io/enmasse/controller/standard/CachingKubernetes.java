@@ -0,0 +1,189 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.config.LabelKeys;
+import io.enmasse.k8s.api.cache.ResourceCache;
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentList;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSet;
+import io.fabric8.kubernetes.api.model.extensions.StatefulSetList;
+import io.fabric8.openshift.client.NamespacedOpenShiftClient;
+import io.fabric8.openshift.client.ParameterValue;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.*;
+
+/**
+ * Serves the reads done on every reconcile from watched local caches, with the resources indexed by
+ * destination cluster. Until the caches are populated, and for everything else, the delegate is used.
+ * Clusters created or deleted through this instance are reflected right away, before the caches catch up.
+ */
+public class CachingKubernetes implements Kubernetes {
+    private static final Logger log = LoggerFactory.getLogger(CachingKubernetes.class);
+    private final Kubernetes delegate;
+
+    private final ResourceCache<Deployment, DeploymentList> deployments;
+    private final ResourceCache<Pod, PodList> routers;
+    private final List<ResourceCache<? extends HasMetadata, ?>> clusterResources = new ArrayList<>();
+
+    private volatile Map<String, List<HasMetadata>> resourcesByCluster = null;
+    private volatile Map<String, Boolean> readyByCluster = Collections.emptyMap();
+
+    // Clusters written through this instance, until the caches catch up. Guarded by this
+    private final Map<String, List<HasMetadata>> created = new HashMap<>();
+    private final Set<String> deleted = new HashSet<>();
+
+    public CachingKubernetes(NamespacedOpenShiftClient client, Kubernetes delegate, Duration resyncInterval) {
+        this.delegate = delegate;
+        Runnable updateIndex = this::updateClusterIndex;
+
+        this.deployments = new ResourceCache<>(client, Deployment.class, ResourceCache::nameOf, c -> c.extensions().deployments(), resyncInterval, updateIndex);
+        this.routers = new ResourceCache<>(client, Pod.class, ResourceCache::nameOf, c -> c.pods().withLabel(LabelKeys.CAPABILITY, "router"), resyncInterval, () -> {});
+
+        clusterResources.add(deployments);
+        clusterResources.add(new ResourceCache<StatefulSet, StatefulSetList>(client, StatefulSet.class, ResourceCache::nameOf, c -> c.apps().statefulSets(), resyncInterval, updateIndex));
+        clusterResources.add(new ResourceCache<PersistentVolumeClaim, PersistentVolumeClaimList>(client, PersistentVolumeClaim.class, ResourceCache::nameOf, c -> c.persistentVolumeClaims(), resyncInterval, updateIndex));
+        clusterResources.add(new ResourceCache<ConfigMap, ConfigMapList>(client, ConfigMap.class, ResourceCache::nameOf, c -> c.configMaps().withLabelNotIn("type", "address-config", "address-space", "address-space-plan", "address-plan"), resyncInterval, updateIndex));
+        clusterResources.add(new ResourceCache<Service, ServiceList>(client, Service.class, ResourceCache::nameOf, c -> c.services(), resyncInterval, updateIndex));
+    }
+
+    /**
+     * For testing with given caches, the index is then updated by calling updateClusterIndex().
+     */
+    CachingKubernetes(Kubernetes delegate, ResourceCache<Deployment, DeploymentList> deployments, ResourceCache<Pod, PodList> routers, List<ResourceCache<? extends HasMetadata, ?>> otherClusterResources) {
+        this.delegate = delegate;
+        this.deployments = deployments;
+        this.routers = routers;
+        clusterResources.add(deployments);
+        clusterResources.addAll(otherClusterResources);
+    }
+
+    public void start() {
+        for (ResourceCache<?, ?> cache : clusterResources) {
+            cache.start();
+        }
+        routers.start();
+    }
+
+    public void stop() throws InterruptedException {
+        for (ResourceCache<?, ?> cache : clusterResources) {
+            cache.stop();
+        }
+        routers.stop();
+    }
+
+    /**
+     * Rebuild the index of resources and readiness by cluster, once all caches are populated.
+     */
+    synchronized void updateClusterIndex() {
+        List<HasMetadata> objects = new ArrayList<>();
+        for (ResourceCache<? extends HasMetadata, ?> cache : clusterResources) {
+            if (!cache.hasSynced()) {
+                return;
+            }
+            objects.addAll(cache.list());
+        }
+
+        Map<String, List<HasMetadata>> byCluster = KubernetesHelper.groupByClusterId(objects);
+        Map<String, Boolean> ready = new HashMap<>();
+        for (Map.Entry<String, List<HasMetadata>> entry : byCluster.entrySet()) {
+            ready.put(entry.getKey(), KubernetesHelper.areAllDeploymentsReady(entry.getValue()));
+        }
+        log.debug("Updated index of {} clusters from {} resources", byCluster.size(), objects.size());
+
+        created.keySet().removeAll(byCluster.keySet());
+        deleted.retainAll(byCluster.keySet());
+
+        readyByCluster = ready;
+        resourcesByCluster = byCluster;
+    }
+
+    @Override
+    public List<BrokerCluster> listClusters() {
+        if (resourcesByCluster == null) {
+            return delegate.listClusters();
+        }
+        Map<String, List<HasMetadata>> byCluster;
+        synchronized (this) {
+            byCluster = new HashMap<>(resourcesByCluster);
+            byCluster.putAll(created);
+            byCluster.keySet().removeAll(deleted);
+        }
+        return KubernetesHelper.toClusters(byCluster);
+    }
+
+    @Override
+    public boolean isDestinationClusterReady(String clusterId) {
+        if (resourcesByCluster == null) {
+            return delegate.isDestinationClusterReady(clusterId);
+        }
+        return readyByCluster.getOrDefault(clusterId, false);
+    }
+
+    @Override
+    public List<Pod> listRouters() {
+        if (!routers.hasSynced()) {
+            return delegate.listRouters();
+        }
+        return new ArrayList<>(routers.list());
+    }
+
+    @Override
+    public RouterCluster getRouterCluster() {
+        if (!deployments.hasSynced()) {
+            return delegate.getRouterCluster();
+        }
+        for (Deployment deployment : deployments.list()) {
+            if ("qdrouterd".equals(deployment.getMetadata().getName())) {
+                return new RouterCluster(deployment.getMetadata().getName(), deployment.getSpec().getReplicas());
+            }
+        }
+        return delegate.getRouterCluster();
+    }
+
+    @Override
+    public void create(KubernetesList resources) {
+        delegate.create(resources);
+        Map<String, List<HasMetadata>> byCluster = KubernetesHelper.groupByClusterId(resources.getItems());
+        synchronized (this) {
+            created.putAll(byCluster);
+            deleted.removeAll(byCluster.keySet());
+        }
+    }
+
+    @Override
+    public void delete(KubernetesList resources) {
+        delegate.delete(resources);
+        Set<String> clusterIds = KubernetesHelper.groupByClusterId(resources.getItems()).keySet();
+        synchronized (this) {
+            deleted.addAll(clusterIds);
+            created.keySet().removeAll(clusterIds);
+        }
+    }
+
+    @Override
+    public KubernetesList processTemplate(String templateName, ParameterValue... parameterValues) {
+        return delegate.processTemplate(templateName, parameterValues);
+    }
+
+    @Override
+    public List<String> listBrokers(String clusterId) {
+        return delegate.listBrokers(clusterId);
+    }
+
+    @Override
+    public void scaleDeployment(String name, int numReplicas) {
+        delegate.scaleDeployment(name, numReplicas);
+    }
+
+    @Override
+    public void scaleStatefulSet(String name, int numReplicas) {
+        delegate.scaleStatefulSet(name, numReplicas);
+    }
+}
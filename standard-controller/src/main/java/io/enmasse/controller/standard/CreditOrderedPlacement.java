@@ -0,0 +1,79 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import java.util.*;
+
+/**
+ * Placement keeping the brokers ordered by used credit. Either spreads addresses by placing them on the
+ * least used broker, or packs them by placing them on the most used broker they fit on (best fit).
+ */
+class CreditOrderedPlacement implements BrokerPlacement {
+    private final boolean bestFit;
+    private final Map<String, Double> usedByBroker = new HashMap<>();
+    private final NavigableSet<BrokerCredit> brokers = new TreeSet<>(
+            Comparator.comparingDouble(BrokerCredit::getUsed).thenComparing(BrokerCredit::getBrokerId));
+
+    CreditOrderedPlacement(boolean bestFit) {
+        this.bestFit = bestFit;
+    }
+
+    @Override
+    public void update(String brokerId, double used) {
+        remove(brokerId);
+        usedByBroker.put(brokerId, used);
+        brokers.add(new BrokerCredit(brokerId, used));
+    }
+
+    @Override
+    public void remove(String brokerId) {
+        Double previous = usedByBroker.remove(brokerId);
+        if (previous != null) {
+            brokers.remove(new BrokerCredit(brokerId, previous));
+        }
+    }
+
+    @Override
+    public Optional<String> findBroker(double credit) {
+        BrokerCredit candidate;
+        if (bestFit) {
+            // most used broker below the remaining credit needed
+            candidate = brokers.lower(new BrokerCredit("", 1 - credit));
+            while (candidate != null && candidate.getUsed() + credit >= 1) {
+                candidate = brokers.lower(candidate);
+            }
+        } else {
+            candidate = brokers.isEmpty() ? null : brokers.first();
+        }
+
+        if (candidate != null && candidate.getUsed() + credit < 1) {
+            return Optional.of(candidate.getBrokerId());
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public int getNumBrokers() {
+        return brokers.size();
+    }
+
+    private static class BrokerCredit {
+        private final String brokerId;
+        private final double used;
+
+        private BrokerCredit(String brokerId, double used) {
+            this.brokerId = brokerId;
+            this.used = used;
+        }
+
+        public String getBrokerId() {
+            return brokerId;
+        }
+
+        public double getUsed() {
+            return used;
+        }
+    }
+}
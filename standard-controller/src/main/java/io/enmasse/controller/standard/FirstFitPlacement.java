@@ -0,0 +1,92 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import java.util.*;
+
+/**
+ * Placement on the first broker (in the order they were added) with room for the address. The brokers
+ * are kept in a tree holding the minimum used credit of each range of brokers, so that the first fit is
+ * found without scanning all of them.
+ */
+class FirstFitPlacement implements BrokerPlacement {
+    private static final double ABSENT = Double.POSITIVE_INFINITY;
+
+    private final Map<String, Integer> slotByBroker = new HashMap<>();
+    private final List<String> brokerBySlot = new ArrayList<>();
+    private int numBrokers;
+    private int capacity = 16;
+    // min used credit of each node, leaves starting at capacity
+    private double[] tree = newTree(capacity);
+
+    @Override
+    public void update(String brokerId, double used) {
+        Integer slot = slotByBroker.get(brokerId);
+        if (slot == null) {
+            slot = brokerBySlot.size();
+            slotByBroker.put(brokerId, slot);
+            brokerBySlot.add(brokerId);
+            if (slot >= capacity) {
+                grow();
+            }
+        }
+        if (tree[capacity + slot] == ABSENT) {
+            numBrokers++;
+        }
+        set(slot, used);
+    }
+
+    @Override
+    public void remove(String brokerId) {
+        Integer slot = slotByBroker.get(brokerId);
+        if (slot != null && tree[capacity + slot] != ABSENT) {
+            numBrokers--;
+            set(slot, ABSENT);
+        }
+    }
+
+    @Override
+    public Optional<String> findBroker(double credit) {
+        if (!(tree[1] + credit < 1)) {
+            return Optional.empty();
+        }
+        int node = 1;
+        while (node < capacity) {
+            node = tree[2 * node] + credit < 1 ? 2 * node : 2 * node + 1;
+        }
+        return Optional.of(brokerBySlot.get(node - capacity));
+    }
+
+    @Override
+    public int getNumBrokers() {
+        return numBrokers;
+    }
+
+    private void set(int slot, double used) {
+        int node = capacity + slot;
+        tree[node] = used;
+        while (node > 1) {
+            node /= 2;
+            tree[node] = Math.min(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private void grow() {
+        double[] old = tree;
+        int oldCapacity = capacity;
+        capacity *= 2;
+        tree = newTree(capacity);
+        System.arraycopy(old, oldCapacity, tree, capacity, oldCapacity);
+        for (int node = capacity - 1; node > 0; node--) {
+            tree[node] = Math.min(tree[2 * node], tree[2 * node + 1]);
+        }
+    }
+
+    private static double[] newTree(int capacity) {
+        double[] tree = new double[2 * capacity];
+        Arrays.fill(tree, ABSENT);
+        return tree;
+    }
+}
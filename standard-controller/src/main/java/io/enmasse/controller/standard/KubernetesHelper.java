@@ -17,10 +17,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.List;
-import java.util.Map;
+import java.util.*;
 import java.util.stream.Collectors;
 
 public class KubernetesHelper implements Kubernetes {
@@ -36,8 +33,6 @@ public class KubernetesHelper implements Kubernetes {
 
     @Override
     public List<BrokerCluster> listClusters() {
-        Map<String, List<HasMetadata>> resourceMap = new HashMap<>();
-
         // Add other resources part of a destination cluster
         List<HasMetadata> objects = new ArrayList<>();
         objects.addAll(client.extensions().deployments().list().getItems());
@@ -46,6 +41,14 @@ public class KubernetesHelper implements Kubernetes {
         objects.addAll(client.configMaps().withLabelNotIn("type", "address-config", "address-space", "address-space-plan", "address-plan").list().getItems());
         objects.addAll(client.services().list().getItems());
 
+        return toClusters(groupByClusterId(objects));
+    }
+
+    /**
+     * Group resources by the id of the destination cluster they are part of.
+     */
+    static Map<String, List<HasMetadata>> groupByClusterId(Collection<? extends HasMetadata> objects) {
+        Map<String, List<HasMetadata>> resourceMap = new HashMap<>();
         for (HasMetadata config : objects) {
             Map<String, String> annotations = config.getMetadata().getAnnotations();
 
@@ -62,11 +65,14 @@ public class KubernetesHelper implements Kubernetes {
                 }
             }
         }
+        return resourceMap;
+    }
 
+    static List<BrokerCluster> toClusters(Map<String, List<HasMetadata>> resourceMap) {
         return resourceMap.entrySet().stream()
                 .map(entry -> {
                     KubernetesList list = new KubernetesList();
-                    list.setItems(entry.getValue());
+                    list.setItems(new ArrayList<>(entry.getValue()));
                     return new BrokerCluster(entry.getKey(), list);
                 }).collect(Collectors.toList());
     }
@@ -85,7 +91,11 @@ public class KubernetesHelper implements Kubernetes {
     }
 
     private static boolean areAllDeploymentsReady(BrokerCluster dc) {
-        return dc.getResources().getItems().stream().filter(KubernetesHelper::isDeployment).allMatch(Readiness::isReady);
+        return areAllDeploymentsReady(dc.getResources().getItems());
+    }
+
+    static boolean areAllDeploymentsReady(List<HasMetadata> resources) {
+        return resources.stream().filter(KubernetesHelper::isDeployment).allMatch(Readiness::isReady);
     }
 
     public static boolean isDeployment(HasMetadata res) {
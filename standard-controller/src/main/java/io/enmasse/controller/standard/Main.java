@@ -50,7 +50,8 @@ public class Main {
         CachingSchemaProvider schemaProvider = new CachingSchemaProvider();
         schemaApi.watchSchema(schemaProvider, resyncInterval);
 
-        Kubernetes kubernetes = new KubernetesHelper(openShiftClient, templateDir);
+        CachingKubernetes kubernetes = new CachingKubernetes(openShiftClient, new KubernetesHelper(openShiftClient, templateDir), resyncInterval);
+        kubernetes.start();
         BrokerSetGenerator clusterGenerator = new TemplateBrokerSetGenerator(kubernetes, templateOptions, addressSpace);
 
         boolean enableEventLogger = Boolean.parseBoolean(getEnv(env, "ENABLE_EVENT_LOGGER").orElse("false"));
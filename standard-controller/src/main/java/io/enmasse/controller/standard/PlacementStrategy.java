@@ -0,0 +1,71 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.address.model.AddressSpacePlan;
+import io.enmasse.config.AnnotationKeys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Strategies for placing pooled addresses on brokers, chosen with an annotation on the address space plan.
+ */
+public enum PlacementStrategy {
+    /**
+     * Place the largest addresses first, each on the first broker with room for it.
+     */
+    FirstFitDecreasing("first-fit-decreasing"),
+    /**
+     * Place each address on the most used broker with room for it.
+     */
+    BestFit("best-fit"),
+    /**
+     * Place each address on the least used broker.
+     */
+    Spread("spread");
+
+    private static final Logger log = LoggerFactory.getLogger(PlacementStrategy.class);
+    private final String value;
+
+    PlacementStrategy(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    /**
+     * If the addresses should be placed in order of decreasing credit.
+     */
+    public boolean isDecreasing() {
+        return this == FirstFitDecreasing;
+    }
+
+    BrokerPlacement createPlacement() {
+        switch (this) {
+            case FirstFitDecreasing:
+                return new FirstFitPlacement();
+            case BestFit:
+                return new CreditOrderedPlacement(true);
+            default:
+                return new CreditOrderedPlacement(false);
+        }
+    }
+
+    public static PlacementStrategy fromPlan(AddressSpacePlan plan) {
+        String value = plan.getAnnotations().get(AnnotationKeys.BROKER_PLACEMENT);
+        if (value == null) {
+            return Spread;
+        }
+        for (PlacementStrategy strategy : values()) {
+            if (strategy.value.equals(value)) {
+                return strategy;
+            }
+        }
+        log.warn("Unknown broker placement strategy '{}' in plan {}, using {}", value, plan.getName(), Spread.value);
+        return Spread;
+    }
+}
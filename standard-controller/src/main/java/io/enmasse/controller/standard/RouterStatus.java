@@ -5,43 +5,58 @@
 package io.enmasse.controller.standard;
 
 import io.enmasse.address.model.Address;
-import io.enmasse.amqp.SyncRequestClient;
-import io.enmasse.config.AnnotationKeys;
-import io.fabric8.kubernetes.api.model.Container;
-import io.fabric8.kubernetes.api.model.ContainerPort;
-import io.fabric8.kubernetes.api.model.Pod;
-import io.vertx.core.Vertx;
-import io.vertx.core.net.PemKeyCertOptions;
-import io.vertx.core.net.PemTrustOptions;
-import io.vertx.proton.ProtonClientOptions;
-import org.apache.qpid.proton.Proton;
-import org.apache.qpid.proton.amqp.messaging.AmqpValue;
-import org.apache.qpid.proton.amqp.messaging.ApplicationProperties;
-import org.apache.qpid.proton.message.Message;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
-
-import java.io.File;
-import java.util.*;
-import java.util.concurrent.TimeUnit;
 
-import static io.enmasse.controller.standard.ControllerKind.AddressSpace;
-import static io.enmasse.controller.standard.ControllerReason.RouterCheckFailed;
-import static io.enmasse.k8s.api.EventLogger.Type.Warning;
+import java.util.*;
 
 class RouterStatus {
+    private static final String ACTIVE = "active";
+
     private final String routerId;
     private final List<String> addresses;
     private final List<List<String>> autoLinks;
     private final List<List<String>> linkRoutes;
     private final List<String> connections;
 
+    // indexes built once, so that checking an address doesn't scan the whole router status
+    private final Set<String> addressIndex;
+    private final Map<String, Integer> autoLinkCount = new HashMap<>();
+    private final Map<String, Integer> linkRouteCount = new HashMap<>();
+    private final Map<String, Set<String>> activeAutoLinkDirs = new HashMap<>();
+    private final Map<String, Set<String>> activeLinkRouteDirs = new HashMap<>();
+    private final NavigableSet<String> connectionIndex;
+
     RouterStatus(String routerId, List<String> addresses, List<List<String>> autoLinks, List<List<String>> linkRoutes, List<String> connections) {
         this.routerId = routerId;
         this.addresses = addresses;
         this.autoLinks = autoLinks;
         this.linkRoutes = linkRoutes;
         this.connections = connections;
+
+        this.addressIndex = new HashSet<>(addresses);
+        indexLinks(autoLinks, autoLinkCount, activeAutoLinkDirs);
+        indexLinks(linkRoutes, linkRouteCount, activeLinkRouteDirs);
+        this.connectionIndex = new TreeSet<>();
+        for (String containerId : connections) {
+            if (containerId != null) {
+                connectionIndex.add(containerId);
+            }
+        }
+    }
+
+    /**
+     * Index rows of [address, containerId, dir, operStatus] by address, and active directions by address.
+     */
+    private static void indexLinks(List<List<String>> links, Map<String, Integer> countIndex, Map<String, Set<String>> activeDirsIndex) {
+        for (List<String> link : links) {
+            String addr = link.get(0);
+            countIndex.merge(addr, 1, Integer::sum);
+
+            String dir = link.get(2);
+            String operStatus = link.get(3);
+            if (ACTIVE.equals(operStatus)) {
+                activeDirsIndex.computeIfAbsent(addr, a -> new HashSet<>(2)).add(dir);
+            }
+        }
     }
 
     public String getRouterId() {
@@ -50,7 +65,7 @@ class RouterStatus {
 
     public int checkAddress(Address address) {
         int ok = 0;
-        boolean found = addresses.contains(address.getAddress());
+        boolean found = addressIndex.contains(address.getAddress());
         if (!found) {
             address.getStatus().setReady(false).appendMessage("Address " + address.getAddress() + " not found on " + routerId);
         } else {
@@ -60,15 +75,7 @@ class RouterStatus {
     }
 
     public int checkAutoLinks(Address address) {
-
-        int ok = 0;
-        for (List<String> autoLink : autoLinks) {
-            String addr = autoLink.get(0);
-
-            if (addr.equals(address.getAddress())) {
-                ok++;
-            }
-        }
+        int ok = autoLinkCount.getOrDefault(address.getAddress(), 0);
 
         if (ok < 2) {
             address.getStatus().setReady(false).appendMessage("Address " + address.getAddress() + " is missing autoLinks on " + routerId);
@@ -78,16 +85,8 @@ class RouterStatus {
     }
 
     public int checkLinkRoutes(Address address) {
-        int ok = 0;
-
-        for (List<String> linkRoute : linkRoutes) {
-            String prefix = linkRoute.get(0);
-
-            // Pooled topics have active link routes
-            if (prefix.equals(address.getAddress())) {
-                ok++;
-            }
-        }
+        // Pooled topics have active link routes
+        int ok = linkRouteCount.getOrDefault(address.getAddress(), 0);
 
         if (ok < 2) {
             address.getStatus().setReady(false).appendMessage("Address " + address.getAddress() + " is missing linkRoutes on " + routerId);
@@ -101,15 +100,9 @@ class RouterStatus {
         Set<String> active = new HashSet<>();
 
         for (RouterStatus routerStatus : routerStatusList) {
-
-            for (List<String> autoLink : routerStatus.autoLinks) {
-                String addr = autoLink.get(0);
-                String dir = autoLink.get(2);
-                String operStatus = autoLink.get(3);
-
-                if (addr.equals(address.getAddress()) && operStatus.equals("active")) {
-                    active.add(dir);
-                }
+            Set<String> dirs = routerStatus.activeAutoLinkDirs.get(address.getAddress());
+            if (dirs != null) {
+                active.addAll(dirs);
             }
         }
 
@@ -124,19 +117,11 @@ class RouterStatus {
     public static int checkActiveLinkRoute(Address address, List<RouterStatus> routerStatusList) {
         int ok = 0;
         Set<String> active = new HashSet<>();
-        String brokerId = address.getAnnotations().get(AnnotationKeys.BROKER_ID);
 
         for (RouterStatus routerStatus : routerStatusList) {
-
-            for (List<String> linkRoute : routerStatus.linkRoutes) {
-                String addr = linkRoute.get(0);
-                String containerId = linkRoute.get(1);
-                String dir = linkRoute.get(2);
-                String operStatus = linkRoute.get(3);
-
-                if (addr.equals(address.getAddress()) && operStatus.equals("active")) {
-                    active.add(dir);
-                }
+            Set<String> dirs = routerStatus.activeLinkRouteDirs.get(address.getAddress());
+            if (dirs != null) {
+                active.addAll(dirs);
             }
         }
 
@@ -151,11 +136,8 @@ class RouterStatus {
     public static int checkConnection(Address address, List<RouterStatus> routerStatusList) {
         int ok = 0;
         for (RouterStatus routerStatus : routerStatusList) {
-            for (String containerId : routerStatus.connections) {
-                if (containerId.startsWith(address.getName())) {
-                    ok++;
-                    break;
-                }
+            if (routerStatus.hasConnectionWithPrefix(address.getName())) {
+                ok++;
             }
         }
 
@@ -165,6 +147,12 @@ class RouterStatus {
         return ok;
     }
 
+    private boolean hasConnectionWithPrefix(String prefix) {
+        // container ids starting with the prefix are sorted right after it
+        String containerId = connectionIndex.ceiling(prefix);
+        return containerId != null && containerId.startsWith(prefix);
+    }
+
     @Override
     public String toString() {
         return new StringBuilder()
@@ -4,7 +4,7 @@
  */
 package io.enmasse.controller.standard;
 
-import io.enmasse.amqp.SyncRequestClient;
+import io.enmasse.amqp.PipelinedRequestClient;
 import io.fabric8.kubernetes.api.model.Container;
 import io.fabric8.kubernetes.api.model.ContainerPort;
 import io.fabric8.kubernetes.api.model.Pod;
@@ -20,20 +20,145 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.BiConsumer;
 
-class RouterStatusCollector {
+/**
+ * Collects the status of the routers, keeping a management connection open to each of them
+ * between collections. All routers are queried concurrently, with all queries to a router pipelined.
+ */
+class RouterStatusCollector implements AutoCloseable {
     private static final Logger log = LoggerFactory.getLogger(RouterStatusCollector.class);
     private final Vertx vertx;
     private final String certDir;
+    private final Duration timeout;
+    // router pod name -> management client to it
+    private final Map<String, RouterClient> clients = new HashMap<>();
+
+    private static class RouterClient {
+        final String host;
+        final int port;
+        final PipelinedRequestClient client;
+
+        private RouterClient(String host, int port, PipelinedRequestClient client) {
+            this.host = host;
+            this.port = port;
+            this.client = client;
+        }
+    }
 
-    public RouterStatusCollector(Vertx vertx, String certDir) {
+    public RouterStatusCollector(Vertx vertx, String certDir, Duration timeout) {
         this.vertx = vertx;
         this.certDir = certDir;
+        this.timeout = timeout;
     }
 
-    public RouterStatus collect(Pod router) throws Exception {
+    /**
+     * Collect the status of the provided routers, waiting at most the collector timeout for all of them.
+     *
+     * @param routers routers to query
+     * @param errorHandler called for each router not responding in time or with an error
+     * @return the status of the routers responding in time
+     */
+    public List<RouterStatus> collect(List<Pod> routers, BiConsumer<Pod, Throwable> errorHandler) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        Map<Pod, CompletableFuture<RouterStatus>> futures = new LinkedHashMap<>();
+        Set<String> current = new HashSet<>();
+
+        for (Pod router : routers) {
+            int port = getPort(router);
+            if (port != 0) {
+                log.debug("Checking router status of router " + router.getStatus().getPodIP());
+                current.add(router.getMetadata().getName());
+                futures.put(router, collect(router, getClient(router, port)));
+            } else {
+                log.info("Unable to find appropriate router port, skipping address check");
+            }
+        }
+
+        // routers gone, or not ready anymore
+        Iterator<Map.Entry<String, RouterClient>> it = clients.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, RouterClient> entry = it.next();
+            if (!current.contains(entry.getKey())) {
+                entry.getValue().client.close();
+                it.remove();
+            }
+        }
+
+        List<RouterStatus> routerStatusList = new ArrayList<>();
+        for (Map.Entry<Pod, CompletableFuture<RouterStatus>> entry : futures.entrySet()) {
+            try {
+                long remaining = Math.max(0, deadline - System.nanoTime());
+                routerStatusList.add(entry.getValue().get(remaining, TimeUnit.NANOSECONDS));
+            } catch (TimeoutException e) {
+                entry.getValue().cancel(false);
+                // don't let requests to an unresponsive router pile up, reconnect on next collection
+                RouterClient routerClient = clients.remove(entry.getKey().getMetadata().getName());
+                if (routerClient != null) {
+                    routerClient.client.close();
+                }
+                errorHandler.accept(entry.getKey(), new TimeoutException("Timed out requesting status from router " + entry.getKey().getMetadata().getName()));
+            } catch (ExecutionException e) {
+                errorHandler.accept(entry.getKey(), e.getCause());
+            }
+        }
+        return routerStatusList;
+    }
+
+    private CompletableFuture<RouterStatus> collect(Pod router, PipelinedRequestClient client) {
+        CompletableFuture<List<List<String>>> addresses = collectRouter(client, "org.apache.qpid.dispatch.router.config.address",
+                Arrays.asList("prefix"));
+        CompletableFuture<List<List<String>>> autoLinks = collectRouter(client, "org.apache.qpid.dispatch.router.config.autoLink",
+                Arrays.asList("addr", "containerId", "dir", "operStatus"));
+        CompletableFuture<List<List<String>>> linkRoutes = collectRouter(client, "org.apache.qpid.dispatch.router.config.linkRoute",
+                Arrays.asList("prefix", "containerId", "dir", "operStatus"));
+        CompletableFuture<List<List<String>>> connections = collectRouter(client, "org.apache.qpid.dispatch.connection",
+                Arrays.asList("container"));
+
+        String routerId = router.getMetadata().getName();
+        return CompletableFuture.allOf(addresses, autoLinks, linkRoutes, connections)
+                .thenApply(v -> new RouterStatus(routerId,
+                        filterOnAttribute(addresses.join(), 0),
+                        autoLinks.join(),
+                        linkRoutes.join(),
+                        filterOnAttribute(connections.join(), 0)));
+    }
+
+    private PipelinedRequestClient getClient(Pod router, int port) {
+        String name = router.getMetadata().getName();
+        String host = router.getStatus().getPodIP();
+        RouterClient routerClient = clients.get(name);
+        if (routerClient != null && (!routerClient.host.equals(host) || routerClient.port != port)) {
+            // router pod restarted with another address
+            routerClient.client.close();
+            routerClient = null;
+        }
+        if (routerClient == null) {
+            routerClient = new RouterClient(host, port, new PipelinedRequestClient(host, port, "$management", vertx, createClientOptions()));
+            clients.put(name, routerClient);
+        }
+        return routerClient.client;
+    }
+
+    private ProtonClientOptions createClientOptions() {
+        return new ProtonClientOptions()
+                .setSsl(true)
+                .addEnabledSaslMechanism("EXTERNAL")
+                .setHostnameVerificationAlgorithm("")
+                .setPemTrustOptions(new PemTrustOptions()
+                        .addCertPath(new File(certDir, "ca.crt").getAbsolutePath()))
+                .setPemKeyCertOptions(new PemKeyCertOptions()
+                        .setCertPath(new File(certDir, "tls.crt").getAbsolutePath())
+                        .setKeyPath(new File(certDir, "tls.key").getAbsolutePath()));
+    }
+
+    private static int getPort(Pod router) {
         int port = 0;
         for (Container container : router.getSpec().getContainers()) {
             if (container.getName().equals("router")) {
@@ -44,37 +169,7 @@ class RouterStatusCollector {
                 }
             }
         }
-
-        if (port != 0) {
-            log.debug("Checking router status of router " + router.getStatus().getPodIP());
-            ProtonClientOptions clientOptions = new ProtonClientOptions()
-                    .setSsl(true)
-                    .addEnabledSaslMechanism("EXTERNAL")
-                    .setHostnameVerificationAlgorithm("")
-                    .setPemTrustOptions(new PemTrustOptions()
-                            .addCertPath(new File(certDir, "ca.crt").getAbsolutePath()))
-                    .setPemKeyCertOptions(new PemKeyCertOptions()
-                            .setCertPath(new File(certDir, "tls.crt").getAbsolutePath())
-                            .setKeyPath(new File(certDir, "tls.key").getAbsolutePath()));
-            SyncRequestClient client = new SyncRequestClient(router.getStatus().getPodIP(), port, vertx, clientOptions);
-
-            List<String> addresses = filterOnAttribute(collectRouter(client,"org.apache.qpid.dispatch.router.config.address",
-                    Arrays.asList("prefix")), 0);
-
-            List<List<String>> autoLinks = collectRouter(client, "org.apache.qpid.dispatch.router.config.autoLink",
-                    Arrays.asList("addr", "containerId", "dir", "operStatus"));
-            List<List<String>> linkRoutes = collectRouter(client, "org.apache.qpid.dispatch.router.config.linkRoute",
-                    Arrays.asList("prefix", "containerId", "dir", "operStatus"));
-            List<String> connections = filterOnAttribute(collectRouter(client, "org.apache.qpid.dispatch.connection",
-                    Arrays.asList("container")), 0);
-
-
-            String routerId = router.getMetadata().getName();
-            return new RouterStatus(routerId, addresses, autoLinks, linkRoutes, connections);
-        } else {
-            log.info("Unable to find appropriate router port, skipping address check");
-            return null;
-        }
+        return port;
     }
 
     private static List<String> filterOnAttribute(List<List<String>> list, int attrNum) {
@@ -85,7 +180,8 @@ class RouterStatusCollector {
         return filtered;
     }
 
-    private static List<List<String>> collectRouter(SyncRequestClient client, String entityType, List<String> attributeNames) throws Exception {
+    @SuppressWarnings("unchecked")
+    private static CompletableFuture<List<List<String>>> collectRouter(PipelinedRequestClient client, String entityType, List<String> attributeNames) {
         Map<String, Object> properties = new LinkedHashMap<>();
         properties.put("operation", "QUERY");
         properties.put("entityType", entityType);
@@ -98,10 +194,18 @@ class RouterStatusCollector {
         message.setApplicationProperties(new ApplicationProperties(properties));
         message.setBody(new AmqpValue(body));
 
-        Message response = client.request(message, 10, TimeUnit.SECONDS);
-        AmqpValue value = (AmqpValue) response.getBody();
-        Map values = (Map) value.getValue();
-        List<List<String>> results = (List<List<String>>) values.get("results");
-        return results;
+        return client.request(message).thenApply(response -> {
+            AmqpValue value = (AmqpValue) response.getBody();
+            Map values = (Map) value.getValue();
+            return (List<List<String>>) values.get("results");
+        });
+    }
+
+    @Override
+    public void close() {
+        for (RouterClient routerClient : clients.values()) {
+            routerClient.client.close();
+        }
+        clients.clear();
     }
 }
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Resource usage by resource name and instance, keeping running totals of the needed resources and
+ * the placement of pooled addresses in sync. Changes are tentative until committed, and can be rolled back.
+ */
+class UsageLedger {
+    private static final String BROKER = "broker";
+
+    private final Pattern pooledPattern;
+    private final Map<String, Map<String, UsageInfo>> usage = new HashMap<>();
+    private final Map<String, Integer> neededByResource = new HashMap<>();
+    private int totalNeeded;
+    private final BrokerPlacement placement;
+    // undo actions for the changes not committed, most recent first
+    private final Deque<Runnable> undoLog = new ArrayDeque<>();
+
+    /**
+     * @param initialUsage usage to start from, not modified by the ledger
+     * @param pooledPattern pattern matching the ids of pooled brokers
+     * @param placement placement of pooled addresses, empty
+     */
+    UsageLedger(Map<String, Map<String, UsageInfo>> initialUsage, Pattern pooledPattern, BrokerPlacement placement) {
+        this.pooledPattern = pooledPattern;
+        this.placement = placement;
+        for (Map.Entry<String, Map<String, UsageInfo>> entry : initialUsage.entrySet()) {
+            usage.put(entry.getKey(), new HashMap<>());
+            Map<String, UsageInfo> resourceUsage = entry.getValue();
+            if (BROKER.equals(entry.getKey())) {
+                // brokers in a stable order (broker-2 before broker-10), placement may depend on it
+                resourceUsage = new TreeMap<>(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+                resourceUsage.putAll(entry.getValue());
+            }
+            for (Map.Entry<String, UsageInfo> innerEntry : resourceUsage.entrySet()) {
+                set(entry.getKey(), innerEntry.getKey(), innerEntry.getValue());
+            }
+        }
+    }
+
+    public void addUsed(String resourceName, String instanceId, double amount) {
+        UsageInfo previous = getResourceUsage(resourceName).get(instanceId);
+        UsageInfo info = previous != null ? new UsageInfo(previous) : new UsageInfo();
+        info.addUsed(amount);
+        update(resourceName, instanceId, info);
+    }
+
+    public boolean hasUsage(String resourceName, String instanceId) {
+        Map<String, UsageInfo> resourceUsage = usage.get(resourceName);
+        return resourceUsage != null && resourceUsage.containsKey(instanceId);
+    }
+
+    /**
+     * Find a pooled broker with room for the given amount.
+     */
+    public Optional<String> findPooledBroker(double amount) {
+        return placement.findBroker(amount);
+    }
+
+    /**
+     * Add a new, unused, pooled broker, with the lowest free id.
+     */
+    public String allocatePooledBroker() {
+        // ids may have gaps when brokers have been removed
+        int index = 0;
+        while (hasUsage(BROKER, BROKER + "-" + index)) {
+            index++;
+        }
+        String brokerId = BROKER + "-" + index;
+        update(BROKER, brokerId, new UsageInfo());
+        return brokerId;
+    }
+
+    public int getNeeded(String resourceName) {
+        return neededByResource.getOrDefault(resourceName, 0);
+    }
+
+    public int getTotalNeeded() {
+        return totalNeeded;
+    }
+
+    public void commit() {
+        undoLog.clear();
+    }
+
+    public void rollback() {
+        while (!undoLog.isEmpty()) {
+            undoLog.pop().run();
+        }
+    }
+
+    public Map<String, Map<String, UsageInfo>> getUsage() {
+        return usage;
+    }
+
+    private Map<String, UsageInfo> getResourceUsage(String resourceName) {
+        Map<String, UsageInfo> resourceUsage = usage.get(resourceName);
+        if (resourceUsage == null) {
+            resourceUsage = new HashMap<>();
+            usage.put(resourceName, resourceUsage);
+            undoLog.push(() -> usage.remove(resourceName));
+        }
+        return resourceUsage;
+    }
+
+    private void update(String resourceName, String instanceId, UsageInfo info) {
+        UsageInfo previous = set(resourceName, instanceId, info);
+        undoLog.push(() -> set(resourceName, instanceId, previous));
+    }
+
+    /**
+     * Replace the usage of an instance (removing it if null), keeping totals and index in sync.
+     * Usage infos are never modified once in the ledger, so that they can be restored on rollback.
+     */
+    private UsageInfo set(String resourceName, String instanceId, UsageInfo info) {
+        Map<String, UsageInfo> resourceUsage = getResourceUsage(resourceName);
+        UsageInfo previous = info != null ? resourceUsage.put(instanceId, info) : resourceUsage.remove(instanceId);
+
+        int delta = (info != null ? info.getNeeded() : 0) - (previous != null ? previous.getNeeded() : 0);
+        neededByResource.merge(resourceName, delta, Integer::sum);
+        totalNeeded += delta;
+
+        if (BROKER.equals(resourceName) && pooledPattern.matcher(instanceId).matches()) {
+            if (info != null) {
+                placement.update(instanceId, info.getUsed());
+            } else {
+                placement.remove(instanceId);
+            }
+        }
+        return previous;
+    }
+}
@@ -93,4 +93,58 @@ public class AddressControllerTest {
         verify(mockHelper).delete(any());
         verify(mockHelper).delete(eq(oldList));
     }
+
+    @Test
+    public void testUnchangedAddressesNotReprovisioned() throws Exception {
+        Address alive = new Address.Builder()
+                .setName("q1")
+                .setAddress("q1")
+                .setType("queue")
+                .setPlan("small-queue")
+                .setVersion("1")
+                .putAnnotation(AnnotationKeys.BROKER_ID, "broker-0")
+                .putAnnotation(AnnotationKeys.CLUSTER_ID, "broker")
+                .setStatus(new Status(true).setPhase(Status.Phase.Active))
+                .build();
+        when(mockHelper.listClusters()).thenReturn(Arrays.asList(new BrokerCluster("broker", new KubernetesList())));
+
+        controller.onUpdate(Sets.newSet(alive));
+        controller.onUpdate(Sets.newSet(alive));
+        verify(mockHelper, times(1)).listClusters();
+
+        Address modified = new Address.Builder(alive)
+                .setVersion("2")
+                .build();
+        controller.onUpdate(Sets.newSet(modified));
+        verify(mockHelper, times(2)).listClusters();
+
+        controller.onUpdate(Collections.emptySet());
+        verify(mockHelper, times(3)).listClusters();
+    }
+
+    @Test
+    public void testAddressesReconciledOnlyWithWrittenStatus() throws Exception {
+        Address stale = new Address.Builder()
+                .setName("a1")
+                .setAddress("a1")
+                .setType("anycast")
+                .setPlan("small-anycast")
+                .setVersion("1")
+                .setStatus(new Status(false).setPhase(Status.Phase.Active))
+                .build();
+        when(mockHelper.listClusters()).thenReturn(Collections.emptyList());
+
+        // the status write is not seen yet, so the address is checked again
+        controller.onUpdate(Sets.newSet(new Address.Builder(stale).build()));
+        controller.onUpdate(Sets.newSet(new Address.Builder(stale).build()));
+        verify(mockHelper, times(2)).listRouters();
+
+        Address written = new Address.Builder(stale)
+                .setVersion("2")
+                .setStatus(new Status(true).setPhase(Status.Phase.Active))
+                .build();
+        controller.onUpdate(Sets.newSet(new Address.Builder(written).build()));
+        controller.onUpdate(Sets.newSet(new Address.Builder(written).build()));
+        verify(mockHelper, times(3)).listRouters();
+    }
 }
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.Status;
+import io.enmasse.k8s.api.AddressApi;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+
+public class AddressStatusWriterTest {
+    private AddressApi addressApi;
+    private AddressStatusWriter writer;
+    private List<Address> written;
+    private CountDownLatch firstWriteStarted;
+    private CountDownLatch release;
+
+    @Before
+    public void setup() {
+        addressApi = mock(AddressApi.class);
+        written = Collections.synchronizedList(new ArrayList<>());
+        firstWriteStarted = new CountDownLatch(1);
+        release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            firstWriteStarted.countDown();
+            assertTrue(release.await(1, TimeUnit.MINUTES));
+            written.add((Address) invocation.getArguments()[0]);
+            return null;
+        }).when(addressApi).replaceAddressStatus(any());
+        writer = new AddressStatusWriter(addressApi, 2, Duration.ofMillis(10));
+    }
+
+    @After
+    public void teardown() {
+        writer.close();
+    }
+
+    private static Address createAddress(String name, Status.Phase phase) {
+        return new Address.Builder()
+                .setName(name)
+                .setAddress(name)
+                .setType("queue")
+                .setPlan("small-queue")
+                .setStatus(new Status(false).setPhase(phase))
+                .build();
+    }
+
+    @Test
+    public void testUpdatesMerged() throws Exception {
+        writer.write(createAddress("q1", Status.Phase.Pending));
+        assertTrue(firstWriteStarted.await(1, TimeUnit.MINUTES));
+
+        // queued while the first write is in flight, only the latest written
+        writer.write(createAddress("q1", Status.Phase.Configuring));
+        writer.write(createAddress("q1", Status.Phase.Active));
+        writer.write(createAddress("q2", Status.Phase.Active));
+        release.countDown();
+
+        assertTrue(writer.awaitWritten(Duration.ofMinutes(1)));
+        assertThat(written.size(), is(3));
+        assertThat(writer.getNumWritten(), is(3L));
+        assertThat(writer.getNumPending(), is(0));
+
+        Address lastQ1 = null;
+        for (Address address : written) {
+            if (address.getName().equals("q1")) {
+                lastQ1 = address;
+            }
+        }
+        assertNotNull(lastQ1);
+        assertThat(lastQ1.getStatus().getPhase(), is(Status.Phase.Active));
+    }
+
+    @Test
+    public void testAddressCopied() throws Exception {
+        release.countDown();
+        Address address = createAddress("q1", Status.Phase.Configuring);
+        writer.write(address);
+        address.getStatus().setPhase(Status.Phase.Failed);
+
+        assertTrue(writer.awaitWritten(Duration.ofMinutes(1)));
+        assertThat(written.get(0).getStatus().getPhase(), is(Status.Phase.Configuring));
+    }
+
+    @Test
+    public void testFailedWriteRetried() throws Exception {
+        release.countDown();
+        AddressApi failingApi = mock(AddressApi.class);
+        doThrow(new RuntimeException("unavailable")).doAnswer(invocation -> {
+            written.add((Address) invocation.getArguments()[0]);
+            return null;
+        }).when(failingApi).replaceAddressStatus(any());
+
+        try (AddressStatusWriter retrying = new AddressStatusWriter(failingApi, 1, Duration.ofMillis(10))) {
+            retrying.write(createAddress("q1", Status.Phase.Active));
+
+            assertTrue(retrying.awaitWritten(Duration.ofMinutes(1)));
+            assertThat(retrying.getNumFailed(), is(1L));
+            assertThat(retrying.getNumWritten(), is(1L));
+            assertThat(retrying.getNumPending(), is(0));
+            assertThat(written.get(0).getStatus().getPhase(), is(Status.Phase.Active));
+        }
+    }
+
+    @Test
+    public void testRetrySupersededByNewerStatus() throws Exception {
+        release.countDown();
+        AddressApi failingApi = mock(AddressApi.class);
+        doThrow(new RuntimeException("unavailable")).doAnswer(invocation -> {
+            written.add((Address) invocation.getArguments()[0]);
+            return null;
+        }).when(failingApi).replaceAddressStatus(any());
+
+        try (AddressStatusWriter retrying = new AddressStatusWriter(failingApi, 1, Duration.ofMinutes(10))) {
+            retrying.write(createAddress("q1", Status.Phase.Configuring));
+            while (retrying.getNumFailed() == 0) {
+                Thread.sleep(10);
+            }
+            retrying.write(createAddress("q1", Status.Phase.Active));
+
+            assertTrue(retrying.awaitWritten(Duration.ofMinutes(1)));
+            assertThat(written.size(), is(1));
+            assertThat(written.get(0).getStatus().getPhase(), is(Status.Phase.Active));
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import java.util.*;
+import java.util.regex.Pattern;
+
+/**
+ * Simulates the placement of large synthetic workloads of pooled queues with each placement strategy,
+ * reporting the number of brokers needed and their fragmentation (share of broker credit left unused).
+ * Addresses are placed in reconciles of a fixed size, and part of them is deleted between reconciles.
+ *
+ * Usage: BrokerPlacementSimulation [numAddresses] [addressesPerReconcile] [deletePercentage] [seed]
+ */
+public class BrokerPlacementSimulation {
+    private static final Pattern pooledPattern = Pattern.compile("^broker-\\d+");
+    // credits of the pooled address plans, picked at random
+    private static final double[] credits = {0.01, 0.05, 0.1, 0.2, 0.33, 0.5};
+
+    public static void main(String[] args) {
+        int numAddresses = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        int addressesPerReconcile = args.length > 1 ? Integer.parseInt(args[1]) : 5000;
+        int deletePercentage = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 1234;
+
+        System.out.printf("%-22s %10s %10s %15s %10s%n", "strategy", "brokers", "min", "fragmentation", "time(ms)");
+        for (PlacementStrategy strategy : PlacementStrategy.values()) {
+            Result result = simulate(strategy, numAddresses, addressesPerReconcile, deletePercentage, new Random(seed));
+            System.out.printf("%-22s %10d %10d %14.2f%% %10d%n", strategy.getValue(), result.brokers, result.minBrokers,
+                    result.fragmentation * 100, result.timeMillis);
+        }
+    }
+
+    static Result simulate(PlacementStrategy strategy, int numAddresses, int addressesPerReconcile, int deletePercentage, Random random) {
+        Map<String, Map<String, UsageInfo>> usage = new HashMap<>();
+        // placed addresses as (broker, credit)
+        List<Map.Entry<String, Double>> placed = new ArrayList<>();
+        long timeNanos = 0;
+
+        int created = 0;
+        while (created < numAddresses) {
+            int batchSize = Math.min(addressesPerReconcile, numAddresses - created);
+            List<Double> batch = new ArrayList<>();
+            for (int i = 0; i < batchSize; i++) {
+                batch.add(credits[random.nextInt(credits.length)]);
+            }
+            if (strategy.isDecreasing()) {
+                batch.sort(Comparator.reverseOrder());
+            }
+
+            long start = System.nanoTime();
+            UsageLedger ledger = new UsageLedger(usage, pooledPattern, strategy.createPlacement());
+            for (double credit : batch) {
+                String brokerId = ledger.findPooledBroker(credit).orElseGet(ledger::allocatePooledBroker);
+                ledger.addUsed("broker", brokerId, credit);
+                ledger.commit();
+                placed.add(new AbstractMap.SimpleImmutableEntry<>(brokerId, credit));
+            }
+            timeNanos += System.nanoTime() - start;
+            usage = ledger.getUsage();
+            created += batchSize;
+
+            // churn, brokers are never scaled down
+            Collections.shuffle(placed, random);
+            int numDeletes = placed.size() * deletePercentage / 100;
+            for (int i = 0; i < numDeletes; i++) {
+                Map.Entry<String, Double> address = placed.remove(placed.size() - 1);
+                usage.get("broker").get(address.getKey()).addUsed(-address.getValue());
+            }
+        }
+
+        double used = 0;
+        for (UsageInfo info : usage.get("broker").values()) {
+            used += info.getUsed();
+        }
+        int brokers = usage.get("broker").size();
+        return new Result(brokers, (int) Math.ceil(used), brokers == 0 ? 0 : 1 - used / brokers, timeNanos / 1_000_000);
+    }
+
+    static class Result {
+        final int brokers;
+        final int minBrokers;
+        final double fragmentation;
+        final long timeMillis;
+
+        Result(int brokers, int minBrokers, double fragmentation, long timeMillis) {
+            this.brokers = brokers;
+            this.minBrokers = minBrokers;
+            this.fragmentation = fragmentation;
+            this.timeMillis = timeMillis;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.address.model.AddressSpacePlan;
+import io.enmasse.config.AnnotationKeys;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.Optional;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class BrokerPlacementTest {
+
+    private static void addBrokers(BrokerPlacement placement) {
+        placement.update("broker-0", 0.7);
+        placement.update("broker-1", 0.2);
+        placement.update("broker-2", 0.5);
+        placement.update("broker-3", 0.9);
+    }
+
+    @Test
+    public void testSpread() {
+        BrokerPlacement placement = PlacementStrategy.Spread.createPlacement();
+        addBrokers(placement);
+        assertThat(placement.getNumBrokers(), is(4));
+
+        assertThat(placement.findBroker(0.2), is(Optional.of("broker-1")));
+        placement.update("broker-1", 0.6);
+        assertThat(placement.findBroker(0.2), is(Optional.of("broker-2")));
+        assertFalse(placement.findBroker(0.5).isPresent());
+    }
+
+    @Test
+    public void testBestFit() {
+        BrokerPlacement placement = PlacementStrategy.BestFit.createPlacement();
+        addBrokers(placement);
+
+        assertThat(placement.findBroker(0.05), is(Optional.of("broker-3")));
+        assertThat(placement.findBroker(0.2), is(Optional.of("broker-0")));
+        assertThat(placement.findBroker(0.3), is(Optional.of("broker-2")));
+        assertThat(placement.findBroker(0.7), is(Optional.of("broker-1")));
+        assertFalse(placement.findBroker(0.8).isPresent());
+
+        placement.remove("broker-1");
+        assertFalse(placement.findBroker(0.7).isPresent());
+        assertThat(placement.getNumBrokers(), is(3));
+    }
+
+    @Test
+    public void testFirstFit() {
+        BrokerPlacement placement = PlacementStrategy.FirstFitDecreasing.createPlacement();
+        addBrokers(placement);
+
+        assertThat(placement.findBroker(0.05), is(Optional.of("broker-0")));
+        assertThat(placement.findBroker(0.4), is(Optional.of("broker-1")));
+        placement.update("broker-1", 0.9);
+        assertThat(placement.findBroker(0.4), is(Optional.of("broker-2")));
+        placement.remove("broker-2");
+        assertFalse(placement.findBroker(0.4).isPresent());
+        assertThat(placement.getNumBrokers(), is(3));
+
+        // beyond the initial capacity of the tree
+        for (int i = 4; i < 100; i++) {
+            placement.update("broker-" + i, 0.95);
+        }
+        placement.update("broker-77", 0.1);
+        assertThat(placement.findBroker(0.5), is(Optional.of("broker-77")));
+        assertThat(placement.getNumBrokers(), is(99));
+    }
+
+    @Test
+    public void testStrategyFromPlan() {
+        assertThat(PlacementStrategy.fromPlan(createPlan(null)), is(PlacementStrategy.Spread));
+        assertThat(PlacementStrategy.fromPlan(createPlan("best-fit")), is(PlacementStrategy.BestFit));
+        assertThat(PlacementStrategy.fromPlan(createPlan("first-fit-decreasing")), is(PlacementStrategy.FirstFitDecreasing));
+        assertThat(PlacementStrategy.fromPlan(createPlan("unknown")), is(PlacementStrategy.Spread));
+    }
+
+    private static AddressSpacePlan createPlan(String strategy) {
+        return new AddressSpacePlan.Builder()
+                .setName("plan1")
+                .setAddressSpaceType("standard")
+                .setResources(Collections.emptyList())
+                .setAddressPlans(Collections.emptyList())
+                .setAnnotations(strategy != null ? Collections.singletonMap(AnnotationKeys.BROKER_PLACEMENT, strategy) : Collections.emptyMap())
+                .build();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.config.AnnotationKeys;
+import io.enmasse.k8s.api.cache.ResourceCache;
+import io.fabric8.kubernetes.api.model.*;
+import io.fabric8.kubernetes.api.model.extensions.Deployment;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentList;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.*;
+
+public class CachingKubernetesTest {
+    private Kubernetes delegate;
+    private ResourceCache<Deployment, DeploymentList> deployments;
+    private ResourceCache<Pod, PodList> routers;
+    private ResourceCache<ConfigMap, ConfigMapList> configMaps;
+    private CachingKubernetes kubernetes;
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void setup() {
+        delegate = mock(Kubernetes.class);
+        deployments = mock(ResourceCache.class);
+        routers = mock(ResourceCache.class);
+        configMaps = mock(ResourceCache.class);
+        when(deployments.list()).thenReturn(Collections.emptyList());
+        when(configMaps.list()).thenReturn(Collections.emptyList());
+        kubernetes = new CachingKubernetes(delegate, deployments, routers, Collections.singletonList(configMaps));
+    }
+
+    private void sync(ConfigMap ... clusterResources) {
+        when(deployments.hasSynced()).thenReturn(true);
+        when(configMaps.hasSynced()).thenReturn(true);
+        when(configMaps.list()).thenReturn(Arrays.asList(clusterResources));
+        kubernetes.updateClusterIndex();
+    }
+
+    private Set<String> listClusterIds() {
+        return kubernetes.listClusters().stream().map(BrokerCluster::getClusterId).collect(Collectors.toSet());
+    }
+
+    @Test
+    public void testReadsFromDelegateUntilSynced() {
+        when(deployments.hasSynced()).thenReturn(true);
+        kubernetes.updateClusterIndex();
+
+        BrokerCluster cluster = new BrokerCluster("c1", new KubernetesList());
+        when(delegate.listClusters()).thenReturn(Collections.singletonList(cluster));
+        when(delegate.isDestinationClusterReady(eq("c1"))).thenReturn(true);
+        when(delegate.listRouters()).thenReturn(Collections.emptyList());
+
+        assertThat(kubernetes.listClusters(), is(Collections.singletonList(cluster)));
+        assertTrue(kubernetes.isDestinationClusterReady("c1"));
+        assertTrue(kubernetes.listRouters().isEmpty());
+        verify(delegate).listRouters();
+    }
+
+    @Test
+    public void testReadsFromCacheWhenSynced() {
+        sync(createClusterResource("c1"));
+
+        assertThat(listClusterIds(), is(Collections.singleton("c1")));
+        assertTrue(kubernetes.isDestinationClusterReady("c1"));
+        verify(delegate, never()).listClusters();
+        verify(delegate, never()).isDestinationClusterReady(any());
+    }
+
+    @Test
+    public void testCreatedClusterListedBeforeCacheCatchesUp() {
+        sync();
+
+        kubernetes.create(toList(createClusterResource("c1")));
+        verify(delegate).create(any());
+        assertThat(listClusterIds(), is(Collections.singleton("c1")));
+
+        sync(createClusterResource("c1"));
+        assertThat(listClusterIds(), is(Collections.singleton("c1")));
+
+        // once seen by the cache, the cache decides
+        sync();
+        assertTrue(listClusterIds().isEmpty());
+    }
+
+    @Test
+    public void testDeletedClusterHiddenBeforeCacheCatchesUp() {
+        sync(createClusterResource("c1"), createClusterResource("c2"));
+
+        kubernetes.delete(toList(createClusterResource("c1")));
+        verify(delegate).delete(any());
+        assertThat(listClusterIds(), is(Collections.singleton("c2")));
+
+        // still in the cache, still hidden
+        sync(createClusterResource("c1"), createClusterResource("c2"));
+        assertThat(listClusterIds(), is(Collections.singleton("c2")));
+
+        // gone from the cache, then created again by someone else
+        sync(createClusterResource("c2"));
+        sync(createClusterResource("c1"), createClusterResource("c2"));
+        assertThat(listClusterIds(), is(new HashSet<>(Arrays.asList("c1", "c2"))));
+    }
+
+    private static KubernetesList toList(HasMetadata ... items) {
+        KubernetesList list = new KubernetesList();
+        list.setItems(Arrays.asList(items));
+        return list;
+    }
+
+    private static ConfigMap createClusterResource(String clusterId) {
+        return new ConfigMapBuilder()
+                .editOrNewMetadata()
+                .withName(clusterId)
+                .addToAnnotations(AnnotationKeys.CLUSTER_ID, clusterId)
+                .addToLabels("app", "enmasse")
+                .endMetadata()
+                .build();
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.config.AnnotationKeys;
+import io.fabric8.kubernetes.api.model.ConfigMapBuilder;
+import io.fabric8.kubernetes.api.model.HasMetadata;
+import io.fabric8.kubernetes.api.model.extensions.DeploymentBuilder;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class KubernetesHelperTest {
+
+    private static HasMetadata createDeployment(String name, String clusterId, int replicas, int available) {
+        return new DeploymentBuilder()
+                .editOrNewMetadata()
+                .withName(name)
+                .addToAnnotations(AnnotationKeys.CLUSTER_ID, clusterId)
+                .addToLabels("app", "enmasse")
+                .endMetadata()
+                .editOrNewSpec()
+                .withReplicas(replicas)
+                .endSpec()
+                .editOrNewStatus()
+                .withReplicas(replicas)
+                .withAvailableReplicas(available)
+                .endStatus()
+                .build();
+    }
+
+    @Test
+    public void testGroupByClusterId() {
+        HasMetadata unrelated = new ConfigMapBuilder()
+                .editOrNewMetadata()
+                .withName("unrelated")
+                .addToLabels("app", "enmasse")
+                .endMetadata()
+                .build();
+        HasMetadata config = new ConfigMapBuilder()
+                .editOrNewMetadata()
+                .withName("c1")
+                .addToAnnotations(AnnotationKeys.CLUSTER_ID, "c1")
+                .addToLabels("app", "enmasse")
+                .endMetadata()
+                .build();
+
+        Map<String, List<HasMetadata>> byCluster = KubernetesHelper.groupByClusterId(Arrays.asList(
+                unrelated,
+                config,
+                createDeployment("c1", "c1", 1, 1),
+                createDeployment("c2", "c2", 1, 0)));
+
+        assertThat(byCluster.size(), is(2));
+        assertThat(byCluster.get("c1").size(), is(2));
+        assertThat(byCluster.get("c2").size(), is(1));
+
+        assertTrue(KubernetesHelper.areAllDeploymentsReady(byCluster.get("c1")));
+        assertFalse(KubernetesHelper.areAllDeploymentsReady(byCluster.get("c2")));
+        assertThat(KubernetesHelper.toClusters(byCluster).size(), is(2));
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.Status;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmark for indexing a router status dump and checking all addresses against it.
+ * The dump is synthetic, half of the addresses being queues and half sharded topics.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RouterStatusBenchmark {
+
+    @Param({"1000", "10000"})
+    private int numAddresses;
+
+    @Param({"3"})
+    private int numRouters;
+
+    private List<Address> queues;
+    private List<Address> topics;
+    private List<List<String>> addressDump;
+    private List<List<List<String>>> autoLinkDump;
+    private List<List<List<String>>> linkRouteDump;
+    private List<List<String>> connectionDump;
+    private List<RouterStatus> routerStatusList;
+
+    @Setup
+    public void setup() {
+        queues = new ArrayList<>();
+        topics = new ArrayList<>();
+        addressDump = new ArrayList<>();
+        autoLinkDump = new ArrayList<>();
+        linkRouteDump = new ArrayList<>();
+        connectionDump = new ArrayList<>();
+
+        for (int r = 0; r < numRouters; r++) {
+            addressDump.add(new ArrayList<>());
+            autoLinkDump.add(new ArrayList<>());
+            linkRouteDump.add(new ArrayList<>());
+            connectionDump.add(new ArrayList<>());
+        }
+
+        for (int i = 0; i < numAddresses; i++) {
+            String name = "address-" + i;
+            if (i % 2 == 0) {
+                queues.add(createAddress(name, "queue"));
+                for (int r = 0; r < numRouters; r++) {
+                    addressDump.get(r).add(name);
+                    // each direction active on one router only
+                    autoLinkDump.get(r).add(Arrays.asList(name, "broker-0", "in", r == i % numRouters ? "active" : "inactive"));
+                    autoLinkDump.get(r).add(Arrays.asList(name, "broker-0", "out", r == i % numRouters ? "active" : "inactive"));
+                }
+            } else {
+                topics.add(createAddress(name, "topic"));
+                for (int r = 0; r < numRouters; r++) {
+                    linkRouteDump.get(r).add(Arrays.asList(name, name, "in", "inactive"));
+                    linkRouteDump.get(r).add(Arrays.asList(name, name, "out", "inactive"));
+                }
+                connectionDump.get(i % numRouters).add(name + "-0.broker");
+            }
+        }
+
+        routerStatusList = build();
+    }
+
+    private static Address createAddress(String name, String type) {
+        return new Address.Builder()
+                .setName(name)
+                .setAddress(name)
+                .setAddressSpace("myspace")
+                .setType(type)
+                .setPlan("plan")
+                .setStatus(new Status(true))
+                .build();
+    }
+
+    @Benchmark
+    public List<RouterStatus> build() {
+        List<RouterStatus> list = new ArrayList<>();
+        for (int r = 0; r < numRouters; r++) {
+            list.add(new RouterStatus("router-" + r, addressDump.get(r), autoLinkDump.get(r), linkRouteDump.get(r), connectionDump.get(r)));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public int checkAll() {
+        int ok = 0;
+        for (Address address : queues) {
+            for (RouterStatus routerStatus : routerStatusList) {
+                ok += routerStatus.checkAddress(address);
+                ok += routerStatus.checkAutoLinks(address);
+            }
+            ok += RouterStatus.checkActiveAutoLink(address, routerStatusList);
+        }
+        for (Address address : topics) {
+            for (RouterStatus routerStatus : routerStatusList) {
+                ok += routerStatus.checkLinkRoutes(address);
+            }
+            ok += RouterStatus.checkConnection(address, routerStatusList);
+        }
+        return ok;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(RouterStatusBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import io.enmasse.address.model.Address;
+import io.enmasse.address.model.Status;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RouterStatusTest {
+
+    private static Address createAddress(String name) {
+        return new Address.Builder()
+                .setName(name)
+                .setAddress(name)
+                .setAddressSpace("myspace")
+                .setType("queue")
+                .setPlan("plan")
+                .setStatus(new Status(true))
+                .build();
+    }
+
+    @Test
+    public void testAutoLinks() {
+        RouterStatus r1 = new RouterStatus("r1", Arrays.asList("q1", "q2"),
+                Arrays.asList(
+                        Arrays.asList("q1", "broker", "in", "active"),
+                        Arrays.asList("q1", "broker", "out", "inactive"),
+                        Arrays.asList("q2", "broker", "in", "inactive")),
+                Collections.emptyList(), Collections.emptyList());
+        RouterStatus r2 = new RouterStatus("r2", Arrays.asList("q1"),
+                Arrays.asList(
+                        Arrays.asList("q1", "broker", "in", "inactive"),
+                        Arrays.asList("q1", "broker", "out", "active")),
+                Collections.emptyList(), Collections.emptyList());
+        List<RouterStatus> routers = Arrays.asList(r1, r2);
+
+        Address q1 = createAddress("q1");
+        assertEquals(1, r1.checkAddress(q1));
+        assertEquals(2, r1.checkAutoLinks(q1));
+        assertEquals(1, RouterStatus.checkActiveAutoLink(q1, routers));
+        assertTrue(q1.getStatus().isReady());
+
+        Address q2 = createAddress("q2");
+        assertEquals(0, r2.checkAddress(q2));
+        assertEquals(1, r1.checkAutoLinks(q2));
+        assertEquals(0, RouterStatus.checkActiveAutoLink(q2, routers));
+        assertFalse(q2.getStatus().isReady());
+        assertEquals(3, q2.getStatus().getMessages().size());
+    }
+
+    @Test
+    public void testConnectionPrefix() {
+        RouterStatus r1 = new RouterStatus("r1", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                Arrays.asList("router-1", "t1-0.broker", "t10-0.broker"));
+        RouterStatus r2 = new RouterStatus("r2", Collections.emptyList(), Collections.emptyList(), Collections.emptyList(),
+                Arrays.asList("t1-1.broker"));
+        List<RouterStatus> routers = Arrays.asList(r1, r2);
+
+        assertEquals(2, RouterStatus.checkConnection(createAddress("t1"), routers));
+        assertEquals(1, RouterStatus.checkConnection(createAddress("t10"), routers));
+
+        Address t2 = createAddress("t2");
+        assertEquals(0, RouterStatus.checkConnection(t2, routers));
+        assertFalse(t2.getStatus().isReady());
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2018, EnMasse authors.
+ * License: Apache License 2.0 (see the file LICENSE or http://apache.org/licenses/LICENSE-2.0.html).
+ */
+package io.enmasse.controller.standard;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.*;
+
+public class UsageLedgerTest {
+    private static final Pattern pooledPattern = Pattern.compile("^broker-\\d+");
+
+    @Test
+    public void testRunningTotals() {
+        Map<String, Map<String, UsageInfo>> usageMap = new HashMap<>();
+        UsageInfo routerUsage = new UsageInfo();
+        routerUsage.addUsed(0.5);
+        usageMap.computeIfAbsent("router", k -> new HashMap<>()).put("all", routerUsage);
+
+        UsageLedger ledger = new UsageLedger(usageMap, pooledPattern, new CreditOrderedPlacement(false));
+        assertThat(ledger.getNeeded("router"), is(1));
+        assertThat(ledger.getTotalNeeded(), is(1));
+
+        ledger.addUsed("router", "all", 0.6);
+        ledger.addUsed("broker", "queue1", 2);
+        assertThat(ledger.getNeeded("router"), is(2));
+        assertThat(ledger.getNeeded("broker"), is(2));
+        assertThat(ledger.getTotalNeeded(), is(4));
+        assertThat(AddressProvisioner.sumTotalNeeded(ledger.getUsage()), is(4));
+
+        // initial usage left untouched
+        assertThat(routerUsage.getUsed(), is(0.5));
+    }
+
+    @Test
+    public void testRollback() {
+        UsageLedger ledger = new UsageLedger(new HashMap<>(), pooledPattern, new CreditOrderedPlacement(false));
+        ledger.allocatePooledBroker();
+        ledger.addUsed("broker", "broker-0", 0.5);
+        ledger.commit();
+
+        ledger.addUsed("broker", "broker-0", 0.3);
+        ledger.addUsed("router", "all", 0.1);
+        assertThat(ledger.getTotalNeeded(), is(2));
+        ledger.rollback();
+
+        assertThat(ledger.getTotalNeeded(), is(1));
+        assertFalse(ledger.getUsage().containsKey("router"));
+        assertThat(ledger.getUsage().get("broker").get("broker-0").getUsed(), is(0.5));
+        assertThat(ledger.findPooledBroker(0.4), is(Optional.of("broker-0")));
+    }
+
+    @Test
+    public void testFindLeastUsedPooledBroker() {
+        UsageLedger ledger = new UsageLedger(new HashMap<>(), pooledPattern, new CreditOrderedPlacement(false));
+        assertFalse(ledger.findPooledBroker(0.1).isPresent());
+
+        assertThat(ledger.allocatePooledBroker(), is("broker-0"));
+        assertThat(ledger.allocatePooledBroker(), is("broker-1"));
+        ledger.addUsed("broker", "broker-0", 0.6);
+        ledger.addUsed("broker", "broker-1", 0.4);
+        // sharded brokers are not candidates
+        ledger.addUsed("broker", "queue1", 0.1);
+
+        assertThat(ledger.findPooledBroker(0.5), is(Optional.of("broker-1")));
+        assertFalse(ledger.findPooledBroker(0.6).isPresent());
+    }
+
+    @Test
+    public void testAllocatePooledBrokerWithGaps() {
+        Map<String, Map<String, UsageInfo>> usageMap = new HashMap<>();
+        Map<String, UsageInfo> brokers = usageMap.computeIfAbsent("broker", k -> new HashMap<>());
+        brokers.put("broker-0", new UsageInfo());
+        brokers.put("broker-2", new UsageInfo());
+
+        UsageLedger ledger = new UsageLedger(usageMap, pooledPattern, new CreditOrderedPlacement(false));
+        assertThat(ledger.allocatePooledBroker(), is("broker-1"));
+        assertThat(ledger.allocatePooledBroker(), is("broker-3"));
+    }
+}